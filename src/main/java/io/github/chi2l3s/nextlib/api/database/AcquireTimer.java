@@ -0,0 +1,24 @@
+package io.github.chi2l3s.nextlib.api.database;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative time spent waiting for pooled connections, recorded by the connection supplier of a client.
+ */
+final class AcquireTimer {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    void record(long elapsedNanos) {
+        count.increment();
+        nanos.add(elapsedNanos);
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getTotalNanos() {
+        return nanos.sum();
+    }
+}
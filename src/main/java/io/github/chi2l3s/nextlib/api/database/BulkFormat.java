@@ -0,0 +1,225 @@
+package io.github.chi2l3s.nextlib.api.database;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary row format used by bulk exports and imports.
+ * <p>
+ * A stream starts with the magic {@code NLBK}, a version byte and the column names. Every row is a {@code 1}
+ * marker followed by one tagged value per column; a {@code 0} marker ends the stream, so a truncated file is
+ * detected instead of silently importing a prefix. Integers and lengths are zigzag varints, so typical rows take
+ * a few bytes per column.
+ * </p>
+ */
+final class BulkFormat {
+    private static final byte[] MAGIC = {'N', 'L', 'B', 'K'};
+    private static final int VERSION = 1;
+
+    static final byte NULL = 0;
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte STRING = 3;
+    static final byte BYTES = 4;
+    static final byte TRUE = 5;
+    static final byte FALSE = 6;
+    static final byte DECIMAL = 7;
+    static final byte TIMESTAMP = 8;
+    static final byte DATE = 9;
+
+    private BulkFormat() {
+    }
+
+    static final class Writer {
+        private final DataOutputStream out;
+        private final int columnCount;
+
+        Writer(OutputStream out, List<String> columns) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+            this.columnCount = columns.size();
+            this.out.write(MAGIC);
+            this.out.writeByte(VERSION);
+            writeVarLong(columns.size());
+            for (String column : columns) {
+                writeString(column);
+            }
+        }
+
+        void writeRow(Object[] values) throws IOException {
+            if (values.length != columnCount) {
+                throw new IllegalArgumentException("Expected " + columnCount + " values but got " + values.length);
+            }
+            out.writeByte(1);
+            for (Object value : values) {
+                writeValue(value);
+            }
+        }
+
+        /**
+         * Writes the end marker and flushes, leaving the underlying stream open.
+         */
+        void finish() throws IOException {
+            out.writeByte(0);
+            out.flush();
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+            } else if (value instanceof Boolean bool) {
+                out.writeByte(bool ? TRUE : FALSE);
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+                    || value instanceof Byte) {
+                out.writeByte(LONG);
+                writeVarLong(((Number) value).longValue());
+            } else if (value instanceof Double || value instanceof Float) {
+                out.writeByte(DOUBLE);
+                out.writeDouble(((Number) value).doubleValue());
+            } else if (value instanceof BigDecimal decimal) {
+                out.writeByte(DECIMAL);
+                writeString(decimal.toPlainString());
+            } else if (value instanceof byte[] bytes) {
+                out.writeByte(BYTES);
+                writeVarLong(bytes.length);
+                out.write(bytes);
+            } else if (value instanceof Timestamp timestamp) {
+                out.writeByte(TIMESTAMP);
+                writeVarLong(timestamp.getTime());
+                writeVarLong(timestamp.getNanos());
+            } else if (value instanceof Date date) {
+                out.writeByte(DATE);
+                writeString(date.toString());
+            } else {
+                out.writeByte(STRING);
+                writeString(value.toString());
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            out.writeByte((int) zigzag);
+        }
+    }
+
+    static final class Reader {
+        private final DataInputStream in;
+        private final List<String> columns;
+
+        Reader(InputStream in) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+            byte[] magic = new byte[MAGIC.length];
+            this.in.readFully(magic);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (magic[i] != MAGIC[i]) {
+                    throw new IOException("Not a bulk export stream");
+                }
+            }
+            int version = this.in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported bulk export version " + version);
+            }
+            int count = (int) readVarLong();
+            List<String> names = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                names.add(readString());
+            }
+            this.columns = List.copyOf(names);
+        }
+
+        List<String> getColumns() {
+            return columns;
+        }
+
+        /**
+         * Reads the next row, or returns {@code null} at the end marker.
+         *
+         * @throws EOFException if the stream ends without an end marker
+         */
+        Object[] readRow() throws IOException {
+            int marker = in.readUnsignedByte();
+            if (marker == 0) {
+                return null;
+            }
+            if (marker != 1) {
+                throw new IOException("Corrupt bulk export stream");
+            }
+            Object[] values = new Object[columns.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readValue();
+            }
+            return values;
+        }
+
+        private Object readValue() throws IOException {
+            byte tag = in.readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case LONG:
+                    return readVarLong();
+                case DOUBLE:
+                    return in.readDouble();
+                case STRING:
+                    return readString();
+                case BYTES:
+                    byte[] bytes = new byte[(int) readVarLong()];
+                    in.readFully(bytes);
+                    return bytes;
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case DECIMAL:
+                    return new BigDecimal(readString());
+                case TIMESTAMP:
+                    Timestamp timestamp = new Timestamp(readVarLong());
+                    timestamp.setNanos((int) readVarLong());
+                    return timestamp;
+                case DATE:
+                    return Date.valueOf(readString());
+                default:
+                    throw new IOException("Unknown value tag " + tag);
+            }
+        }
+
+        private String readString() throws IOException {
+            byte[] bytes = new byte[(int) readVarLong()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private long readVarLong() throws IOException {
+            long zigzag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package io.github.chi2l3s.nextlib.api.database;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads a {@link BulkFormat} stream into a table using the fastest path of the connected engine.
+ * <p>
+ * PostgreSQL receives the rows as CSV through {@code COPY ... FROM STDIN} and MySQL as tab-separated text through
+ * {@code LOAD DATA LOCAL INFILE} with an in-memory stream; both are reached through reflection so neither driver
+ * is a compile-time dependency. SQLite, and the other engines when their fast path is unavailable, use batched
+ * prepared inserts inside a single transaction. Rows are converted while the driver reads them, so memory stays
+ * bounded by one chunk regardless of the stream size.
+ * </p>
+ */
+final class BulkLoader {
+    private static final Logger LOGGER = Logger.getLogger(BulkLoader.class.getName());
+    private static final int BATCH_SIZE = 1000;
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    private BulkLoader() {
+    }
+
+    static long load(Connection connection, DatabaseType type, String table, BulkFormat.Reader reader,
+                     BulkProgressListener progress) throws SQLException, IOException {
+        String columns = String.join(", ", reader.getColumns());
+        TextRowStream stream = null;
+        try {
+            if (type == DatabaseType.POSTGRESQL) {
+                stream = new TextRowStream(reader, true, progress);
+                if (copyIn(connection, "COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv)",
+                        stream)) {
+                    return stream.finish();
+                }
+            } else if (type == DatabaseType.MYSQL) {
+                stream = new TextRowStream(reader, false, progress);
+                if (loadLocal(connection, "LOAD DATA LOCAL INFILE 'nextlib-bulk' INTO TABLE " + table
+                        + " CHARACTER SET binary FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\'"
+                        + " LINES TERMINATED BY '\\n' (" + columns + ")", stream)) {
+                    return stream.finish();
+                }
+            }
+        } catch (SQLException exception) {
+            // Nothing was consumed yet, e.g. allowLoadLocalInfile is disabled: the insert path can still run
+            if (stream == null || stream.rows > 0) {
+                throw exception;
+            }
+            LOGGER.log(Level.WARNING, "Bulk fast path unavailable for '" + table + "', using batched inserts",
+                    exception);
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+        return insert(connection, table, reader, progress);
+    }
+
+    private static boolean copyIn(Connection connection, String sql, InputStream stream) throws SQLException {
+        Class<?> pgConnection = driverClass("org.postgresql.PGConnection");
+        if (pgConnection == null || !connection.isWrapperFor(pgConnection)) {
+            return false;
+        }
+        Object copyManager = invoke(pgConnection, connection.unwrap(pgConnection), "getCopyAPI", new Class<?>[0]);
+        invoke(copyManager.getClass(), copyManager, "copyIn", new Class<?>[]{String.class, InputStream.class},
+                sql, stream);
+        return true;
+    }
+
+    private static boolean loadLocal(Connection connection, String sql, InputStream stream) throws SQLException {
+        Class<?> jdbcStatement = driverClass("com.mysql.cj.jdbc.JdbcStatement");
+        if (jdbcStatement == null) {
+            return false;
+        }
+        try (Statement statement = connection.createStatement()) {
+            if (!statement.isWrapperFor(jdbcStatement)) {
+                return false;
+            }
+            invoke(jdbcStatement, statement.unwrap(jdbcStatement), "setLocalInfileInputStream",
+                    new Class<?>[]{InputStream.class}, stream);
+            statement.execute(sql);
+            return true;
+        }
+    }
+
+    private static long insert(Connection connection, String table, BulkFormat.Reader reader,
+                               BulkProgressListener progress) throws SQLException, IOException {
+        List<String> columns = reader.getColumns();
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            long rows = 0;
+            int pending = 0;
+            for (Object[] row; (row = reader.readRow()) != null; ) {
+                for (int i = 0; i < row.length; i++) {
+                    bind(statement, i + 1, row[i]);
+                }
+                statement.addBatch();
+                rows++;
+                if (++pending == BATCH_SIZE) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+                if (rows % BulkProgressListener.INTERVAL == 0) {
+                    progress.onProgress(rows);
+                }
+            }
+            if (pending > 0) {
+                statement.executeBatch();
+            }
+            connection.commit();
+            progress.onProgress(rows);
+            return rows;
+        } catch (SQLException | IOException | RuntimeException exception) {
+            connection.rollback();
+            throw exception;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void bind(PreparedStatement statement, int index, Object value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.NULL);
+        } else if (value instanceof Timestamp timestamp) {
+            statement.setTimestamp(index, timestamp);
+        } else if (value instanceof Date date) {
+            statement.setDate(index, date);
+        } else {
+            statement.setObject(index, value);
+        }
+    }
+
+    private static Class<?> driverClass(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException exception) {
+            return null;
+        }
+    }
+
+    private static Object invoke(Class<?> type, Object target, String method, Class<?>[] parameterTypes,
+                                 Object... arguments) throws SQLException {
+        try {
+            return type.getMethod(method, parameterTypes).invoke(target, arguments);
+        } catch (InvocationTargetException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (cause instanceof IOException ioException) {
+                throw new UncheckedIOException(ioException);
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new DatabaseException("Bulk load failed", cause);
+        } catch (ReflectiveOperationException exception) {
+            throw new DatabaseException("Incompatible JDBC driver for bulk load", exception);
+        }
+    }
+
+    /**
+     * Encodes rows as CSV (PostgreSQL) or MySQL's escaped tab-separated text, one chunk at a time.
+     */
+    private static final class TextRowStream extends InputStream {
+        private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+        private final BulkFormat.Reader reader;
+        private final boolean csv;
+        private final BulkProgressListener progress;
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(CHUNK_BYTES + 1024);
+        private byte[] chunk = new byte[0];
+        private int position;
+        private boolean done;
+        private long rows;
+
+        private TextRowStream(BulkFormat.Reader reader, boolean csv, BulkProgressListener progress) {
+            this.reader = reader;
+            this.csv = csv;
+            this.progress = progress;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (position == chunk.length) {
+                if (done) {
+                    return -1;
+                }
+                fill();
+            }
+            int count = Math.min(length, chunk.length - position);
+            System.arraycopy(chunk, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        long finish() {
+            progress.onProgress(rows);
+            return rows;
+        }
+
+        private void fill() throws IOException {
+            out.reset();
+            while (out.size() < CHUNK_BYTES) {
+                Object[] row = reader.readRow();
+                if (row == null) {
+                    done = true;
+                    break;
+                }
+                for (int i = 0; i < row.length; i++) {
+                    if (i > 0) {
+                        out.write(csv ? ',' : '\t');
+                    }
+                    if (csv) {
+                        writeCsv(row[i]);
+                    } else {
+                        writeMySql(row[i]);
+                    }
+                }
+                out.write('\n');
+                if (++rows % BulkProgressListener.INTERVAL == 0) {
+                    progress.onProgress(rows);
+                }
+            }
+            chunk = out.toByteArray();
+            position = 0;
+        }
+
+        private void writeCsv(Object value) {
+            if (value == null) {
+                return;
+            }
+            if (value instanceof byte[] bytes) {
+                out.write('\\');
+                out.write('x');
+                for (byte b : bytes) {
+                    out.write(HEX[(b >> 4) & 0xF]);
+                    out.write(HEX[b & 0xF]);
+                }
+            } else if (value instanceof Boolean bool) {
+                out.write(bool ? 't' : 'f');
+            } else if (value instanceof Number) {
+                writeAscii(plain(value));
+            } else {
+                // Quoting keeps empty strings distinct from NULL
+                byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+                out.write('"');
+                for (byte b : bytes) {
+                    if (b == '"') {
+                        out.write('"');
+                    }
+                    out.write(b);
+                }
+                out.write('"');
+            }
+        }
+
+        private void writeMySql(Object value) {
+            if (value == null) {
+                out.write('\\');
+                out.write('N');
+            } else if (value instanceof byte[] bytes) {
+                writeEscaped(bytes);
+            } else if (value instanceof Boolean bool) {
+                out.write(bool ? '1' : '0');
+            } else if (value instanceof Number) {
+                writeAscii(plain(value));
+            } else {
+                writeEscaped(value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        private void writeEscaped(byte[] bytes) {
+            for (byte b : bytes) {
+                switch (b) {
+                    case '\\' -> {
+                        out.write('\\');
+                        out.write('\\');
+                    }
+                    case '\t' -> {
+                        out.write('\\');
+                        out.write('t');
+                    }
+                    case '\n' -> {
+                        out.write('\\');
+                        out.write('n');
+                    }
+                    case '\r' -> {
+                        out.write('\\');
+                        out.write('r');
+                    }
+                    case 0 -> {
+                        out.write('\\');
+                        out.write('0');
+                    }
+                    default -> out.write(b);
+                }
+            }
+        }
+
+        private void writeAscii(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                out.write(value.charAt(i));
+            }
+        }
+
+        private static String plain(Object number) {
+            return number instanceof BigDecimal decimal ? decimal.toPlainString() : number.toString();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.chi2l3s.nextlib.api.database;
+
+/**
+ * Receives progress of a bulk export or import.
+ * <p>
+ * Called from the thread running the transfer, every {@value #INTERVAL} rows and once more with the final count.
+ * </p>
+ *
+ * @see DatabaseClient#exportTable(String, java.util.List, java.io.OutputStream, BulkProgressListener)
+ * @see DatabaseClient#importTable(String, java.io.InputStream, BulkProgressListener)
+ * @since 1.0.8
+ */
+@FunctionalInterface
+public interface BulkProgressListener {
+    int INTERVAL = 10_000;
+
+    BulkProgressListener NONE = rows -> {
+    };
+
+    /**
+     * @param rows number of rows transferred so far
+     */
+    void onProgress(long rows);
+}
@@ -1,18 +1,58 @@
 package io.github.chi2l3s.nextlib.api.database;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public final class DatabaseClient {
     private final SqlSupplier<Connection> connectionSupplier;
+    private final DatabaseType type;
+    private final CompletableFuture<Void> ready;
 
-    DatabaseClient(SqlSupplier<Connection> connectionSupplier) {
+    DatabaseClient(SqlSupplier<Connection> connectionSupplier, DatabaseType type) {
+        this(connectionSupplier, type, CompletableFuture.completedFuture(null));
+    }
+
+    DatabaseClient(SqlSupplier<Connection> connectionSupplier, DatabaseType type, CompletableFuture<Void> ready) {
         this.connectionSupplier = connectionSupplier;
+        this.type = type;
+        this.ready = ready;
+    }
+
+    /**
+     * Returns the database engine this client is connected to.
+     *
+     * @return the database type
+     */
+    public DatabaseType getType() {
+        return type;
+    }
+
+    /**
+     * Returns a future completed once the connection pool is started and warmed up. Already completed for
+     * clients registered with {@link DatabaseManager#register(String, DatabaseConfig)}.
+     *
+     * @return pool readiness, completed exceptionally if the pool failed to start
+     * @since 1.0.8
+     */
+    public CompletableFuture<Void> whenReady() {
+        return ready.copy();
     }
 
     public Connection openConnection() {
@@ -49,6 +89,61 @@ public final class DatabaseClient {
         }
     }
 
+    /**
+     * Executes a query and maps its rows lazily as they are fetched.
+     * <p>
+     * The statement uses a forward-only cursor with the given fetch size, so only about {@code fetchSize} rows
+     * are held in memory at once. On PostgreSQL the query runs in a read-only transaction, which the driver
+     * requires for cursor-based fetching. MySQL only honours the fetch size with the {@code useCursorFetch}
+     * connection property, set through {@code DatabaseConfig.builder(...).property("useCursorFetch", "true")};
+     * it also makes the driver use server-side prepared statements for the whole pool. Without it, Connector/J
+     * reads the complete result before the first row is returned.
+     * </p>
+     * <p>
+     * The returned stream holds a pooled connection until it is exhausted or closed, so always consume it
+     * inside try-with-resources.
+     * </p>
+     *
+     * @param sql       query SQL
+     * @param binder    parameter binder, may be null
+     * @param mapper    row mapper
+     * @param fetchSize rows fetched per round trip, must be positive
+     * @param <T>       row type
+     * @return lazily mapped rows
+     * @throws QueryExecutionException if the query cannot be executed
+     */
+    public <T> Stream<T> stream(String sql,
+                                SqlConsumer<PreparedStatement> binder,
+                                SqlFunction<ResultSet, T> mapper,
+                                int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("fetchSize must be positive");
+        }
+        Connection connection = openConnection();
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        boolean restoreAutoCommit = false;
+        try {
+            if (type == DatabaseType.POSTGRESQL && connection.getAutoCommit()) {
+                connection.setReadOnly(true);
+                connection.setAutoCommit(false);
+                restoreAutoCommit = true;
+            }
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            if (binder != null) {
+                binder.accept(statement);
+            }
+            resultSet = statement.executeQuery();
+        } catch (SQLException exception) {
+            ResultSetCursor.closeQuietly(connection, statement, resultSet, restoreAutoCommit);
+            throw new QueryExecutionException(sql, exception);
+        }
+        ResultSetCursor<T> cursor = new ResultSetCursor<>(sql, connection, statement, resultSet, mapper,
+                restoreAutoCommit);
+        return StreamSupport.stream(cursor, false).onClose(cursor::close);
+    }
+
     public <T> Optional<T> queryOne(String sql, SqlConsumer<PreparedStatement> binder, SqlFunction<ResultSet, T> mapper) {
         List<T> results = query(sql, binder, mapper);
         if (results.isEmpty()) {
@@ -88,4 +183,151 @@ public final class DatabaseClient {
         }
     }
 
+    /**
+     * Streams the given columns of every row of a table to {@code out} in a compact binary format readable by
+     * {@link #importTable(String, InputStream, BulkProgressListener)}.
+     * <p>
+     * Rows are fetched through a cursor and written as they arrive, so memory stays bounded for any table size.
+     * The stream is flushed but not closed.
+     * </p>
+     *
+     * @param table    table name
+     * @param columns  columns to export, in order
+     * @param out      destination stream
+     * @param progress progress callback, may be null
+     * @return number of exported rows
+     * @throws DatabaseException if reading the table or writing the stream fails
+     * @since 1.0.8
+     */
+    public long exportTable(String table, List<String> columns, OutputStream out, BulkProgressListener progress) {
+        Objects.requireNonNull(out, "out");
+        if (columns == null || columns.isEmpty()) {
+            throw new IllegalArgumentException("columns must not be empty");
+        }
+        BulkProgressListener listener = progress != null ? progress : BulkProgressListener.NONE;
+        String sql = "SELECT " + String.join(", ", columns) + " FROM " + table;
+        try (Stream<Object[]> rows = stream(sql, null, resultSet -> {
+            Object[] values = new Object[columns.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = resultSet.getObject(i + 1);
+            }
+            return values;
+        }, 1000)) {
+            BulkFormat.Writer writer = new BulkFormat.Writer(out, columns);
+            long count = 0;
+            for (Iterator<Object[]> iterator = rows.iterator(); iterator.hasNext(); ) {
+                writer.writeRow(iterator.next());
+                if (++count % BulkProgressListener.INTERVAL == 0) {
+                    listener.onProgress(count);
+                }
+            }
+            writer.finish();
+            listener.onProgress(count);
+            return count;
+        } catch (IOException exception) {
+            throw new DatabaseException("Failed to write bulk export of '" + table + "'", exception);
+        }
+    }
+
+    /**
+     * Loads a stream written by {@link #exportTable(String, List, OutputStream, BulkProgressListener)} into an
+     * existing table, using the fastest path of the engine.
+     * <p>
+     * PostgreSQL uses {@code COPY ... FROM STDIN}; MySQL uses {@code LOAD DATA LOCAL INFILE} fed from memory,
+     * which requires the {@code allowLoadLocalInfile=true} connection property (without it the import falls back
+     * to batched inserts); SQLite uses batched prepared inserts in one transaction. Every path is a single
+     * statement or transaction, so a failed import leaves the table unchanged. The target should not contain
+     * rows with the same keys: PostgreSQL and SQLite fail on duplicates, MySQL skips them.
+     * </p>
+     *
+     * @param table    table name; the stream's columns must exist in it
+     * @param in       source stream, read to its end marker but not closed
+     * @param progress progress callback, may be null
+     * @return number of imported rows
+     * @throws DatabaseException if the stream is malformed or truncated, or the load fails
+     * @since 1.0.8
+     */
+    public long importTable(String table, InputStream in, BulkProgressListener progress) {
+        Objects.requireNonNull(in, "in");
+        BulkProgressListener listener = progress != null ? progress : BulkProgressListener.NONE;
+        try (Connection connection = openConnection()) {
+            return BulkLoader.load(connection, type, table, new BulkFormat.Reader(in), listener);
+        } catch (SQLException exception) {
+            throw new QueryExecutionException(table, "Failed to bulk import into table", exception);
+        } catch (IOException exception) {
+            throw new DatabaseException("Failed to read bulk import for '" + table + "'", exception);
+        }
+    }
+
+    /**
+     * Copies a table into a table of another database, streaming the export into the import on a background
+     * thread so no intermediate file is needed.
+     *
+     * <pre>{@code
+     * long rows = sqlite.copyTable("players", List.of("id", "name", "coins"), mysql, "players",
+     *     copied -> logger.info("Copied " + copied + " rows"));
+     * }</pre>
+     *
+     * @param table       source table name
+     * @param columns     columns to copy; must exist in both tables
+     * @param target      database to import into
+     * @param targetTable target table name
+     * @param progress    import progress callback, may be null
+     * @return number of copied rows
+     * @throws DatabaseException if the export or the import fails
+     * @since 1.0.8
+     */
+    public long copyTable(String table, List<String> columns, DatabaseClient target, String targetTable,
+                          BulkProgressListener progress) {
+        Objects.requireNonNull(target, "target");
+        Objects.requireNonNull(targetTable, "targetTable");
+        PipedInputStream input = new PipedInputStream(64 * 1024);
+        PipedOutputStream output;
+        try {
+            output = new PipedOutputStream(input);
+        } catch (IOException exception) {
+            throw new DatabaseException("Failed to open bulk copy pipe", exception);
+        }
+        CompletableFuture<Long> export = CompletableFuture.supplyAsync(() -> {
+            try (PipedOutputStream pipe = output) {
+                return exportTable(table, columns, pipe, null);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }, runnable -> {
+            Thread thread = new Thread(runnable, "nextlib-bulk-export-" + table);
+            thread.setDaemon(true);
+            thread.start();
+        });
+        long imported;
+        try (PipedInputStream pipe = input) {
+            imported = target.importTable(targetTable, pipe, progress);
+        } catch (IOException | RuntimeException exception) {
+            // A failed query truncates the stream; report it rather than the truncation. An export that failed
+            // writing only saw the pipe closed by this failed import.
+            RuntimeException failure = exportFailure(export);
+            if (failure != null && !(failure.getCause() instanceof IOException)) {
+                throw failure;
+            }
+            throw exception instanceof RuntimeException runtime ? runtime
+                    : new DatabaseException("Failed to bulk copy '" + table + "'", exception);
+        }
+        RuntimeException failure = exportFailure(export);
+        if (failure != null) {
+            throw failure;
+        }
+        return imported;
+    }
+
+    private static RuntimeException exportFailure(CompletableFuture<Long> export) {
+        try {
+            export.join();
+            return null;
+        } catch (CompletionException exception) {
+            Throwable cause = exception.getCause();
+            return cause instanceof RuntimeException runtime ? runtime
+                    : new DatabaseException("Bulk export failed", cause);
+        }
+    }
+
 }
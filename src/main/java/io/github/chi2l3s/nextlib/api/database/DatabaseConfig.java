@@ -1,7 +1,10 @@
 package io.github.chi2l3s.nextlib.api.database;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -17,6 +20,12 @@ public final class DatabaseConfig {
     private final String username;
     private final String password;
     private final String file;
+    private final String snapshotFile;
+    private final Duration snapshotInterval;
+    private final Duration startupTimeout;
+    private final List<String> warmupStatements;
+    private final int adaptiveMinPoolSize;
+    private final int adaptiveMaxPoolSize;
     private final Map<String, String> properties;
 
     private DatabaseConfig(Builder builder) {
@@ -27,6 +36,12 @@ public final class DatabaseConfig {
         this.username = builder.username;
         this.password = builder.password;
         this.file = builder.file;
+        this.snapshotFile = builder.snapshotFile;
+        this.snapshotInterval = builder.snapshotInterval;
+        this.startupTimeout = builder.startupTimeout;
+        this.warmupStatements = List.copyOf(builder.warmupStatements);
+        this.adaptiveMinPoolSize = builder.adaptiveMinPoolSize;
+        this.adaptiveMaxPoolSize = builder.adaptiveMaxPoolSize;
         this.properties = Collections.unmodifiableMap(new HashMap<>(builder.properties));
         validate();
     }
@@ -43,9 +58,15 @@ public final class DatabaseConfig {
             case SQLITE:
                 Objects.requireNonNull(file, "file");
                 break;
+            case H2_MEMORY:
+                Objects.requireNonNull(database, "database");
+                break;
             default:
                 throw new IllegalStateException("Unsupported database type: " + type);
         }
+        if (snapshotFile != null && type != DatabaseType.H2_MEMORY) {
+            throw new ConfigurationException("Snapshots are only supported for " + DatabaseType.H2_MEMORY);
+        }
     }
 
     public static Builder builder(DatabaseType type) {
@@ -84,6 +105,50 @@ public final class DatabaseConfig {
         return file;
     }
 
+    /**
+     * Returns the file an in-memory database is snapshotted to, or {@code null} if snapshots are disabled.
+     *
+     * @since 1.0.8
+     */
+    public String getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    public Duration getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    /**
+     * Returns how long the first use of a client registered in the background waits for its pool.
+     *
+     * @since 1.0.8
+     */
+    public Duration getStartupTimeout() {
+        return startupTimeout;
+    }
+
+    public List<String> getWarmupStatements() {
+        return warmupStatements;
+    }
+
+    /**
+     * Returns whether the pool is resized at runtime between {@link #getAdaptiveMinPoolSize()} and
+     * {@link #getAdaptiveMaxPoolSize()}.
+     *
+     * @since 1.0.8
+     */
+    public boolean isAdaptivePoolSize() {
+        return adaptiveMaxPoolSize > 0;
+    }
+
+    public int getAdaptiveMinPoolSize() {
+        return adaptiveMinPoolSize;
+    }
+
+    public int getAdaptiveMaxPoolSize() {
+        return adaptiveMaxPoolSize;
+    }
+
     public Map<String, String> getProperties() {
         return properties;
     }
@@ -96,6 +161,12 @@ public final class DatabaseConfig {
         private String username;
         private String password;
         private String file;
+        private String snapshotFile;
+        private Duration snapshotInterval;
+        private Duration startupTimeout = Duration.ofSeconds(30);
+        private final List<String> warmupStatements = new ArrayList<>();
+        private int adaptiveMinPoolSize;
+        private int adaptiveMaxPoolSize;
         private final Map<String, String> properties = new HashMap<>();
 
         private Builder(DatabaseType type) {
@@ -132,6 +203,78 @@ public final class DatabaseConfig {
             return this;
         }
 
+        /**
+         * Periodically writes an {@link DatabaseType#H2_MEMORY} database to {@code file} and restores it from there
+         * on registration, so a crash loses at most {@code interval} of changes. A final snapshot is written when
+         * the client is closed.
+         *
+         * @param file     snapshot file; written atomically through a temporary sibling
+         * @param interval time between snapshots
+         * @return this builder
+         * @since 1.0.8
+         */
+        public Builder snapshot(String file, Duration interval) {
+            Objects.requireNonNull(interval, "interval");
+            if (interval.isNegative() || interval.isZero()) {
+                throw new IllegalArgumentException("interval must be positive");
+            }
+            this.snapshotFile = Objects.requireNonNull(file, "file");
+            this.snapshotInterval = interval;
+            return this;
+        }
+
+        /**
+         * Sets how long the first use of a client started by
+         * {@link DatabaseManager#registerInBackground(String, DatabaseConfig)} waits for the pool. Defaults to
+         * 30 seconds.
+         *
+         * @since 1.0.8
+         */
+        public Builder startupTimeout(Duration startupTimeout) {
+            Objects.requireNonNull(startupTimeout, "startupTimeout");
+            if (startupTimeout.isNegative()) {
+                throw new IllegalArgumentException("startupTimeout must not be negative");
+            }
+            this.startupTimeout = startupTimeout;
+            return this;
+        }
+
+        /**
+         * Adds a statement prepared on every connection opened by the pool warm-up, e.g. the player lookup run
+         * on every login.
+         *
+         * @since 1.0.8
+         */
+        public Builder warmupStatement(String sql) {
+            this.warmupStatements.add(Objects.requireNonNull(sql, "sql"));
+            return this;
+        }
+
+        /**
+         * Lets the pool size follow the load between {@code min} and {@code max} connections instead of the
+         * fixed {@code maximumPoolSize}.
+         * <p>
+         * The pool starts at {@code maximumPoolSize} clamped into the bounds and keeps {@code min} idle
+         * connections. A controller samples utilization, waiting threads and acquire latency every 5 seconds,
+         * grows the pool under sustained pressure and shrinks it after a minute of low use. Each resize is
+         * logged with the samples behind it. Pools with an {@code idleTimeout} of 0, such as
+         * {@link DatabaseType#H2_MEMORY}, never retire idle connections and are therefore only grown.
+         * </p>
+         *
+         * @param min lower bound, at least 1
+         * @param max upper bound, at least {@code min}
+         * @return this builder
+         * @since 1.0.8
+         */
+        public Builder adaptivePoolSize(int min, int max) {
+            if (min < 1 || max < min) {
+                throw new IllegalArgumentException("Expected 1 <= min <= max but got " + min + " and " + max);
+            }
+            this.adaptiveMinPoolSize = min;
+            this.adaptiveMaxPoolSize = max;
+            return this;
+        }
+
         public Builder property(String key, String value) {
             this.properties.put(key, value);
             return this;
@@ -4,13 +4,20 @@ import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Lightweight connection manager that creates {@link DatabaseClient} instances on demand.
  * <p>
- * Manages multiple database connections with HikariCP pooling. Supports MySQL, PostgreSQL, and SQLite.
+ * Manages multiple database connections with HikariCP pooling. Supports MySQL, PostgreSQL, SQLite and in-memory H2.
  * Each registered client maintains its own connection pool and can be accessed by name or as the default client.
  * </p>
  *
@@ -44,7 +51,8 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public final class DatabaseManager implements AutoCloseable {
     private final Map<String, DatabaseClient> clients = new ConcurrentHashMap<>();
-    private final Map<String, HikariDataSource> dataSources = new ConcurrentHashMap<>();
+    private final Map<String, Pool> pools = new HashMap<>();
+    private final Map<String, CompletableFuture<Pool>> startups = new HashMap<>();
     private volatile String defaultClient;
 
     /**
@@ -111,6 +119,21 @@ public final class DatabaseManager implements AutoCloseable {
         return getOrThrow(defaultClient);
     }
 
+    /**
+     * Returns pool metrics of a started client, including the connection acquire time measured by the client.
+     *
+     * @param name the client name
+     * @return metrics, or empty if no such client exists or its pool is still starting
+     * @since 1.0.8
+     */
+    public Optional<DatabaseMetrics> getMetrics(String name) {
+        Pool pool;
+        synchronized (pools) {
+            pool = pools.get(name);
+        }
+        return pool != null ? Optional.of(new DatabaseMetrics(pool.dataSource, pool.acquireTimer)) : Optional.empty();
+    }
+
     /**
      * Unregisters and closes a database client.
      * <p>
@@ -140,19 +163,167 @@ public final class DatabaseManager implements AutoCloseable {
         this.defaultClient = name;
     }
 
+    /**
+     * Registers a database client whose pool starts on a background thread, so several pools connect in
+     * parallel and plugin enable does not block on the network.
+     * <p>
+     * The client is returned immediately. Its first use waits for the pool for at most
+     * {@link DatabaseConfig#getStartupTimeout()} and then fails with a {@link DatabaseConnectionException};
+     * {@link DatabaseClient#whenReady()} completes once the pool is started and warmed up. The warm-up opens
+     * {@code minimumIdle} connections and prepares every {@link DatabaseConfig.Builder#warmupStatement(String)}
+     * on each of them, which fills the driver's statement cache when it has one.
+     * </p>
+     *
+     * <pre>{@code
+     * DatabaseClient main = manager.registerInBackground("main", mainConfig);
+     * DatabaseClient stats = manager.registerInBackground("stats", statsConfig);
+     * manager.whenReady().thenRun(() -> getLogger().info("Databases ready"));
+     * }</pre>
+     *
+     * @param name   unique identifier for this client (not null)
+     * @param config database configuration (not null)
+     * @return the registered DatabaseClient
+     * @throws ConfigurationException if the JDBC driver is missing; pool configuration errors complete
+     *                                {@link DatabaseClient#whenReady()} exceptionally instead
+     * @since 1.0.8
+     */
+    public DatabaseClient registerInBackground(String name, DatabaseConfig config) {
+        Objects.requireNonNull(name, "name");
+        Objects.requireNonNull(config, "config");
+        closeDataSource(name);
+        requireDriver(config);
+        CompletableFuture<Pool> startup = CompletableFuture.supplyAsync(() -> startPool(name, config, true), runnable -> {
+            Thread thread = new Thread(runnable, "nextlib-startup-" + name);
+            thread.setDaemon(true);
+            thread.start();
+        });
+        synchronized (pools) {
+            startups.put(name, startup);
+        }
+        startup.thenAccept(pool -> {
+            boolean installed;
+            synchronized (pools) {
+                installed = startups.remove(name, startup);
+                if (installed) {
+                    pools.put(name, pool);
+                }
+            }
+            if (!installed) {
+                // Replaced or closed while starting
+                discard(pool);
+            }
+        });
+        startup.exceptionally(error -> {
+            synchronized (pools) {
+                startups.remove(name, startup);
+            }
+            return null;
+        });
+        long timeoutMillis = config.getStartupTimeout().toMillis();
+        SqlSupplier<Connection> supplier = () -> awaitStartup(name, startup, timeoutMillis).getConnection();
+        DatabaseClient client = new DatabaseClient(supplier, config.getType(), startup.thenApply(pool -> null));
+        clients.put(name, client);
+        if (defaultClient == null) {
+            defaultClient = name;
+        }
+        return client;
+    }
+
+    /**
+     * Returns a future completed once every client registered so far is ready, or exceptionally if any
+     * of them failed to start.
+     *
+     * @return readiness of all registered clients
+     * @since 1.0.8
+     */
+    public CompletableFuture<Void> whenReady() {
+        return CompletableFuture.allOf(clients.values().stream()
+                .map(DatabaseClient::whenReady)
+                .toArray(CompletableFuture[]::new));
+    }
+
     private DatabaseClient createClient(String name, DatabaseConfig config) {
+        requireDriver(config);
+        Pool pool = startPool(name, config, false);
+        synchronized (pools) {
+            pools.put(name, pool);
+        }
+        SqlSupplier<Connection> supplier = pool::getConnection;
+        return new DatabaseClient(supplier, config.getType());
+    }
+
+    private static void requireDriver(DatabaseConfig config) {
         try {
             Class.forName(config.getType().getDriverClassName());
         } catch (ClassNotFoundException exception) {
             throw new ConfigurationException("Missing JDBC driver for " + config.getType(), exception);
         }
+    }
+
+    private static Pool startPool(String name, DatabaseConfig config, boolean background) {
         HikariDataSource dataSource = createDataSource(name, config);
-        dataSources.put(name, dataSource);
-        SqlSupplier<Connection> supplier = dataSource::getConnection;
-        return new DatabaseClient(supplier);
+        Pool pool = new Pool(dataSource, config.getType());
+        try {
+            if (config.getSnapshotFile() != null) {
+                pool.snapshotter = MemorySnapshotter.start(name, dataSource, config);
+            }
+            if (background || !config.getWarmupStatements().isEmpty()) {
+                warmUp(name, dataSource, config.getWarmupStatements());
+            }
+            if (config.isAdaptivePoolSize()) {
+                pool.sizeController = PoolSizeController.start(name, dataSource, pool.acquireTimer,
+                        config.getAdaptiveMinPoolSize(), config.getAdaptiveMaxPoolSize());
+            }
+            return pool;
+        } catch (RuntimeException exception) {
+            discard(pool);
+            throw exception;
+        }
     }
 
-    private HikariDataSource createDataSource(String name, DatabaseConfig config) {
+    private static void warmUp(String name, HikariDataSource dataSource, List<String> statements) {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            // Holding the connections open makes the pool create new ones instead of handing out the same one
+            for (int i = 0; i < Math.max(1, dataSource.getMinimumIdle()); i++) {
+                Connection connection = dataSource.getConnection();
+                connections.add(connection);
+                for (String sql : statements) {
+                    connection.prepareStatement(sql).close();
+                }
+            }
+        } catch (SQLException exception) {
+            throw new DatabaseConnectionException("Failed to warm up pool '" + name + "'", exception);
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // Returned to the pool either way
+                }
+            }
+        }
+    }
+
+    private static Pool awaitStartup(String name, CompletableFuture<Pool> startup, long timeoutMillis)
+            throws SQLException {
+        try {
+            return startup.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException exception) {
+            throw new SQLTimeoutException("Database '" + name + "' was not ready within " + timeoutMillis + " ms");
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new SQLException("Database '" + name + "' failed to start", cause);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for database '" + name + "'", exception);
+        }
+    }
+
+    private static HikariDataSource createDataSource(String name, DatabaseConfig config) {
         try {
             HikariConfig hikariConfig = HikariConfigBuilder.build(name, config);
             return new HikariDataSource(hikariConfig);
@@ -162,9 +333,39 @@ public final class DatabaseManager implements AutoCloseable {
     }
 
     private void closeDataSource(String name) {
-        HikariDataSource dataSource = dataSources.remove(name);
-        if (dataSource != null) {
-            dataSource.close();
+        Pool pool;
+        synchronized (pools) {
+            // A pool still starting is discarded by its completion handler once it no longer finds itself here
+            startups.remove(name);
+            pool = pools.remove(name);
+        }
+        if (pool != null) {
+            discard(pool);
+        }
+    }
+
+    private static void discard(Pool pool) {
+        if (pool.sizeController != null) {
+            pool.sizeController.close();
+        }
+        if (pool.snapshotter != null) {
+            pool.snapshotter.close();
+        }
+        if (pool.type == DatabaseType.H2_MEMORY) {
+            shutdownInMemory(pool.dataSource);
+        }
+        pool.dataSource.close();
+    }
+
+    /**
+     * Drops an in-memory database, which otherwise outlives its pool for as long as the JVM runs.
+     */
+    private static void shutdownInMemory(HikariDataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException ignored) {
+            // The database is being discarded anyway
         }
     }
 
@@ -177,9 +378,33 @@ public final class DatabaseManager implements AutoCloseable {
      */
     @Override
     public void close() {
-        dataSources.values().forEach(HikariDataSource::close);
-        dataSources.clear();
+        List<String> names;
+        synchronized (pools) {
+            names = new ArrayList<>(pools.keySet());
+            names.addAll(startups.keySet());
+        }
+        names.forEach(this::closeDataSource);
         clients.clear();
         defaultClient = null;
     }
-}
\ No newline at end of file
+
+    private static final class Pool {
+        private final HikariDataSource dataSource;
+        private final DatabaseType type;
+        private final AcquireTimer acquireTimer = new AcquireTimer();
+        private MemorySnapshotter snapshotter;
+        private PoolSizeController sizeController;
+
+        private Pool(HikariDataSource dataSource, DatabaseType type) {
+            this.dataSource = dataSource;
+            this.type = type;
+        }
+
+        private Connection getConnection() throws SQLException {
+            long start = System.nanoTime();
+            Connection connection = dataSource.getConnection();
+            acquireTimer.record(System.nanoTime() - start);
+            return connection;
+        }
+    }
+}
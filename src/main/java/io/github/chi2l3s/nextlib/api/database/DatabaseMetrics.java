@@ -31,6 +31,7 @@ public class DatabaseMetrics {
 
     private final HikariDataSource dataSource;
     private final HikariPoolMXBean poolBean;
+    private final AcquireTimer acquireTimer;
 
     /**
      * Creates a DatabaseMetrics instance for the given HikariDataSource.
@@ -38,8 +39,13 @@ public class DatabaseMetrics {
      * @param dataSource the data source to monitor
      */
     public DatabaseMetrics(HikariDataSource dataSource) {
+        this(dataSource, null);
+    }
+
+    DatabaseMetrics(HikariDataSource dataSource, AcquireTimer acquireTimer) {
         this.dataSource = dataSource;
         this.poolBean = getPoolMXBean(dataSource).orElse(null);
+        this.acquireTimer = acquireTimer;
     }
 
     /**
@@ -78,6 +84,28 @@ public class DatabaseMetrics {
         return poolBean != null ? poolBean.getThreadsAwaitingConnection() : -1;
     }
 
+    /**
+     * Returns how many connections were acquired through the client since its pool started.
+     *
+     * @return acquisition count, or -1 if the metrics were not obtained from {@link DatabaseManager#getMetrics(String)}
+     * @since 1.0.8
+     */
+    public long getConnectionAcquisitions() {
+        return acquireTimer != null ? acquireTimer.getCount() : -1;
+    }
+
+    /**
+     * Returns the total time callers spent waiting for connections since the pool started. Dividing the
+     * difference of two samples by the difference of {@link #getConnectionAcquisitions()} gives the average
+     * acquire latency of that period.
+     *
+     * @return cumulative acquire time in nanoseconds, or -1 if not tracked
+     * @since 1.0.8
+     */
+    public long getTotalAcquireNanos() {
+        return acquireTimer != null ? acquireTimer.getTotalNanos() : -1;
+    }
+
     /**
      * Returns the maximum pool size configured for this data source.
      *
@@ -162,6 +190,11 @@ public class DatabaseMetrics {
      * @return Optional containing the MXBean if available
      */
     private Optional<HikariPoolMXBean> getPoolMXBean(HikariDataSource dataSource) {
+        // Available without JMX registration once the pool is running
+        HikariPoolMXBean direct = dataSource.getHikariPoolMXBean();
+        if (direct != null) {
+            return Optional.of(direct);
+        }
         try {
             MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
             ObjectName poolName = new ObjectName("com.zaxxer.hikari:type=Pool (" + dataSource.getPoolName() + ")");
@@ -1,12 +1,13 @@
 package io.github.chi2l3s.nextlib.api.database;
 
+import java.util.List;
 import java.util.Locale;
 
 /**
  * Supported relational database engines.
  */
 public enum DatabaseType {
-    MYSQL("com.mysql.cj.jdbc.Driver") {
+    MYSQL("com.mysql.cj.jdbc.Driver", false) {
         @Override
         public String buildJdbcUrl(DatabaseConfig config) {
             return String.format(Locale.ROOT,
@@ -15,8 +16,13 @@ public enum DatabaseType {
                     config.getPortOrDefault(3306),
                     config.getDatabase());
         }
+
+        @Override
+        String conflictClause(List<String> columns, List<String> keyColumns, boolean update) {
+            return duplicateKeyClause(columns, keyColumns, update);
+        }
     },
-    POSTGRESQL("org.postgresql.Driver") {
+    POSTGRESQL("org.postgresql.Driver", true) {
         @Override
         public String buildJdbcUrl(DatabaseConfig config) {
             return String.format(Locale.ROOT,
@@ -26,22 +32,137 @@ public enum DatabaseType {
                     config.getDatabase());
         }
     },
-    SQLITE("org.sqlite.JDBC") {
+    SQLITE("org.sqlite.JDBC", true) {
         @Override
         public String buildJdbcUrl(DatabaseConfig config) {
             return "jdbc:sqlite:" + config.getFile();
         }
+    },
+    /**
+     * In-process H2 database held entirely in memory, for hot ephemeral tables such as arena state.
+     * <p>
+     * The database is named by {@link DatabaseConfig#getDatabase()} and lives until its client is closed. It runs
+     * in MySQL compatibility mode so the generated DDL and upserts match {@link #MYSQL}. Add
+     * {@link DatabaseConfig.Builder#snapshot(String, java.time.Duration)} to survive restarts and crashes.
+     * </p>
+     *
+     * @since 1.0.8
+     */
+    H2_MEMORY("org.h2.Driver", false) {
+        @Override
+        public String buildJdbcUrl(DatabaseConfig config) {
+            return "jdbc:h2:mem:" + config.getDatabase() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        }
+
+        @Override
+        String conflictClause(List<String> columns, List<String> keyColumns, boolean update) {
+            return duplicateKeyClause(columns, keyColumns, update);
+        }
     };
 
     private final String driverClassName;
+    private final boolean transactionalDdl;
 
-    DatabaseType(String driverClassName) {
+    DatabaseType(String driverClassName, boolean transactionalDdl) {
         this.driverClassName = driverClassName;
+        this.transactionalDdl = transactionalDdl;
     }
 
     public String getDriverClassName() {
         return driverClassName;
     }
 
+    /**
+     * Returns {@code true} if DDL statements can be rolled back as part of a transaction.
+     * MySQL commits implicitly around every DDL statement.
+     *
+     * @return whether DDL is transactional
+     */
+    public boolean supportsTransactionalDdl() {
+        return transactionalDdl;
+    }
+
     public abstract String buildJdbcUrl(DatabaseConfig config);
+
+    /**
+     * Returns {@code true} for engines running inside this JVM, which need no credentials or network.
+     *
+     * @return whether the engine is in-process
+     * @since 1.0.8
+     */
+    public boolean isEmbedded() {
+        return this == SQLITE || this == H2_MEMORY;
+    }
+
+    /**
+     * Builds an {@code INSERT} that overwrites the non-key columns of an existing row with the same key.
+     *
+     * @param table      table name
+     * @param columns    all inserted columns, bound in this order
+     * @param keyColumns primary key columns
+     * @return upsert SQL
+     */
+    public String buildUpsertSql(String table, List<String> columns, List<String> keyColumns) {
+        return buildInsertSql(table, columns) + conflictClause(columns, keyColumns, true);
+    }
+
+    /**
+     * Builds an {@code INSERT} that leaves an existing row with the same key untouched.
+     *
+     * @param table      table name
+     * @param columns    all inserted columns, bound in this order
+     * @param keyColumns primary key columns
+     * @return insert SQL
+     */
+    public String buildInsertIfAbsentSql(String table, List<String> columns, List<String> keyColumns) {
+        return buildInsertSql(table, columns) + conflictClause(columns, keyColumns, false);
+    }
+
+    String conflictClause(List<String> columns, List<String> keyColumns, boolean update) {
+        StringBuilder clause = new StringBuilder(" ON CONFLICT (").append(String.join(", ", keyColumns)).append(')');
+        List<String> targets = update ? nonKeyColumns(columns, keyColumns) : List.of();
+        if (targets.isEmpty()) {
+            return clause.append(" DO NOTHING").toString();
+        }
+        clause.append(" DO UPDATE SET ");
+        for (int i = 0; i < targets.size(); i++) {
+            if (i > 0) {
+                clause.append(", ");
+            }
+            clause.append(targets.get(i)).append(" = excluded.").append(targets.get(i));
+        }
+        return clause.toString();
+    }
+
+    private static String duplicateKeyClause(List<String> columns, List<String> keyColumns, boolean update) {
+        StringBuilder clause = new StringBuilder(" ON DUPLICATE KEY UPDATE ");
+        List<String> targets = update ? nonKeyColumns(columns, keyColumns) : List.of();
+        if (targets.isEmpty()) {
+            String key = keyColumns.get(0);
+            return clause.append(key).append(" = ").append(key).toString();
+        }
+        for (int i = 0; i < targets.size(); i++) {
+            if (i > 0) {
+                clause.append(", ");
+            }
+            clause.append(targets.get(i)).append(" = VALUES(").append(targets.get(i)).append(')');
+        }
+        return clause.toString();
+    }
+
+    private static String buildInsertSql(String table, List<String> columns) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("INSERT INTO ").append(table).append(" (").append(String.join(", ", columns)).append(") VALUES (");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append('?');
+        }
+        return sql.append(')').toString();
+    }
+
+    private static List<String> nonKeyColumns(List<String> columns, List<String> keyColumns) {
+        return columns.stream().filter(column -> !keyColumns.contains(column)).toList();
+    }
 }
\ No newline at end of file
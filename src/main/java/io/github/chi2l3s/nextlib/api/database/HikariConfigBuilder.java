@@ -33,10 +33,17 @@ public final class HikariConfigBuilder {
         hikariConfig.setDriverClassName(config.getType().getDriverClassName());
         hikariConfig.setJdbcUrl(config.getType().buildJdbcUrl(config));
 
-        if (config.getType() != DatabaseType.SQLITE) {
+        if (!config.getType().isEmbedded()) {
             hikariConfig.setUsername(config.getUsername());
             hikariConfig.setPassword(config.getPassword());
         }
+        if (config.getType() == DatabaseType.H2_MEMORY) {
+            // In-process connections are cheap and never go stale, so keep them all instead of recycling
+            hikariConfig.setMaximumPoolSize(Math.max(4, Runtime.getRuntime().availableProcessors()));
+            hikariConfig.setMinimumIdle(1);
+            hikariConfig.setIdleTimeout(0);
+            hikariConfig.setMaxLifetime(0);
+        }
 
         Properties properties = new Properties();
         properties.putAll(config.getProperties());
@@ -52,6 +59,15 @@ public final class HikariConfigBuilder {
             }
         });
 
+        if (config.isAdaptivePoolSize()) {
+            int min = config.getAdaptiveMinPoolSize();
+            int max = config.getAdaptiveMaxPoolSize();
+            hikariConfig.setMaximumPoolSize(Math.max(min, Math.min(max, hikariConfig.getMaximumPoolSize())));
+            // Idle connections above the lower bound are only retired while minimumIdle is below the maximum
+            int minimumIdle = hikariConfig.getMinimumIdle();
+            hikariConfig.setMinimumIdle(minimumIdle >= 0 ? Math.min(minimumIdle, min) : min);
+        }
+
         return hikariConfig;
     }
 
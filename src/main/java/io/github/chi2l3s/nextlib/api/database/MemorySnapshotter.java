@@ -0,0 +1,112 @@
+package io.github.chi2l3s.nextlib.api.database;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Restores an {@link DatabaseType#H2_MEMORY} database from its snapshot file and rewrites that file periodically.
+ * <p>
+ * A snapshot is a compressed SQL script of one consistent read, written next to the target and moved over it,
+ * so a crash during a snapshot leaves the previous one intact.
+ * </p>
+ */
+final class MemorySnapshotter {
+    private static final Logger LOGGER = Logger.getLogger(MemorySnapshotter.class.getName());
+
+    private final String name;
+    private final DataSource dataSource;
+    private final Path file;
+    private final ScheduledExecutorService scheduler;
+
+    private MemorySnapshotter(String name, DataSource dataSource, DatabaseConfig config) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.file = Paths.get(config.getSnapshotFile()).toAbsolutePath();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nextlib-snapshot-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Restores the last snapshot, if any, and schedules the next ones.
+     *
+     * @throws DatabaseException if an existing snapshot cannot be restored
+     */
+    static MemorySnapshotter start(String name, DataSource dataSource, DatabaseConfig config) {
+        MemorySnapshotter snapshotter = new MemorySnapshotter(name, dataSource, config);
+        snapshotter.restore();
+        long interval = config.getSnapshotInterval().toMillis();
+        snapshotter.scheduler.scheduleWithFixedDelay(snapshotter::snapshotQuietly, interval, interval,
+                TimeUnit.MILLISECONDS);
+        return snapshotter;
+    }
+
+    synchronized void snapshot() throws SQLException, IOException {
+        Files.createDirectories(file.getParent());
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        execute("SCRIPT TO " + literal(temporary) + " COMPRESSION DEFLATE");
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Stops the schedule and writes a final snapshot.
+     */
+    void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        snapshotQuietly();
+    }
+
+    private void restore() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            execute("RUNSCRIPT FROM " + literal(file) + " COMPRESSION DEFLATE");
+        } catch (SQLException exception) {
+            throw new DatabaseException("Failed to restore snapshot of '" + name + "' from " + file, exception);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (SQLException | IOException exception) {
+            LOGGER.log(Level.WARNING, "Failed to snapshot in-memory database '" + name + "' to " + file, exception);
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static String literal(Path path) {
+        return "'" + path.toString().replace("'", "''") + "'";
+    }
+}
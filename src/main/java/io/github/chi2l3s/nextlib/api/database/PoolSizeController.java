@@ -0,0 +1,148 @@
+package io.github.chi2l3s.nextlib.api.database;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Resizes a running Hikari pool between configured bounds from sampled {@link DatabaseMetrics}.
+ * <p>
+ * Every {@value #SAMPLE_SECONDS} seconds the controller classifies the pool as under pressure (threads waiting,
+ * utilization of at least {@value #GROW_UTILIZATION} or an average acquire time of at least
+ * {@value #GROW_ACQUIRE_MILLIS} ms) or idle (no waiters, utilization of at most {@value #SHRINK_UTILIZATION}).
+ * It grows after {@value #GROW_SAMPLES} consecutive pressure samples by a quarter of the pool or the number of
+ * waiters, whichever is larger, and shrinks by one after {@value #SHRINK_SAMPLES} consecutive idle samples. The
+ * gap between both thresholds, the sample counts and a cooldown after every change keep it from oscillating.
+ * Excess connections are retired by Hikari once they stay idle for {@code idleTimeout}, so pools with an
+ * {@code idleTimeout} of 0 (such as H2 in-memory pools) only ever grow.
+ * </p>
+ * <p>
+ * Every decision is logged at INFO with the samples that caused it.
+ * </p>
+ */
+final class PoolSizeController {
+    private static final Logger LOGGER = Logger.getLogger(PoolSizeController.class.getName());
+    private static final long SAMPLE_SECONDS = 5;
+    private static final double GROW_UTILIZATION = 0.9;
+    private static final double SHRINK_UTILIZATION = 0.4;
+    private static final double GROW_ACQUIRE_MILLIS = 5.0;
+    private static final int GROW_SAMPLES = 2;
+    private static final int SHRINK_SAMPLES = 12;
+    private static final long COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final String name;
+    private final HikariDataSource dataSource;
+    private final AcquireTimer acquireTimer;
+    private final int minSize;
+    private final int maxSize;
+    private final ScheduledExecutorService scheduler;
+    private long lastAcquisitions;
+    private long lastAcquireNanos;
+    private int pressureSamples;
+    private int idleSamples;
+    private long cooldownUntil;
+
+    PoolSizeController(String name, HikariDataSource dataSource, AcquireTimer acquireTimer, int minSize, int maxSize) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.acquireTimer = acquireTimer;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.cooldownUntil = System.nanoTime();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nextlib-pool-size-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static PoolSizeController start(String name, HikariDataSource dataSource, AcquireTimer acquireTimer,
+                                    int minSize, int maxSize) {
+        PoolSizeController controller = new PoolSizeController(name, dataSource, acquireTimer, minSize, maxSize);
+        controller.scheduler.scheduleWithFixedDelay(controller::sampleQuietly, SAMPLE_SECONDS, SAMPLE_SECONDS,
+                TimeUnit.SECONDS);
+        return controller;
+    }
+
+    void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void sampleQuietly() {
+        try {
+            sample();
+        } catch (RuntimeException exception) {
+            LOGGER.log(Level.WARNING, "Failed to sample pool '" + name + "'", exception);
+        }
+    }
+
+    void sample() {
+        DatabaseMetrics metrics = new DatabaseMetrics(dataSource, acquireTimer);
+        int active = metrics.getActiveConnections();
+        int waiting = metrics.getThreadsAwaitingConnection();
+        if (active < 0 || waiting < 0) {
+            return;
+        }
+        long acquisitions = acquireTimer.getCount();
+        long acquireNanos = acquireTimer.getTotalNanos();
+        long periodAcquisitions = acquisitions - lastAcquisitions;
+        double acquireMillis = periodAcquisitions > 0
+                ? (acquireNanos - lastAcquireNanos) / (double) periodAcquisitions / 1_000_000.0
+                : 0.0;
+        lastAcquisitions = acquisitions;
+        lastAcquireNanos = acquireNanos;
+        int current = dataSource.getMaximumPoolSize();
+        // Hikari never retires idle connections without an idle timeout, so a lower maximum would not shrink
+        boolean canShrink = dataSource.getIdleTimeout() > 0;
+        int target = decide(current, active, waiting, acquireMillis, canShrink, System.nanoTime());
+        if (target != current) {
+            resize(target);
+        }
+    }
+
+    /**
+     * Feeds one sample into the hysteresis and cooldown state and returns the new maximum pool size.
+     */
+    int decide(int current, int active, int waiting, double acquireMillis, boolean canShrink, long nowNanos) {
+        double utilization = current > 0 ? (double) active / current : 0.0;
+
+        boolean pressure = waiting > 0 || utilization >= GROW_UTILIZATION || acquireMillis >= GROW_ACQUIRE_MILLIS;
+        boolean idle = waiting == 0 && utilization <= SHRINK_UTILIZATION && acquireMillis < GROW_ACQUIRE_MILLIS;
+        pressureSamples = pressure ? pressureSamples + 1 : 0;
+        idleSamples = idle ? idleSamples + 1 : 0;
+        if (nowNanos - cooldownUntil < 0) {
+            return current;
+        }
+
+        int target = current;
+        if (pressureSamples >= GROW_SAMPLES && current < maxSize) {
+            int step = Math.max(waiting, (int) Math.ceil(current * 0.25));
+            target = Math.min(maxSize, current + Math.max(1, step));
+        } else if (canShrink && idleSamples >= SHRINK_SAMPLES && current > minSize) {
+            target = Math.max(minSize, current - 1);
+        }
+        if (target == current) {
+            return current;
+        }
+        LOGGER.info(String.format(Locale.ROOT,
+                "Pool '%s' maximumPoolSize %d -> %d (utilization %.0f%%, waiting %d, acquire %.1f ms, bounds %d-%d)",
+                name, current, target, utilization * 100, waiting, acquireMillis, minSize, maxSize));
+        pressureSamples = 0;
+        idleSamples = 0;
+        cooldownUntil = nowNanos + COOLDOWN_NANOS;
+        return target;
+    }
+
+    private void resize(int target) {
+        // minimumIdle stays at the lower bound (see HikariConfigBuilder), so a lower maximum lets Hikari retire
+        // the idle connections above it
+        HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+        config.setMaximumPoolSize(target);
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.chi2l3s.nextlib.api.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Lazily maps rows of an open result set and owns the statement and connection behind it.
+ * Resources are released when the rows are exhausted, when mapping fails, or on {@link #close()}.
+ */
+final class ResultSetCursor<T> extends Spliterators.AbstractSpliterator<T> implements AutoCloseable {
+    private final String sql;
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private final SqlFunction<ResultSet, T> mapper;
+    private final boolean restoreAutoCommit;
+    private boolean closed;
+
+    ResultSetCursor(String sql,
+                    Connection connection,
+                    PreparedStatement statement,
+                    ResultSet resultSet,
+                    SqlFunction<ResultSet, T> mapper,
+                    boolean restoreAutoCommit) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.sql = sql;
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.mapper = mapper;
+        this.restoreAutoCommit = restoreAutoCommit;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (closed) {
+            return false;
+        }
+        T value;
+        try {
+            if (!resultSet.next()) {
+                close();
+                return false;
+            }
+            value = mapper.apply(resultSet);
+        } catch (SQLException exception) {
+            close();
+            throw new QueryExecutionException(sql, "Failed to read streamed row", exception);
+        } catch (RuntimeException exception) {
+            close();
+            throw exception;
+        }
+        action.accept(value);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closeQuietly(connection, statement, resultSet, restoreAutoCommit);
+    }
+
+    static void closeQuietly(Connection connection,
+                             PreparedStatement statement,
+                             ResultSet resultSet,
+                             boolean restoreAutoCommit) {
+        try {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+        } catch (SQLException ignored) {
+        }
+        try {
+            if (statement != null) {
+                statement.close();
+            }
+        } catch (SQLException ignored) {
+        }
+        try {
+            if (restoreAutoCommit) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+                connection.setReadOnly(false);
+            }
+        } catch (SQLException ignored) {
+        }
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.chi2l3s.nextlib.api.database;
+
+/**
+ * Exception thrown when an optimistic update finds a different row version than expected.
+ * <p>
+ * The row was modified (or removed) by another writer after it was read. Reload it and retry,
+ * for example with {@link io.github.chi2l3s.nextlib.api.database.dynamic.DynamicTable#retryOnConflict}.
+ * </p>
+ *
+ * @since 1.0.8
+ */
+public class VersionConflictException extends DatabaseException {
+
+    private final String tableName;
+    private final Object key;
+    private final long expectedVersion;
+
+    public VersionConflictException(String tableName, Object key, long expectedVersion) {
+        super("Version conflict on table '" + tableName + "'"
+                + (key != null ? " for key " + key : "")
+                + ": expected version " + expectedVersion);
+        this.tableName = tableName;
+        this.key = key;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Returns the primary key of the conflicting row, or {@code null} if the update was not keyed.
+     *
+     * @return primary key value or null
+     */
+    public Object getKey() {
+        return key;
+    }
+
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+}
@@ -0,0 +1,297 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+import io.github.chi2l3s.nextlib.api.database.DatabaseClient;
+import io.github.chi2l3s.nextlib.api.database.SqlConsumer;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link InvalidationBus} that exchanges invalidations through a changelog table in the shared database.
+ * <p>
+ * Publications are queued and appended to {@value #DEFAULT_TABLE} as one batch per poll. Every instance reads the
+ * rows after its last seen sequence number on the same schedule, so a change reaches other servers within about
+ * two poll intervals. Rows older than the retention are deleted by range on the primary key. The retention must
+ * be longer than the longest pause of any server, or that server misses invalidations.
+ * </p>
+ * <p>
+ * Sequence numbers can become visible out of order when transactions commit concurrently. Every missing sequence
+ * number is therefore remembered with the time it was first noticed and looked up again on each poll until its
+ * row appears or it is older than a few seconds. Rows after a gap are delivered right away, so permanent gaps
+ * (rolled back inserts, {@code auto_increment_increment > 1}) never delay other invalidations.
+ * </p>
+ *
+ * @since 1.0.8
+ */
+public final class DatabaseInvalidationBus implements InvalidationBus {
+    public static final String DEFAULT_TABLE = "nextlib_changelog";
+
+    private static final Logger LOGGER = Logger.getLogger(DatabaseInvalidationBus.class.getName());
+    private static final int READ_LIMIT = 1000;
+    private static final long GAP_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final int GAP_CHUNK_SIZE = 500;
+    private static final int MAX_GAPS = 10_000;
+
+    private final DatabaseClient client;
+    private final String table;
+    private final long retentionNanos;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Queue<String[]> outbox = new ConcurrentLinkedQueue<>();
+    private final List<InvalidationListener> listeners = new CopyOnWriteArrayList<>();
+    private final Deque<long[]> checkpoints = new ArrayDeque<>();
+    private final ScheduledExecutorService scheduler;
+    private final String insertSql;
+    private final String readSql;
+    private final String columns;
+    private final NavigableMap<Long, Long> gaps = new TreeMap<>();
+    private long cursor;
+    private volatile boolean closed;
+
+    private DatabaseInvalidationBus(Builder builder) {
+        this.client = builder.client;
+        this.table = builder.table;
+        this.retentionNanos = builder.retention.toNanos();
+        this.insertSql = "INSERT INTO " + table + " (table_name, row_key, node_id) VALUES (?, ?, ?)";
+        this.columns = "SELECT seq, table_name, row_key, node_id FROM " + table;
+        this.readSql = columns + " WHERE seq > ? ORDER BY seq LIMIT " + READ_LIMIT;
+        client.execute(createTableSql(), null);
+        this.cursor = client.queryOne("SELECT MAX(seq) FROM " + table, null, resultSet -> resultSet.getLong(1))
+                .orElse(0L);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nextlib-invalidation-" + table);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = builder.pollInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::tick, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder(DatabaseClient client) {
+        return new Builder(client);
+    }
+
+    @Override
+    public void publish(String tableName, String key) {
+        Objects.requireNonNull(tableName, "tableName");
+        if (!closed) {
+            outbox.add(new String[]{tableName, key});
+        }
+    }
+
+    @Override
+    public void subscribe(InvalidationListener listener) {
+        listeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    @Override
+    public void unsubscribe(InvalidationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Writes queued publications and stops polling. Blocks for at most 10 seconds.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        flushOutbox();
+    }
+
+    private void tick() {
+        try {
+            flushOutbox();
+            poll();
+            truncate();
+        } catch (RuntimeException exception) {
+            LOGGER.log(Level.WARNING, "Failed to exchange invalidations through '" + table + "'", exception);
+        }
+    }
+
+    private void flushOutbox() {
+        List<SqlConsumer<PreparedStatement>> binders = new ArrayList<>();
+        for (String[] entry; (entry = outbox.poll()) != null; ) {
+            String[] row = entry;
+            binders.add(statement -> {
+                statement.setString(1, row[0]);
+                statement.setString(2, row[1]);
+                statement.setString(3, nodeId);
+            });
+        }
+        client.executeBatch(insertSql, binders);
+    }
+
+    private void poll() {
+        recheckGaps();
+        List<Object[]> rows;
+        do {
+            rows = client.query(readSql, statement -> statement.setLong(1, cursor), DatabaseInvalidationBus::readRow);
+            long now = System.nanoTime();
+            for (Object[] row : rows) {
+                long seq = (Long) row[0];
+                for (long missing = cursor + 1; missing < seq && gaps.size() < MAX_GAPS; missing++) {
+                    gaps.put(missing, now);
+                }
+                cursor = seq;
+                deliver(row);
+            }
+        } while (rows.size() == READ_LIMIT && !closed);
+    }
+
+    /**
+     * Looks up the rows of missing sequence numbers and forgets every gap that was filled or timed out.
+     */
+    private void recheckGaps() {
+        long now = System.nanoTime();
+        gaps.values().removeIf(since -> now - since >= GAP_TIMEOUT_NANOS);
+        List<Long> pending = List.copyOf(gaps.keySet());
+        for (int from = 0; from < pending.size(); from += GAP_CHUNK_SIZE) {
+            List<Long> chunk = pending.subList(from, Math.min(from + GAP_CHUNK_SIZE, pending.size()));
+            StringBuilder sql = new StringBuilder(columns).append(" WHERE seq IN (");
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(')');
+            List<Object[]> rows = client.query(sql.toString(), statement -> {
+                for (int i = 0; i < chunk.size(); i++) {
+                    statement.setLong(i + 1, chunk.get(i));
+                }
+            }, DatabaseInvalidationBus::readRow);
+            for (Object[] row : rows) {
+                gaps.remove((Long) row[0]);
+                deliver(row);
+            }
+        }
+    }
+
+    private static Object[] readRow(ResultSet resultSet) throws SQLException {
+        return new Object[]{resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                resultSet.getString(4)};
+    }
+
+    private void deliver(Object[] row) {
+        if (!nodeId.equals(row[3])) {
+            deliver((String) row[1], (String) row[2]);
+        }
+    }
+
+    private void deliver(String tableName, String key) {
+        for (InvalidationListener listener : listeners) {
+            try {
+                listener.onInvalidation(tableName, key);
+            } catch (RuntimeException exception) {
+                LOGGER.log(Level.WARNING, "Invalidation listener failed for table '" + tableName + "'", exception);
+            }
+        }
+    }
+
+    /**
+     * Deletes rows that were read more than the retention ago, by sequence range so no extra index is needed.
+     * Rows from the oldest open gap on are kept.
+     */
+    private void truncate() {
+        long now = System.nanoTime();
+        long position = gaps.isEmpty() ? cursor : gaps.firstKey() - 1;
+        if (checkpoints.isEmpty() || checkpoints.peekLast()[1] != position) {
+            checkpoints.addLast(new long[]{now, position});
+        }
+        long horizon = -1;
+        while (!checkpoints.isEmpty() && now - checkpoints.peekFirst()[0] > retentionNanos) {
+            horizon = checkpoints.pollFirst()[1];
+        }
+        if (horizon > 0) {
+            long limit = horizon;
+            client.execute("DELETE FROM " + table + " WHERE seq <= ?", statement -> statement.setLong(1, limit));
+        }
+    }
+
+    private String createTableSql() {
+        String sequence;
+        switch (client.getType()) {
+            case MYSQL:
+            case H2_MEMORY:
+                sequence = "seq BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY";
+                break;
+            case POSTGRESQL:
+                sequence = "seq BIGSERIAL PRIMARY KEY";
+                break;
+            default:
+                sequence = "seq INTEGER PRIMARY KEY AUTOINCREMENT";
+                break;
+        }
+        return "CREATE TABLE IF NOT EXISTS " + table + " ("
+                + sequence + ", "
+                + "table_name VARCHAR(128) NOT NULL, "
+                + "row_key VARCHAR(255), "
+                + "node_id VARCHAR(36) NOT NULL)";
+    }
+
+    public static final class Builder {
+        private final DatabaseClient client;
+        private String table = DEFAULT_TABLE;
+        private Duration pollInterval = Duration.ofSeconds(1);
+        private Duration retention = Duration.ofMinutes(10);
+
+        private Builder(DatabaseClient client) {
+            this.client = Objects.requireNonNull(client, "client");
+        }
+
+        public Builder table(String table) {
+            this.table = Objects.requireNonNull(table, "table");
+            return this;
+        }
+
+        /**
+         * Sets how often publications are written and the changelog is read. Defaults to 1 second.
+         */
+        public Builder pollInterval(Duration pollInterval) {
+            Objects.requireNonNull(pollInterval, "pollInterval");
+            if (pollInterval.isNegative() || pollInterval.isZero()) {
+                throw new IllegalArgumentException("pollInterval must be positive");
+            }
+            this.pollInterval = pollInterval;
+            return this;
+        }
+
+        /**
+         * Sets how long changelog rows are kept after this instance read them. Defaults to 10 minutes.
+         */
+        public Builder retention(Duration retention) {
+            this.retention = Objects.requireNonNull(retention, "retention");
+            return this;
+        }
+
+        /**
+         * Creates the changelog table if needed and starts polling from its current end.
+         */
+        public DatabaseInvalidationBus build() {
+            return new DatabaseInvalidationBus(this);
+        }
+    }
+}
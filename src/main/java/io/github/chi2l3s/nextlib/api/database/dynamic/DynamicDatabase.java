@@ -4,9 +4,14 @@ import io.github.chi2l3s.nextlib.api.database.DatabaseClient;
 import io.github.chi2l3s.nextlib.api.database.DatabaseException;
 import io.github.chi2l3s.nextlib.api.database.DatabaseManager;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * Runtime database registry that inspects user-defined entity classes and creates tables for them on demand.
@@ -50,9 +55,24 @@ import java.util.concurrent.ConcurrentHashMap;
 public final class DynamicDatabase {
     private final DatabaseClient client;
     private final Map<String, DynamicTable<?>> tables = new ConcurrentHashMap<>();
+    private final FieldCodecRegistry codecs;
+    private final QueryDiagnostics diagnostics = new QueryDiagnostics();
+    private volatile InvalidationBus invalidationBus;
 
     public DynamicDatabase(DatabaseClient client) {
+        this(client, new FieldCodecRegistry());
+    }
+
+    /**
+     * Creates a database that resolves field types through the given, possibly shared, codec registry.
+     *
+     * @param client the database client (not null)
+     * @param codecs the codec registry (not null)
+     * @since 1.0.8
+     */
+    public DynamicDatabase(DatabaseClient client, FieldCodecRegistry codecs) {
         this.client = Objects.requireNonNull(client, "client");
+        this.codecs = Objects.requireNonNull(codecs, "codecs");
     }
 
     public static DynamicDatabase using(DatabaseManager manager) {
@@ -96,7 +116,143 @@ public final class DynamicDatabase {
         Objects.requireNonNull(tableName, "tableName");
         Objects.requireNonNull(entityType, "entityType");
         return (DynamicTable<T>) tables.computeIfAbsent(tableName, name ->
-                DynamicTable.create(client, name, entityType));
+                attach(DynamicTable.create(this, name, entityType)));
+    }
+
+    /**
+     * Registers several entity classes at once using auto-generated table names.
+     *
+     * @param entityTypes the entity classes to register (not null)
+     * @return registered tables by table name, in argument order
+     * @see #registerAll(Map)
+     */
+    public Map<String, DynamicTable<?>> registerAll(Class<?>... entityTypes) {
+        Objects.requireNonNull(entityTypes, "entityTypes");
+        Map<String, Class<?>> entities = new LinkedHashMap<>();
+        for (Class<?> entityType : entityTypes) {
+            Objects.requireNonNull(entityType, "entityType");
+            entities.put(defaultTableName(entityType), entityType);
+        }
+        return registerAll(entities);
+    }
+
+    /**
+     * Registers several entity classes at once, bootstrapping their schema in bulk.
+     * <p>
+     * Entities are inspected in parallel. A fingerprint of each table definition is kept in the
+     * {@code nextlib_schema_fingerprints} table, and {@code CREATE TABLE} is only issued for tables whose
+     * fingerprint is missing or different. Remaining DDL runs on a single connection, inside one transaction on
+     * databases with transactional DDL. On a typical restart no DDL is sent at all.
+     * </p>
+     * <p>
+     * Tables dropped by hand keep their fingerprint; delete the matching row from
+     * {@code nextlib_schema_fingerprints} to have them recreated.
+     * </p>
+     *
+     * @param entities entity classes by table name (not null)
+     * @return registered tables by table name, in iteration order of {@code entities}
+     * @throws io.github.chi2l3s.nextlib.api.database.EntityMappingException if an entity class cannot be introspected
+     */
+    public Map<String, DynamicTable<?>> registerAll(Map<String, Class<?>> entities) {
+        Objects.requireNonNull(entities, "entities");
+        List<DynamicTable<?>> prepared = entities.entrySet().parallelStream()
+                .filter(entry -> !tables.containsKey(entry.getKey()))
+                .map(entry -> DynamicTable.prepare(this, entry.getKey(), entry.getValue()))
+                .collect(Collectors.toCollection(ArrayList::new));
+        SchemaBootstrap.run(client, prepared);
+        for (DynamicTable<?> table : prepared) {
+            if (tables.putIfAbsent(table.getTableName(), table) == null) {
+                attach(table);
+            }
+        }
+        Map<String, DynamicTable<?>> registered = new LinkedHashMap<>();
+        for (String tableName : entities.keySet()) {
+            registered.put(tableName, tables.get(tableName));
+        }
+        return Collections.unmodifiableMap(registered);
+    }
+
+    /**
+     * Connects all tables of this database, including tables registered later, to an invalidation bus.
+     * <p>
+     * Writes made through the tables are published to other servers. Invalidations received from other
+     * servers are reported to {@link TableListener table listeners} as {@link TableChange#isRemote() remote}
+     * changes, so caches and leaderboards built on the tables evict the changed keys. Only one bus can be used.
+     * </p>
+     *
+     * @param bus the invalidation bus (not null)
+     * @return this database
+     * @throws DatabaseException if a bus is already in use
+     * @since 1.0.8
+     */
+    public synchronized DynamicDatabase useInvalidationBus(InvalidationBus bus) {
+        Objects.requireNonNull(bus, "bus");
+        if (invalidationBus != null) {
+            throw new DatabaseException("An invalidation bus is already in use");
+        }
+        invalidationBus = bus;
+        for (DynamicTable<?> table : tables.values()) {
+            attach(table);
+        }
+        bus.subscribe((tableName, key) -> {
+            DynamicTable<?> table = tables.get(tableName);
+            if (table != null) {
+                table.fireRemote(key);
+            }
+        });
+        return this;
+    }
+
+    private <T> DynamicTable<T> attach(DynamicTable<T> table) {
+        InvalidationBus bus = invalidationBus;
+        if (bus != null) {
+            table.addListener(change -> {
+                if (!change.isRemote()) {
+                    bus.publish(change.getTableName(), change.isTableWide() ? null : String.valueOf(change.getKey()));
+                }
+            });
+        }
+        return table;
+    }
+
+    /**
+     * Registers a codec for a custom field type.
+     * <p>
+     * Codecs are resolved when an entity is registered, so they must be added before
+     * {@link #register(Class)} is called for entities that use them.
+     * </p>
+     *
+     * @param <T>   field type
+     * @param type  the exact declared field type (not null)
+     * @param codec the codec (not null)
+     * @return this database
+     * @see FieldCodecs
+     */
+    public <T> DynamicDatabase registerCodec(Class<T> type, FieldCodec<? super T> codec) {
+        codecs.register(type, codec);
+        return this;
+    }
+
+    /**
+     * Returns the codec registry used by this database.
+     *
+     * @return the codec registry
+     */
+    public FieldCodecRegistry getCodecs() {
+        return codecs;
+    }
+
+    /**
+     * Returns the query plan diagnostics shared by all tables of this database. Disabled by default.
+     *
+     * @return the diagnostics
+     */
+    public QueryDiagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    public DatabaseClient getClient() {
+        return client;
     }
 
     /**
@@ -136,7 +292,20 @@ public final class DynamicDatabase {
         return (DynamicTable<T>) table;
     }
 
-    private static String defaultTableName(Class<?> entityType) {
+    /**
+     * Returns the registered table of an entity type, used to resolve relations.
+     */
+    @SuppressWarnings("unchecked")
+    <T> DynamicTable<T> tableFor(Class<T> entityType) {
+        for (DynamicTable<?> table : tables.values()) {
+            if (table.getEntityType().equals(entityType)) {
+                return (DynamicTable<T>) table;
+            }
+        }
+        throw new DatabaseException("No table registered for entity " + entityType.getName());
+    }
+
+    static String defaultTableName(Class<?> entityType) {
         String simpleName = entityType.getSimpleName();
         if (simpleName.isEmpty()) {
             throw new DatabaseException("Cannot determine table name for anonymous class " + entityType);
@@ -1,47 +1,104 @@
 package io.github.chi2l3s.nextlib.api.database.dynamic;
 
+import io.github.chi2l3s.nextlib.api.database.BulkProgressListener;
 import io.github.chi2l3s.nextlib.api.database.DatabaseClient;
 import io.github.chi2l3s.nextlib.api.database.DatabaseException;
 import io.github.chi2l3s.nextlib.api.database.SqlConsumer;
+import io.github.chi2l3s.nextlib.api.database.VersionConflictException;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 public final class DynamicTable<T> {
+    private static final Logger LOGGER = Logger.getLogger(DynamicTable.class.getName());
+
+    private static final int RELATION_CHUNK_SIZE = 500;
+    private static final Object NO_ROW = new Object();
+
+    private final DynamicDatabase database;
     private final DatabaseClient client;
+    private final QueryDiagnostics diagnostics;
     private final String tableName;
     private final EntityMetadata<T> metadata;
     private final String columnList;
+    private final List<String> columns;
     private final String insertSql;
+    private final String upsertSql;
+    private final String insertIfAbsentSql;
+    private final String createTableSql;
+    private final List<TableListener<T>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong version = new AtomicLong();
+    private final QueryCache cache = new QueryCache();
 
-    private DynamicTable(DatabaseClient client, String tableName, EntityMetadata<T> metadata) {
-        this.client = client;
+    private DynamicTable(DynamicDatabase database, String tableName, EntityMetadata<T> metadata) {
+        this.database = database;
+        this.client = database.getClient();
+        this.diagnostics = database.getDiagnostics();
         this.tableName = tableName;
         this.metadata = metadata;
         this.columnList = metadata.columnList();
         this.insertSql = buildInsertSql();
-        createTable();
+        List<String> columns = new ArrayList<>();
+        for (EntityField field : metadata.getFields()) {
+            columns.add(field.getColumnName());
+        }
+        this.columns = List.copyOf(columns);
+        List<String> keyColumns = List.of(metadata.getPrimaryKey().getColumnName());
+        this.upsertSql = client.getType().buildUpsertSql(tableName, columns, keyColumns);
+        this.insertIfAbsentSql = client.getType().buildInsertIfAbsentSql(tableName, columns, keyColumns);
+        this.createTableSql = buildCreateTableSql();
     }
 
-    static <T> DynamicTable<T> create(DatabaseClient client, String tableName, Class<T> entityType) {
-        Objects.requireNonNull(client, "client");
+    static <T> DynamicTable<T> create(DynamicDatabase database, String tableName, Class<T> entityType) {
+        DynamicTable<T> table = prepare(database, tableName, entityType);
+        table.client.execute(table.createTableSql, null);
+        return table;
+    }
+
+    /**
+     * Inspects the entity and builds the table without touching the database.
+     */
+    static <T> DynamicTable<T> prepare(DynamicDatabase database, String tableName, Class<T> entityType) {
+        Objects.requireNonNull(database, "database");
         Objects.requireNonNull(tableName, "tableName");
         Objects.requireNonNull(entityType, "entityType");
-        EntityMetadata<T> metadata = EntityMetadata.inspect(entityType);
-        return new DynamicTable<>(client, tableName, metadata);
+        EntityMetadata<T> metadata = EntityMetadata.inspect(entityType, database.getCodecs());
+        return new DynamicTable<>(database, tableName, metadata);
     }
 
     public Class<T> getEntityType() {
         return metadata.getEntityType();
     }
 
+    public String getTableName() {
+        return tableName;
+    }
+
     public FindOneQuery findFirst() {
         return new FindOneQuery();
     }
@@ -54,17 +111,497 @@ public final class DynamicTable<T> {
         return new UpdateBuilder();
     }
 
+    /**
+     * Starts a {@code DELETE} statement. At least one condition is required.
+     *
+     * @return delete builder
+     * @since 1.0.8
+     */
+    public DeleteBuilder delete() {
+        return new DeleteBuilder();
+    }
+
     public int create(T entity) {
         Objects.requireNonNull(entity, "entity");
-        return client.execute(insertSql, statement -> bindEntity(statement, entity));
+        int inserted = client.execute(insertSql, statement -> bindEntity(statement, entity));
+        fire(TableChange.Type.INSERT, primaryKeyOf(entity), entity);
+        return inserted;
+    }
+
+    /**
+     * Inserts the entity, or overwrites every column of the row with the same primary key.
+     * <p>
+     * Uses {@code ON CONFLICT ... DO UPDATE} on PostgreSQL and SQLite and {@code ON DUPLICATE KEY UPDATE} on
+     * MySQL, so the whole write is a single statement. {@link Version} columns are written as-is.
+     * </p>
+     *
+     * @param entity the entity to write (not null)
+     * @return number of affected rows as reported by the driver
+     * @since 1.0.8
+     */
+    public int upsert(T entity) {
+        Objects.requireNonNull(entity, "entity");
+        int affected = client.execute(upsertSql, statement -> bindEntity(statement, entity));
+        fire(TableChange.Type.UPSERT, primaryKeyOf(entity), entity);
+        return affected;
+    }
+
+    /**
+     * Upserts several entities as one JDBC batch.
+     *
+     * @param entities entities to write (not null)
+     * @see #upsert(Object)
+     * @since 1.0.8
+     */
+    public void upsertAll(Collection<? extends T> entities) {
+        Objects.requireNonNull(entities, "entities");
+        batch(upsertSql, entities);
+        for (T entity : entities) {
+            fire(TableChange.Type.UPSERT, primaryKeyOf(entity), entity);
+        }
+    }
+
+    /**
+     * Streams every row of this table to {@code out} without mapping entities.
+     *
+     * @param out      destination stream, not closed
+     * @param progress progress callback, may be null
+     * @return number of exported rows
+     * @see DatabaseClient#exportTable(String, List, OutputStream, BulkProgressListener)
+     * @since 1.0.8
+     */
+    public long exportTo(OutputStream out, BulkProgressListener progress) {
+        return client.exportTable(tableName, columns, out, progress);
+    }
+
+    /**
+     * Loads an export of this table through the engine's bulk path. Listeners receive one table-wide
+     * {@link TableChange.Type#INSERT} change once the import is complete.
+     *
+     * @param in       stream written by {@link #exportTo(OutputStream, BulkProgressListener)}
+     * @param progress progress callback, may be null
+     * @return number of imported rows
+     * @see DatabaseClient#importTable(String, InputStream, BulkProgressListener)
+     * @since 1.0.8
+     */
+    public long importFrom(InputStream in, BulkProgressListener progress) {
+        long rows = client.importTable(tableName, in, progress);
+        fire(TableChange.Type.INSERT, null, null);
+        return rows;
+    }
+
+    /**
+     * Copies every row into another table of the same entity, typically registered on a different database.
+     *
+     * <pre>{@code
+     * DynamicTable<PlayerEntity> source = sqliteDatabase.register(PlayerEntity.class);
+     * DynamicTable<PlayerEntity> target = mysqlDatabase.register(PlayerEntity.class);
+     * source.copyTo(target, rows -> logger.info("Copied " + rows + " rows"));
+     * }</pre>
+     *
+     * @param target   table to fill; should not contain rows with the same keys
+     * @param progress progress callback, may be null
+     * @return number of copied rows
+     * @see DatabaseClient#copyTable(String, List, DatabaseClient, String, BulkProgressListener)
+     * @since 1.0.8
+     */
+    public long copyTo(DynamicTable<T> target, BulkProgressListener progress) {
+        Objects.requireNonNull(target, "target");
+        long rows = client.copyTable(tableName, columns, target.client, target.tableName, progress);
+        target.fire(TableChange.Type.INSERT, null, null);
+        return rows;
+    }
+
+    /**
+     * Inserts the entities whose primary key is not present yet and leaves existing rows untouched.
+     */
+    void insertAllIfAbsent(Collection<? extends T> entities) {
+        batch(insertIfAbsentSql, entities);
+        for (T entity : entities) {
+            // the row is either this entity or an untouched existing one, so only the key is reported
+            fire(TableChange.Type.UPSERT, primaryKeyOf(entity), null);
+        }
+    }
+
+    /**
+     * Registers a listener for writes made through this table.
+     * <p>
+     * Writes issued directly through the {@link DatabaseClient} or by other processes are not reported.
+     * </p>
+     *
+     * @param listener the listener (not null)
+     * @since 1.0.8
+     */
+    public void addListener(TableListener<T> listener) {
+        listeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    public void removeListener(TableListener<T> listener) {
+        listeners.remove(listener);
     }
 
-    private void createTable() {
+    /**
+     * Loads relations of already fetched entities, for relations that were not included in the original query.
+     * <p>
+     * Each relation costs one batched {@code IN} query per level, regardless of the number of entities. Nested
+     * relations are addressed with dots, e.g. {@code "members.homes"}.
+     * </p>
+     *
+     * @param entities entities to complete (not null)
+     * @param paths    relation paths
+     * @since 1.0.8
+     */
+    public void loadRelations(Collection<? extends T> entities, String... paths) {
+        Objects.requireNonNull(entities, "entities");
+        Objects.requireNonNull(paths, "paths");
+        if (entities.isEmpty() || paths.length == 0) {
+            return;
+        }
+        Map<String, List<String>> nested = new LinkedHashMap<>();
+        for (String path : paths) {
+            Objects.requireNonNull(path, "path");
+            int dot = path.indexOf('.');
+            String head = dot < 0 ? path : path.substring(0, dot);
+            List<String> tails = nested.computeIfAbsent(head, ignored -> new ArrayList<>());
+            if (dot >= 0) {
+                tails.add(path.substring(dot + 1));
+            }
+        }
+        for (Map.Entry<String, List<String>> entry : nested.entrySet()) {
+            EntityRelation relation = metadata.requireRelation(entry.getKey());
+            loadRelation(entities, relation, database.tableFor(relation.getTargetType()), entry.getValue());
+        }
+    }
+
+    private <R> void loadRelation(Collection<? extends T> entities,
+                                  EntityRelation relation,
+                                  DynamicTable<R> target,
+                                  List<String> nestedPaths) {
+        String joinField = relation.getJoinField();
+        List<R> loaded;
+        if (relation.getKind() == EntityRelation.Kind.ONE_TO_MANY) {
+            target.requireField(joinField);
+            Set<Object> keys = new LinkedHashSet<>();
+            for (T entity : entities) {
+                keys.add(primaryKeyOf(entity));
+            }
+            loaded = target.findByValues(joinField, keys);
+            Map<Object, Collection<Object>> byParent = new HashMap<>();
+            for (R child : loaded) {
+                byParent.computeIfAbsent(target.valueOf(child, joinField), ignored -> relation.newCollection())
+                        .add(child);
+            }
+            for (T entity : entities) {
+                Collection<Object> children = byParent.get(primaryKeyOf(entity));
+                relation.set(entity, children != null ? children : relation.newCollection());
+            }
+        } else {
+            Set<Object> keys = new LinkedHashSet<>();
+            for (T entity : entities) {
+                Object key = valueOf(entity, joinField);
+                if (key != null) {
+                    keys.add(key);
+                }
+            }
+            loaded = target.findByValues(target.getPrimaryKeyField(), keys);
+            Map<Object, R> byKey = new HashMap<>();
+            for (R parent : loaded) {
+                byKey.put(target.primaryKeyOf(parent), parent);
+            }
+            for (T entity : entities) {
+                relation.set(entity, byKey.get(valueOf(entity, joinField)));
+            }
+        }
+        if (!nestedPaths.isEmpty()) {
+            target.loadRelations(loaded, nestedPaths.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Fetches the rows whose {@code field} is one of {@code values}, one {@code IN} query per chunk of values.
+     */
+    private List<T> findByValues(String field, Collection<Object> values) {
+        List<T> rows = new ArrayList<>();
+        List<Object> pending = new ArrayList<>(values);
+        for (int from = 0; from < pending.size(); from += RELATION_CHUNK_SIZE) {
+            List<Object> chunk = pending.subList(from, Math.min(from + RELATION_CHUNK_SIZE, pending.size()));
+            rows.addAll(findMany().whereIn(field, chunk.toArray()).execute());
+        }
+        return rows;
+    }
+
+    /**
+     * Returns hit and miss counters for every query shape executed with {@code cached(...)}.
+     *
+     * @return snapshot of per-shape statistics
+     * @since 1.0.8
+     */
+    public List<QueryCacheStats> getCacheStats() {
+        return cache.getStats();
+    }
+
+    /**
+     * Limits the total number of rows held by this table's query cache. Defaults to 10 000; least recently used
+     * results are evicted first and larger results are not cached at all.
+     *
+     * @param maxRows maximum cached rows, must not be negative
+     * @since 1.0.8
+     */
+    public void setCacheLimit(int maxRows) {
+        if (maxRows < 0) {
+            throw new IllegalArgumentException("maxRows must not be negative");
+        }
+        cache.setMaxRows(maxRows);
+    }
+
+    /**
+     * Drops all cached query results of this table.
+     *
+     * @since 1.0.8
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+    private List<Object> cacheKey(String shape, List<Criterion> parameters) {
+        List<Object> values = new ArrayList<>();
+        for (Criterion criterion : parameters) {
+            if (criterion.value instanceof Object[] array) {
+                values.addAll(Arrays.asList(array));
+            } else {
+                values.add(criterion.value);
+            }
+        }
+        return Arrays.asList(shape, values);
+    }
+
+    private List<T> copyAll(List<T> entities) {
+        List<T> copies = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            copies.add(metadata.copy(entity));
+        }
+        return copies;
+    }
+
+    static boolean isNumeric(Class<?> type) {
+        return Number.class.isAssignableFrom(type)
+                || (type.isPrimitive() && type != boolean.class && type != char.class && type != void.class);
+    }
+
+    private static long ttlNanos(Duration ttl) {
+        Objects.requireNonNull(ttl, "ttl");
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        return ttl.toNanos();
+    }
+
+    EntityField requireField(String field) {
+        return metadata.requireField(field);
+    }
+
+    Object valueOf(T entity, String field) {
+        return metadata.getValue(entity, metadata.requireField(field));
+    }
+
+    Object primaryKeyOf(T entity) {
+        return metadata.getValue(entity, metadata.getPrimaryKey());
+    }
+
+    /**
+     * Returns the name of the {@link PrimaryKey} field, for use in {@code where(...)} conditions.
+     *
+     * @return primary key field name
+     * @since 1.0.8
+     */
+    public String getPrimaryKeyField() {
+        return metadata.getPrimaryKey().getFieldName();
+    }
+
+    private void batch(String sql, Collection<? extends T> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        List<SqlConsumer<PreparedStatement>> binders = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            Objects.requireNonNull(entity, "entity");
+            binders.add(statement -> bindEntity(statement, entity));
+        }
+        client.executeBatch(sql, binders);
+    }
+
+    /**
+     * Writes every column of the entity to the row with the same primary key.
+     * <p>
+     * For entities with a {@link Version} field the update only applies if the stored version still equals the
+     * entity's version, and the stored version is incremented in the same statement.
+     * </p>
+     *
+     * @param entity the entity to save (not null)
+     * @return number of updated rows
+     * @throws VersionConflictException if the entity is versioned and the row was changed or removed meanwhile
+     * @throws DatabaseException         if the entity is versioned and its version is {@code null}
+     */
+    public int save(T entity) {
+        Objects.requireNonNull(entity, "entity");
+        EntityField primaryKey = metadata.getPrimaryKey();
+        EntityField version = metadata.getVersion();
+        UpdateBuilder update = update();
+        for (EntityField field : metadata.getFields()) {
+            if (field != primaryKey && field != version) {
+                update.updates.put(field, metadata.getValue(entity, field));
+            }
+        }
+        Object key = metadata.getValue(entity, primaryKey);
+        update.where(primaryKey.getFieldName(), key);
+        if (version != null) {
+            Object expected = metadata.getValue(entity, version);
+            if (expected == null) {
+                throw new DatabaseException("Version field '" + version.getFieldName() + "' of table '" + tableName
+                        + "' is null for key " + key + "; use create(...) for entities that were never saved");
+            }
+            update.key = key;
+            update.expectVersion(((Number) expected).longValue());
+        } else {
+            update.entity = entity;
+        }
+        return update.execute();
+    }
+
+    /**
+     * Runs a read-modify-write action, repeating it when it fails with a {@link VersionConflictException}.
+     * <p>
+     * The action must re-read the entity on every attempt so that it works with the latest version.
+     * </p>
+     *
+     * <pre>{@code
+     * banks.retryOnConflict(5, () -> {
+     *     ClanBank bank = banks.findFirst().where("clanId", clanId).execute().orElseThrow();
+     *     return banks.save(bank.withBalance(bank.getBalance() + amount));
+     * });
+     * }</pre>
+     *
+     * @param maxAttempts maximum number of attempts, at least 1
+     * @param action      the action to run
+     * @param <R>         result type
+     * @return the result of the first successful attempt
+     * @throws VersionConflictException if every attempt conflicted
+     */
+    public <R> R retryOnConflict(int maxAttempts, Supplier<R> action) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        Objects.requireNonNull(action, "action");
+        VersionConflictException lastConflict = null;
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            try {
+                return action.get();
+            } catch (VersionConflictException exception) {
+                lastConflict = exception;
+            }
+        }
+        throw lastConflict;
+    }
+
+    String createTableSql() {
+        return createTableSql;
+    }
+
+    /**
+     * Reports a change announced by another server through an {@link InvalidationBus}.
+     *
+     * @param key string form of the primary key, or {@code null} for the whole table
+     */
+    void fireRemote(String key) {
+        version.incrementAndGet();
+        if (!listeners.isEmpty()) {
+            dispatch(new TableChange<>(tableName, TableChange.Type.UPDATE, parseKey(key), null, true));
+        }
+    }
+
+    /**
+     * Converts the string form of a primary key back to the key type. Keys of other types cannot be restored and
+     * are reported as table-wide changes.
+     */
+    private Object parseKey(String key) {
+        if (key == null) {
+            return null;
+        }
+        Class<?> type = metadata.getPrimaryKey().getType();
+        try {
+            if (type == String.class) {
+                return key;
+            } else if (type == UUID.class) {
+                return UUID.fromString(key);
+            } else if (type == Integer.class || type == int.class) {
+                return Integer.valueOf(key);
+            } else if (type == Long.class || type == long.class) {
+                return Long.valueOf(key);
+            } else if (type == Short.class || type == short.class) {
+                return Short.valueOf(key);
+            }
+        } catch (IllegalArgumentException exception) {
+            LOGGER.log(Level.FINE, "Invalid key '" + key + "' received for table '" + tableName + "'", exception);
+        }
+        return null;
+    }
+
+    private void fire(TableChange.Type type, Object key, T entity) {
+        version.incrementAndGet();
+        if (!listeners.isEmpty()) {
+            dispatch(new TableChange<>(tableName, type, key, entity));
+        }
+    }
+
+    private void dispatch(TableChange<T> change) {
+        for (TableListener<T> listener : listeners) {
+            try {
+                listener.onChange(change);
+            } catch (RuntimeException exception) {
+                LOGGER.log(Level.WARNING, "Listener of table '" + tableName + "' failed", exception);
+            }
+        }
+    }
+
+    private void fire(TableChange.Type type, List<Criterion> criteria) {
+        version.incrementAndGet();
+        if (listeners.isEmpty()) {
+            return;
+        }
+        List<Object> keys = keysOf(criteria);
+        if (keys == null) {
+            fire(type, null, null);
+            return;
+        }
+        for (Object key : keys) {
+            fire(type, key, null);
+        }
+    }
+
+    /**
+     * Returns the primary keys a statement is limited to, or {@code null} if it is not limited to known keys.
+     */
+    private List<Object> keysOf(List<Criterion> criteria) {
+        for (Criterion criterion : criteria) {
+            if (criterion.field != metadata.getPrimaryKey()) {
+                continue;
+            }
+            if (criterion.operator == QueryOperator.EQUALS && criterion.value != null) {
+                return List.of(criterion.value);
+            }
+            if (criterion.operator == QueryOperator.IN) {
+                return Arrays.asList((Object[]) criterion.value);
+            }
+        }
+        return null;
+    }
+
+    private String buildCreateTableSql() {
         StringBuilder sql = new StringBuilder();
         sql.append("CREATE TABLE IF NOT EXISTS ").append(tableName).append(" (");
         for (int i = 0; i < metadata.getFields().size(); i++) {
             EntityField field = metadata.getFields().get(i);
-            sql.append(field.getColumnName()).append(' ').append(field.getSqlType());
+            sql.append(field.getColumnName()).append(' ').append(field.getSqlType(client.getType()));
             if (!field.isNullable()) {
                 sql.append(" NOT NULL");
             }
@@ -76,7 +613,7 @@ public final class DynamicTable<T> {
             }
         }
         sql.append(')');
-        client.execute(sql.toString(), null);
+        return sql.toString();
     }
 
     private String buildInsertSql() {
@@ -143,36 +680,409 @@ public final class DynamicTable<T> {
     }
 
     public final class FindOneQuery extends AbstractQuery<FindOneQuery> {
+        private final List<String> includes = new ArrayList<>();
+        private long cacheTtlNanos;
+
         private FindOneQuery() {
             super();
         }
 
+        /**
+         * Loads the given relations of the result.
+         *
+         * @param paths relation paths, nested relations separated by dots
+         * @return this query
+         * @see DynamicTable#loadRelations(Collection, String...)
+         * @since 1.0.8
+         */
+        public FindOneQuery include(String... paths) {
+            includes.addAll(Arrays.asList(paths));
+            return this;
+        }
+
+        /**
+         * Serves the result from the table's query cache for up to {@code ttl}. Every call returns a new copy of
+         * the cached entity; queries with {@link #include(String...)} are not cached.
+         *
+         * @param ttl maximum age of a cached result
+         * @return this query
+         * @see FindManyQuery#cached(Duration)
+         * @since 1.0.8
+         */
+        public FindOneQuery cached(Duration ttl) {
+            this.cacheTtlNanos = ttlNanos(ttl);
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
         public Optional<T> execute() {
             List<Criterion> parameterCriteria = new ArrayList<>();
             StringBuilder sql = new StringBuilder();
             sql.append("SELECT ").append(columnList).append(" FROM ").append(tableName);
             appendWhereClause(sql, parameterCriteria, criteria);
             sql.append(" LIMIT 1");
-            return client.queryOne(sql.toString(), binder(parameterCriteria), DynamicTable.this::mapRow);
+            String shape = sql.toString();
+            List<Object> cacheKey = null;
+            long cacheVersion = 0;
+            if (cacheTtlNanos > 0 && includes.isEmpty()) {
+                cacheKey = cacheKey(shape, parameterCriteria);
+                cacheVersion = version.get();
+                Object cached = cache.get(cacheKey, shape, cacheVersion);
+                if (cached != null) {
+                    return cached == NO_ROW ? Optional.empty() : Optional.of(metadata.copy((T) cached));
+                }
+            }
+            SqlConsumer<PreparedStatement> binder = binder(parameterCriteria);
+            diagnostics.inspect(client, tableName, shape, binder);
+            Optional<T> result = client.queryOne(shape, binder, DynamicTable.this::mapRow);
+            if (result.isPresent() && !includes.isEmpty()) {
+                loadRelations(List.of(result.get()), includes.toArray(new String[0]));
+            }
+            if (cacheKey != null) {
+                Object cached = result.isPresent() ? metadata.copy(result.get()) : NO_ROW;
+                cache.put(cacheKey, cached, 1, cacheVersion, cacheTtlNanos);
+            }
+            return result;
         }
     }
 
     public final class FindManyQuery extends AbstractQuery<FindManyQuery> {
+        private static final int DEFAULT_FETCH_SIZE = 500;
+
+        private final List<String> orderings = new ArrayList<>();
+        private final List<String> includes = new ArrayList<>();
+        private int fetchSize = DEFAULT_FETCH_SIZE;
+        private int limit = -1;
+        private long cacheTtlNanos;
+
         private FindManyQuery() {
             super();
         }
 
+        /**
+         * Sorts the results by a field. Calls are applied in order, the first one being the primary sort key.
+         *
+         * @param field entity field name
+         * @param order sort direction
+         * @return this query
+         * @since 1.0.8
+         */
+        public FindManyQuery orderBy(String field, SortOrder order) {
+            Objects.requireNonNull(order, "order");
+            orderings.add(metadata.requireField(field).getColumnName() + ' ' + order.getSql());
+            return this;
+        }
+
+        /**
+         * Sorts like {@link #orderBy(String, SortOrder)}, but puts nulls first in ascending and last in descending
+         * order on every database, so results of several databases can be merged.
+         */
+        FindManyQuery orderByNullsFirst(String field, SortOrder order) {
+            Objects.requireNonNull(order, "order");
+            String column = metadata.requireField(field).getColumnName();
+            orderings.add("CASE WHEN " + column + " IS NULL THEN 0 ELSE 1 END " + order.getSql());
+            orderings.add(column + ' ' + order.getSql());
+            return this;
+        }
+
+        /**
+         * Loads the given relations of all results with one batched query per relation and level.
+         * Applies to {@link #execute()} and, per batch, to {@link #forEachBatch(int, Consumer)}.
+         *
+         * <pre>{@code
+         * List<ClanEntity> clans = clanTable.findMany()
+         *     .include("members", "members.homes")
+         *     .execute();
+         * }</pre>
+         *
+         * @param paths relation paths, nested relations separated by dots
+         * @return this query
+         * @since 1.0.8
+         */
+        public FindManyQuery include(String... paths) {
+            includes.addAll(Arrays.asList(paths));
+            return this;
+        }
+
+        /**
+         * Serves {@link #execute()} and {@link #count()} from the table's query cache for up to {@code ttl}.
+         * <p>
+         * Results are keyed by the SQL shape and bound values. Any write made through this table invalidates all
+         * of its cached results, as do invalidations from other servers when an {@link InvalidationBus} is used;
+         * writes made by other means are only picked up when {@code ttl} expires. The cache keeps its own copies
+         * of the entities and every call returns new copies, so results can be modified freely.
+         * </p>
+         * <p>
+         * Queries with {@link #include(String...)} are not cached, since writes to the related tables would not
+         * invalidate them.
+         * </p>
+         *
+         * <pre>{@code
+         * List<WarpEntity> warps = warpTable.findMany()
+         *     .where("public", true)
+         *     .cached(Duration.ofMinutes(5))
+         *     .execute();
+         * }</pre>
+         *
+         * @param ttl maximum age of a cached result
+         * @return this query
+         * @since 1.0.8
+         */
+        public FindManyQuery cached(Duration ttl) {
+            this.cacheTtlNanos = ttlNanos(ttl);
+            return this;
+        }
+
+        /**
+         * Returns at most {@code limit} rows. Ignored by {@link #count()}.
+         *
+         * @param limit maximum number of rows, must not be negative
+         * @return this query
+         * @since 1.0.8
+         */
+        public FindManyQuery limit(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("limit must not be negative");
+            }
+            this.limit = limit;
+            return this;
+        }
+
+        /**
+         * Sets how many rows {@link #stream()} and {@link #forEachBatch(int, Consumer)} fetch per round trip.
+         *
+         * @param fetchSize rows per fetch, must be positive
+         * @return this query
+         */
+        public FindManyQuery fetchSize(int fetchSize) {
+            if (fetchSize <= 0) {
+                throw new IllegalArgumentException("fetchSize must be positive");
+            }
+            this.fetchSize = fetchSize;
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
         public List<T> execute() {
+            List<Criterion> parameterCriteria = new ArrayList<>();
+            String sql = buildSelect(parameterCriteria);
+            List<Object> cacheKey = null;
+            long cacheVersion = 0;
+            if (cacheTtlNanos > 0 && includes.isEmpty()) {
+                cacheKey = cacheKey(sql, parameterCriteria);
+                cacheVersion = version.get();
+                Object cached = cache.get(cacheKey, sql, cacheVersion);
+                if (cached != null) {
+                    return copyAll((List<T>) cached);
+                }
+            }
+            SqlConsumer<PreparedStatement> binder = binder(parameterCriteria);
+            diagnostics.inspect(client, tableName, sql, binder);
+            List<T> rows = client.query(sql, binder, DynamicTable.this::mapRow);
+            if (!includes.isEmpty()) {
+                loadRelations(rows, includes.toArray(new String[0]));
+            }
+            if (cacheKey != null) {
+                cache.put(cacheKey, copyAll(rows), rows.size(), cacheVersion, cacheTtlNanos);
+            }
+            return rows;
+        }
+
+        /**
+         * Streams matching entities, mapping each row only when it is consumed.
+         * <p>
+         * The stream keeps a pooled connection open until it is exhausted or closed and must be used with
+         * try-with-resources:
+         * </p>
+         * <pre>{@code
+         * try (Stream<PlayerEntity> players = table.findMany().fetchSize(1000).stream()) {
+         *     players.forEach(this::decay);
+         * }
+         * }</pre>
+         *
+         * @return lazily mapped entities
+         */
+        public Stream<T> stream() {
+            List<Criterion> parameterCriteria = new ArrayList<>();
+            String sql = buildSelect(parameterCriteria);
+            SqlConsumer<PreparedStatement> binder = binder(parameterCriteria);
+            diagnostics.inspect(client, tableName, sql, binder);
+            return client.stream(sql, binder, DynamicTable.this::mapRow, fetchSize);
+        }
+
+        /**
+         * Passes matching entities to {@code consumer} in lists of at most {@code batchSize} elements.
+         * Only one batch is held in memory at a time and the connection is closed before this method returns.
+         *
+         * @param batchSize maximum entities per batch, must be positive
+         * @param consumer  batch consumer
+         */
+        public void forEachBatch(int batchSize, Consumer<List<T>> consumer) {
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("batchSize must be positive");
+            }
+            Objects.requireNonNull(consumer, "consumer");
+            try (Stream<T> rows = stream()) {
+                List<T> batch = new ArrayList<>(batchSize);
+                for (Iterator<T> iterator = rows.iterator(); iterator.hasNext(); ) {
+                    batch.add(iterator.next());
+                    if (batch.size() == batchSize) {
+                        loadRelations(batch, includes.toArray(new String[0]));
+                        consumer.accept(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    loadRelations(batch, includes.toArray(new String[0]));
+                    consumer.accept(batch);
+                }
+            }
+        }
+
+        /**
+         * Counts matching rows without loading them.
+         *
+         * @return number of matching rows
+         * @since 1.0.8
+         */
+        public long count() {
+            List<Criterion> parameterCriteria = new ArrayList<>();
+            StringBuilder sql = new StringBuilder();
+            sql.append("SELECT COUNT(*) FROM ").append(tableName);
+            appendWhereClause(sql, parameterCriteria, criteria);
+            String shape = sql.toString();
+            List<Object> cacheKey = null;
+            long cacheVersion = 0;
+            if (cacheTtlNanos > 0) {
+                cacheKey = cacheKey(shape, parameterCriteria);
+                cacheVersion = version.get();
+                Object cached = cache.get(cacheKey, shape, cacheVersion);
+                if (cached != null) {
+                    return (Long) cached;
+                }
+            }
+            SqlConsumer<PreparedStatement> binder = binder(parameterCriteria);
+            diagnostics.inspect(client, tableName, shape, binder);
+            long count = client.queryOne(shape, binder, resultSet -> resultSet.getLong(1)).orElse(0L);
+            if (cacheKey != null) {
+                cache.put(cacheKey, count, 1, cacheVersion, cacheTtlNanos);
+            }
+            return count;
+        }
+
+        /**
+         * Sums a numeric field over the matching rows without loading them. Ignores {@link #limit(int)}.
+         *
+         * @param field numeric entity field name
+         * @return the sum, or {@code 0} if no row has a value
+         * @since 1.0.8
+         */
+        public double sum(String field) {
+            return aggregate("SUM", field).orElse(0);
+        }
+
+        /**
+         * Returns the smallest value of a numeric field over the matching rows. Ignores {@link #limit(int)}.
+         *
+         * @param field numeric entity field name
+         * @return the minimum, or empty if no row has a value
+         * @since 1.0.8
+         */
+        public OptionalDouble min(String field) {
+            return aggregate("MIN", field);
+        }
+
+        /**
+         * Returns the largest value of a numeric field over the matching rows. Ignores {@link #limit(int)}.
+         *
+         * @param field numeric entity field name
+         * @return the maximum, or empty if no row has a value
+         * @since 1.0.8
+         */
+        public OptionalDouble max(String field) {
+            return aggregate("MAX", field);
+        }
+
+        private OptionalDouble aggregate(String function, String field) {
+            EntityField entityField = metadata.requireField(field);
+            if (!isNumeric(entityField.getType())) {
+                throw new DatabaseException("Field '" + field + "' of table '" + tableName + "' is not numeric");
+            }
             List<Criterion> parameterCriteria = new ArrayList<>();
+            StringBuilder sql = new StringBuilder();
+            sql.append("SELECT ").append(function).append('(').append(entityField.getColumnName()).append(") FROM ")
+                    .append(tableName);
+            appendWhereClause(sql, parameterCriteria, criteria);
+            String shape = sql.toString();
+            List<Object> cacheKey = null;
+            long cacheVersion = 0;
+            if (cacheTtlNanos > 0) {
+                cacheKey = cacheKey(shape, parameterCriteria);
+                cacheVersion = version.get();
+                Object cached = cache.get(cacheKey, shape, cacheVersion);
+                if (cached != null) {
+                    return (OptionalDouble) cached;
+                }
+            }
+            SqlConsumer<PreparedStatement> binder = binder(parameterCriteria);
+            diagnostics.inspect(client, tableName, shape, binder);
+            OptionalDouble result = client.queryOne(shape, binder, resultSet -> {
+                double value = resultSet.getDouble(1);
+                return resultSet.wasNull() ? OptionalDouble.empty() : OptionalDouble.of(value);
+            }).orElse(OptionalDouble.empty());
+            if (cacheKey != null) {
+                cache.put(cacheKey, result, 1, cacheVersion, cacheTtlNanos);
+            }
+            return result;
+        }
+
+        private String buildSelect(List<Criterion> parameterCriteria) {
             StringBuilder sql = new StringBuilder();
             sql.append("SELECT ").append(columnList).append(" FROM ").append(tableName);
             appendWhereClause(sql, parameterCriteria, criteria);
-            return client.query(sql.toString(), binder(parameterCriteria), DynamicTable.this::mapRow);
+            if (!orderings.isEmpty()) {
+                sql.append(" ORDER BY ").append(String.join(", ", orderings));
+            }
+            if (limit >= 0) {
+                sql.append(" LIMIT ").append(limit);
+            }
+            return sql.toString();
+        }
+    }
+
+    /**
+     * Builder for {@code DELETE} statements.
+     *
+     * @since 1.0.8
+     */
+    public final class DeleteBuilder extends AbstractQuery<DeleteBuilder> {
+        private DeleteBuilder() {
+            super();
+        }
+
+        public int execute() {
+            if (criteria.isEmpty()) {
+                throw new DatabaseException("No conditions specified for delete on table '" + tableName + "'");
+            }
+            List<Criterion> parameterCriteria = new ArrayList<>();
+            StringBuilder sql = new StringBuilder();
+            sql.append("DELETE FROM ").append(tableName);
+            appendWhereClause(sql, parameterCriteria, criteria);
+            SqlConsumer<PreparedStatement> binder = binder(parameterCriteria);
+            diagnostics.inspect(client, tableName, sql.toString(), binder);
+            int deleted = client.execute(sql.toString(), binder);
+            if (deleted > 0) {
+                fire(TableChange.Type.DELETE, criteria);
+            }
+            return deleted;
         }
     }
 
     public final class UpdateBuilder extends AbstractQuery<UpdateBuilder> {
         private final Map<EntityField, Object> updates = new LinkedHashMap<>();
+        private Long expectedVersion;
+        private Object key;
+        private T entity;
 
         private UpdateBuilder() {
             super();
@@ -180,10 +1090,33 @@ public final class DynamicTable<T> {
 
         public UpdateBuilder set(String field, Object value) {
             EntityField entityField = metadata.requireField(field);
+            if (entityField.isVersion()) {
+                throw new DatabaseException("Version field '" + field + "' of table '" + tableName
+                        + "' is managed automatically");
+            }
             updates.put(entityField, value);
             return this;
         }
 
+        /**
+         * Applies the update only to rows whose {@link Version} column equals {@code version}.
+         * If no row matches, {@link #execute()} throws {@link VersionConflictException}.
+         *
+         * @param version the version the caller read
+         * @return this builder
+         * @throws DatabaseException if the entity has no {@link Version} field
+         */
+        public UpdateBuilder expectVersion(long version) {
+            EntityField versionField = metadata.getVersion();
+            if (versionField == null) {
+                throw new DatabaseException("Entity " + metadata.getEntityType().getName()
+                        + " does not declare a @Version field");
+            }
+            criteria.add(new Criterion(versionField, version));
+            this.expectedVersion = version;
+            return this;
+        }
+
         public int execute() {
             if (updates.isEmpty()) {
                 throw new DatabaseException("No fields specified for update on table '" + tableName + "'");
@@ -199,6 +1132,11 @@ public final class DynamicTable<T> {
                 sql.append(entry.getKey().getColumnName()).append(" = ?");
                 updateCriteria.add(new Criterion(entry.getKey(), entry.getValue()));
             }
+            EntityField versionField = metadata.getVersion();
+            if (versionField != null) {
+                String column = versionField.getColumnName();
+                sql.append(", ").append(column).append(" = ").append(column).append(" + 1");
+            }
             List<Criterion> whereCriteria = new ArrayList<>();
             appendWhereClause(sql, whereCriteria, criteria);
             SqlConsumer<PreparedStatement> binder = statement -> {
@@ -207,10 +1145,23 @@ public final class DynamicTable<T> {
                     criterion.bind(statement, index++);
                 }
                 for (Criterion criterion : whereCriteria) {
-                    criterion.bind(statement, index++);
+                    criterion.bind(statement, index);
+                    index += criterion.getBindCount();
                 }
             };
-            return client.execute(sql.toString(), binder);
+            diagnostics.inspect(client, tableName, sql.toString(), binder);
+            int updated = client.execute(sql.toString(), binder);
+            if (updated == 0 && expectedVersion != null) {
+                throw new VersionConflictException(tableName, key, expectedVersion);
+            }
+            if (updated > 0) {
+                if (entity != null) {
+                    fire(TableChange.Type.UPDATE, primaryKeyOf(entity), entity);
+                } else {
+                    fire(TableChange.Type.UPDATE, criteria);
+                }
+            }
+            return updated;
         }
     }
 
@@ -9,25 +9,38 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 final class EntityMetadata<T> {
     private final Class<T> entityType;
     private final Constructor<T> constructor;
+    private final int[] constructorSlots;
+    private final int constructorArity;
     private final List<EntityField> fields;
     private final Map<String, EntityField> byName;
+    private final Map<String, EntityRelation> relations;
     private final EntityField primaryKey;
+    private final EntityField version;
     private final String columnList;
 
     private EntityMetadata(Class<T> entityType,
                            Constructor<T> constructor,
+                           int[] constructorSlots,
                            List<EntityField> fields,
-                           EntityField primaryKey) {
+                           Map<String, EntityRelation> relations,
+                           EntityField primaryKey,
+                           EntityField version) {
         this.entityType = entityType;
         this.constructor = constructor;
+        this.constructorSlots = constructorSlots;
+        this.constructorArity = constructor.getParameterCount();
         this.fields = fields;
+        this.relations = relations;
         this.primaryKey = primaryKey;
+        this.version = version;
         this.byName = new LinkedHashMap<>();
         for (EntityField field : fields) {
             this.byName.put(field.getFieldName(), field);
@@ -42,46 +55,102 @@ final class EntityMetadata<T> {
         this.columnList = builder.toString();
     }
 
-    static <T> EntityMetadata<T> inspect(Class<T> type) {
-        List<Field> declaredFields = collectInstanceFields(type);
+    static <T> EntityMetadata<T> inspect(Class<T> type, FieldCodecRegistry codecs) {
+        List<Field> allFields = collectInstanceFields(type);
+        List<Field> declaredFields = new ArrayList<>();
+        Map<String, EntityRelation> relations = new LinkedHashMap<>();
+        for (Field field : allFields) {
+            if (EntityRelation.isRelation(field)) {
+                relations.put(field.getName(), EntityRelation.from(type, field));
+            } else {
+                declaredFields.add(field);
+            }
+        }
         if (declaredFields.isEmpty()) {
             throw new io.github.chi2l3s.nextlib.api.database.EntityMappingException(
                     type, "Entity does not declare any fields");
         }
-        Constructor<T> constructor = resolveConstructor(type, declaredFields);
+        Constructor<T> constructor = resolveConstructor(type, declaredFields, allFields);
+        int[] constructorSlots = new int[declaredFields.size()];
+        for (int i = 0; i < declaredFields.size(); i++) {
+            constructorSlots[i] = constructor.getParameterCount() == declaredFields.size()
+                    ? i : allFields.indexOf(declaredFields.get(i));
+        }
         List<EntityField> entityFields = new ArrayList<>();
         EntityField primaryKey = null;
+        EntityField version = null;
         for (int i = 0; i < declaredFields.size(); i++) {
             Field field = declaredFields.get(i);
-            EntityField entityField = EntityField.from(field);
+            EntityField entityField = EntityField.from(field, codecs);
             entityFields.add(entityField);
             if (primaryKey == null || entityField.isPrimaryKey()) {
                 primaryKey = entityField;
             }
+            if (entityField.isVersion()) {
+                if (version != null) {
+                    throw new io.github.chi2l3s.nextlib.api.database.EntityMappingException(
+                            type, "Only one @Version field is allowed");
+                }
+                version = entityField;
+            }
         }
         if (primaryKey == null) {
             primaryKey = entityFields.get(0);
         }
-        return new EntityMetadata<>(type, constructor, entityFields, primaryKey);
+        if (version != null) {
+            validateVersion(type, version, primaryKey);
+        }
+        return new EntityMetadata<>(type, constructor, constructorSlots, entityFields, relations, primaryKey, version);
     }
 
-    private static <T> Constructor<T> resolveConstructor(Class<T> type, List<Field> fields) {
-        List<Class<?>> parameterTypes = new ArrayList<>();
-        for (Field field : fields) {
-            parameterTypes.add(field.getType());
+    private static void validateVersion(Class<?> type, EntityField version, EntityField primaryKey) {
+        Class<?> versionType = version.getType();
+        if (versionType != int.class && versionType != Integer.class
+                && versionType != long.class && versionType != Long.class) {
+            throw new io.github.chi2l3s.nextlib.api.database.EntityMappingException(
+                    type, "@Version field '" + version.getFieldName() + "' must be int or long");
+        }
+        if (version == primaryKey) {
+            throw new io.github.chi2l3s.nextlib.api.database.EntityMappingException(
+                    type, "@Version field '" + version.getFieldName() + "' cannot be the primary key");
         }
+    }
+
+    /**
+     * Resolves a constructor taking the column fields, or, for entities with relations, all fields in declaration
+     * order (relations receive {@code null}).
+     */
+    private static <T> Constructor<T> resolveConstructor(Class<T> type, List<Field> columns, List<Field> allFields) {
         try {
-            Constructor<T> constructor = type.getDeclaredConstructor(parameterTypes.toArray(new Class<?>[0]));
-            if (!constructor.canAccess(null)) {
-                constructor.setAccessible(true);
-            }
-            return constructor;
+            return accessible(type.getDeclaredConstructor(parameterTypes(columns)));
         } catch (ReflectiveOperationException exception) {
+            if (columns.size() != allFields.size()) {
+                try {
+                    return accessible(type.getDeclaredConstructor(parameterTypes(allFields)));
+                } catch (ReflectiveOperationException ignored) {
+                    // report the column-only signature below
+                }
+            }
             throw new io.github.chi2l3s.nextlib.api.database.EntityMappingException(
                     type, "Failed to resolve constructor", exception);
         }
     }
 
+    private static Class<?>[] parameterTypes(List<Field> fields) {
+        Class<?>[] parameterTypes = new Class<?>[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            parameterTypes[i] = fields.get(i).getType();
+        }
+        return parameterTypes;
+    }
+
+    private static <T> Constructor<T> accessible(Constructor<T> constructor) {
+        if (!constructor.canAccess(null)) {
+            constructor.setAccessible(true);
+        }
+        return constructor;
+    }
+
     private static List<Field> collectInstanceFields(Class<?> type) {
         List<Field> fields = new ArrayList<>();
         for (Field field : type.getDeclaredFields()) {
@@ -109,6 +178,21 @@ final class EntityMetadata<T> {
         return primaryKey;
     }
 
+    /**
+     * Returns the {@link Version} field, or {@code null} if the entity is not versioned.
+     */
+    EntityField getVersion() {
+        return version;
+    }
+
+    EntityRelation requireRelation(String name) {
+        EntityRelation relation = relations.get(name);
+        if (relation == null) {
+            throw new DatabaseException("Unknown relation '" + name + "' for entity " + entityType.getName());
+        }
+        return relation;
+    }
+
     String columnList() {
         return columnList;
     }
@@ -130,10 +214,10 @@ final class EntityMetadata<T> {
     }
 
     T map(ResultSet resultSet) {
-        Object[] values = new Object[fields.size()];
+        Object[] values = new Object[constructorArity];
         try {
             for (int i = 0; i < fields.size(); i++) {
-                values[i] = fields.get(i).read(resultSet);
+                values[constructorSlots[i]] = fields.get(i).read(resultSet);
             }
             return constructor.newInstance(values);
         } catch (ReflectiveOperationException | SQLException exception) {
@@ -141,4 +225,49 @@ final class EntityMetadata<T> {
                     entityType, "Failed to map result set", exception);
         }
     }
+
+    /**
+     * Creates a new instance with the column values of {@code instance}. Arrays, lists, sets and maps are copied
+     * one level deep; relations are left unset and values of custom codecs are shared.
+     */
+    T copy(T instance) {
+        Object[] values = new Object[constructorArity];
+        try {
+            for (int i = 0; i < fields.size(); i++) {
+                EntityField field = fields.get(i);
+                Object value = field.getValue(instance);
+                Object copied = copyValue(value);
+                values[constructorSlots[i]] = field.getType().isInstance(copied) ? copied : value;
+            }
+            return constructor.newInstance(values);
+        } catch (ReflectiveOperationException exception) {
+            throw new io.github.chi2l3s.nextlib.api.database.EntityMappingException(
+                    entityType, "Failed to copy entity", exception);
+        }
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof byte[] bytes) {
+            return bytes.clone();
+        }
+        if (value instanceof int[] ints) {
+            return ints.clone();
+        }
+        if (value instanceof long[] longs) {
+            return longs.clone();
+        }
+        if (value instanceof double[] doubles) {
+            return doubles.clone();
+        }
+        if (value instanceof List<?> list) {
+            return new ArrayList<>(list);
+        }
+        if (value instanceof Set<?> set) {
+            return new LinkedHashSet<>(set);
+        }
+        if (value instanceof Map<?, ?> map) {
+            return new LinkedHashMap<>(map);
+        }
+        return value;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+import io.github.chi2l3s.nextlib.api.database.DatabaseException;
+import io.github.chi2l3s.nextlib.api.database.EntityMappingException;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+final class EntityRelation {
+    enum Kind {
+        ONE_TO_MANY,
+        MANY_TO_ONE
+    }
+
+    private final Field field;
+    private final Kind kind;
+    private final Class<?> targetType;
+    private final String joinField;
+
+    private EntityRelation(Field field, Kind kind, Class<?> targetType, String joinField) {
+        this.field = field;
+        this.kind = kind;
+        this.targetType = targetType;
+        this.joinField = joinField;
+    }
+
+    static boolean isRelation(Field field) {
+        return field.isAnnotationPresent(OneToMany.class) || field.isAnnotationPresent(ManyToOne.class);
+    }
+
+    static EntityRelation from(Class<?> owner, Field field) {
+        OneToMany oneToMany = field.getAnnotation(OneToMany.class);
+        if (oneToMany != null) {
+            if (field.getType() != List.class && field.getType() != Set.class) {
+                throw new EntityMappingException(owner, "@OneToMany field '" + field.getName()
+                        + "' must be a List or Set");
+            }
+            Type genericType = field.getGenericType();
+            if (!(genericType instanceof ParameterizedType parameterized)
+                    || !(parameterized.getActualTypeArguments()[0] instanceof Class<?> elementType)) {
+                throw new EntityMappingException(owner, "@OneToMany field '" + field.getName()
+                        + "' must declare its element type");
+            }
+            return new EntityRelation(field, Kind.ONE_TO_MANY, elementType, oneToMany.mappedBy());
+        }
+        ManyToOne manyToOne = field.getAnnotation(ManyToOne.class);
+        return new EntityRelation(field, Kind.MANY_TO_ONE, field.getType(), manyToOne.joinField());
+    }
+
+    String getName() {
+        return field.getName();
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    Class<?> getTargetType() {
+        return targetType;
+    }
+
+    /**
+     * Returns {@code mappedBy} for one-to-many relations and {@code joinField} for many-to-one relations.
+     */
+    String getJoinField() {
+        return joinField;
+    }
+
+    void set(Object instance, Object value) {
+        try {
+            field.set(instance, value);
+        } catch (IllegalAccessException exception) {
+            throw new DatabaseException("Failed to set relation '" + field.getName() + "'", exception);
+        }
+    }
+
+    Collection<Object> newCollection() {
+        return field.getType() == Set.class ? new LinkedHashSet<>() : new ArrayList<>();
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+import io.github.chi2l3s.nextlib.api.database.DatabaseType;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Converts a Java field value to and from its JDBC column representation.
+ * <p>
+ * Codecs are resolved once per field when an entity is inspected, so implementations should
+ * perform their conversion directly without further type dispatch.
+ * </p>
+ *
+ * <p><strong>Example usage:</strong></p>
+ * <pre>{@code
+ * database.registerCodec(Location.class, new FieldCodec<Location>() {
+ *     public String getSqlType(DatabaseType type) { return "TEXT"; }
+ *     public int getJdbcType() { return Types.VARCHAR; }
+ *     public void bind(PreparedStatement statement, int index, Location value) throws SQLException {
+ *         statement.setString(index, LocationSerializer.write(value));
+ *     }
+ *     public Location read(ResultSet resultSet, String column) throws SQLException {
+ *         String value = resultSet.getString(column);
+ *         return value != null ? LocationSerializer.read(value) : null;
+ *     }
+ * });
+ * }</pre>
+ *
+ * @param <T> the Java type handled by this codec
+ * @see FieldCodecs
+ * @see FieldCodecRegistry
+ * @since 1.0.8
+ */
+public interface FieldCodec<T> {
+
+    /**
+     * Returns the column type used when creating tables.
+     *
+     * @param type the database engine the table is created in
+     * @return SQL column type
+     */
+    String getSqlType(DatabaseType type);
+
+    /**
+     * Returns the {@link java.sql.Types} constant used when binding {@code null}.
+     *
+     * @return JDBC type code
+     */
+    int getJdbcType();
+
+    /**
+     * Binds a non-null value to the statement.
+     *
+     * @param statement the statement
+     * @param index     parameter index (1-based)
+     * @param value     the value, never {@code null}
+     * @throws SQLException if binding fails
+     */
+    void bind(PreparedStatement statement, int index, T value) throws SQLException;
+
+    /**
+     * Reads a value from the current row.
+     *
+     * @param resultSet the result set positioned at a row
+     * @param column    the column label
+     * @return the value, or {@code null} for SQL {@code NULL} on nullable types
+     * @throws SQLException if reading fails
+     */
+    T read(ResultSet resultSet, String column) throws SQLException;
+}
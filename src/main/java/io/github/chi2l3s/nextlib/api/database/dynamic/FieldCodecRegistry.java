@@ -0,0 +1,122 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+import io.github.chi2l3s.nextlib.api.database.DatabaseException;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of {@link FieldCodec codecs} used to map entity fields to columns.
+ * <p>
+ * Lookup order for a field is: a codec registered for the exact field type, then
+ * {@link FieldCodecs#enumByName(Class)} for enums, then the binary collection codecs for
+ * {@code List}/{@code Set}/{@code Collection} of {@code Integer}, {@code Long} or {@code Double}.
+ * Codecs must be registered before the entities that use them.
+ * </p>
+ *
+ * @see DynamicDatabase#registerCodec(Class, FieldCodec)
+ * @since 1.0.8
+ */
+public final class FieldCodecRegistry {
+    private final Map<Class<?>, FieldCodec<?>> codecs = new ConcurrentHashMap<>();
+
+    public FieldCodecRegistry() {
+        codecs.put(String.class, FieldCodecs.STRING);
+        codecs.put(UUID.class, FieldCodecs.UUID_TEXT);
+        codecs.put(int.class, FieldCodecs.INT);
+        codecs.put(Integer.class, FieldCodecs.INTEGER);
+        codecs.put(short.class, FieldCodecs.SHORT);
+        codecs.put(Short.class, FieldCodecs.SHORT_BOXED);
+        codecs.put(long.class, FieldCodecs.LONG);
+        codecs.put(Long.class, FieldCodecs.LONG_BOXED);
+        codecs.put(double.class, FieldCodecs.DOUBLE);
+        codecs.put(Double.class, FieldCodecs.DOUBLE_BOXED);
+        codecs.put(float.class, FieldCodecs.FLOAT);
+        codecs.put(Float.class, FieldCodecs.FLOAT_BOXED);
+        codecs.put(boolean.class, FieldCodecs.BOOLEAN);
+        codecs.put(Boolean.class, FieldCodecs.BOOLEAN_BOXED);
+        codecs.put(Instant.class, FieldCodecs.INSTANT);
+        codecs.put(LocalDate.class, FieldCodecs.LOCAL_DATE);
+        codecs.put(LocalDateTime.class, FieldCodecs.LOCAL_DATE_TIME);
+        codecs.put(BigDecimal.class, FieldCodecs.BIG_DECIMAL);
+        codecs.put(byte[].class, FieldCodecs.BYTES);
+        codecs.put(int[].class, FieldCodecs.INT_ARRAY);
+        codecs.put(long[].class, FieldCodecs.LONG_ARRAY);
+        codecs.put(double[].class, FieldCodecs.DOUBLE_ARRAY);
+    }
+
+    /**
+     * Registers or replaces the codec for a field type.
+     *
+     * @param type  the exact declared field type
+     * @param codec the codec
+     * @param <T>   field type
+     * @return this registry
+     */
+    public <T> FieldCodecRegistry register(Class<T> type, FieldCodec<? super T> codec) {
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(codec, "codec");
+        codecs.put(type, codec);
+        return this;
+    }
+
+    /**
+     * Stores the given enum by ordinal instead of by name.
+     *
+     * @param type enum class
+     * @param <E>  enum type
+     * @return this registry
+     */
+    public <E extends Enum<E>> FieldCodecRegistry registerEnumByOrdinal(Class<E> type) {
+        return register(type, FieldCodecs.enumByOrdinal(type));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    FieldCodec<?> resolve(Field field) {
+        Class<?> type = field.getType();
+        FieldCodec<?> codec = codecs.get(type);
+        if (codec != null) {
+            return codec;
+        }
+        if (type.isEnum()) {
+            return FieldCodecs.enumByName((Class) type);
+        }
+        if (type == List.class || type == Set.class || type == Collection.class) {
+            Class<?> elementType = elementType(field);
+            if (elementType == Integer.class) {
+                return FieldCodecs.intCollection(type);
+            }
+            if (elementType == Long.class) {
+                return FieldCodecs.longCollection(type);
+            }
+            if (elementType == Double.class) {
+                return FieldCodecs.doubleCollection(type);
+            }
+        }
+        throw new DatabaseException("Unsupported field type " + field.getGenericType().getTypeName()
+                + " for column '" + field.getName() + "'");
+    }
+
+    private static Class<?> elementType(Field field) {
+        Type genericType = field.getGenericType();
+        if (genericType instanceof ParameterizedType parameterized) {
+            Type argument = parameterized.getActualTypeArguments()[0];
+            if (argument instanceof Class<?> elementClass) {
+                return elementClass;
+            }
+        }
+        return null;
+    }
+}
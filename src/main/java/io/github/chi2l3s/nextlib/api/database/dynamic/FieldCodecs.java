@@ -0,0 +1,417 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+import io.github.chi2l3s.nextlib.api.database.DatabaseException;
+import io.github.chi2l3s.nextlib.api.database.DatabaseType;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Built-in {@link FieldCodec} implementations.
+ * <p>
+ * Primitive arrays and collections of {@code Integer}, {@code Long} and {@code Double} are stored as a
+ * compact binary blob: a 4-byte element count followed by fixed-width big-endian values.
+ * </p>
+ *
+ * @since 1.0.8
+ */
+public final class FieldCodecs {
+
+    /**
+     * Binds any value by {@link Object#toString()}, so criteria such as {@code where("name", 5)} keep working.
+     */
+    public static final FieldCodec<Object> STRING = codec("TEXT", Types.VARCHAR,
+            (statement, index, value) -> statement.setString(index, value.toString()),
+            ResultSet::getString);
+
+    public static final FieldCodec<UUID> UUID_TEXT = codec("TEXT", Types.VARCHAR,
+            (statement, index, value) -> statement.setString(index, value.toString()),
+            (resultSet, column) -> {
+                String value = resultSet.getString(column);
+                return value != null ? UUID.fromString(value) : null;
+            });
+
+    public static final FieldCodec<Number> INT = codec("INTEGER", Types.INTEGER,
+            (statement, index, value) -> statement.setInt(index, value.intValue()),
+            ResultSet::getInt);
+
+    public static final FieldCodec<Number> INTEGER = codec("INTEGER", Types.INTEGER,
+            (statement, index, value) -> statement.setInt(index, value.intValue()),
+            (resultSet, column) -> {
+                int value = resultSet.getInt(column);
+                return resultSet.wasNull() ? null : value;
+            });
+
+    public static final FieldCodec<Number> SHORT = codec("INTEGER", Types.INTEGER,
+            (statement, index, value) -> statement.setShort(index, value.shortValue()),
+            ResultSet::getShort);
+
+    public static final FieldCodec<Number> SHORT_BOXED = codec("INTEGER", Types.INTEGER,
+            (statement, index, value) -> statement.setShort(index, value.shortValue()),
+            (resultSet, column) -> {
+                short value = resultSet.getShort(column);
+                return resultSet.wasNull() ? null : value;
+            });
+
+    public static final FieldCodec<Number> LONG = codec("BIGINT", Types.BIGINT,
+            (statement, index, value) -> statement.setLong(index, value.longValue()),
+            ResultSet::getLong);
+
+    public static final FieldCodec<Number> LONG_BOXED = codec("BIGINT", Types.BIGINT,
+            (statement, index, value) -> statement.setLong(index, value.longValue()),
+            (resultSet, column) -> {
+                long value = resultSet.getLong(column);
+                return resultSet.wasNull() ? null : value;
+            });
+
+    public static final FieldCodec<Number> DOUBLE = codec("DOUBLE", Types.DOUBLE,
+            (statement, index, value) -> statement.setDouble(index, value.doubleValue()),
+            ResultSet::getDouble);
+
+    public static final FieldCodec<Number> DOUBLE_BOXED = codec("DOUBLE", Types.DOUBLE,
+            (statement, index, value) -> statement.setDouble(index, value.doubleValue()),
+            (resultSet, column) -> {
+                double value = resultSet.getDouble(column);
+                return resultSet.wasNull() ? null : value;
+            });
+
+    public static final FieldCodec<Number> FLOAT = codec("DOUBLE", Types.DOUBLE,
+            (statement, index, value) -> statement.setFloat(index, value.floatValue()),
+            ResultSet::getFloat);
+
+    public static final FieldCodec<Number> FLOAT_BOXED = codec("DOUBLE", Types.DOUBLE,
+            (statement, index, value) -> statement.setFloat(index, value.floatValue()),
+            (resultSet, column) -> {
+                float value = resultSet.getFloat(column);
+                return resultSet.wasNull() ? null : value;
+            });
+
+    public static final FieldCodec<Boolean> BOOLEAN = codec("BOOLEAN", Types.BOOLEAN,
+            PreparedStatement::setBoolean,
+            ResultSet::getBoolean);
+
+    public static final FieldCodec<Boolean> BOOLEAN_BOXED = codec("BOOLEAN", Types.BOOLEAN,
+            PreparedStatement::setBoolean,
+            (resultSet, column) -> {
+                boolean value = resultSet.getBoolean(column);
+                return resultSet.wasNull() ? null : value;
+            });
+
+    /**
+     * Stores {@link Instant} values in a {@code TIMESTAMP} column. This is the default for {@code Instant} fields.
+     */
+    public static final FieldCodec<Instant> INSTANT = codec("TIMESTAMP", Types.TIMESTAMP,
+            (statement, index, value) -> statement.setTimestamp(index, Timestamp.from(value)),
+            (resultSet, column) -> {
+                Timestamp timestamp = resultSet.getTimestamp(column);
+                return timestamp != null ? timestamp.toInstant() : null;
+            });
+
+    /**
+     * Stores {@link Instant} values as epoch milliseconds in a {@code BIGINT} column. Avoids driver-specific
+     * time zone handling and compares as a plain integer; register it explicitly to use it for new tables.
+     */
+    public static final FieldCodec<Instant> INSTANT_EPOCH_MILLIS = codec("BIGINT", Types.BIGINT,
+            (statement, index, value) -> statement.setLong(index, value.toEpochMilli()),
+            (resultSet, column) -> {
+                long value = resultSet.getLong(column);
+                return resultSet.wasNull() ? null : Instant.ofEpochMilli(value);
+            });
+
+    public static final FieldCodec<LocalDate> LOCAL_DATE = codec("DATE", Types.DATE,
+            (statement, index, value) -> statement.setDate(index, Date.valueOf(value)),
+            (resultSet, column) -> {
+                Date date = resultSet.getDate(column);
+                return date != null ? date.toLocalDate() : null;
+            });
+
+    public static final FieldCodec<LocalDateTime> LOCAL_DATE_TIME = codec("TIMESTAMP", Types.TIMESTAMP,
+            (statement, index, value) -> statement.setTimestamp(index, Timestamp.valueOf(value)),
+            (resultSet, column) -> {
+                Timestamp timestamp = resultSet.getTimestamp(column);
+                return timestamp != null ? timestamp.toLocalDateTime() : null;
+            });
+
+    public static final FieldCodec<BigDecimal> BIG_DECIMAL = codec("DECIMAL(38, 10)", Types.DECIMAL,
+            PreparedStatement::setBigDecimal,
+            ResultSet::getBigDecimal);
+
+    public static final FieldCodec<byte[]> BYTES = new FieldCodec<>() {
+        @Override
+        public String getSqlType(DatabaseType type) {
+            return binarySqlType(type);
+        }
+
+        @Override
+        public int getJdbcType() {
+            return Types.VARBINARY;
+        }
+
+        @Override
+        public void bind(PreparedStatement statement, int index, byte[] value) throws SQLException {
+            statement.setBytes(index, value);
+        }
+
+        @Override
+        public byte[] read(ResultSet resultSet, String column) throws SQLException {
+            return resultSet.getBytes(column);
+        }
+    };
+
+    public static final FieldCodec<int[]> INT_ARRAY = binary(
+            value -> {
+                ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + value.length * Integer.BYTES);
+                buffer.putInt(value.length);
+                for (int element : value) {
+                    buffer.putInt(element);
+                }
+                return buffer.array();
+            },
+            buffer -> {
+                int[] value = new int[buffer.getInt()];
+                for (int i = 0; i < value.length; i++) {
+                    value[i] = buffer.getInt();
+                }
+                return value;
+            });
+
+    public static final FieldCodec<long[]> LONG_ARRAY = binary(
+            value -> {
+                ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + value.length * Long.BYTES);
+                buffer.putInt(value.length);
+                for (long element : value) {
+                    buffer.putLong(element);
+                }
+                return buffer.array();
+            },
+            buffer -> {
+                long[] value = new long[buffer.getInt()];
+                for (int i = 0; i < value.length; i++) {
+                    value[i] = buffer.getLong();
+                }
+                return value;
+            });
+
+    public static final FieldCodec<double[]> DOUBLE_ARRAY = binary(
+            value -> {
+                ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + value.length * Double.BYTES);
+                buffer.putInt(value.length);
+                for (double element : value) {
+                    buffer.putDouble(element);
+                }
+                return buffer.array();
+            },
+            buffer -> {
+                double[] value = new double[buffer.getInt()];
+                for (int i = 0; i < value.length; i++) {
+                    value[i] = buffer.getDouble();
+                }
+                return value;
+            });
+
+    private FieldCodecs() {
+        // Utility class
+    }
+
+    /**
+     * Stores enum constants by {@link Enum#name()}. Used by default for enum fields; survives reordering of constants.
+     *
+     * @param type enum class
+     * @param <E>  enum type
+     * @return codec instance
+     */
+    public static <E extends Enum<E>> FieldCodec<E> enumByName(Class<E> type) {
+        Objects.requireNonNull(type, "type");
+        return codec("TEXT", Types.VARCHAR,
+                (statement, index, value) -> statement.setString(index, value.name()),
+                (resultSet, column) -> {
+                    String value = resultSet.getString(column);
+                    return value != null ? Enum.valueOf(type, value) : null;
+                });
+    }
+
+    /**
+     * Stores enum constants by {@link Enum#ordinal()}. More compact than {@link #enumByName(Class)}, but
+     * constants must never be reordered once rows have been written.
+     *
+     * @param type enum class
+     * @param <E>  enum type
+     * @return codec instance
+     */
+    public static <E extends Enum<E>> FieldCodec<E> enumByOrdinal(Class<E> type) {
+        Objects.requireNonNull(type, "type");
+        E[] constants = type.getEnumConstants();
+        return codec("INTEGER", Types.INTEGER,
+                (statement, index, value) -> statement.setInt(index, value.ordinal()),
+                (resultSet, column) -> {
+                    int ordinal = resultSet.getInt(column);
+                    if (resultSet.wasNull()) {
+                        return null;
+                    }
+                    if (ordinal < 0 || ordinal >= constants.length) {
+                        throw new DatabaseException("Invalid ordinal " + ordinal + " of " + type.getName()
+                                + " in column '" + column + "'");
+                    }
+                    return constants[ordinal];
+                });
+    }
+
+    /**
+     * Binary codec for {@code List}, {@code Set} or {@code Collection} fields of {@code Integer} elements.
+     *
+     * @param collectionType declared field type
+     * @return codec instance
+     */
+    public static FieldCodec<Collection<Integer>> intCollection(Class<?> collectionType) {
+        return collection(collectionType, Integer.BYTES, ByteBuffer::putInt, ByteBuffer::getInt);
+    }
+
+    /**
+     * Binary codec for {@code List}, {@code Set} or {@code Collection} fields of {@code Long} elements.
+     *
+     * @param collectionType declared field type
+     * @return codec instance
+     */
+    public static FieldCodec<Collection<Long>> longCollection(Class<?> collectionType) {
+        return collection(collectionType, Long.BYTES, ByteBuffer::putLong, ByteBuffer::getLong);
+    }
+
+    /**
+     * Binary codec for {@code List}, {@code Set} or {@code Collection} fields of {@code Double} elements.
+     *
+     * @param collectionType declared field type
+     * @return codec instance
+     */
+    public static FieldCodec<Collection<Double>> doubleCollection(Class<?> collectionType) {
+        return collection(collectionType, Double.BYTES, ByteBuffer::putDouble, ByteBuffer::getDouble);
+    }
+
+    static String binarySqlType(DatabaseType type) {
+        return type == DatabaseType.POSTGRESQL ? "BYTEA" : "BLOB";
+    }
+
+    private static <E> FieldCodec<Collection<E>> collection(Class<?> collectionType,
+                                                            int elementSize,
+                                                            ElementWriter<E> writer,
+                                                            ElementReader<E> reader) {
+        boolean set = Set.class.isAssignableFrom(collectionType);
+        return binary(
+                value -> {
+                    ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + value.size() * elementSize);
+                    buffer.putInt(value.size());
+                    int position = 0;
+                    for (E element : value) {
+                        if (element == null) {
+                            throw new DatabaseException("Element " + position + " of the collection is null, "
+                                    + "binary collections cannot store nulls");
+                        }
+                        writer.write(buffer, element);
+                        position++;
+                    }
+                    return buffer.array();
+                },
+                buffer -> {
+                    int size = buffer.getInt();
+                    List<E> elements = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        elements.add(reader.read(buffer));
+                    }
+                    return set ? new LinkedHashSet<>(elements) : elements;
+                });
+    }
+
+    private static <T> FieldCodec<T> binary(Encoder<T> encoder, Decoder<T> decoder) {
+        return new FieldCodec<>() {
+            @Override
+            public String getSqlType(DatabaseType type) {
+                return binarySqlType(type);
+            }
+
+            @Override
+            public int getJdbcType() {
+                return Types.VARBINARY;
+            }
+
+            @Override
+            public void bind(PreparedStatement statement, int index, T value) throws SQLException {
+                statement.setBytes(index, encoder.encode(value));
+            }
+
+            @Override
+            public T read(ResultSet resultSet, String column) throws SQLException {
+                byte[] bytes = resultSet.getBytes(column);
+                return bytes != null ? decoder.decode(ByteBuffer.wrap(bytes)) : null;
+            }
+        };
+    }
+
+    private static <T> FieldCodec<T> codec(String sqlType, int jdbcType, Binder<T> binder, Reader<T> reader) {
+        return new FieldCodec<>() {
+            @Override
+            public String getSqlType(DatabaseType type) {
+                return sqlType;
+            }
+
+            @Override
+            public int getJdbcType() {
+                return jdbcType;
+            }
+
+            @Override
+            public void bind(PreparedStatement statement, int index, T value) throws SQLException {
+                binder.bind(statement, index, value);
+            }
+
+            @Override
+            public T read(ResultSet resultSet, String column) throws SQLException {
+                return reader.read(resultSet, column);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface Binder<T> {
+        void bind(PreparedStatement statement, int index, T value) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface Reader<T> {
+        T read(ResultSet resultSet, String column) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface Encoder<T> {
+        byte[] encode(T value);
+    }
+
+    @FunctionalInterface
+    private interface Decoder<T> {
+        T decode(ByteBuffer buffer);
+    }
+
+    @FunctionalInterface
+    private interface ElementWriter<E> {
+        void write(ByteBuffer buffer, E element);
+    }
+
+    @FunctionalInterface
+    private interface ElementReader<E> {
+        E read(ByteBuffer buffer);
+    }
+}
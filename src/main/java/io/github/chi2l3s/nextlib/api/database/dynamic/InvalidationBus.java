@@ -0,0 +1,47 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+/**
+ * Channel that tells other servers which rows changed, so that their in-memory copies can be evicted.
+ * <p>
+ * Invalidations are keyed by table name and the {@link String#valueOf(Object) string form} of the primary key.
+ * Implementations only deliver invalidations published by other instances and may deliver one more than once;
+ * receivers must treat them as idempotent evictions. {@link DatabaseInvalidationBus} works with nothing but the
+ * shared database; message brokers such as Redis pub/sub can implement the same interface.
+ * </p>
+ *
+ * <p><strong>Example usage:</strong></p>
+ * <pre>{@code
+ * InvalidationBus bus = DatabaseInvalidationBus.builder(client).build();
+ * database.useInvalidationBus(bus);
+ *
+ * // onDisable
+ * bus.close();
+ * }</pre>
+ *
+ * @see DynamicDatabase#useInvalidationBus(InvalidationBus)
+ * @since 1.0.8
+ */
+public interface InvalidationBus extends AutoCloseable {
+    /**
+     * Announces a changed row to other servers.
+     *
+     * @param tableName table name (not null)
+     * @param key       string form of the primary key, or {@code null} for the whole table
+     */
+    void publish(String tableName, String key);
+
+    /**
+     * Registers a listener for invalidations published by other servers.
+     *
+     * @param listener the listener (not null)
+     */
+    void subscribe(InvalidationListener listener);
+
+    void unsubscribe(InvalidationListener listener);
+
+    /**
+     * Delivers pending publications and releases the transport.
+     */
+    @Override
+    void close();
+}
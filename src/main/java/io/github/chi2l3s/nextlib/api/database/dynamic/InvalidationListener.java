@@ -0,0 +1,17 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+/**
+ * Receives invalidations published on an {@link InvalidationBus} by other servers.
+ *
+ * @since 1.0.8
+ */
+@FunctionalInterface
+public interface InvalidationListener {
+    /**
+     * Called for a changed row, or for a whole table when {@code key} is {@code null}.
+     *
+     * @param tableName table name
+     * @param key       string form of the primary key, or {@code null} if any row may have changed
+     */
+    void onInvalidation(String tableName, String key);
+}
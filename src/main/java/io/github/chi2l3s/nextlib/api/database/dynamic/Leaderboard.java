@@ -0,0 +1,453 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+import io.github.chi2l3s.nextlib.api.database.DatabaseException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory top-N view of a {@link DynamicTable}, ordered by a numeric field.
+ * <p>
+ * The leaderboard is seeded once with an {@code ORDER BY ... LIMIT} query and then follows the writes made
+ * through the table via a {@link TableListener}. It tracks a few more rows than it shows, so a player dropping out
+ * of the top does not immediately leave a gap. The tracked rows are kept in a set sorted by score and key, so a
+ * write only moves the changed row, in {@code O(log n)}. Every write then publishes an immutable snapshot of the
+ * window, so a read is a single volatile read and a tracked player's rank a map lookup. The rank of a player below
+ * the window is counted in the database, see {@link #getRank(Object)}.
+ * </p>
+ * <p>
+ * Writes the leaderboard cannot follow exactly (updates without a key, rows falling below the tracked window,
+ * writes from other servers) are corrected by a reconcile against the database: shortly after such a write and
+ * periodically in any case.
+ * </p>
+ *
+ * <p><strong>Example usage:</strong></p>
+ * <pre>{@code
+ * Leaderboard<PlayerEntity> topCoins = Leaderboard.builder(players, "coins")
+ *     .size(10)
+ *     .reconcileInterval(Duration.ofMinutes(1))
+ *     .build();
+ *
+ * for (Leaderboard.Entry<PlayerEntity> entry : topCoins.getTop()) {
+ *     hologram.setLine(entry.getRank(), entry.getEntity().getNickname() + " - " + (long) entry.getScore());
+ * }
+ * int rank = topCoins.getRank(player.getUniqueId()).orElse(-1);
+ * }</pre>
+ *
+ * @param <T> entity type
+ * @since 1.0.8
+ */
+public final class Leaderboard<T> implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(Leaderboard.class.getName());
+    private static final long DRIFT_RECONCILE_DELAY_MILLIS = 1000L;
+
+    private final DynamicTable<T> table;
+    private final String scoreField;
+    private final SortOrder order;
+    private final int size;
+    private final int window;
+    private final Comparator<Entry<T>> ranking;
+    private final ScheduledExecutorService scheduler;
+    private final TableListener<T> listener = this::onChange;
+    private final AtomicBoolean driftReconcileScheduled = new AtomicBoolean();
+
+    private final Object lock = new Object();
+    private final Map<Object, Entry<T>> tracked = new HashMap<>();
+    private final TreeSet<Entry<T>> sorted;
+    private final List<TableChange<T>> replay = new ArrayList<>();
+    private boolean saturated;
+    private boolean reconciling;
+
+    private volatile Snapshot<T> snapshot = new Snapshot<>(List.of(), Map.of(), true);
+
+    private Leaderboard(Builder<T> builder) {
+        this.table = builder.table;
+        this.scoreField = builder.scoreField;
+        this.order = builder.order;
+        this.size = builder.size;
+        this.window = builder.size + builder.buffer;
+        Comparator<Entry<T>> byScore = Comparator.comparingDouble(Entry::getScore);
+        if (order == SortOrder.DESCENDING) {
+            byScore = byScore.reversed();
+        }
+        this.ranking = byScore.thenComparing(entry -> String.valueOf(entry.getKey()));
+        this.sorted = new TreeSet<>(ranking);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nextlib-leaderboard-" + table.getTableName() + "-" + scoreField);
+            thread.setDaemon(true);
+            return thread;
+        });
+        table.addListener(listener);
+        reconcile();
+        long interval = builder.reconcileInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::reconcileQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts building a leaderboard of {@code table} ranked by the numeric field {@code scoreField}.
+     */
+    public static <T> Builder<T> builder(DynamicTable<T> table, String scoreField) {
+        return new Builder<>(table, scoreField);
+    }
+
+    /**
+     * Returns the top entries, best first.
+     *
+     * @return at most {@code size} entries
+     */
+    public List<Entry<T>> getTop() {
+        return getTop(size);
+    }
+
+    /**
+     * Returns the best {@code limit} entries, best first.
+     *
+     * @param limit maximum number of entries; capped at the configured size
+     * @return entries in rank order
+     */
+    public List<Entry<T>> getTop(int limit) {
+        List<Entry<T>> ranked = snapshot.ranked;
+        return ranked.subList(0, Math.min(Math.min(limit, size), ranked.size()));
+    }
+
+    /**
+     * Returns the 1-based rank of a row. Rows in the tracked window are answered from memory. For rows below it the
+     * row's score is read and the rows ranked ahead are counted with {@code COUNT(*) WHERE score > ?}, on the
+     * calling thread; index the score column and avoid such lookups on the main thread. Rows below the window that
+     * share a score share the best rank of that score.
+     *
+     * @param key primary key value
+     * @return the rank, or empty if there is no such row or its score is null
+     */
+    public OptionalInt getRank(Object key) {
+        Snapshot<T> current = snapshot;
+        Entry<T> entry = current.byKey.get(key);
+        if (entry != null) {
+            return OptionalInt.of(entry.rank);
+        }
+        // A window that holds every row leaves nothing to count
+        return current.complete ? OptionalInt.empty() : countRank(key);
+    }
+
+    /**
+     * Returns the entry of a row within the top entries.
+     *
+     * @param key primary key value
+     * @return the entry, or empty if the row is not in the top
+     */
+    public Optional<Entry<T>> getEntry(Object key) {
+        Entry<T> entry = snapshot.byKey.get(key);
+        return entry == null || entry.rank > size ? Optional.empty() : Optional.of(entry);
+    }
+
+    /**
+     * Reloads the tracked rows from the database. Writes that arrive while the query runs are applied on top of
+     * the result.
+     */
+    public void reconcile() {
+        synchronized (lock) {
+            reconciling = true;
+            replay.clear();
+        }
+        List<T> rows;
+        try {
+            rows = table.findMany().orderBy(scoreField, order).limit(window).execute();
+        } catch (RuntimeException exception) {
+            synchronized (lock) {
+                reconciling = false;
+                replay.clear();
+            }
+            throw exception;
+        }
+        synchronized (lock) {
+            tracked.clear();
+            sorted.clear();
+            for (T row : rows) {
+                track(entryOf(row));
+            }
+            saturated = rows.size() >= window;
+            reconciling = false;
+            for (TableChange<T> change : replay) {
+                apply(change);
+            }
+            replay.clear();
+            trim();
+        }
+    }
+
+    /**
+     * Stops following the table and cancels the periodic reconcile.
+     */
+    @Override
+    public void close() {
+        table.removeListener(listener);
+        scheduler.shutdownNow();
+    }
+
+    private void onChange(TableChange<T> change) {
+        if (change.isTableWide()) {
+            scheduleDriftReconcile();
+            return;
+        }
+        if (change.getType() != TableChange.Type.DELETE && change.getEntity().isEmpty()) {
+            Object key = change.getKey();
+            scheduler.execute(() -> refetch(key));
+            return;
+        }
+        synchronized (lock) {
+            if (reconciling) {
+                replay.add(change);
+            }
+            apply(change);
+            trim();
+        }
+    }
+
+    private void refetch(Object key) {
+        try {
+            Optional<T> row = table.findFirst().where(table.getPrimaryKeyField(), key).execute();
+            TableChange<T> change = row
+                    .map(entity -> new TableChange<>(table.getTableName(), TableChange.Type.UPDATE, key, entity))
+                    .orElseGet(() -> new TableChange<>(table.getTableName(), TableChange.Type.DELETE, key, null));
+            synchronized (lock) {
+                if (reconciling) {
+                    replay.add(change);
+                }
+                apply(change);
+                trim();
+            }
+        } catch (RuntimeException exception) {
+            LOGGER.log(Level.WARNING, "Failed to refresh leaderboard row " + key
+                    + " of table '" + table.getTableName() + "'", exception);
+            scheduleDriftReconcile();
+        }
+    }
+
+    /**
+     * Applies a change to the tracked rows. Must hold {@link #lock}.
+     */
+    private void apply(TableChange<T> change) {
+        Entry<T> previous = tracked.remove(change.getKey());
+        if (previous != null) {
+            sorted.remove(previous);
+        }
+        if (change.getType() == TableChange.Type.DELETE) {
+            if (previous != null && saturated && tracked.size() < size) {
+                scheduleDriftReconcile();
+            }
+            return;
+        }
+        Entry<T> entry = entryOf(change.getEntity().orElseThrow());
+        if (saturated) {
+            // untracked rows all rank below the tracked ones, so a row worse than every tracked row cannot be placed
+            if (sorted.isEmpty()) {
+                scheduleDriftReconcile();
+                return;
+            }
+            if (ranking.compare(entry, sorted.last()) > 0) {
+                if (previous != null) {
+                    scheduleDriftReconcile();
+                }
+                return;
+            }
+        }
+        track(entry);
+    }
+
+    private void track(Entry<T> entry) {
+        tracked.put(entry.key, entry);
+        sorted.add(entry);
+    }
+
+    /**
+     * Drops the rows ranked below the window and publishes a new snapshot. Must hold {@link #lock}.
+     */
+    private void trim() {
+        while (sorted.size() > window) {
+            tracked.remove(sorted.pollLast().key);
+            saturated = true;
+        }
+        List<Entry<T>> ranked = new ArrayList<>(sorted.size());
+        Map<Object, Entry<T>> byKey = new HashMap<>(sorted.size() * 2);
+        for (Entry<T> entry : sorted) {
+            Entry<T> rankedEntry = entry.withRank(ranked.size() + 1);
+            ranked.add(rankedEntry);
+            byKey.put(rankedEntry.key, rankedEntry);
+        }
+        snapshot = new Snapshot<>(Collections.unmodifiableList(ranked), byKey, !saturated);
+    }
+
+    private OptionalInt countRank(Object key) {
+        Optional<T> row = table.findFirst().where(table.getPrimaryKeyField(), key).execute();
+        Object score = row.map(entity -> table.valueOf(entity, scoreField)).orElse(null);
+        if (score == null) {
+            return OptionalInt.empty();
+        }
+        QueryOperator ahead = order == SortOrder.DESCENDING ? QueryOperator.GREATER_THAN : QueryOperator.LESS_THAN;
+        long better = table.findMany().where(scoreField, ahead, score).count();
+        return OptionalInt.of((int) Math.min(Integer.MAX_VALUE, better + 1));
+    }
+
+    private Entry<T> entryOf(T entity) {
+        Object score = table.valueOf(entity, scoreField);
+        if (!(score instanceof Number number)) {
+            throw new DatabaseException("Leaderboard field '" + scoreField + "' of table '" + table.getTableName()
+                    + "' must be numeric and not null");
+        }
+        return new Entry<>(table.primaryKeyOf(entity), number.doubleValue(), 0, entity);
+    }
+
+    private void scheduleDriftReconcile() {
+        if (driftReconcileScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> {
+                driftReconcileScheduled.set(false);
+                reconcileQuietly();
+            }, DRIFT_RECONCILE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException exception) {
+            LOGGER.log(Level.WARNING, "Failed to reconcile leaderboard of table '" + table.getTableName() + "'",
+                    exception);
+        }
+    }
+
+    /**
+     * A ranked row.
+     *
+     * @param <T> entity type
+     */
+    public static final class Entry<T> {
+        private final Object key;
+        private final double score;
+        private final int rank;
+        private final T entity;
+
+        private Entry(Object key, double score, int rank, T entity) {
+            this.key = key;
+            this.score = score;
+            this.rank = rank;
+            this.entity = entity;
+        }
+
+        private Entry<T> withRank(int rank) {
+            return rank == this.rank ? this : new Entry<>(key, score, rank, entity);
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * Returns the 1-based rank.
+         */
+        public int getRank() {
+            return rank;
+        }
+
+        public T getEntity() {
+            return entity;
+        }
+    }
+
+    private static final class Snapshot<T> {
+        private final List<Entry<T>> ranked;
+        private final Map<Object, Entry<T>> byKey;
+        private final boolean complete;
+
+        private Snapshot(List<Entry<T>> ranked, Map<Object, Entry<T>> byKey, boolean complete) {
+            this.ranked = ranked;
+            this.byKey = byKey;
+            this.complete = complete;
+        }
+    }
+
+    public static final class Builder<T> {
+        private final DynamicTable<T> table;
+        private final String scoreField;
+        private SortOrder order = SortOrder.DESCENDING;
+        private int size = 10;
+        private int buffer = -1;
+        private Duration reconcileInterval = Duration.ofMinutes(5);
+
+        private Builder(DynamicTable<T> table, String scoreField) {
+            this.table = Objects.requireNonNull(table, "table");
+            this.scoreField = Objects.requireNonNull(scoreField, "scoreField");
+        }
+
+        /**
+         * Sets the number of ranked entries. Defaults to 10.
+         */
+        public Builder<T> size(int size) {
+            if (size <= 0) {
+                throw new IllegalArgumentException("size must be positive");
+            }
+            this.size = size;
+            return this;
+        }
+
+        /**
+         * Sets how many rows are tracked below the visible top. Defaults to half the size, at least 10.
+         */
+        public Builder<T> buffer(int buffer) {
+            if (buffer < 0) {
+                throw new IllegalArgumentException("buffer must not be negative");
+            }
+            this.buffer = buffer;
+            return this;
+        }
+
+        /**
+         * Sets the ranking direction. Defaults to {@link SortOrder#DESCENDING}, highest score first.
+         */
+        public Builder<T> order(SortOrder order) {
+            this.order = Objects.requireNonNull(order, "order");
+            return this;
+        }
+
+        /**
+         * Sets how often the leaderboard is reloaded from the database. Defaults to 5 minutes.
+         */
+        public Builder<T> reconcileInterval(Duration reconcileInterval) {
+            Objects.requireNonNull(reconcileInterval, "reconcileInterval");
+            if (reconcileInterval.isNegative() || reconcileInterval.isZero()) {
+                throw new IllegalArgumentException("reconcileInterval must be positive");
+            }
+            this.reconcileInterval = reconcileInterval;
+            return this;
+        }
+
+        /**
+         * Validates the score field, seeds the leaderboard and starts following the table.
+         */
+        public Leaderboard<T> build() {
+            table.requireField(scoreField);
+            if (buffer < 0) {
+                buffer = Math.max(10, size / 2);
+            }
+            return new Leaderboard<>(this);
+        }
+    }
+}
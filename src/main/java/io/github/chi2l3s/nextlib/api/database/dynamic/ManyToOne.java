@@ -0,0 +1,35 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field holding the entity referenced by one of this entity's columns.
+ * <p>
+ * The field is not a column and is left {@code null} until it is loaded with
+ * {@link DynamicTable.FindManyQuery#include(String...)} or {@link DynamicTable#loadRelations(java.util.Collection,
+ * String...)}. The field type must be registered in the same {@link DynamicDatabase}.
+ * </p>
+ *
+ * <pre>{@code
+ * public class MemberEntity {
+ *     @PrimaryKey
+ *     private final UUID playerId;
+ *     private final UUID clanId;
+ *     @ManyToOne(joinField = "clanId")
+ *     private ClanEntity clan;
+ * }
+ * }</pre>
+ *
+ * @since 1.0.8
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface ManyToOne {
+    /**
+     * Name of the field in this entity that stores the referenced entity's primary key.
+     */
+    String joinField();
+}
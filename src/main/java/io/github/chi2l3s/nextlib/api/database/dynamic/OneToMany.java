@@ -0,0 +1,35 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@code List} or {@code Set} field holding the entities that reference this one.
+ * <p>
+ * The field is not a column and is left {@code null} until it is loaded with
+ * {@link DynamicTable.FindManyQuery#include(String...)} or {@link DynamicTable#loadRelations(java.util.Collection,
+ * String...)}. The element type must be registered in the same {@link DynamicDatabase}.
+ * </p>
+ *
+ * <pre>{@code
+ * public class ClanEntity {
+ *     @PrimaryKey
+ *     private final UUID clanId;
+ *     private final String name;
+ *     @OneToMany(mappedBy = "clanId")
+ *     private List<MemberEntity> members;
+ * }
+ * }</pre>
+ *
+ * @since 1.0.8
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface OneToMany {
+    /**
+     * Name of the field in the element entity that stores this entity's primary key.
+     */
+    String mappedBy();
+}
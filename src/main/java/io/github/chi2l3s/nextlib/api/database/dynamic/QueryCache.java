@@ -0,0 +1,96 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Result cache of one {@link DynamicTable}, bounded by the total number of cached rows.
+ * <p>
+ * Entries remember the table version they were loaded at. A write bumps the version, which makes every older
+ * entry a miss on its next lookup; stale entries are dropped then or when the bound evicts them, least recently
+ * used first.
+ * </p>
+ */
+final class QueryCache {
+    private static final int DEFAULT_MAX_ROWS = 10_000;
+
+    private final Map<List<Object>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, QueryCacheStats> stats = new ConcurrentHashMap<>();
+    private int maxRows = DEFAULT_MAX_ROWS;
+    private int rows;
+
+    /**
+     * Returns the cached value, or {@code null} on a miss.
+     */
+    synchronized Object get(List<Object> key, String shape, long version) {
+        QueryCacheStats shapeStats = stats.computeIfAbsent(shape, QueryCacheStats::new);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version == version && System.nanoTime() - entry.expiresAt < 0) {
+            shapeStats.recordHit();
+            return entry.value;
+        }
+        if (entry != null) {
+            remove(key, entry);
+        }
+        shapeStats.recordMiss();
+        return null;
+    }
+
+    synchronized void put(List<Object> key, Object value, int rowCount, long version, long ttlNanos) {
+        if (rowCount > maxRows) {
+            return;
+        }
+        Entry previous = entries.put(key, new Entry(value, Math.max(rowCount, 1), version,
+                System.nanoTime() + ttlNanos));
+        if (previous != null) {
+            rows -= previous.rows;
+        }
+        rows += Math.max(rowCount, 1);
+        evict();
+    }
+
+    synchronized void setMaxRows(int maxRows) {
+        this.maxRows = maxRows;
+        evict();
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        rows = 0;
+    }
+
+    List<QueryCacheStats> getStats() {
+        return new ArrayList<>(stats.values());
+    }
+
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (rows > maxRows && iterator.hasNext()) {
+            rows -= iterator.next().rows;
+            iterator.remove();
+        }
+    }
+
+    private void remove(List<Object> key, Entry entry) {
+        entries.remove(key);
+        rows -= entry.rows;
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final int rows;
+        private final long version;
+        private final long expiresAt;
+
+        private Entry(Object value, int rows, long version, long expiresAt) {
+            this.value = value;
+            this.rows = rows;
+            this.version = version;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit and miss counters of one cached query shape.
+ *
+ * @see DynamicTable#getCacheStats()
+ * @since 1.0.8
+ */
+public final class QueryCacheStats {
+    private final String shape;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    QueryCacheStats(String shape) {
+        this.shape = shape;
+    }
+
+    /**
+     * Returns the SQL of the query with placeholders instead of values.
+     */
+    public String getShape() {
+        return shape;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the share of lookups answered from the cache, between 0 and 1.
+     */
+    public double getHitRate() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    @Override
+    public String toString() {
+        return shape + " (hits=" + getHits() + ", misses=" + getMisses() + ')';
+    }
+}
@@ -0,0 +1,271 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+import io.github.chi2l3s.nextlib.api.database.DatabaseClient;
+import io.github.chi2l3s.nextlib.api.database.SqlConsumer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Optional query plan inspection for {@link DynamicTable} queries.
+ * <p>
+ * When enabled, the first execution of every distinct query shape (the SQL with placeholders, with
+ * {@code IN} lists and {@code LIMIT} values collapsed) is preceded by {@code EXPLAIN} on MySQL,
+ * {@code EXPLAIN (FORMAT JSON)} on PostgreSQL or {@code EXPLAIN QUERY PLAN} on SQLite. Shapes with a
+ * {@code WHERE} clause that still read the whole table are logged as warnings and every report stays available
+ * through {@link #getReports()}. Queries without criteria read the whole table by design and are not inspected.
+ * Disabled diagnostics cost a single volatile read per query.
+ * </p>
+ * <p>
+ * The SQLite row estimate comes from {@code sqlite_stat1}, so it is only known after {@code ANALYZE}.
+ * </p>
+ *
+ * <p><strong>Example usage:</strong></p>
+ * <pre>{@code
+ * database.getDiagnostics().enable(plugin.getLogger());
+ *
+ * // in a test
+ * assertThat(database.getDiagnostics().getFullScans()).isEmpty();
+ * }</pre>
+ *
+ * @see QueryPlanReport
+ * @since 1.0.8
+ */
+public final class QueryDiagnostics {
+    private static final Pattern IN_LIST = Pattern.compile("\\?(, \\?)+");
+    private static final Pattern LIMIT = Pattern.compile("\\bLIMIT \\d+");
+    private static final Pattern WHERE = Pattern.compile("\\bWHERE\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LEADING_NUMBER = Pattern.compile("^\\d+");
+    private static final Pattern PG_NODE_TYPE = Pattern.compile("\"Node Type\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final Map<String, QueryPlanReport> reports = new ConcurrentHashMap<>();
+    private final Set<String> inspected = ConcurrentHashMap.newKeySet();
+    private volatile boolean enabled;
+    private volatile Logger logger = Logger.getLogger(QueryDiagnostics.class.getName());
+
+    QueryDiagnostics() {
+    }
+
+    /**
+     * Enables plan inspection and logs full scans to the given logger.
+     *
+     * @param logger logger for warnings, usually {@code plugin.getLogger()} (not null)
+     */
+    public void enable(Logger logger) {
+        this.logger = Objects.requireNonNull(logger, "logger");
+        this.enabled = true;
+    }
+
+    /**
+     * Enables plan inspection using this class's logger.
+     */
+    public void enable() {
+        this.enabled = true;
+    }
+
+    public void disable() {
+        this.enabled = false;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns reports for every inspected query shape.
+     *
+     * @return snapshot of reports
+     */
+    public List<QueryPlanReport> getReports() {
+        return List.copyOf(reports.values());
+    }
+
+    /**
+     * Returns reports for query shapes classified as {@link QueryPlanReport.Access#FULL_SCAN}.
+     *
+     * @return snapshot of full scan reports
+     */
+    public List<QueryPlanReport> getFullScans() {
+        List<QueryPlanReport> fullScans = new ArrayList<>();
+        for (QueryPlanReport report : reports.values()) {
+            if (report.isFullScan()) {
+                fullScans.add(report);
+            }
+        }
+        return fullScans;
+    }
+
+    /**
+     * Forgets all reports so that every shape is inspected again.
+     */
+    public void clear() {
+        inspected.clear();
+        reports.clear();
+    }
+
+    void inspect(DatabaseClient client, String tableName, String sql, SqlConsumer<PreparedStatement> binder) {
+        if (!enabled) {
+            return;
+        }
+        String shape = LIMIT.matcher(IN_LIST.matcher(sql).replaceAll("?, ...")).replaceAll("LIMIT ?");
+        if (!inspected.add(shape) || !WHERE.matcher(shape).find()) {
+            return;
+        }
+        QueryPlanReport report;
+        try {
+            report = client.withConnection(connection -> explain(connection, client, tableName, shape, sql, binder));
+        } catch (RuntimeException exception) {
+            logger.log(Level.FINE, "Failed to inspect query plan for " + shape, exception);
+            report = new QueryPlanReport(tableName, shape, QueryPlanReport.Access.UNKNOWN, -1, "");
+        }
+        reports.put(shape, report);
+        if (report.isFullScan()) {
+            logger.warning("Full table scan on '" + tableName + "' (~"
+                    + (report.getEstimatedRows() >= 0 ? report.getEstimatedRows() : "?") + " rows): " + shape);
+        }
+    }
+
+    private QueryPlanReport explain(Connection connection,
+                                    DatabaseClient client,
+                                    String tableName,
+                                    String shape,
+                                    String sql,
+                                    SqlConsumer<PreparedStatement> binder) throws SQLException {
+        switch (client.getType()) {
+            case MYSQL:
+                return explainMySql(connection, tableName, shape, sql, binder);
+            case POSTGRESQL:
+                return explainPostgres(connection, tableName, shape, sql, binder);
+            case SQLITE:
+                return explainSqlite(connection, tableName, shape, sql, binder);
+            default:
+                return new QueryPlanReport(tableName, shape, QueryPlanReport.Access.UNKNOWN, -1, "");
+        }
+    }
+
+    private QueryPlanReport explainMySql(Connection connection,
+                                         String tableName,
+                                         String shape,
+                                         String sql,
+                                         SqlConsumer<PreparedStatement> binder) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        QueryPlanReport.Access access = QueryPlanReport.Access.UNKNOWN;
+        long rows = -1;
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            if (binder != null) {
+                binder.accept(statement);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    String type = resultSet.getString("type");
+                    String key = resultSet.getString("key");
+                    rows = Math.max(rows, resultSet.getLong("rows"));
+                    plan.append("type=").append(type).append(" key=").append(key).append('\n');
+                    if ("ALL".equalsIgnoreCase(type) || "index".equalsIgnoreCase(type)) {
+                        access = QueryPlanReport.Access.FULL_SCAN;
+                    } else if (key != null && access != QueryPlanReport.Access.FULL_SCAN) {
+                        access = QueryPlanReport.Access.INDEXED;
+                    }
+                }
+            }
+        }
+        return new QueryPlanReport(tableName, shape, access, rows, plan.toString().trim());
+    }
+
+    private QueryPlanReport explainPostgres(Connection connection,
+                                            String tableName,
+                                            String shape,
+                                            String sql,
+                                            SqlConsumer<PreparedStatement> binder) throws SQLException {
+        String plan;
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + sql)) {
+            if (binder != null) {
+                binder.accept(statement);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                plan = resultSet.next() ? resultSet.getString(1) : "";
+            }
+        }
+        QueryPlanReport.Access access = QueryPlanReport.Access.UNKNOWN;
+        Matcher matcher = PG_NODE_TYPE.matcher(plan);
+        while (matcher.find()) {
+            String nodeType = matcher.group(1);
+            if (nodeType.equals("Seq Scan")) {
+                access = QueryPlanReport.Access.FULL_SCAN;
+                break;
+            }
+            if (nodeType.contains("Index")) {
+                access = QueryPlanReport.Access.INDEXED;
+            }
+        }
+        long rows = -1;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT reltuples::bigint FROM pg_class WHERE relname = ?")) {
+            statement.setString(1, tableName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    rows = resultSet.getLong(1);
+                }
+            }
+        }
+        return new QueryPlanReport(tableName, shape, access, rows, plan);
+    }
+
+    private QueryPlanReport explainSqlite(Connection connection,
+                                          String tableName,
+                                          String shape,
+                                          String sql,
+                                          SqlConsumer<PreparedStatement> binder) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        QueryPlanReport.Access access = QueryPlanReport.Access.UNKNOWN;
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            if (binder != null) {
+                binder.accept(statement);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    String detail = resultSet.getString("detail");
+                    plan.append(detail).append('\n');
+                    if (detail.startsWith("SCAN")) {
+                        access = QueryPlanReport.Access.FULL_SCAN;
+                    } else if (detail.startsWith("SEARCH") && access != QueryPlanReport.Access.FULL_SCAN) {
+                        access = QueryPlanReport.Access.INDEXED;
+                    }
+                }
+            }
+        }
+        return new QueryPlanReport(tableName, shape, access, sqliteStatRows(connection, tableName),
+                plan.toString().trim());
+    }
+
+    /**
+     * Reads the row count recorded by {@code ANALYZE}; counting the rows would itself scan the table.
+     */
+    private long sqliteStatRows(Connection connection, String tableName) {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT stat FROM sqlite_stat1 WHERE tbl = ? LIMIT 1")) {
+            statement.setString(1, tableName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    Matcher matcher = LEADING_NUMBER.matcher(resultSet.getString(1));
+                    return matcher.find() ? Long.parseLong(matcher.group()) : -1;
+                }
+            }
+        } catch (SQLException exception) {
+            // sqlite_stat1 only exists once ANALYZE ran
+        }
+        return -1;
+    }
+}
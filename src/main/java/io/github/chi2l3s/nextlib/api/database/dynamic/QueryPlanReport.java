@@ -0,0 +1,89 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+/**
+ * Result of inspecting the execution plan of one query shape.
+ *
+ * @see QueryDiagnostics
+ * @since 1.0.8
+ */
+public final class QueryPlanReport {
+
+    /**
+     * How the database accesses the table for a query.
+     */
+    public enum Access {
+        /**
+         * The plan uses an index or primary key lookup.
+         */
+        INDEXED,
+
+        /**
+         * The plan reads every row (or every index entry) of the table.
+         */
+        FULL_SCAN,
+
+        /**
+         * The plan could not be obtained or classified for this database type.
+         */
+        UNKNOWN
+    }
+
+    private final String tableName;
+    private final String shape;
+    private final Access access;
+    private final long estimatedRows;
+    private final String plan;
+
+    QueryPlanReport(String tableName, String shape, Access access, long estimatedRows, String plan) {
+        this.tableName = tableName;
+        this.shape = shape;
+        this.access = access;
+        this.estimatedRows = estimatedRows;
+        this.plan = plan;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Returns the normalized SQL of the query, with placeholders instead of values.
+     *
+     * @return query shape
+     */
+    public String getShape() {
+        return shape;
+    }
+
+    public Access getAccess() {
+        return access;
+    }
+
+    public boolean isFullScan() {
+        return access == Access.FULL_SCAN;
+    }
+
+    /**
+     * Returns the database's estimate of the table size, or {@code -1} if unknown.
+     *
+     * @return estimated row count
+     */
+    public long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    /**
+     * Returns the raw plan as reported by the database.
+     *
+     * @return plan text
+     */
+    public String getPlan() {
+        return plan;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryPlanReport[table=" + tableName + ", access=" + access + ", rows=" + estimatedRows
+                + ", shape=" + shape + "]";
+    }
+}
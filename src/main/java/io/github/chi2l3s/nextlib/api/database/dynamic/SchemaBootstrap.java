@@ -0,0 +1,137 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+import io.github.chi2l3s.nextlib.api.database.DatabaseClient;
+import io.github.chi2l3s.nextlib.api.database.DatabaseException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the tables of a bulk registration with as few round trips as possible.
+ * <p>
+ * The {@code CREATE TABLE} statement of every table is fingerprinted and compared with the fingerprint stored in
+ * {@value #METADATA_TABLE} by a previous run. Only tables whose definition changed (or that were never created)
+ * receive DDL, all of it on a single connection and inside one transaction where the dialect allows it.
+ * </p>
+ */
+final class SchemaBootstrap {
+    static final String METADATA_TABLE = "nextlib_schema_fingerprints";
+
+    private SchemaBootstrap() {
+    }
+
+    /**
+     * Ensures all given tables exist.
+     *
+     * @return number of tables that received DDL
+     */
+    static int run(DatabaseClient client, Collection<DynamicTable<?>> tables) {
+        if (tables.isEmpty()) {
+            return 0;
+        }
+        Map<String, String> fingerprints = new HashMap<>();
+        for (DynamicTable<?> table : tables) {
+            fingerprints.put(table.getTableName(), fingerprint(table.createTableSql()));
+        }
+        return client.withConnection(connection -> {
+            Map<String, String> stored = loadFingerprints(connection);
+            List<DynamicTable<?>> pending = new ArrayList<>();
+            for (DynamicTable<?> table : tables) {
+                if (!fingerprints.get(table.getTableName()).equals(stored.get(table.getTableName()))) {
+                    pending.add(table);
+                }
+            }
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            boolean transactional = client.getType().supportsTransactionalDdl() && connection.getAutoCommit();
+            if (transactional) {
+                connection.setAutoCommit(false);
+            }
+            try {
+                applyDdl(connection, client, pending, fingerprints);
+                if (transactional) {
+                    connection.commit();
+                }
+            } catch (SQLException | RuntimeException exception) {
+                if (transactional) {
+                    connection.rollback();
+                }
+                throw exception;
+            } finally {
+                if (transactional) {
+                    connection.setAutoCommit(true);
+                }
+            }
+            return pending.size();
+        });
+    }
+
+    /**
+     * Reads the stored fingerprints, creating the metadata table only when the query fails because it is missing,
+     * so that a warm start runs no DDL at all.
+     */
+    private static Map<String, String> loadFingerprints(Connection connection) throws SQLException {
+        Map<String, String> stored = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT table_name, fingerprint FROM " + METADATA_TABLE)) {
+            while (resultSet.next()) {
+                stored.put(resultSet.getString("table_name"), resultSet.getString("fingerprint"));
+            }
+            return stored;
+        } catch (SQLException missing) {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + METADATA_TABLE + " ("
+                    + "table_name VARCHAR(128) NOT NULL PRIMARY KEY, "
+                    + "fingerprint VARCHAR(64) NOT NULL)");
+        }
+        return stored;
+    }
+
+    private static void applyDdl(Connection connection,
+                                 DatabaseClient client,
+                                 List<DynamicTable<?>> pending,
+                                 Map<String, String> fingerprints) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (DynamicTable<?> table : pending) {
+                statement.execute(table.createTableSql());
+            }
+        }
+        // An upsert, so servers bootstrapping the same schema concurrently cannot collide on the primary key
+        String upsert = client.getType().buildUpsertSql(METADATA_TABLE, List.of("table_name", "fingerprint"),
+                List.of("table_name"));
+        try (PreparedStatement statement = connection.prepareStatement(upsert)) {
+            for (DynamicTable<?> table : pending) {
+                statement.setString(1, table.getTableName());
+                statement.setString(2, fingerprints.get(table.getTableName()));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static String fingerprint(String ddl) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(ddl.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new DatabaseException("SHA-256 is not available", exception);
+        }
+    }
+}
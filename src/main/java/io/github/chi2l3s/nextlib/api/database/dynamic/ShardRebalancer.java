@@ -0,0 +1,150 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background task that moves rows of a {@link ShardedTable} to the shard that owns them.
+ * <p>
+ * Every shard is read in pages ordered by primary key. For each page, the rows owned by another shard are
+ * re-read, inserted on their owner unless a row with the same key already exists there, and deleted from the
+ * source. Key-based writes of the {@link ShardedTable} are paused while a page is moved, and each such write
+ * first moves its own row to the owner, so an update or delete is never overwritten by an older copy. Memory use
+ * is bounded by one page. Running a rebalance twice is harmless; a rebalance of an already balanced table only
+ * reads.
+ * </p>
+ * <p>
+ * Writes must go through the {@link ShardedTable} built with the new shard list while the rebalance runs.
+ * </p>
+ *
+ * <p><strong>Example usage:</strong></p>
+ * <pre>{@code
+ * ShardRebalancer<PlayerEntity> rebalancer = players.rebalance(1000);
+ * rebalancer.completion().thenAccept(moved -> logger.info("Moved " + moved + " rows"));
+ * }</pre>
+ *
+ * @param <T> entity type
+ * @see ShardedTable#rebalance(int)
+ * @since 1.0.8
+ */
+public final class ShardRebalancer<T> {
+    private final ShardedTable<T> table;
+    private final int batchSize;
+    private final AtomicLong scannedRows = new AtomicLong();
+    private final AtomicLong movedRows = new AtomicLong();
+    private final CompletableFuture<Long> completion = new CompletableFuture<>();
+    private volatile boolean cancelled;
+
+    private ShardRebalancer(ShardedTable<T> table, int batchSize) {
+        this.table = table;
+        this.batchSize = batchSize;
+    }
+
+    static <T> ShardRebalancer<T> start(ShardedTable<T> table, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        ShardRebalancer<T> rebalancer = new ShardRebalancer<>(table, batchSize);
+        Thread thread = new Thread(rebalancer::run, "nextlib-rebalance-" + table.getTableName());
+        thread.setDaemon(true);
+        table.setRebalancing(true);
+        thread.start();
+        return rebalancer;
+    }
+
+    /**
+     * Returns a future completed with the number of moved rows, or exceptionally if the rebalance failed.
+     * A cancelled rebalance completes normally with the rows moved so far.
+     */
+    public CompletableFuture<Long> completion() {
+        return completion;
+    }
+
+    public long getScannedRows() {
+        return scannedRows.get();
+    }
+
+    public long getMovedRows() {
+        return movedRows.get();
+    }
+
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    /**
+     * Stops the rebalance after the current batch. Rows copied by that batch are removed from their source.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private void run() {
+        try {
+            for (Map.Entry<String, DynamicTable<T>> shard : table.getShards().entrySet()) {
+                if (cancelled) {
+                    break;
+                }
+                rebalanceShard(shard.getKey(), shard.getValue());
+            }
+            completion.complete(movedRows.get());
+        } catch (RuntimeException exception) {
+            completion.completeExceptionally(exception);
+        } finally {
+            table.setRebalancing(false);
+        }
+    }
+
+    private void rebalanceShard(String sourceName, DynamicTable<T> source) {
+        String keyField = source.getPrimaryKeyField();
+        Object after = null;
+        while (!cancelled) {
+            // Keyset pages keep no cursor open while moved rows are deleted from the source
+            DynamicTable<T>.FindManyQuery page = source.findMany().orderBy(keyField, SortOrder.ASCENDING)
+                    .limit(batchSize);
+            if (after != null) {
+                page.where(keyField, QueryOperator.GREATER_THAN, after);
+            }
+            List<T> rows = page.execute();
+            if (rows.isEmpty()) {
+                return;
+            }
+            scannedRows.addAndGet(rows.size());
+            List<Object> misplaced = new ArrayList<>();
+            for (T entity : rows) {
+                Object key = source.primaryKeyOf(entity);
+                if (!table.shardNameFor(key).equals(sourceName)) {
+                    misplaced.add(key);
+                }
+            }
+            after = source.primaryKeyOf(rows.get(rows.size() - 1));
+            if (!misplaced.isEmpty()) {
+                movedRows.addAndGet(table.moving(() -> move(source, misplaced)));
+            }
+            if (rows.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Re-reads the rows while writes are paused, so a row changed or deleted since the page was read is moved in
+     * its current state or not at all.
+     */
+    private int move(DynamicTable<T> source, List<Object> keys) {
+        String keyField = source.getPrimaryKeyField();
+        List<T> current = source.findMany().whereIn(keyField, keys.toArray()).execute();
+        Map<String, List<T>> byOwner = new HashMap<>();
+        for (T entity : current) {
+            byOwner.computeIfAbsent(table.shardNameFor(source.primaryKeyOf(entity)), ignored -> new ArrayList<>())
+                    .add(entity);
+        }
+        byOwner.forEach((owner, entities) -> table.getShards().get(owner).insertAllIfAbsent(entities));
+        source.delete().whereIn(keyField, keys.toArray()).execute();
+        return current.size();
+    }
+}
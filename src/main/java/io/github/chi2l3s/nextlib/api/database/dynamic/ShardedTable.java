@@ -0,0 +1,656 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+import io.github.chi2l3s.nextlib.api.database.DatabaseException;
+import io.github.chi2l3s.nextlib.api.database.DatabaseManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A {@link DynamicTable} split across several {@link io.github.chi2l3s.nextlib.api.database.DatabaseClient
+ * clients} by consistent hashing of the {@link PrimaryKey} value.
+ * <p>
+ * Key-based operations ({@link #create(Object)}, {@link #find(Object)}, {@link #update(Object)},
+ * {@link #delete(Object)}, ...) touch exactly one shard. Queries without a key are sent to every shard in parallel
+ * and their results merged. The table is created on every shard when the sharded table is built.
+ * </p>
+ * <p>
+ * Changing the shard list moves roughly {@code 1 / shards} of the keys. Build the table with the new list and
+ * start {@link #rebalance(int)} before accepting writes. Until it finishes, {@link #find(Object)} falls back to the
+ * other shards for keys that were not moved yet, and every key-based write first moves its row to the owner, so
+ * writes to rows that were not copied yet are neither lost nor undone by the rebalance.
+ * </p>
+ *
+ * <p><strong>Example usage:</strong></p>
+ * <pre>{@code
+ * ShardedTable<PlayerEntity> players = ShardedTable.builder(manager, PlayerEntity.class)
+ *     .shards("players-a", "players-b", "players-c")
+ *     .build();
+ *
+ * players.create(new PlayerEntity(uuid, "John", 1000));
+ * Optional<PlayerEntity> player = players.find(uuid);
+ * List<PlayerEntity> rich = players.findMany()
+ *     .where("coins", QueryOperator.GREATER_THAN, 10_000)
+ *     .execute();
+ * }</pre>
+ *
+ * @param <T> entity type
+ * @see ShardRebalancer
+ * @since 1.0.8
+ */
+public final class ShardedTable<T> implements AutoCloseable {
+    private final String tableName;
+    private final Class<T> entityType;
+    private final Map<String, DynamicTable<T>> shards;
+    private final ConsistentHashRing ring;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    // Key writes hold the read lock, a rebalance batch holds the write lock while it moves rows
+    private final ReadWriteLock moveLock = new ReentrantReadWriteLock();
+    private final Lock[] keyLocks = new Lock[64];
+    private volatile boolean rebalancing;
+
+    private ShardedTable(Builder<T> builder, Map<String, DynamicTable<T>> shards, ExecutorService executor,
+                         boolean ownsExecutor) {
+        this.tableName = builder.tableName;
+        this.entityType = builder.entityType;
+        this.shards = Collections.unmodifiableMap(shards);
+        this.ring = new ConsistentHashRing(shards.keySet(), builder.virtualNodes);
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        for (int i = 0; i < keyLocks.length; i++) {
+            keyLocks[i] = new ReentrantLock();
+        }
+    }
+
+    public static <T> Builder<T> builder(DatabaseManager manager, Class<T> entityType) {
+        return new Builder<>(manager, entityType);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Class<T> getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * Returns the per-shard tables by client name.
+     *
+     * @return unmodifiable map of shards
+     */
+    public Map<String, DynamicTable<T>> getShards() {
+        return shards;
+    }
+
+    /**
+     * Returns the name of the client that owns the given primary key.
+     *
+     * @param key primary key value (not null)
+     * @return client name
+     */
+    public String shardNameFor(Object key) {
+        Objects.requireNonNull(key, "key");
+        return ring.locate(key);
+    }
+
+    /**
+     * Returns the shard that owns the given primary key, for queries that are known to be key-local.
+     *
+     * @param key primary key value (not null)
+     * @return the owning shard
+     */
+    public DynamicTable<T> shardFor(Object key) {
+        return shards.get(shardNameFor(key));
+    }
+
+    public int create(T entity) {
+        Objects.requireNonNull(entity, "entity");
+        Object key = keyOf(entity);
+        return write(key, () -> shardFor(key).create(entity));
+    }
+
+    /**
+     * @see DynamicTable#save(Object)
+     */
+    public int save(T entity) {
+        Objects.requireNonNull(entity, "entity");
+        Object key = keyOf(entity);
+        return write(key, () -> shardFor(key).save(entity));
+    }
+
+    /**
+     * @see DynamicTable#upsert(Object)
+     */
+    public int upsert(T entity) {
+        Objects.requireNonNull(entity, "entity");
+        Object key = keyOf(entity);
+        return write(key, () -> shardFor(key).upsert(entity));
+    }
+
+    /**
+     * Finds an entity by primary key on its owning shard.
+     * <p>
+     * While a rebalance is running and the owner has no such row, the other shards are searched as well.
+     * </p>
+     *
+     * @param key primary key value (not null)
+     * @return the entity, if present
+     */
+    public Optional<T> find(Object key) {
+        DynamicTable<T> owner = shardFor(key);
+        Optional<T> found = owner.findFirst().where(owner.getPrimaryKeyField(), key).execute();
+        if (found.isPresent() || !rebalancing) {
+            return found;
+        }
+        for (DynamicTable<T> shard : shards.values()) {
+            if (shard != owner) {
+                found = shard.findFirst().where(shard.getPrimaryKeyField(), key).execute();
+                if (found.isPresent()) {
+                    return found;
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Starts an update of the row with the given key on its owning shard.
+     *
+     * @param key primary key value (not null)
+     * @return update restricted to the key
+     */
+    public KeyUpdate update(Object key) {
+        return new KeyUpdate(Objects.requireNonNull(key, "key"));
+    }
+
+    /**
+     * Deletes the row with the given key from its owning shard.
+     *
+     * @param key primary key value (not null)
+     * @return number of deleted rows
+     */
+    public int delete(Object key) {
+        DynamicTable<T> owner = shardFor(key);
+        return write(key, () -> owner.delete().where(owner.getPrimaryKeyField(), key).execute());
+    }
+
+    /**
+     * Starts a query that runs on every shard in parallel.
+     *
+     * @return scatter-gather query
+     */
+    public ScatterQuery findMany() {
+        return new ScatterQuery();
+    }
+
+    /**
+     * Starts moving every row that is stored on a shard other than its owner.
+     *
+     * @param batchSize rows read per batch, must be positive
+     * @return the running rebalancer
+     */
+    public ShardRebalancer<T> rebalance(int batchSize) {
+        return ShardRebalancer.start(this, batchSize);
+    }
+
+    /**
+     * Shuts down the scatter-gather executor if it was created by the builder.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    void setRebalancing(boolean rebalancing) {
+        this.rebalancing = rebalancing;
+    }
+
+    /**
+     * Runs a rebalance step while no key-based write is in progress.
+     */
+    <R> R moving(Supplier<R> step) {
+        Lock lock = moveLock.writeLock();
+        lock.lock();
+        try {
+            return step.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <R> R write(Object key, Supplier<R> action) {
+        Lock shared = moveLock.readLock();
+        shared.lock();
+        try {
+            if (!rebalancing) {
+                return action.get();
+            }
+            // Writers of one key are serialized so a move and a concurrent delete cannot resurrect the row
+            Lock keyLock = keyLocks[Math.floorMod(key.hashCode(), keyLocks.length)];
+            keyLock.lock();
+            try {
+                moveToOwner(key);
+                return action.get();
+            } finally {
+                keyLock.unlock();
+            }
+        } finally {
+            shared.unlock();
+        }
+    }
+
+    /**
+     * Moves the row with the given key to its owner if it is still stored on another shard. A row already present
+     * on the owner is newer and kept.
+     */
+    private void moveToOwner(Object key) {
+        DynamicTable<T> owner = shardFor(key);
+        for (DynamicTable<T> shard : shards.values()) {
+            if (shard == owner) {
+                continue;
+            }
+            Optional<T> stale = shard.findFirst().where(shard.getPrimaryKeyField(), key).execute();
+            if (stale.isPresent()) {
+                owner.insertAllIfAbsent(List.of(stale.get()));
+                shard.delete().where(shard.getPrimaryKeyField(), key).execute();
+                return;
+            }
+        }
+    }
+
+    private Object keyOf(T entity) {
+        Object key = shards.values().iterator().next().primaryKeyOf(entity);
+        if (key == null) {
+            throw new DatabaseException("Primary key of " + entityType.getName()
+                    + " must not be null on a sharded table");
+        }
+        return key;
+    }
+
+    private <R> List<R> scatter(Function<DynamicTable<T>, R> action) {
+        List<CompletableFuture<R>> futures = new ArrayList<>(shards.size());
+        for (DynamicTable<T> shard : shards.values()) {
+            futures.add(CompletableFuture.supplyAsync(() -> action.apply(shard), executor));
+        }
+        List<R> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<R> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new DatabaseException("Scatter query on table '" + tableName + "' failed", exception.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Update of a single row, executed on the shard that owns its key.
+     */
+    public final class KeyUpdate {
+        private final Object key;
+        private final List<Consumer<DynamicTable<T>.UpdateBuilder>> changes = new ArrayList<>();
+
+        private KeyUpdate(Object key) {
+            this.key = key;
+        }
+
+        /**
+         * @see DynamicTable.UpdateBuilder#set(String, Object)
+         */
+        public KeyUpdate set(String field, Object value) {
+            changes.add(update -> update.set(field, value));
+            return this;
+        }
+
+        /**
+         * @see DynamicTable.UpdateBuilder#expectVersion(long)
+         */
+        public KeyUpdate expectVersion(long version) {
+            changes.add(update -> update.expectVersion(version));
+            return this;
+        }
+
+        /**
+         * Applies the update to the row on its owning shard.
+         *
+         * @return number of updated rows
+         */
+        public int execute() {
+            return write(key, () -> {
+                DynamicTable<T> owner = shardFor(key);
+                DynamicTable<T>.UpdateBuilder update = owner.update().where(owner.getPrimaryKeyField(), key);
+                changes.forEach(change -> change.accept(update));
+                return update.execute();
+            });
+        }
+    }
+
+    /**
+     * Query executed on every shard. Conditions are the same as on {@link DynamicTable.FindManyQuery}.
+     */
+    public final class ScatterQuery {
+        private final List<Consumer<DynamicTable<T>.FindManyQuery>> conditions = new ArrayList<>();
+        private Comparator<T> comparator;
+        private int limit = -1;
+
+        private ScatterQuery() {
+        }
+
+        public ScatterQuery where(String field, Object value) {
+            conditions.add(query -> query.where(field, value));
+            return this;
+        }
+
+        public ScatterQuery where(String field, QueryOperator operator, Object value) {
+            conditions.add(query -> query.where(field, operator, value));
+            return this;
+        }
+
+        public ScatterQuery whereLike(String field, String pattern) {
+            conditions.add(query -> query.whereLike(field, pattern));
+            return this;
+        }
+
+        public ScatterQuery whereIn(String field, Object... values) {
+            conditions.add(query -> query.whereIn(field, values));
+            return this;
+        }
+
+        public ScatterQuery whereBetween(String field, Object min, Object max) {
+            conditions.add(query -> query.whereBetween(field, min, max));
+            return this;
+        }
+
+        public ScatterQuery whereIsNull(String field) {
+            conditions.add(query -> query.whereIsNull(field));
+            return this;
+        }
+
+        public ScatterQuery whereIsNotNull(String field) {
+            conditions.add(query -> query.whereIsNotNull(field));
+            return this;
+        }
+
+        /**
+         * Sorts every shard's results by a field and merges them in the same order.
+         * <p>
+         * The merge has to order values exactly like the databases do, so only numeric, {@link UUID} and
+         * {@link String} fields are accepted. UUIDs are ordered by their bytes, as both their text and binary
+         * columns sort. Strings are merged in binary order and need a binary collation on every shard, e.g. the
+         * SQLite default, {@code COLLATE "C"} on PostgreSQL or {@code utf8mb4_bin} on MySQL. Nulls come first in
+         * ascending and last in descending order on every shard; that ordering keeps an index from serving the sort
+         * of a nullable field, so prefer primitive fields for large sorted queries.
+         * </p>
+         *
+         * @param field entity field name
+         * @param order sort direction
+         * @return this query
+         * @throws DatabaseException if the field is not numeric, a UUID or a string
+         */
+        public ScatterQuery orderBy(String field, SortOrder order) {
+            Objects.requireNonNull(order, "order");
+            DynamicTable<T> prototype = shards.values().iterator().next();
+            Class<?> type = prototype.requireField(field).getType();
+            Comparator<Object> values;
+            if (type == UUID.class) {
+                values = (left, right) -> compareUuidBytes((UUID) left, (UUID) right);
+            } else if (type == String.class || DynamicTable.isNumeric(type)) {
+                values = (left, right) -> comparable(left).compareTo(right);
+            } else {
+                throw new DatabaseException("Scatter queries can only order by numeric, UUID and string fields, field '"
+                        + field + "' of table '" + tableName + "' is " + type.getSimpleName());
+            }
+            if (type.isPrimitive()) {
+                conditions.add(query -> query.orderBy(field, order));
+            } else {
+                conditions.add(query -> query.orderByNullsFirst(field, order));
+            }
+            Comparator<T> byField = Comparator.comparing(entity -> prototype.valueOf(entity, field),
+                    Comparator.nullsFirst(values));
+            if (order == SortOrder.DESCENDING) {
+                byField = byField.reversed();
+            }
+            comparator = comparator == null ? byField : comparator.thenComparing(byField);
+            return this;
+        }
+
+        /**
+         * Returns at most {@code limit} rows in total. Each shard returns at most {@code limit} rows, which are
+         * then merged.
+         */
+        public ScatterQuery limit(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("limit must not be negative");
+            }
+            conditions.add(query -> query.limit(limit));
+            this.limit = limit;
+            return this;
+        }
+
+        /**
+         * Runs the query on all shards and merges the results, in shard order unless
+         * {@link #orderBy(String, SortOrder)} was used.
+         *
+         * @return matching entities from every shard
+         */
+        public List<T> execute() {
+            List<T> merged = new ArrayList<>();
+            for (List<T> part : scatter(shard -> prepare(shard).execute())) {
+                merged.addAll(part);
+            }
+            if (comparator != null) {
+                merged.sort(comparator);
+            }
+            if (limit >= 0 && merged.size() > limit) {
+                return new ArrayList<>(merged.subList(0, limit));
+            }
+            return merged;
+        }
+
+        /**
+         * Counts matching rows on all shards.
+         *
+         * @return total number of matching rows
+         */
+        public long count() {
+            long total = 0;
+            for (long part : scatter(shard -> prepare(shard).count())) {
+                total += part;
+            }
+            return total;
+        }
+
+        /**
+         * Sums a numeric field over the matching rows of all shards.
+         *
+         * @see DynamicTable.FindManyQuery#sum(String)
+         */
+        public double sum(String field) {
+            double total = 0;
+            for (double part : scatter(shard -> prepare(shard).sum(field))) {
+                total += part;
+            }
+            return total;
+        }
+
+        /**
+         * Returns the smallest value of a numeric field over the matching rows of all shards.
+         *
+         * @see DynamicTable.FindManyQuery#min(String)
+         */
+        public OptionalDouble min(String field) {
+            return scatter(shard -> prepare(shard).min(field)).stream()
+                    .filter(OptionalDouble::isPresent)
+                    .mapToDouble(OptionalDouble::getAsDouble)
+                    .min();
+        }
+
+        /**
+         * Returns the largest value of a numeric field over the matching rows of all shards.
+         *
+         * @see DynamicTable.FindManyQuery#max(String)
+         */
+        public OptionalDouble max(String field) {
+            return scatter(shard -> prepare(shard).max(field)).stream()
+                    .filter(OptionalDouble::isPresent)
+                    .mapToDouble(OptionalDouble::getAsDouble)
+                    .max();
+        }
+
+        private DynamicTable<T>.FindManyQuery prepare(DynamicTable<T> shard) {
+            DynamicTable<T>.FindManyQuery query = shard.findMany();
+            for (Consumer<DynamicTable<T>.FindManyQuery> condition : conditions) {
+                condition.accept(query);
+            }
+            return query;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparable<Object> comparable(Object value) {
+        return (Comparable) value;
+    }
+
+    /**
+     * Orders UUIDs by their bytes, unsigned, which is also the order of their lowercase text form.
+     */
+    private static int compareUuidBytes(UUID left, UUID right) {
+        int high = Long.compareUnsigned(left.getMostSignificantBits(), right.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(left.getLeastSignificantBits(), right.getLeastSignificantBits());
+    }
+
+    public static final class Builder<T> {
+        private final DatabaseManager manager;
+        private final Class<T> entityType;
+        private final Set<String> clientNames = new LinkedHashSet<>();
+        private String tableName;
+        private int virtualNodes = 128;
+        private FieldCodecRegistry codecs = new FieldCodecRegistry();
+        private ExecutorService executor;
+
+        private Builder(DatabaseManager manager, Class<T> entityType) {
+            this.manager = Objects.requireNonNull(manager, "manager");
+            this.entityType = Objects.requireNonNull(entityType, "entityType");
+        }
+
+        /**
+         * Sets the clients registered in the {@link DatabaseManager} that hold the shards.
+         */
+        public Builder<T> shards(String... clientNames) {
+            Objects.requireNonNull(clientNames, "clientNames");
+            this.clientNames.clear();
+            for (String clientName : clientNames) {
+                this.clientNames.add(Objects.requireNonNull(clientName, "clientName"));
+            }
+            return this;
+        }
+
+        public Builder<T> tableName(String tableName) {
+            this.tableName = Objects.requireNonNull(tableName, "tableName");
+            return this;
+        }
+
+        /**
+         * Sets the number of ring positions per shard. More positions spread keys more evenly. Defaults to 128.
+         */
+        public Builder<T> virtualNodes(int virtualNodes) {
+            if (virtualNodes <= 0) {
+                throw new IllegalArgumentException("virtualNodes must be positive");
+            }
+            this.virtualNodes = virtualNodes;
+            return this;
+        }
+
+        public Builder<T> codecs(FieldCodecRegistry codecs) {
+            this.codecs = Objects.requireNonNull(codecs, "codecs");
+            return this;
+        }
+
+        /**
+         * Sets the executor for scatter-gather queries. By default a pool with one daemon thread per shard is
+         * created and shut down by {@link ShardedTable#close()}.
+         */
+        public Builder<T> executor(ExecutorService executor) {
+            this.executor = Objects.requireNonNull(executor, "executor");
+            return this;
+        }
+
+        /**
+         * Creates the table on every shard and returns the sharded table.
+         *
+         * @throws DatabaseException if no shards are set or a client is not registered
+         */
+        public ShardedTable<T> build() {
+            if (clientNames.isEmpty()) {
+                throw new DatabaseException("No shards specified for " + entityType.getName());
+            }
+            if (tableName == null) {
+                tableName = DynamicDatabase.defaultTableName(entityType);
+            }
+            boolean ownsExecutor = executor == null;
+            ExecutorService pool = ownsExecutor ? newPool(clientNames.size()) : executor;
+            Map<String, CompletableFuture<DynamicTable<T>>> pending = new LinkedHashMap<>();
+            for (String clientName : clientNames) {
+                DynamicDatabase database = new DynamicDatabase(manager.getOrThrow(clientName), codecs);
+                pending.put(clientName, CompletableFuture.supplyAsync(
+                        () -> database.register(tableName, entityType), pool));
+            }
+            Map<String, DynamicTable<T>> shards = new LinkedHashMap<>();
+            try {
+                for (Map.Entry<String, CompletableFuture<DynamicTable<T>>> entry : pending.entrySet()) {
+                    shards.put(entry.getKey(), entry.getValue().join());
+                }
+            } catch (CompletionException exception) {
+                if (ownsExecutor) {
+                    pool.shutdown();
+                }
+                if (exception.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new DatabaseException("Failed to create table '" + tableName + "' on all shards",
+                        exception.getCause());
+            }
+            return new ShardedTable<>(this, shards, pool, ownsExecutor);
+        }
+
+        private ExecutorService newPool(int threads) {
+            AtomicInteger counter = new AtomicInteger();
+            ThreadFactory factory = runnable -> {
+                Thread thread = new Thread(runnable, "nextlib-shard-" + tableName + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newFixedThreadPool(threads, factory);
+        }
+    }
+}
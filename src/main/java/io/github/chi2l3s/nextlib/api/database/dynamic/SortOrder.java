@@ -0,0 +1,28 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+/**
+ * Sort direction for {@code ORDER BY} clauses.
+ *
+ * @since 1.0.8
+ */
+public enum SortOrder {
+    /**
+     * Smallest values first (ASC)
+     */
+    ASCENDING("ASC"),
+
+    /**
+     * Largest values first (DESC)
+     */
+    DESCENDING("DESC");
+
+    private final String sql;
+
+    SortOrder(String sql) {
+        this.sql = sql;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+import java.util.Optional;
+
+/**
+ * A write made through a {@link DynamicTable}.
+ * <p>
+ * {@link #getKey()} is the primary key of the affected row when it is known from the entity or from an
+ * equality or {@code IN} condition on the primary key; otherwise it is {@code null} and the change may have
+ * touched any number of rows. {@link #getEntity()} is present for writes of whole entities.
+ * </p>
+ * <p>
+ * {@link #isRemote() Remote} changes were made on another server and received through an
+ * {@link InvalidationBus}; they are reported as {@link Type#UPDATE} without an entity, even for deletes.
+ * </p>
+ *
+ * @param <T> entity type
+ * @since 1.0.8
+ */
+public final class TableChange<T> {
+    public enum Type {
+        INSERT,
+        UPDATE,
+        UPSERT,
+        DELETE
+    }
+
+    private final String tableName;
+    private final Type type;
+    private final Object key;
+    private final T entity;
+    private final boolean remote;
+
+    TableChange(String tableName, Type type, Object key, T entity) {
+        this(tableName, type, key, entity, false);
+    }
+
+    TableChange(String tableName, Type type, Object key, T entity, boolean remote) {
+        this.tableName = tableName;
+        this.type = type;
+        this.key = key;
+        this.entity = entity;
+        this.remote = remote;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the primary key of the affected row, or {@code null} if the change is not limited to known keys.
+     */
+    public Object getKey() {
+        return key;
+    }
+
+    public Optional<T> getEntity() {
+        return Optional.ofNullable(entity);
+    }
+
+    /**
+     * Returns whether the affected rows are unknown and any row of the table may have changed.
+     */
+    public boolean isTableWide() {
+        return key == null;
+    }
+
+    /**
+     * Returns whether the change was made by another server.
+     */
+    public boolean isRemote() {
+        return remote;
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+/**
+ * Receives the writes made through a {@link DynamicTable}.
+ * <p>
+ * Listeners are called synchronously on the writing thread after the statement succeeded, so they should only
+ * update in-memory state or hand the change off. Exceptions thrown by a listener are logged and do not affect
+ * the write.
+ * </p>
+ *
+ * @param <T> entity type
+ * @see DynamicTable#addListener(TableListener)
+ * @since 1.0.8
+ */
+@FunctionalInterface
+public interface TableListener<T> {
+    void onChange(TableChange<T> change);
+}
@@ -0,0 +1,22 @@
+package io.github.chi2l3s.nextlib.api.database.dynamic;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an {@code int}/{@code long} field as the optimistic locking version of an entity.
+ * <p>
+ * Every update issued through {@link DynamicTable} increments the column in the same statement.
+ * {@link DynamicTable#save(Object)} and {@link DynamicTable.UpdateBuilder#expectVersion(long)} additionally
+ * require the stored version to match and throw
+ * {@link io.github.chi2l3s.nextlib.api.database.VersionConflictException} when another writer got there first.
+ * </p>
+ *
+ * @since 1.0.8
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Version {
+}
@@ -0,0 +1,471 @@
+package io.github.chi2l3s.nextlib.api.database.player;
+
+import io.github.chi2l3s.nextlib.api.database.DatabaseException;
+import io.github.chi2l3s.nextlib.api.database.dynamic.DynamicTable;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+
+/**
+ * Keeps the rows of online players in memory and writes changes back in batches.
+ * <p>
+ * The row is loaded on {@link AsyncPlayerPreLoginEvent}, off the main thread, so it is ready when the player
+ * joins. Changes made through {@link #update(UUID, UnaryOperator)} or {@link #markDirty(UUID)} are upserted by a
+ * periodic autosave, on quit and on {@link #close()}. All database writes run on one background thread in
+ * submission order, so a quit save can never be overtaken by an older autosave. If the quit save fails, the
+ * player's entity stays in memory and every autosave retries it until it is written.
+ * </p>
+ * <p>
+ * A player who rejoins before the quit save finished keeps the in-memory entity instead of reading the row
+ * back; a player who joins without a prefetch (for example after {@code /reload}) is loaded asynchronously and
+ * {@link #whenLoaded(UUID, Consumer)} callbacks run on the main thread once the row is available. The main thread
+ * never waits for the database.
+ * </p>
+ *
+ * <p><strong>Example usage:</strong></p>
+ * <pre>{@code
+ * PlayerDataRepository<PlayerEntity> players = PlayerDataRepository.builder(this, table,
+ *         uuid -> new PlayerEntity(uuid, 0))
+ *     .autosaveInterval(Duration.ofMinutes(5))
+ *     .build();
+ *
+ * players.update(player.getUniqueId(), data -> data.withCoins(data.getCoins() + 10));
+ *
+ * // onDisable
+ * players.close();
+ * }</pre>
+ *
+ * @param <T> entity type
+ * @since 1.0.8
+ */
+public final class PlayerDataRepository<T> implements Listener, AutoCloseable {
+    private final JavaPlugin plugin;
+    private final DynamicTable<T> table;
+    private final Function<UUID, T> factory;
+    private final int batchSize;
+    private final String kickMessage;
+    private final long prefetchTimeoutNanos;
+    private final Map<UUID, Session<T>> sessions = new ConcurrentHashMap<>();
+    private final ExecutorService writer;
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final BukkitTask autosaveTask;
+    private volatile boolean closed;
+
+    private PlayerDataRepository(Builder<T> builder) {
+        this.plugin = builder.plugin;
+        this.table = builder.table;
+        this.factory = builder.factory;
+        this.batchSize = builder.batchSize;
+        this.kickMessage = builder.kickMessage;
+        this.prefetchTimeoutNanos = builder.prefetchTimeout.toNanos();
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nextlib-playerdata-" + table.getTableName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Bukkit.getPluginManager().registerEvents(this, plugin);
+        long ticks = Math.max(1L, builder.autosaveInterval.toMillis() / 50L);
+        this.autosaveTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::autosave, ticks, ticks);
+    }
+
+    public static <T> Builder<T> builder(JavaPlugin plugin, DynamicTable<T> table, Function<UUID, T> factory) {
+        return new Builder<>(plugin, table, factory);
+    }
+
+    /**
+     * Returns the loaded entity of a player.
+     *
+     * @param playerId player UUID
+     * @return the entity, or empty if the player is not online or still loading
+     */
+    public Optional<T> get(UUID playerId) {
+        Session<T> session = sessions.get(playerId);
+        return session == null ? Optional.empty() : Optional.ofNullable(session.value);
+    }
+
+    /**
+     * Runs {@code action} on the main thread once the player's entity is loaded.
+     *
+     * @param playerId player UUID
+     * @param action   action receiving the current entity
+     */
+    public void whenLoaded(UUID playerId, Consumer<T> action) {
+        Objects.requireNonNull(action, "action");
+        Session<T> session = sessions.get(playerId);
+        if (session == null) {
+            return;
+        }
+        if (session.loaded.isDone() && Bukkit.isPrimaryThread()) {
+            if (session.value != null) {
+                action.accept(session.value);
+            }
+            return;
+        }
+        session.loaded.thenRun(() -> Bukkit.getScheduler().runTask(plugin, () -> {
+            if (session.value != null) {
+                action.accept(session.value);
+            }
+        }));
+    }
+
+    /**
+     * Replaces a player's entity and marks it dirty. Intended for immutable entities.
+     *
+     * @param playerId player UUID
+     * @param mutator  function producing the new entity from the current one
+     * @return {@code true} if the entity was loaded and updated
+     */
+    public boolean update(UUID playerId, UnaryOperator<T> mutator) {
+        Objects.requireNonNull(mutator, "mutator");
+        Session<T> session = sessions.get(playerId);
+        if (session == null) {
+            return false;
+        }
+        synchronized (session) {
+            if (session.value == null) {
+                return false;
+            }
+            session.value = Objects.requireNonNull(mutator.apply(session.value), "mutator result");
+            session.modifications++;
+        }
+        return true;
+    }
+
+    /**
+     * Marks a player's entity dirty after it was changed in place. Intended for mutable entities.
+     *
+     * @param playerId player UUID
+     */
+    public void markDirty(UUID playerId) {
+        Session<T> session = sessions.get(playerId);
+        if (session != null) {
+            synchronized (session) {
+                session.modifications++;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of players held in memory, including those still loading or waiting for a quit save.
+     *
+     * @return session count
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Queues an upsert of all dirty entities. Players who quit are dropped from memory once their entity is saved.
+     *
+     * @return future completed after the write, or failed if the repository is closed
+     */
+    public CompletableFuture<Void> flush() {
+        try {
+            return CompletableFuture.runAsync(this::writeAll, writer);
+        } catch (RejectedExecutionException exception) {
+            return CompletableFuture.failedFuture(new DatabaseException("Player data repository of table '"
+                    + table.getTableName() + "' is closed", exception));
+        }
+    }
+
+    /**
+     * Stops autosaving, writes all dirty entities and releases the background thread. Blocks until the final
+     * write finished or 30 seconds passed; call it from {@code onDisable}.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        HandlerList.unregisterAll(this);
+        autosaveTask.cancel();
+        try {
+            flush().get(30, TimeUnit.SECONDS);
+        } catch (Exception exception) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to save player data of table '"
+                    + table.getTableName() + "' on shutdown", exception);
+        } finally {
+            writer.shutdown();
+            sessions.clear();
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        Session<T> session = acquire(event.getUniqueId());
+        try {
+            session.loaded.get(prefetchTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (Exception exception) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to load player data of " + event.getUniqueId()
+                    + " from table '" + table.getTableName() + "'", exception);
+            sessions.remove(event.getUniqueId(), session);
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, kickMessage);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLoginResult(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            Session<T> session = sessions.get(event.getUniqueId());
+            if (session != null && !session.online) {
+                release(session);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(PlayerJoinEvent event) {
+        Session<T> session = acquire(event.getPlayer().getUniqueId());
+        session.online = true;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        Session<T> session = sessions.get(event.getPlayer().getUniqueId());
+        if (session != null) {
+            session.online = false;
+            release(session);
+        }
+    }
+
+    private Session<T> acquire(UUID playerId) {
+        Session<T> created = new Session<>(playerId);
+        Session<T> session = sessions.compute(playerId, (id, existing) -> {
+            if (existing != null && !existing.loaded.isCompletedExceptionally()) {
+                existing.acquiredAt = System.nanoTime();
+                existing.released = false;
+                return existing;
+            }
+            return created;
+        });
+        if (session == created) {
+            if (Bukkit.isPrimaryThread()) {
+                Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> load(created));
+            } else {
+                load(created);
+            }
+        }
+        return session;
+    }
+
+    private void load(Session<T> session) {
+        try {
+            Optional<T> stored = table.findFirst().where(table.getPrimaryKeyField(), session.playerId).execute();
+            synchronized (session) {
+                if (stored.isPresent()) {
+                    session.value = stored.get();
+                } else {
+                    session.value = Objects.requireNonNull(factory.apply(session.playerId), "factory result");
+                    session.modifications++;
+                }
+            }
+            session.loaded.complete(null);
+        } catch (RuntimeException exception) {
+            session.loaded.completeExceptionally(exception);
+        }
+    }
+
+    /**
+     * Saves the session once it is loaded and drops it unless the player logged in again in the meantime. A
+     * session whose save failed stays in memory, still dirty, and is retried by the next autosave.
+     */
+    private void release(Session<T> session) {
+        long requestedAt = System.nanoTime();
+        session.released = true;
+        session.loaded.whenComplete((ignored, failure) -> submit(() -> {
+            if (failure == null) {
+                write(List.of(session));
+            }
+            sessions.computeIfPresent(session.playerId, (id, current) ->
+                    current == session && !current.online && current.acquiredAt - requestedAt < 0
+                            && current.isClean() ? null : current);
+        }));
+    }
+
+    private void autosave() {
+        if (closed || !flushQueued.compareAndSet(false, true)) {
+            return;
+        }
+        if (!submit(() -> {
+            flushQueued.set(false);
+            writeAll();
+        })) {
+            flushQueued.set(false);
+        }
+    }
+
+    private boolean submit(Runnable task) {
+        if (closed) {
+            // close() already wrote every session
+            return false;
+        }
+        try {
+            writer.execute(task);
+            return true;
+        } catch (RejectedExecutionException exception) {
+            return false;
+        }
+    }
+
+    private void writeAll() {
+        write(new ArrayList<>(sessions.values()));
+        evictOfflineSessions();
+    }
+
+    /**
+     * Drops saved sessions of players who are not online: quits whose save failed before, and prefetches whose
+     * player never joined, e.g. because the connection dropped after login.
+     */
+    private void evictOfflineSessions() {
+        long deadline = System.nanoTime() - TimeUnit.MINUTES.toNanos(1);
+        for (Session<T> session : sessions.values()) {
+            if (!session.online && session.loaded.isDone()
+                    && (session.released || session.acquiredAt - deadline < 0)) {
+                sessions.computeIfPresent(session.playerId, (id, current) ->
+                        current == session && !current.online && current.isClean() ? null : current);
+            }
+        }
+    }
+
+    private void write(List<Session<T>> candidates) {
+        List<Session<T>> dirty = new ArrayList<>();
+        List<T> entities = new ArrayList<>();
+        List<Long> snapshots = new ArrayList<>();
+        for (Session<T> session : candidates) {
+            synchronized (session) {
+                if (session.value != null && session.modifications != session.saved) {
+                    dirty.add(session);
+                    entities.add(session.value);
+                    snapshots.add(session.modifications);
+                }
+            }
+        }
+        for (int from = 0; from < entities.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, entities.size());
+            try {
+                table.upsertAll(entities.subList(from, to));
+            } catch (DatabaseException exception) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to save " + (to - from)
+                        + " player entries to table '" + table.getTableName() + "'", exception);
+                continue;
+            }
+            for (int i = from; i < to; i++) {
+                Session<T> session = dirty.get(i);
+                synchronized (session) {
+                    session.saved = Math.max(session.saved, snapshots.get(i));
+                }
+            }
+        }
+    }
+
+    private static final class Session<T> {
+        private final UUID playerId;
+        private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+        private volatile T value;
+        private volatile boolean online;
+        private volatile long acquiredAt = System.nanoTime();
+        private volatile boolean released;
+        private long modifications;
+        private long saved;
+
+        private Session(UUID playerId) {
+            this.playerId = playerId;
+        }
+
+        private synchronized boolean isClean() {
+            return value == null || modifications == saved;
+        }
+    }
+
+    public static final class Builder<T> {
+        private final JavaPlugin plugin;
+        private final DynamicTable<T> table;
+        private final Function<UUID, T> factory;
+        private Duration autosaveInterval = Duration.ofMinutes(5);
+        private Duration prefetchTimeout = Duration.ofSeconds(10);
+        private int batchSize = 500;
+        private String kickMessage = "Failed to load your data, please try again";
+
+        private Builder(JavaPlugin plugin, DynamicTable<T> table, Function<UUID, T> factory) {
+            this.plugin = Objects.requireNonNull(plugin, "plugin");
+            this.table = Objects.requireNonNull(table, "table");
+            this.factory = Objects.requireNonNull(factory, "factory");
+        }
+
+        /**
+         * Sets how often dirty entities are written. Defaults to 5 minutes.
+         */
+        public Builder<T> autosaveInterval(Duration autosaveInterval) {
+            Objects.requireNonNull(autosaveInterval, "autosaveInterval");
+            if (autosaveInterval.isNegative() || autosaveInterval.isZero()) {
+                throw new IllegalArgumentException("autosaveInterval must be positive");
+            }
+            this.autosaveInterval = autosaveInterval;
+            return this;
+        }
+
+        /**
+         * Sets how long a login waits for the player's row before it is refused. Defaults to 10 seconds.
+         */
+        public Builder<T> prefetchTimeout(Duration prefetchTimeout) {
+            this.prefetchTimeout = Objects.requireNonNull(prefetchTimeout, "prefetchTimeout");
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of entities per upsert batch. Defaults to 500.
+         */
+        public Builder<T> batchSize(int batchSize) {
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("batchSize must be positive");
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets the message shown to players whose row could not be loaded.
+         */
+        public Builder<T> kickMessage(String kickMessage) {
+            this.kickMessage = Objects.requireNonNull(kickMessage, "kickMessage");
+            return this;
+        }
+
+        /**
+         * Creates the repository, registers its listeners and starts the autosave task.
+         */
+        public PlayerDataRepository<T> build() {
+            return new PlayerDataRepository<>(this);
+        }
+    }
+}
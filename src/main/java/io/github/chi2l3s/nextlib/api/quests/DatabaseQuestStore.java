@@ -9,9 +9,25 @@ import java.sql.SQLException;
 import java.util.*;
 import java.util.function.Function;
 
+/**
+ * Stores quest progress as one row per player, quest and objective.
+ * <p>
+ * Saves upsert only the objectives changed since the previous save of the same {@link QuestProgress}, using the
+ * engine's {@code ON CONFLICT} or {@code ON DUPLICATE KEY} clause; progress that was never stored is written in
+ * full on its first save. {@link #saveAll(Collection)} writes the changes of any number of players as one batch in
+ * one transaction and does not touch the database when nothing changed.
+ * {@link #loadAll(Collection, Function)} reads many players with chunked {@code IN} queries.
+ * </p>
+ */
 public final class DatabaseQuestStore implements QuestStore {
+    private static final List<String> COLUMNS = List.of("player_uuid", "quest_id", "objective_id", "progress", "target");
+    private static final List<String> KEY_COLUMNS = List.of("player_uuid", "quest_id", "objective_id");
+    private static final int BATCH_SIZE = 500;
+    private static final int LOAD_CHUNK_SIZE = 500;
+
     private final DatabaseClient client;
     private final String tableName;
+    private final String upsertSql;
 
     public DatabaseQuestStore(DatabaseClient client) {
         this(client, "nextlib_quest_progress");
@@ -20,26 +36,55 @@ public final class DatabaseQuestStore implements QuestStore {
     public DatabaseQuestStore(DatabaseClient client, String tableName) {
         this.client = Objects.requireNonNull(client, "client");
         this.tableName = Objects.requireNonNull(tableName, "tableName");
+        this.upsertSql = client.getType().buildUpsertSql(tableName, COLUMNS, KEY_COLUMNS);
         ensureSchema();
     }
 
     @Override
     public void saveProgress(QuestProgress progress) {
         Objects.requireNonNull(progress, "progress");
-        client.withConnection(connection -> {
-            try {
-                connection.setAutoCommit(false);
-                deleteExisting(progress, connection);
-                insertProgress(progress, connection);
-                connection.commit();
-            } catch (SQLException e) {
-                rollbackQuietly(connection);
-                throw new DatabaseException("Failed to save quest progress", e);
-            } finally {
-                restoreAutoCommit(connection);
+        saveAll(List.of(progress));
+    }
+
+    @Override
+    public void saveAll(Collection<QuestProgress> progress) {
+        Objects.requireNonNull(progress, "progress");
+        if (progress.isEmpty()) {
+            return;
+        }
+        List<QuestProgress> entries = new ArrayList<>(progress.size());
+        List<long[]> changes = new ArrayList<>(progress.size());
+        for (QuestProgress entry : progress) {
+            long[] changed = entry.takeChanged();
+            if (hasAny(changed)) {
+                entries.add(entry);
+                changes.add(changed);
+            }
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            client.withConnection(connection -> {
+                try {
+                    connection.setAutoCommit(false);
+                    upsertChanged(entries, changes, connection);
+                    connection.commit();
+                } catch (SQLException e) {
+                    rollbackQuietly(connection);
+                    throw new DatabaseException("Failed to save quest progress", e);
+                } finally {
+                    restoreAutoCommit(connection);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            // Nothing was committed, so the next save has to write these objectives again
+            for (int i = 0; i < entries.size(); i++) {
+                entries.get(i).restoreChanged(changes.get(i));
             }
-            return null;
-        });
+            throw e;
+        }
     }
 
     @Override
@@ -62,63 +107,98 @@ public final class DatabaseQuestStore implements QuestStore {
     @Override
     public List<QuestProgress> loadAll(UUID playerId, Function<String, Optional<Quest>> questResolver) {
         Objects.requireNonNull(playerId, "playerId");
+        return loadAll(List.of(playerId), questResolver).get(playerId);
+    }
+
+    /**
+     * Loads several players with one {@code IN} query per {@value #LOAD_CHUNK_SIZE} players.
+     */
+    @Override
+    public Map<UUID, List<QuestProgress>> loadAll(Collection<UUID> playerIds,
+                                                  Function<String, Optional<Quest>> questResolver) {
+        Objects.requireNonNull(playerIds, "playerIds");
         Objects.requireNonNull(questResolver, "questResolver");
-        String sql = "SELECT quest_id, objective_id, progress FROM " + tableName + " WHERE player_uuid = ?";
-        Map<String, Map<String, Double>> rows = new HashMap<>();
-        client.query(sql, statement -> statement.setString(1, playerId.toString()),
-                resultSet -> new QuestRow(resultSet.getString("quest_id"),
-                        resultSet.getString("objective_id"),
-                        resultSet.getDouble("progress")))
-                .forEach(row -> rows
-                        .computeIfAbsent(row.questId(), ignored -> new HashMap<>())
-                        .put(row.objectiveId(), row.progress()));
-        List<QuestProgress> progressList = new ArrayList<>();
-        for (Map.Entry<String, Map<String, Double>> entry : rows.entrySet()) {
-            questResolver.apply(entry.getKey()).ifPresent(quest ->
-                    progressList.add(new QuestProgress(quest, playerId, entry.getValue())));
+        List<UUID> ids = List.copyOf(new LinkedHashSet<>(playerIds));
+        Map<UUID, Map<String, Map<String, Double>>> rows = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += LOAD_CHUNK_SIZE) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + LOAD_CHUNK_SIZE, ids.size()));
+            String sql = "SELECT player_uuid, quest_id, objective_id, progress FROM " + tableName
+                    + " WHERE player_uuid IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            client.query(sql, statement -> {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            statement.setString(i + 1, chunk.get(i).toString());
+                        }
+                    }, resultSet -> new QuestRow(UUID.fromString(resultSet.getString("player_uuid")),
+                            resultSet.getString("quest_id"),
+                            resultSet.getString("objective_id"),
+                            resultSet.getDouble("progress")))
+                    .forEach(row -> rows
+                            .computeIfAbsent(row.playerId(), ignored -> new HashMap<>())
+                            .computeIfAbsent(row.questId(), ignored -> new HashMap<>())
+                            .put(row.objectiveId(), row.progress()));
         }
-        return progressList;
+        Map<UUID, List<QuestProgress>> result = new HashMap<>();
+        for (UUID playerId : ids) {
+            List<QuestProgress> progressList = new ArrayList<>();
+            for (Map.Entry<String, Map<String, Double>> entry : rows.getOrDefault(playerId, Map.of()).entrySet()) {
+                questResolver.apply(entry.getKey()).ifPresent(quest ->
+                        progressList.add(new QuestProgress(quest, playerId, entry.getValue())));
+            }
+            result.put(playerId, progressList);
+        }
+        return result;
     }
 
     private void ensureSchema() {
-        String ddl = "CRETE TABLE IF NOT EXISTS " + tableName + " (" +
+        String ddl = "CREATE TABLE IF NOT EXISTS " + tableName + " (" +
                 "player_uuid VARCHAR(36) NOT NULL, " +
                 "quest_id VARCHAR(128) NOT NULL, " +
                 "objective_id VARCHAR(128) NOT NULL, " +
                 "progress DOUBLE NOT NULL, " +
                 "target DOUBLE NOT NULL, " +
                 "PRIMARY KEY(player_uuid, quest_id, objective_id)" +
-                ");";
+                ")";
         client.execute(ddl, null);
     }
 
-    private void deleteExisting(QuestProgress progress, Connection connection) throws SQLException {
-        String delete = "DELETE FROM " + tableName + " WHERE player_uuid = ? AND quest_id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(delete)) {
-            statement.setString(1, progress.getPlayerId().toString());
-            statement.setString(2, progress.getQuest().getId());
-            statement.executeUpdate();
+    private void upsertChanged(List<QuestProgress> entries, List<long[]> changes, Connection connection)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(upsertSql)) {
+            int pending = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                QuestProgress progress = entries.get(i);
+                Quest quest = progress.getQuest();
+                String playerId = progress.getPlayerId().toString();
+                long[] changed = changes.get(i);
+                for (int word = 0; word < changed.length; word++) {
+                    for (long bits = changed[word]; bits != 0; bits &= bits - 1) {
+                        int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                        statement.setString(1, playerId);
+                        statement.setString(2, quest.getId());
+                        statement.setString(3, quest.getObjectives().get(index).getId());
+                        statement.setDouble(4, progress.getProgress(index));
+                        statement.setDouble(5, quest.getTargetAmount(index));
+                        statement.addBatch();
+                        if (++pending == BATCH_SIZE) {
+                            statement.executeBatch();
+                            pending = 0;
+                        }
+                    }
+                }
+            }
+            if (pending > 0) {
+                statement.executeBatch();
+            }
         }
     }
 
-    private void insertProgress(QuestProgress progress, Connection connection) throws SQLException {
-        String insert = "INSERT INTO " + tableName + " (player_uuid, quest_id, objective_id, progress, target) VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement statement = connection.prepareStatement(insert)) {
-            for (Map.Entry<String, Double> entry : progress.getAllProgress().entrySet()) {
-                statement.setString(1, progress.getPlayerId().toString());
-                statement.setString(2, progress.getQuest().getId());
-                statement.setString(3, entry.getKey());
-                statement.setDouble(4, entry.getValue());
-                QuestObjective objective = progress.getQuest().getObjectives().stream()
-                        .filter(o -> o.getId().equals(entry.getKey()))
-                        .findFirst()
-                        .orElse(null);
-                double target = objective != null ? objective.getTargetAmount() : entry.getValue();
-                statement.setDouble(5, target);
-                statement.addBatch();
+    private static boolean hasAny(long[] bits) {
+        for (long word : bits) {
+            if (word != 0) {
+                return true;
             }
-            statement.executeBatch();
         }
+        return false;
     }
 
     private void rollbackQuietly(Connection connection) {
@@ -138,6 +218,6 @@ public final class DatabaseQuestStore implements QuestStore {
     private record ProgressRow(String objectiveId, double progress) {
     }
 
-    private record QuestRow(String questId, String objectiveId, double progress) {
+    private record QuestRow(UUID playerId, String questId, String objectiveId, double progress) {
     }
 }
@@ -0,0 +1,113 @@
+package io.github.chi2l3s.nextlib.api.quests;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Objectives grouped by the event type and key they can progress from.
+ * <p>
+ * A quest's index is built once when the quest is registered. A player's index joins the indexes of their active
+ * quests, binding every objective to its {@link QuestProgress}, and is rebuilt whenever the active quests change.
+ * A lookup is an {@link EnumMap} access and one hash lookup of the event key, so an event no objective waits for
+ * costs neither a scan nor an allocation.
+ * </p>
+ *
+ * @param <T> indexed element, an objective or a {@link Target}
+ */
+final class ObjectiveIndex<T> {
+    private final Map<QuestObjectiveType, Bucket<T>> buckets;
+
+    private ObjectiveIndex(Map<QuestObjectiveType, Bucket<T>> buckets) {
+        this.buckets = buckets;
+    }
+
+    static ObjectiveIndex<QuestObjective> of(Quest quest) {
+        Map<QuestObjectiveType, Bucket<QuestObjective>> buckets = new EnumMap<>(QuestObjectiveType.class);
+        for (QuestObjective objective : quest.getObjectives()) {
+            buckets.computeIfAbsent(objective.getType(), ignored -> new Bucket<>())
+                    .add(objective, Set.copyOf(objective.getDispatchKeys()));
+        }
+        return new ObjectiveIndex<>(buckets);
+    }
+
+    static ObjectiveIndex<Target> of(Collection<QuestProgress> progress,
+                                     Function<Quest, ObjectiveIndex<QuestObjective>> questIndex) {
+        Map<QuestObjectiveType, Bucket<Target>> buckets = new EnumMap<>(QuestObjectiveType.class);
+        for (QuestProgress entry : progress) {
+            questIndex.apply(entry.getQuest()).buckets.forEach((type, bucket) -> {
+                Bucket<Target> target = buckets.computeIfAbsent(type, ignored -> new Bucket<>());
+                for (int i = 0; i < bucket.all.size(); i++) {
+                    QuestObjective objective = bucket.all.get(i);
+                    target.add(new Target(entry, objective, entry.getQuest().indexOf(objective.getId())),
+                            bucket.keys.get(i));
+                }
+            });
+        }
+        return new ObjectiveIndex<>(buckets);
+    }
+
+    /**
+     * Returns whether any indexed objective has the given type.
+     */
+    boolean contains(QuestObjectiveType type) {
+        return buckets.containsKey(type);
+    }
+
+    /**
+     * Returns the elements of the given type that list {@code key} or accept any key, in insertion order. A
+     * {@code null} key returns every element of the type.
+     */
+    List<T> candidates(QuestObjectiveType type, Object key) {
+        Bucket<T> bucket = buckets.get(type);
+        if (bucket == null) {
+            return List.of();
+        }
+        if (key == null) {
+            return bucket.all;
+        }
+        List<T> keyed = bucket.byKey.get(key);
+        return keyed != null ? keyed : bucket.wildcard;
+    }
+
+    /**
+     * An objective bound to the progress it advances.
+     */
+    static final class Target {
+        final QuestProgress progress;
+        final QuestObjective objective;
+        final int index;
+
+        Target(QuestProgress progress, QuestObjective objective, int index) {
+            this.progress = progress;
+            this.objective = objective;
+            this.index = index;
+        }
+    }
+
+    private static final class Bucket<T> {
+        private final List<T> all = new ArrayList<>();
+        private final List<Set<?>> keys = new ArrayList<>();
+        private final List<T> wildcard = new ArrayList<>();
+        // Every keyed list also holds the wildcard elements, so a lookup returns a single list
+        private final Map<Object, List<T>> byKey = new HashMap<>();
+
+        private void add(T element, Set<?> elementKeys) {
+            all.add(element);
+            keys.add(elementKeys);
+            if (elementKeys.isEmpty()) {
+                wildcard.add(element);
+                byKey.values().forEach(list -> list.add(element));
+                return;
+            }
+            for (Object key : elementKeys) {
+                byKey.computeIfAbsent(key, ignored -> new ArrayList<>(wildcard)).add(element);
+            }
+        }
+    }
+}
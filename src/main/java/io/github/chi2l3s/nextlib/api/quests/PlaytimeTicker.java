@@ -0,0 +1,280 @@
+package io.github.chi2l3s.nextlib.api.quests;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Feeds {@link QuestManager#recordPlaytime(UUID, double)} for every online player from one shared task.
+ * <p>
+ * Every {@link Builder#interval(Duration)} the ticker starts a pass over
+ * {@link QuestManager#getPlayersWithObjective(QuestObjectiveType)} for {@link QuestObjectiveType#PLAY_TIME}, so
+ * players without a playtime objective are never visited. Each visited player is credited the time since their
+ * previous credit. The pass runs on the main thread and stops for the tick once {@link Builder#tickBudget(Duration)}
+ * is used up, continuing on the next tick; time is measured per player, so a pass spread over several ticks credits
+ * the same minutes.
+ * </p>
+ * <p>
+ * With an {@link Builder#afkTimeout(Duration)} set, time after a player's last activity plus the timeout is not
+ * credited. Turning the head, chatting and running commands count as activity; other sources can report it through
+ * {@link #markActive(UUID)}.
+ * </p>
+ *
+ * <p><strong>Example usage:</strong></p>
+ * <pre>{@code
+ * PlaytimeTicker playtime = PlaytimeTicker.builder(this, quests)
+ *     .afkTimeout(Duration.ofMinutes(5))
+ *     .build();
+ *
+ * // onDisable
+ * playtime.close();
+ * }</pre>
+ *
+ * @since 1.0.8
+ */
+public final class PlaytimeTicker implements Listener, AutoCloseable {
+    private static final double NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+    private static final UUID[] NO_PLAYERS = new UUID[0];
+
+    private final QuestManager manager;
+    private final long intervalNanos;
+    private final long tickBudgetNanos;
+    private final long afkTimeoutNanos;
+    private final LongSupplier nanoTime;
+    private final Map<UUID, Clock> clocks = new ConcurrentHashMap<>();
+    private final BukkitTask task;
+    private UUID[] pass = NO_PLAYERS;
+    private int cursor;
+    private long nextPassAt;
+
+    private PlaytimeTicker(Builder builder) {
+        this.manager = builder.manager;
+        this.intervalNanos = builder.interval.toNanos();
+        this.tickBudgetNanos = builder.tickBudget.toNanos();
+        this.afkTimeoutNanos = builder.afkTimeout.toNanos();
+        this.nanoTime = builder.nanoTime;
+        long now = nanoTime.getAsLong();
+        this.nextPassAt = now + intervalNanos;
+        // Players already online, e.g. after a reload, start counting now
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            clocks.put(player.getUniqueId(), new Clock(now));
+        }
+        Bukkit.getPluginManager().registerEvents(this, builder.plugin);
+        this.task = Bukkit.getScheduler().runTaskTimer(builder.plugin, this::tick, 1L, 1L);
+    }
+
+    public static Builder builder(JavaPlugin plugin, QuestManager manager) {
+        return new Builder(plugin, manager);
+    }
+
+    /**
+     * Records activity of an online player, resetting their AFK timer. Safe to call from any thread.
+     */
+    public void markActive(UUID playerId) {
+        Clock clock = clocks.get(playerId);
+        if (clock != null) {
+            clock.activeAt = nanoTime.getAsLong();
+        }
+    }
+
+    /**
+     * Returns whether an online player is inactive for longer than the AFK timeout. Always {@code false} when AFK
+     * detection is disabled.
+     */
+    public boolean isAfk(UUID playerId) {
+        Clock clock = clocks.get(playerId);
+        return clock != null && afkTimeoutNanos > 0 && nanoTime.getAsLong() - clock.activeAt > afkTimeoutNanos;
+    }
+
+    /**
+     * Credits the playtime accumulated so far, unregisters the listeners and stops the task. Call it on the main
+     * thread from {@code onDisable}, before the quest store is closed.
+     */
+    @Override
+    public void close() {
+        HandlerList.unregisterAll(this);
+        task.cancel();
+        long now = nanoTime.getAsLong();
+        for (UUID playerId : manager.getPlayersWithObjective(QuestObjectiveType.PLAY_TIME)) {
+            Clock clock = clocks.get(playerId);
+            if (clock != null) {
+                credit(playerId, clock, now);
+            }
+        }
+        clocks.clear();
+    }
+
+    /**
+     * Runs one tick of the current pass. Called by the ticker's task every tick; package-private for tests.
+     */
+    void tick() {
+        long start = nanoTime.getAsLong();
+        if (cursor == pass.length) {
+            if (start - nextPassAt < 0) {
+                return;
+            }
+            pass = manager.getPlayersWithObjective(QuestObjectiveType.PLAY_TIME).toArray(NO_PLAYERS);
+            cursor = 0;
+            nextPassAt = start + intervalNanos;
+        }
+        while (cursor < pass.length) {
+            UUID playerId = pass[cursor];
+            pass[cursor++] = null;
+            Clock clock = clocks.get(playerId);
+            if (clock != null) {
+                credit(playerId, clock, nanoTime.getAsLong());
+            }
+            if (nanoTime.getAsLong() - start >= tickBudgetNanos) {
+                return;
+            }
+        }
+    }
+
+    private void credit(UUID playerId, Clock clock, long now) {
+        long activeFor = now - clock.activeAt;
+        long until = afkTimeoutNanos > 0 && activeFor > afkTimeoutNanos ? clock.activeAt + afkTimeoutNanos : now;
+        // Capped at two intervals, so a playtime objective activated between passes is not credited the time before
+        long elapsed = Math.min(until - clock.creditedAt, 2 * intervalNanos);
+        clock.creditedAt = now;
+        if (elapsed > 0) {
+            manager.recordPlaytime(playerId, elapsed / NANOS_PER_MINUTE);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        clocks.put(event.getPlayer().getUniqueId(), new Clock(nanoTime.getAsLong()));
+    }
+
+    @EventHandler(priority = EventPriority.LOW)
+    public void onQuit(PlayerQuitEvent event) {
+        UUID playerId = event.getPlayer().getUniqueId();
+        Clock clock = clocks.remove(playerId);
+        if (clock != null && manager.hasActiveObjective(playerId, QuestObjectiveType.PLAY_TIME)) {
+            credit(playerId, clock, nanoTime.getAsLong());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMove(PlayerMoveEvent event) {
+        if (afkTimeoutNanos == 0) {
+            return;
+        }
+        // Only turning the head counts, as water streams and pistons move AFK players too
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (to != null && (from.getYaw() != to.getYaw() || from.getPitch() != to.getPitch())) {
+            markActive(event.getPlayer().getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onChat(AsyncPlayerChatEvent event) {
+        markActive(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onCommand(PlayerCommandPreprocessEvent event) {
+        markActive(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Timestamps of one online player. {@code creditedAt} is only touched on the main thread, {@code activeAt} may
+     * be updated from chat threads.
+     */
+    private static final class Clock {
+        private long creditedAt;
+        private volatile long activeAt;
+
+        private Clock(long now) {
+            this.creditedAt = now;
+            this.activeAt = now;
+        }
+    }
+
+    public static final class Builder {
+        private final JavaPlugin plugin;
+        private final QuestManager manager;
+        private Duration interval = Duration.ofMinutes(1);
+        private Duration tickBudget = Duration.ofMillis(1);
+        private Duration afkTimeout = Duration.ZERO;
+        private LongSupplier nanoTime = System::nanoTime;
+
+        private Builder(JavaPlugin plugin, QuestManager manager) {
+            this.plugin = Objects.requireNonNull(plugin, "plugin");
+            this.manager = Objects.requireNonNull(manager, "manager");
+        }
+
+        /**
+         * Sets how often a pass over all players with a playtime objective starts. Defaults to 1 minute.
+         */
+        public Builder interval(Duration interval) {
+            Objects.requireNonNull(interval, "interval");
+            if (interval.isNegative() || interval.isZero()) {
+                throw new IllegalArgumentException("interval must be positive");
+            }
+            this.interval = interval;
+            return this;
+        }
+
+        /**
+         * Sets how much main thread time a pass may use per tick before it continues on the next tick. Defaults to 1
+         * millisecond.
+         */
+        public Builder tickBudget(Duration tickBudget) {
+            Objects.requireNonNull(tickBudget, "tickBudget");
+            if (tickBudget.isNegative() || tickBudget.isZero()) {
+                throw new IllegalArgumentException("tickBudget must be positive");
+            }
+            this.tickBudget = tickBudget;
+            return this;
+        }
+
+        /**
+         * Sets how long a player may be inactive before their playtime stops counting. Defaults to
+         * {@link Duration#ZERO}, which disables AFK detection.
+         */
+        public Builder afkTimeout(Duration afkTimeout) {
+            Objects.requireNonNull(afkTimeout, "afkTimeout");
+            if (afkTimeout.isNegative()) {
+                throw new IllegalArgumentException("afkTimeout must not be negative");
+            }
+            this.afkTimeout = afkTimeout;
+            return this;
+        }
+
+        /**
+         * Replaces the {@link System#nanoTime()} time source. Package-private for tests.
+         */
+        Builder nanoTime(LongSupplier nanoTime) {
+            this.nanoTime = Objects.requireNonNull(nanoTime, "nanoTime");
+            return this;
+        }
+
+        /**
+         * Creates the ticker, registers its listeners and starts the task.
+         */
+        public PlaytimeTicker build() {
+            return new PlaytimeTicker(this);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package io.github.chi2l3s.nextlib.api.quests;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Getter
@@ -12,6 +15,10 @@ public final class Quest {
     private final String description;
     private final boolean repeatable;
     private final List<QuestObjective> objectives;
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Integer> objectiveIndexes;
+    @Getter(AccessLevel.NONE)
+    private final double[] targetAmounts;
 
     public Quest(String id, String name, String description, List<QuestObjective> objectives) {
         this(id, name, description, objectives, false);
@@ -23,5 +30,37 @@ public final class Quest {
         this.description = Objects.requireNonNull(description, "description");
         this.objectives = List.copyOf(Objects.requireNonNull(objectives, "objectives"));
         this.repeatable = repeatable;
+        this.objectiveIndexes = new HashMap<>();
+        this.targetAmounts = new double[this.objectives.size()];
+        for (int i = 0; i < this.objectives.size(); i++) {
+            targetAmounts[i] = this.objectives.get(i).getTargetAmount();
+            if (objectiveIndexes.putIfAbsent(this.objectives.get(i).getId(), i) != null) {
+                throw new IllegalArgumentException("Duplicate objective id in quest " + id + ": "
+                        + this.objectives.get(i).getId());
+            }
+        }
+    }
+
+    /**
+     * Returns the position of an objective in {@link #getObjectives()}, which also indexes its value in
+     * {@link QuestProgress}.
+     *
+     * @param objectiveId objective id
+     * @return the dense index, or {@code -1} if the quest has no such objective
+     * @since 1.0.8
+     */
+    public int indexOf(String objectiveId) {
+        Integer index = objectiveIndexes.get(objectiveId);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Returns the target amount of the objective at the given {@link #indexOf(String) index}, read once when the
+     * quest was created.
+     *
+     * @since 1.0.8
+     */
+    public double getTargetAmount(int index) {
+        return targetAmounts[index];
     }
 }
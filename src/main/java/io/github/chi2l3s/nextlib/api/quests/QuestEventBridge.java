@@ -0,0 +1,333 @@
+package io.github.chi2l3s.nextlib.api.quests;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.AnimalTamer;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityBreedEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.entity.EntityTameEvent;
+import org.bukkit.event.inventory.CraftItemEvent;
+import org.bukkit.event.inventory.FurnaceExtractEvent;
+import org.bukkit.event.player.PlayerFishEvent;
+import org.bukkit.event.player.PlayerItemConsumeEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Forwards the Bukkit events behind the built-in objective types to a {@link QuestManager}.
+ * <p>
+ * Only the events of objective types used by registered quests are listened to: a server whose quests only break
+ * blocks registers a single {@link BlockBreakEvent} handler. Call {@link #refresh()} after registering quests of
+ * new types. Every handler first asks {@link QuestManager#hasActiveObjective(UUID, QuestObjectiveType)} and returns
+ * before reading the event when the player has no objective of its type. Cancelled events are skipped by Bukkit
+ * itself unless {@link Builder#ignoreCancelled(boolean)} is turned off.
+ * </p>
+ * <p>
+ * With a {@link Builder#batchInterval(Duration)} set, counted events are summed per player, type and material or
+ * entity type and dispatched once per interval, so a player mining a vein costs one {@code record*} call instead of
+ * one per block. Kills are always dispatched immediately. Travel, playtime and custom objectives are fed by
+ * {@link TravelTracker}, {@link PlaytimeTicker} and your own code.
+ * </p>
+ *
+ * <p><strong>Example usage:</strong></p>
+ * <pre>{@code
+ * quests.registerQuest(miner);
+ * QuestEventBridge bridge = QuestEventBridge.builder(this, quests)
+ *     .batchInterval(Duration.ofSeconds(1))
+ *     .build();
+ *
+ * // onDisable
+ * bridge.close();
+ * }</pre>
+ *
+ * @since 1.0.8
+ */
+public final class QuestEventBridge implements Listener, AutoCloseable {
+    private final JavaPlugin plugin;
+    private final QuestManager manager;
+    private final EventPriority priority;
+    private final boolean ignoreCancelled;
+    private final boolean batching;
+    private final Set<QuestObjectiveType> listening = EnumSet.noneOf(QuestObjectiveType.class);
+    // Counted amounts per type, player and key; only touched on the main thread
+    private final Map<QuestObjectiveType, Map<UUID, Map<Object, int[]>>> pending =
+            new EnumMap<>(QuestObjectiveType.class);
+    private final BukkitTask flushTask;
+
+    private QuestEventBridge(Builder builder) {
+        this.plugin = builder.plugin;
+        this.manager = builder.manager;
+        this.priority = builder.priority;
+        this.ignoreCancelled = builder.ignoreCancelled;
+        this.batching = !builder.batchInterval.isZero();
+        refresh();
+        if (batching) {
+            Bukkit.getPluginManager().registerEvents(this, plugin);
+            long ticks = Math.max(1L, builder.batchInterval.toMillis() / 50L);
+            this.flushTask = Bukkit.getScheduler().runTaskTimer(plugin, this::flush, ticks, ticks);
+        } else {
+            this.flushTask = null;
+        }
+    }
+
+    public static Builder builder(JavaPlugin plugin, QuestManager manager) {
+        return new Builder(plugin, manager);
+    }
+
+    /**
+     * Registers the listeners of objective types used by quests registered since the bridge was built. Listeners
+     * are never removed, so dropping a quest leaves its handlers in place until {@link #close()}.
+     */
+    public void refresh() {
+        for (Quest quest : manager.getRegisteredQuests()) {
+            for (QuestObjective objective : quest.getObjectives()) {
+                if (listening.add(objective.getType())) {
+                    listen(objective.getType());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the objective types the bridge listens for.
+     */
+    public Set<QuestObjectiveType> getListenedTypes() {
+        return Collections.unmodifiableSet(listening);
+    }
+
+    /**
+     * Dispatches all batched amounts. Runs automatically every batch interval; call it on the main thread.
+     */
+    public void flush() {
+        pending.forEach((type, byPlayer) -> {
+            byPlayer.forEach((playerId, amounts) -> amounts.forEach((key, amount) ->
+                    dispatch(type, playerId, key, amount[0])));
+            byPlayer.clear();
+        });
+    }
+
+    /**
+     * Dispatches the batched amounts, unregisters all listeners and stops the flush task. Call it on the main thread
+     * from {@code onDisable}, before the quest store is closed.
+     */
+    @Override
+    public void close() {
+        HandlerList.unregisterAll(this);
+        if (flushTask != null) {
+            flushTask.cancel();
+        }
+        flush();
+    }
+
+    @EventHandler(priority = EventPriority.LOW)
+    public void onQuit(PlayerQuitEvent event) {
+        // Dispatched before QuestSessionListener unloads the player at MONITOR
+        UUID playerId = event.getPlayer().getUniqueId();
+        pending.forEach((type, byPlayer) -> {
+            Map<Object, int[]> amounts = byPlayer.remove(playerId);
+            if (amounts != null) {
+                amounts.forEach((key, amount) -> dispatch(type, playerId, key, amount[0]));
+            }
+        });
+    }
+
+    private void listen(QuestObjectiveType type) {
+        switch (type) {
+            case BREAK_BLOCK -> listen(BlockBreakEvent.class, this::onBlockBreak);
+            case PLACE_BLOCK -> listen(BlockPlaceEvent.class, this::onBlockPlace);
+            case KILL_ENTITY -> listen(EntityDeathEvent.class, this::onEntityDeath);
+            case CRAFT_ITEM -> listen(CraftItemEvent.class, this::onCraft);
+            case SMELT_ITEM -> listen(FurnaceExtractEvent.class, this::onFurnaceExtract);
+            case BREED_ENTITY -> listen(EntityBreedEvent.class, this::onBreed);
+            case TAME_ENTITY -> listen(EntityTameEvent.class, this::onTame);
+            case FISH -> listen(PlayerFishEvent.class, this::onFish);
+            case CONSUME_ITEM -> listen(PlayerItemConsumeEvent.class, this::onConsume);
+            default -> {
+                // Travel, playtime and custom objectives have no single Bukkit event
+            }
+        }
+    }
+
+    private <E extends Event> void listen(Class<E> eventClass, Consumer<E> handler) {
+        Bukkit.getPluginManager().registerEvent(eventClass, this, priority, (listener, event) -> {
+            // Bukkit also passes subclasses of the registered event
+            if (eventClass.isInstance(event)) {
+                handler.accept(eventClass.cast(event));
+            }
+        }, plugin, ignoreCancelled);
+    }
+
+    private void onBlockBreak(BlockBreakEvent event) {
+        UUID playerId = event.getPlayer().getUniqueId();
+        if (manager.hasActiveObjective(playerId, QuestObjectiveType.BREAK_BLOCK)) {
+            count(QuestObjectiveType.BREAK_BLOCK, playerId, event.getBlock().getType(), 1);
+        }
+    }
+
+    private void onBlockPlace(BlockPlaceEvent event) {
+        UUID playerId = event.getPlayer().getUniqueId();
+        if (manager.hasActiveObjective(playerId, QuestObjectiveType.PLACE_BLOCK)) {
+            count(QuestObjectiveType.PLACE_BLOCK, playerId, event.getBlockPlaced().getType(), 1);
+        }
+    }
+
+    private void onEntityDeath(EntityDeathEvent event) {
+        LivingEntity entity = event.getEntity();
+        Player killer = entity.getKiller();
+        if (killer != null && manager.hasActiveObjective(killer.getUniqueId(), QuestObjectiveType.KILL_ENTITY)) {
+            manager.recordKill(killer.getUniqueId(), event.getEntityType(), entity instanceof Player);
+        }
+    }
+
+    private void onCraft(CraftItemEvent event) {
+        HumanEntity crafter = event.getWhoClicked();
+        if (crafter instanceof Player
+                && manager.hasActiveObjective(crafter.getUniqueId(), QuestObjectiveType.CRAFT_ITEM)) {
+            ItemStack result = event.getRecipe().getResult();
+            count(QuestObjectiveType.CRAFT_ITEM, crafter.getUniqueId(), result.getType(), result.getAmount());
+        }
+    }
+
+    private void onFurnaceExtract(FurnaceExtractEvent event) {
+        UUID playerId = event.getPlayer().getUniqueId();
+        if (manager.hasActiveObjective(playerId, QuestObjectiveType.SMELT_ITEM)) {
+            count(QuestObjectiveType.SMELT_ITEM, playerId, event.getItemType(), event.getItemAmount());
+        }
+    }
+
+    private void onBreed(EntityBreedEvent event) {
+        LivingEntity breeder = event.getBreeder();
+        if (breeder instanceof Player
+                && manager.hasActiveObjective(breeder.getUniqueId(), QuestObjectiveType.BREED_ENTITY)) {
+            count(QuestObjectiveType.BREED_ENTITY, breeder.getUniqueId(), event.getEntityType(), 1);
+        }
+    }
+
+    private void onTame(EntityTameEvent event) {
+        AnimalTamer owner = event.getOwner();
+        if (owner instanceof Player
+                && manager.hasActiveObjective(owner.getUniqueId(), QuestObjectiveType.TAME_ENTITY)) {
+            count(QuestObjectiveType.TAME_ENTITY, owner.getUniqueId(), event.getEntityType(), 1);
+        }
+    }
+
+    private void onFish(PlayerFishEvent event) {
+        UUID playerId = event.getPlayer().getUniqueId();
+        if (event.getState() != PlayerFishEvent.State.CAUGHT_FISH
+                || !manager.hasActiveObjective(playerId, QuestObjectiveType.FISH)) {
+            return;
+        }
+        Entity caught = event.getCaught();
+        if (caught instanceof Item) {
+            ItemStack catchStack = ((Item) caught).getItemStack();
+            count(QuestObjectiveType.FISH, playerId, catchStack.getType(), catchStack.getAmount());
+        }
+    }
+
+    private void onConsume(PlayerItemConsumeEvent event) {
+        UUID playerId = event.getPlayer().getUniqueId();
+        if (manager.hasActiveObjective(playerId, QuestObjectiveType.CONSUME_ITEM)) {
+            count(QuestObjectiveType.CONSUME_ITEM, playerId, event.getItem().getType(), 1);
+        }
+    }
+
+    private void count(QuestObjectiveType type, UUID playerId, Object key, int amount) {
+        if (!batching) {
+            dispatch(type, playerId, key, amount);
+            return;
+        }
+        pending.computeIfAbsent(type, ignored -> new HashMap<>())
+                .computeIfAbsent(playerId, ignored -> new HashMap<>())
+                .computeIfAbsent(key, ignored -> new int[1])[0] += amount;
+    }
+
+    private void dispatch(QuestObjectiveType type, UUID playerId, Object key, int amount) {
+        switch (type) {
+            case BREAK_BLOCK -> manager.recordBlockBreak(playerId, (Material) key, amount);
+            case PLACE_BLOCK -> manager.recordBlockPlace(playerId, (Material) key, amount);
+            case CRAFT_ITEM -> manager.recordCraft(playerId, (Material) key, amount);
+            case SMELT_ITEM -> manager.recordSmelt(playerId, (Material) key, amount);
+            case BREED_ENTITY -> manager.recordBreed(playerId, (EntityType) key, amount);
+            case TAME_ENTITY -> manager.recordTame(playerId, (EntityType) key, amount);
+            case FISH -> manager.recordFish(playerId, (Material) key, amount);
+            case CONSUME_ITEM -> manager.recordConsume(playerId, (Material) key, amount);
+            default -> throw new IllegalStateException("Objective type " + type + " is not counted");
+        }
+    }
+
+    public static final class Builder {
+        private final JavaPlugin plugin;
+        private final QuestManager manager;
+        private EventPriority priority = EventPriority.MONITOR;
+        private boolean ignoreCancelled = true;
+        private Duration batchInterval = Duration.ZERO;
+
+        private Builder(JavaPlugin plugin, QuestManager manager) {
+            this.plugin = Objects.requireNonNull(plugin, "plugin");
+            this.manager = Objects.requireNonNull(manager, "manager");
+        }
+
+        /**
+         * Sets the priority of the bridge's event handlers. Defaults to {@link EventPriority#MONITOR}, so other
+         * plugins have cancelled the event before the bridge sees it.
+         */
+        public Builder priority(EventPriority priority) {
+            this.priority = Objects.requireNonNull(priority, "priority");
+            return this;
+        }
+
+        /**
+         * Sets whether cancelled events are skipped. Defaults to {@code true}.
+         */
+        public Builder ignoreCancelled(boolean ignoreCancelled) {
+            this.ignoreCancelled = ignoreCancelled;
+            return this;
+        }
+
+        /**
+         * Sets how long counted events are summed before they are dispatched. Defaults to {@link Duration#ZERO},
+         * which dispatches every event immediately.
+         */
+        public Builder batchInterval(Duration batchInterval) {
+            Objects.requireNonNull(batchInterval, "batchInterval");
+            if (batchInterval.isNegative()) {
+                throw new IllegalArgumentException("batchInterval must not be negative");
+            }
+            this.batchInterval = batchInterval;
+            return this;
+        }
+
+        /**
+         * Creates the bridge and registers the listeners for the objective types of the registered quests.
+         */
+        public QuestEventBridge build() {
+            return new QuestEventBridge(this);
+        }
+    }
+}
@@ -3,22 +3,41 @@ package io.github.chi2l3s.nextlib.api.quests;
 import org.bukkit.Material;
 import org.bukkit.entity.EntityType;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Function;
+import java.util.concurrent.TimeUnit;
 
 public class QuestManager {
+    private static final long PREFETCH_TTL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(10);
+    private static final QuestObjectiveType[] OBJECTIVE_TYPES = QuestObjectiveType.values();
+
     private final QuestStore store;
     private final Map<String, Quest> quests = new ConcurrentHashMap<>();
+    private final Map<Quest, ObjectiveIndex<QuestObjective>> questIndexes = new ConcurrentHashMap<>();
     private final Map<UUID, Map<String, QuestProgress>> progressByPlayer = new ConcurrentHashMap<>();
+    private final Map<UUID, ObjectiveIndex<ObjectiveIndex.Target>> playerIndexes = new ConcurrentHashMap<>();
+    private final Map<QuestObjectiveType, Set<UUID>> playersByType = new EnumMap<>(QuestObjectiveType.class);
+    private final Map<UUID, Prefetched> prefetched = new ConcurrentHashMap<>();
+    private final Map<UUID, Session> sessions = new ConcurrentHashMap<>();
+    private volatile long idleTimeoutNanos = DEFAULT_IDLE_TIMEOUT.toNanos();
 
     public QuestManager(QuestStore store) {
         this.store = Objects.requireNonNull(store, "store");
+        for (QuestObjectiveType type : OBJECTIVE_TYPES) {
+            playersByType.put(type, ConcurrentHashMap.newKeySet());
+        }
     }
 
     public Quest registerQuest(Quest quest) {
         Objects.requireNonNull(quest, "quest");
-        quests.put(quest.getId(), quest);
+        questIndexes.put(quest, ObjectiveIndex.of(quest));
+        Quest previous = quests.put(quest.getId(), quest);
+        if (previous != null && previous != quest) {
+            questIndexes.remove(previous);
+        }
         return quest;
     }
 
@@ -35,8 +54,13 @@ public class QuestManager {
                 .orElseThrow(() -> new IllegalArgumentException("Unknown quest id: " + questId));
         QuestProgress progress = store.loadProgress(playerId, quest)
                 .orElseGet(() -> new QuestProgress(quest, playerId));
-        progressByPlayer.computeIfAbsent(playerId, ignored -> new ConcurrentHashMap<>())
-                .put(questId, progress);
+        sessions.compute(playerId, (id, existing) -> {
+            Session session = existing != null ? existing : new Session();
+            session.touch();
+            progressByPlayer.computeIfAbsent(id, ignored -> new ConcurrentHashMap<>()).put(questId, progress);
+            reindex(id);
+            return session;
+        });
         return progress;
     }
 
@@ -54,35 +78,210 @@ public class QuestManager {
             map.remove(questId);
             if (map.isEmpty()) {
                 progressByPlayer.remove(playerId);
+                sessions.computeIfPresent(playerId, (id, session) -> session.online ? session : null);
             }
+            reindex(playerId);
         }
     }
 
+    /**
+     * Activates the stored quests of a player who joined and keeps them resident until
+     * {@link #unloadPlayer(UUID)}. Uses the result of an earlier {@link #prefetchPlayers(Collection)} if there is
+     * one, so a restore on join needs no query. Quests that are still resident, e.g. after a quick rejoin, keep their
+     * in-memory progress.
+     */
     public Collection<QuestProgress> restorePlayer(UUID playerId) {
-        Map<String, QuestProgress> map = progressByPlayer.computeIfAbsent(playerId, ignored -> new ConcurrentHashMap<>());
-        store.loadAll(playerId, this::getQuest)
-                .forEach(progress -> map.put(progress.getQuest().getId(), progress));
-        return Collections.unmodifiableCollection(map.values());
+        Prefetched hit = prefetched.remove(playerId);
+        List<QuestProgress> loaded = hit != null && System.nanoTime() - hit.loadedAt() <= PREFETCH_TTL_NANOS
+                ? hit.progress() : store.loadAll(playerId, this::getQuest);
+        return install(playerId, loaded);
+    }
+
+    /**
+     * Activates the stored quests of several online players with one bulk read, e.g. for everyone online after a
+     * reload.
+     *
+     * @since 1.0.8
+     */
+    public void restorePlayers(Collection<UUID> playerIds) {
+        store.loadAll(playerIds, this::getQuest).forEach(this::install);
+    }
+
+    /**
+     * Loads the stored progress of several players with one bulk read and keeps it for their next
+     * {@link #restorePlayer(UUID)}. Results not claimed within a minute are dropped. The read runs on the calling
+     * thread, so call it off the main thread, for example through {@link QuestPrefetcher}.
+     *
+     * @since 1.0.8
+     */
+    public void prefetchPlayers(Collection<UUID> playerIds) {
+        Map<UUID, List<QuestProgress>> loaded = store.loadAll(playerIds, this::getQuest);
+        long now = System.nanoTime();
+        prefetched.values().removeIf(entry -> now - entry.loadedAt() > PREFETCH_TTL_NANOS);
+        loaded.forEach((playerId, progress) -> prefetched.put(playerId, new Prefetched(progress, now)));
+    }
+
+    /**
+     * Marks a player offline, writes their pending progress through {@link QuestStore#flush(UUID)} and then drops
+     * their state from memory, unless they joined again in the meantime.
+     *
+     * @return future completed once the player is unloaded or kept because they rejoined
+     * @since 1.0.8
+     */
+    public CompletableFuture<Void> unloadPlayer(UUID playerId) {
+        Objects.requireNonNull(playerId, "playerId");
+        prefetched.remove(playerId);
+        Session session = sessions.get(playerId);
+        if (session == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        session.online = false;
+        return evict(playerId, session);
+    }
+
+    /**
+     * Sets how long an offline player's progress stays in memory after it was last touched, e.g. by an
+     * {@link #activateQuest(UUID, String)} or an event forwarded from another server. Defaults to 10 minutes.
+     *
+     * @since 1.0.8
+     */
+    public void setIdleTimeout(Duration idleTimeout) {
+        Objects.requireNonNull(idleTimeout, "idleTimeout");
+        if (idleTimeout.isNegative()) {
+            throw new IllegalArgumentException("idleTimeout must not be negative");
+        }
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+    }
+
+    /**
+     * Flushes and unloads offline players idle for longer than the idle timeout. Call it periodically off the main
+     * thread; {@link QuestSessionListener} does so every minute.
+     *
+     * @return number of players being unloaded
+     * @since 1.0.8
+     */
+    public int evictIdlePlayers() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Map.Entry<UUID, Session> entry : sessions.entrySet()) {
+            Session session = entry.getValue();
+            if (!session.online && now - session.lastAccess > idleTimeoutNanos) {
+                evict(entry.getKey(), session);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Returns the number of players whose quest state is held in memory, online or not.
+     *
+     * @since 1.0.8
+     */
+    public int getResidentPlayerCount() {
+        return progressByPlayer.size();
+    }
+
+    /**
+     * Returns the number of {@link QuestProgress} objects held in memory.
+     *
+     * @since 1.0.8
+     */
+    public int getResidentProgressCount() {
+        int count = 0;
+        for (Map<String, QuestProgress> map : progressByPlayer.values()) {
+            count += map.size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns whether the player has an active quest with an objective of the given type. The check is one map
+     * lookup and allocates nothing, so event listeners can use it to drop irrelevant events early.
+     *
+     * @since 1.0.8
+     */
+    public boolean hasActiveObjective(UUID playerId, QuestObjectiveType type) {
+        ObjectiveIndex<ObjectiveIndex.Target> index = playerIndexes.get(playerId);
+        return index != null && index.contains(type);
+    }
+
+    /**
+     * Returns a live read-only view of the resident players, online or not, with an active objective of the given
+     * type.
+     *
+     * @since 1.0.8
+     */
+    public Set<UUID> getPlayersWithObjective(QuestObjectiveType type) {
+        return Collections.unmodifiableSet(playersByType.get(Objects.requireNonNull(type, "type")));
+    }
+
+    /**
+     * Installs loaded progress and marks the player online. Runs inside {@code sessions.compute}, like the removal
+     * in {@link #evict(UUID, Session)}, so an eviction can never drop progress installed concurrently.
+     */
+    private Collection<QuestProgress> install(UUID playerId, List<QuestProgress> loaded) {
+        List<Map<String, QuestProgress>> installed = new ArrayList<>(1);
+        sessions.compute(playerId, (id, existing) -> {
+            Session session = existing != null ? existing : new Session();
+            session.online = true;
+            session.touch();
+            Map<String, QuestProgress> map = progressByPlayer.computeIfAbsent(id, ignored -> new ConcurrentHashMap<>());
+            // Resident progress is never older than the stored one
+            loaded.forEach(progress -> map.putIfAbsent(progress.getQuest().getId(), progress));
+            reindex(id);
+            installed.add(map);
+            return session;
+        });
+        return Collections.unmodifiableCollection(installed.get(0).values());
+    }
+
+    private CompletableFuture<Void> evict(UUID playerId, Session session) {
+        long touchedAt = session.lastAccess;
+        return store.flush(playerId).thenRun(() -> sessions.computeIfPresent(playerId, (id, current) -> {
+            // A rejoin or a change after the flush started keeps the player resident
+            if (current != session || current.online || current.lastAccess != touchedAt) {
+                return current;
+            }
+            progressByPlayer.remove(id);
+            playerIndexes.compute(id, (key, ignored) -> indexed(key, null));
+            return null;
+        }));
     }
 
     public void recordKill(UUID playerId, EntityType entityType, boolean playerKill) {
-        applyUpdate(playerId, progress -> progress.applyKill(entityType, playerKill));
+        List<ObjectiveIndex.Target> targets = candidates(playerId, QuestObjectiveType.KILL_ENTITY, entityType);
+        if (!targets.isEmpty()) {
+            apply(targets, QuestObjectiveType.KILL_ENTITY, entityType, Boolean.valueOf(playerKill), 1.0);
+        }
     }
 
     public void recordTravel(UUID playerId, double meters) {
-        applyUpdate(playerId, progress -> progress.applyTravel(meters));
+        List<ObjectiveIndex.Target> targets = candidates(playerId, QuestObjectiveType.TRAVEL_DISTANCE, null);
+        if (meters >= 0 && !targets.isEmpty()) {
+            apply(targets, QuestObjectiveType.TRAVEL_DISTANCE, null, null, meters);
+        }
     }
 
     public void recordCraft(UUID playerId, Material material, int amount) {
-        applyUpdate(playerId, progress -> progress.applyCraft(material, amount));
+        List<ObjectiveIndex.Target> targets = candidates(playerId, QuestObjectiveType.CRAFT_ITEM, material);
+        if (amount > 0 && !targets.isEmpty()) {
+            apply(targets, QuestObjectiveType.CRAFT_ITEM, material, null, amount);
+        }
     }
 
     public void recordPlaytime(UUID playerId, double minutes) {
-        applyUpdate(playerId, progress -> progress.applyPlaytime(minutes));
+        List<ObjectiveIndex.Target> targets = candidates(playerId, QuestObjectiveType.PLAY_TIME, null);
+        if (minutes > 0 && !targets.isEmpty()) {
+            apply(targets, QuestObjectiveType.PLAY_TIME, null, null, minutes);
+        }
     }
 
     public void recordBlockBreak(UUID playerId, Material blockType, int amount) {
-        applyUpdate(playerId, progress -> progress.applyBlockBreak(blockType, amount));
+        List<ObjectiveIndex.Target> targets = candidates(playerId, QuestObjectiveType.BREAK_BLOCK, blockType);
+        if (amount > 0 && !targets.isEmpty()) {
+            apply(targets, QuestObjectiveType.BREAK_BLOCK, blockType, null, amount);
+        }
     }
 
     public void recordBlockBreak(UUID playerId, Material blockType) {
@@ -90,7 +289,10 @@ public class QuestManager {
     }
 
     public void recordBlockPlace(UUID playerId, Material blockType, int amount) {
-        applyUpdate(playerId, progress -> progress.applyBlockPlace(blockType, amount));
+        List<ObjectiveIndex.Target> targets = candidates(playerId, QuestObjectiveType.PLACE_BLOCK, blockType);
+        if (amount > 0 && !targets.isEmpty()) {
+            apply(targets, QuestObjectiveType.PLACE_BLOCK, blockType, null, amount);
+        }
     }
 
     public void recordBlockPlace(UUID playerId, Material blockType) {
@@ -98,7 +300,10 @@ public class QuestManager {
     }
 
     public void recordSmelt(UUID playerId, Material resultType, int amount) {
-        applyUpdate(playerId, progress -> progress.applySmelt(resultType, amount));
+        List<ObjectiveIndex.Target> targets = candidates(playerId, QuestObjectiveType.SMELT_ITEM, resultType);
+        if (amount > 0 && !targets.isEmpty()) {
+            apply(targets, QuestObjectiveType.SMELT_ITEM, resultType, null, amount);
+        }
     }
 
     public void recordSmelt(UUID playerId, Material resultType) {
@@ -106,7 +311,10 @@ public class QuestManager {
     }
 
     public void recordBreed(UUID playerId, EntityType entityType, int amount) {
-        applyUpdate(playerId, progress -> progress.applyBreed(entityType, amount));
+        List<ObjectiveIndex.Target> targets = candidates(playerId, QuestObjectiveType.BREED_ENTITY, entityType);
+        if (amount > 0 && !targets.isEmpty()) {
+            apply(targets, QuestObjectiveType.BREED_ENTITY, entityType, null, amount);
+        }
     }
 
     public void recordBreed(UUID playerId, EntityType entityType) {
@@ -114,7 +322,10 @@ public class QuestManager {
     }
 
     public void recordTame(UUID playerId, EntityType entityType, int amount) {
-        applyUpdate(playerId, progress -> progress.applyTame(entityType, amount));
+        List<ObjectiveIndex.Target> targets = candidates(playerId, QuestObjectiveType.TAME_ENTITY, entityType);
+        if (amount > 0 && !targets.isEmpty()) {
+            apply(targets, QuestObjectiveType.TAME_ENTITY, entityType, null, amount);
+        }
     }
 
     public void recordTame(UUID playerId, EntityType entityType) {
@@ -122,7 +333,10 @@ public class QuestManager {
     }
 
     public void recordFish(UUID playerId, Material caughtType, int amount) {
-        applyUpdate(playerId, progress -> progress.applyFish(caughtType, amount));
+        List<ObjectiveIndex.Target> targets = candidates(playerId, QuestObjectiveType.FISH, caughtType);
+        if (amount > 0 && !targets.isEmpty()) {
+            apply(targets, QuestObjectiveType.FISH, caughtType, null, amount);
+        }
     }
 
     public void recordFish(UUID playerId, Material caughtType) {
@@ -130,7 +344,10 @@ public class QuestManager {
     }
 
     public void recordConsume(UUID playerId, Material material, int amount) {
-        applyUpdate(playerId, progress -> progress.applyConsume(material, amount));
+        List<ObjectiveIndex.Target> targets = candidates(playerId, QuestObjectiveType.CONSUME_ITEM, material);
+        if (amount > 0 && !targets.isEmpty()) {
+            apply(targets, QuestObjectiveType.CONSUME_ITEM, material, null, amount);
+        }
     }
 
     public void recordConsume(UUID playerId, Material material) {
@@ -143,23 +360,100 @@ public class QuestManager {
      */
     public void recordCustom(UUID playerId, String eventType, double amount, Object payload) {
         Objects.requireNonNull(eventType, "eventType");
-        applyUpdate(playerId, progress -> progress.applyCustom(eventType, amount, payload));
+        List<ObjectiveIndex.Target> targets = candidates(playerId, QuestObjectiveType.CUSTOM, eventType);
+        if (amount > 0 && !targets.isEmpty()) {
+            apply(targets, QuestObjectiveType.CUSTOM, eventType, payload, amount);
+        }
     }
 
     public void recordCustom(UUID playerId, String eventType) {
         recordCustom(playerId, eventType, 1.0, null);
     }
 
-    private void applyUpdate(UUID playerId, Function<QuestProgress, Boolean> updater) {
-        Map<String, QuestProgress> progressMap = progressByPlayer.get(playerId);
-        if (progressMap == null || progressMap.isEmpty()) {
-            return;
+    /**
+     * Rebuilds the dispatch index of a player from their current active quests.
+     */
+    private void reindex(UUID playerId) {
+        playerIndexes.compute(playerId, (id, ignored) -> {
+            Map<String, QuestProgress> progressMap = progressByPlayer.get(id);
+            return indexed(id, progressMap == null || progressMap.isEmpty()
+                    ? null : ObjectiveIndex.of(progressMap.values(), this::indexOf));
+        });
+    }
+
+    /**
+     * Mirrors a player's new index into the per-type player sets. Runs inside {@code playerIndexes.compute}, so
+     * updates for one player never interleave.
+     */
+    private ObjectiveIndex<ObjectiveIndex.Target> indexed(UUID playerId, ObjectiveIndex<ObjectiveIndex.Target> index) {
+        for (QuestObjectiveType type : OBJECTIVE_TYPES) {
+            if (index != null && index.contains(type)) {
+                playersByType.get(type).add(playerId);
+            } else {
+                playersByType.get(type).remove(playerId);
+            }
         }
-        for (QuestProgress progress : progressMap.values()) {
-            boolean changed = Boolean.TRUE.equals(updater.apply(progress));
-            if (changed) {
-                store.saveProgress(progress);
+        return index;
+    }
+
+    private ObjectiveIndex<QuestObjective> indexOf(Quest quest) {
+        // Progress may outlive a quest replaced by registerQuest, so unknown quests are indexed on demand
+        ObjectiveIndex<QuestObjective> index = questIndexes.get(quest);
+        return index != null ? index : ObjectiveIndex.of(quest);
+    }
+
+    private List<ObjectiveIndex.Target> candidates(UUID playerId, QuestObjectiveType type, Object key) {
+        ObjectiveIndex<ObjectiveIndex.Target> index = playerIndexes.get(playerId);
+        if (index == null) {
+            return List.of();
+        }
+        List<ObjectiveIndex.Target> targets = index.candidates(type, key);
+        if (!targets.isEmpty()) {
+            Session session = sessions.get(playerId);
+            if (session != null) {
+                session.touch();
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Advances the targets matching an event. The event is passed as plain arguments rather than a matcher lambda,
+     * so recording an event allocates nothing.
+     *
+     * @param key    material, entity type or custom event type of the event
+     * @param detail whether a kill was a player kill, or the payload of a custom event
+     */
+    private void apply(List<ObjectiveIndex.Target> targets, QuestObjectiveType type, Object key, Object detail,
+                       double amount) {
+        // Targets of one progress are adjacent, so each changed progress is saved once
+        QuestProgress changed = null;
+        for (int i = 0; i < targets.size(); i++) {
+            ObjectiveIndex.Target target = targets.get(i);
+            if (!QuestProgress.matches(target.objective, type, key, detail) || !target.progress.increment(target.index, amount)) {
+                continue;
             }
+            if (changed != target.progress) {
+                if (changed != null) {
+                    store.saveProgress(changed);
+                }
+                changed = target.progress;
+            }
+        }
+        if (changed != null) {
+            store.saveProgress(changed);
+        }
+    }
+
+    private record Prefetched(List<QuestProgress> progress, long loadedAt) {
+    }
+
+    private static final class Session {
+        private volatile boolean online;
+        private volatile long lastAccess = System.nanoTime();
+
+        private void touch() {
+            lastAccess = System.nanoTime();
         }
     }
 }
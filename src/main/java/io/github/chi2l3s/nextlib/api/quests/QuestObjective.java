@@ -3,6 +3,9 @@ package io.github.chi2l3s.nextlib.api.quests;
 import org.bukkit.Material;
 import org.bukkit.entity.EntityType;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface QuestObjective {
     String getId();
 
@@ -12,6 +15,20 @@ public interface QuestObjective {
 
     double getTargetAmount();
 
+    /**
+     * Returns the materials, entity types or other event keys this objective can progress from.
+     * <p>
+     * {@link QuestManager} indexes objectives by {@link #getType()} and these keys, so an event only reaches the
+     * objectives of its type that list its key or return an empty collection, which stands for any key. The matching
+     * {@code matches*} method still decides for every candidate.
+     * </p>
+     *
+     * @since 1.0.8
+     */
+    default Collection<?> getDispatchKeys() {
+        return List.of();
+    }
+
     /**
      * Returns {@code true} if the objective should progress from a kill event.
      */
@@ -0,0 +1,211 @@
+package io.github.chi2l3s.nextlib.api.quests;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+
+/**
+ * Loads quest progress while players log in, so restoring it on join is an in-memory lookup.
+ * <p>
+ * Every allowed {@link AsyncPlayerPreLoginEvent} queues the player and waits for the load on its own login
+ * thread. One background thread collects the logins that arrive within {@link Builder#batchWindow(Duration)}
+ * and loads them with a single {@link QuestManager#prefetchPlayers(java.util.Collection)} call, so a login storm
+ * after a restart costs a few bulk queries instead of one query per player. A login is never refused: if the
+ * load fails or takes longer than {@link Builder#timeout(Duration)}, {@link QuestManager#restorePlayer(UUID)}
+ * reads the player on join as before.
+ * </p>
+ *
+ * <p><strong>Example usage:</strong></p>
+ * <pre>{@code
+ * QuestPrefetcher prefetcher = QuestPrefetcher.builder(this, quests).build();
+ *
+ * // PlayerJoinEvent
+ * quests.restorePlayer(player.getUniqueId());
+ *
+ * // onDisable
+ * prefetcher.close();
+ * }</pre>
+ *
+ * @since 1.0.8
+ */
+public final class QuestPrefetcher implements Listener, AutoCloseable {
+    private final JavaPlugin plugin;
+    private final QuestManager manager;
+    private final long batchWindowNanos;
+    private final int batchSize;
+    private final long timeoutNanos;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService loader;
+    private volatile boolean closed;
+
+    private QuestPrefetcher(Builder builder) {
+        this.plugin = builder.plugin;
+        this.manager = builder.manager;
+        this.batchWindowNanos = builder.batchWindow.toNanos();
+        this.batchSize = builder.batchSize;
+        this.timeoutNanos = builder.timeout.toNanos();
+        this.loader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nextlib-quest-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loader.execute(this::run);
+        Bukkit.getPluginManager().registerEvents(this, plugin);
+    }
+
+    public static Builder builder(JavaPlugin plugin, QuestManager manager) {
+        return new Builder(plugin, manager);
+    }
+
+    /**
+     * Unregisters the listener and stops the background thread. Logins still waiting fall back to loading on join.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        HandlerList.unregisterAll(this);
+        loader.shutdownNow();
+        for (Request request; (request = queue.poll()) != null; ) {
+            request.done.cancel(false);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (closed || event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        Request request = new Request(event.getUniqueId());
+        queue.add(request);
+        if (closed) {
+            // close() may have drained the queue before this request was added
+            queue.remove(request);
+            return;
+        }
+        try {
+            request.done.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException exception) {
+            plugin.getLogger().warning("Quest progress of " + event.getUniqueId()
+                    + " was not prefetched in time, it will be loaded on join");
+        } catch (Exception exception) {
+            // Already logged by the loader; the player is loaded on join instead
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            List<Request> batch = new ArrayList<>();
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + batchWindowNanos;
+                while (batch.size() < batchSize) {
+                    Request next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException exception) {
+                batch.forEach(request -> request.done.cancel(false));
+                return;
+            }
+            load(batch);
+        }
+    }
+
+    private void load(List<Request> batch) {
+        List<UUID> playerIds = new ArrayList<>(batch.size());
+        batch.forEach(request -> playerIds.add(request.playerId));
+        try {
+            manager.prefetchPlayers(playerIds);
+            batch.forEach(request -> request.done.complete(null));
+        } catch (RuntimeException exception) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to prefetch quest progress of " + batch.size()
+                    + " players", exception);
+            batch.forEach(request -> request.done.completeExceptionally(exception));
+        }
+    }
+
+    private static final class Request {
+        private final UUID playerId;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Request(UUID playerId) {
+            this.playerId = playerId;
+        }
+    }
+
+    public static final class Builder {
+        private final JavaPlugin plugin;
+        private final QuestManager manager;
+        private Duration batchWindow = Duration.ofMillis(50);
+        private Duration timeout = Duration.ofSeconds(5);
+        private int batchSize = 500;
+
+        private Builder(JavaPlugin plugin, QuestManager manager) {
+            this.plugin = Objects.requireNonNull(plugin, "plugin");
+            this.manager = Objects.requireNonNull(manager, "manager");
+        }
+
+        /**
+         * Sets how long the loader waits for more logins before it runs a batch. Defaults to 50 milliseconds.
+         */
+        public Builder batchWindow(Duration batchWindow) {
+            Objects.requireNonNull(batchWindow, "batchWindow");
+            if (batchWindow.isNegative()) {
+                throw new IllegalArgumentException("batchWindow must not be negative");
+            }
+            this.batchWindow = batchWindow;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of players loaded by one batch. Defaults to 500.
+         */
+        public Builder batchSize(int batchSize) {
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("batchSize must be positive");
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets how long a login waits for its prefetch before it continues without it. Defaults to 5 seconds.
+         */
+        public Builder timeout(Duration timeout) {
+            this.timeout = Objects.requireNonNull(timeout, "timeout");
+            return this;
+        }
+
+        /**
+         * Creates the prefetcher, registers its listener and starts the loader thread.
+         */
+        public QuestPrefetcher build() {
+            return new QuestPrefetcher(this);
+        }
+    }
+}
@@ -5,33 +5,70 @@ import org.bukkit.Material;
 import org.bukkit.entity.EntityType;
 
 import java.util.*;
-import java.util.function.Predicate;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Progress of one player in one quest.
+ * <p>
+ * Values are kept in a {@code double[]} indexed by {@link Quest#indexOf(String)}, next to a bitset of the
+ * objectives changed since the store last took them, so an increment neither hashes nor boxes. Updates and
+ * snapshots synchronize on the instance, so a background writer always reads a consistent state. Objectives
+ * without a stored value start out changed, so the first save of new progress writes every objective.
+ * </p>
+ */
 public class QuestProgress {
     @Getter
     private final Quest quest;
     @Getter
     private final UUID playerId;
-    private final Map<String, Double> progress;
+    private final double[] values;
+    private final long[] changed;
+    private final AtomicBoolean dirty = new AtomicBoolean();
 
     public QuestProgress(Quest quest, UUID playerId) {
-        this(quest, playerId, new HashMap<>());
+        this(quest, playerId, Map.of());
     }
 
     QuestProgress(Quest quest, UUID playerId, Map<String, Double> storedProgress) {
         this.quest = Objects.requireNonNull(quest, "quest");
         this.playerId = Objects.requireNonNull(playerId, "playerId");
-        this.progress = new HashMap<>();
-        quest.getObjectives().forEach(objective ->
-                this.progress.put(objective.getId(), storedProgress.getOrDefault(objective.getId(), 0.0)));
+        List<QuestObjective> objectives = quest.getObjectives();
+        this.values = new double[objectives.size()];
+        this.changed = new long[(objectives.size() + 63) >>> 6];
+        for (int i = 0; i < values.length; i++) {
+            Double stored = storedProgress.get(objectives.get(i).getId());
+            if (stored == null) {
+                changed[i >>> 6] |= 1L << i;
+            } else {
+                values[i] = stored;
+            }
+        }
     }
 
     public double getProgress(String objectiveId) {
-        return progress.getOrDefault(objectiveId, 0.0);
+        int index = quest.indexOf(objectiveId);
+        return index < 0 ? 0.0 : getProgress(index);
     }
 
-    public Map<String, Double> getAllProgress() {
-        return Collections.unmodifiableMap(progress);
+    /**
+     * Returns the progress of the objective at the given {@link Quest#indexOf(String) index}.
+     *
+     * @since 1.0.8
+     */
+    public synchronized double getProgress(int index) {
+        return values[index];
+    }
+
+    /**
+     * Returns a snapshot of all objectives' progress keyed by objective id, in objective order.
+     */
+    public synchronized Map<String, Double> getAllProgress() {
+        List<QuestObjective> objectives = quest.getObjectives();
+        Map<String, Double> snapshot = new LinkedHashMap<>(objectives.size() * 2);
+        for (int i = 0; i < values.length; i++) {
+            snapshot.put(objectives.get(i).getId(), values[i]);
+        }
+        return Collections.unmodifiableMap(snapshot);
     }
 
     public boolean isObjectiveComplete(QuestObjective objective) {
@@ -45,102 +82,177 @@ public class QuestProgress {
         return true;
     }
 
+    /**
+     * Marks this progress as waiting for a write.
+     *
+     * @return {@code true} if it was clean before, i.e. it is not queued yet
+     */
+    boolean markDirty() {
+        return dirty.compareAndSet(false, true);
+    }
+
+    /**
+     * Clears the dirty flag right before the progress is written, so changes made during the write mark it again.
+     */
+    void clearDirty() {
+        dirty.set(false);
+    }
+
+    boolean isDirty() {
+        return dirty.get();
+    }
+
     public boolean applyKill(EntityType entityType, boolean playerKill) {
-        return applyIncrement(objective -> objective.matchesKill(entityType, playerKill), 1.0);
+        return applyIncrement(QuestObjectiveType.KILL_ENTITY, entityType, Boolean.valueOf(playerKill), 1.0);
     }
 
     public boolean applyTravel(double meters) {
         if (meters < 0) return false;
-        return applyIncrement(QuestObjective::matchesTravel, meters);
+        return applyIncrement(QuestObjectiveType.TRAVEL_DISTANCE, null, null, meters);
     }
 
     public boolean applyCraft(Material material, int amount) {
         if (amount <= 0) {
             return false;
         }
-        return applyIncrement(objective -> objective.matchesCraft(material), amount);
+        return applyIncrement(QuestObjectiveType.CRAFT_ITEM, material, null, amount);
     }
 
     public boolean applyPlaytime(double minutes) {
         if (minutes <= 0) {
             return false;
         }
-        return applyIncrement(QuestObjective::matchesPlaytime, minutes);
+        return applyIncrement(QuestObjectiveType.PLAY_TIME, null, null, minutes);
     }
 
     public boolean applyBlockBreak(Material blockType, int amount) {
         if (amount <= 0) {
             return false;
         }
-        return applyIncrement(objective -> objective.matchesBlockBreak(blockType), amount);
+        return applyIncrement(QuestObjectiveType.BREAK_BLOCK, blockType, null, amount);
     }
 
     public boolean applyBlockPlace(Material blockType, int amount) {
         if (amount <= 0) {
             return false;
         }
-        return applyIncrement(objective -> objective.matchesBlockPlace(blockType), amount);
+        return applyIncrement(QuestObjectiveType.PLACE_BLOCK, blockType, null, amount);
     }
 
     public boolean applySmelt(Material resultType, int amount) {
         if (amount <= 0) {
             return false;
         }
-        return applyIncrement(objective -> objective.matchesSmelt(resultType), amount);
+        return applyIncrement(QuestObjectiveType.SMELT_ITEM, resultType, null, amount);
     }
 
     public boolean applyBreed(EntityType entityType, int amount) {
         if (amount <= 0) {
             return false;
         }
-        return applyIncrement(objective -> objective.matchesBreed(entityType), amount);
+        return applyIncrement(QuestObjectiveType.BREED_ENTITY, entityType, null, amount);
     }
 
     public boolean applyTame(EntityType entityType, int amount) {
         if (amount <= 0) {
             return false;
         }
-        return applyIncrement(objective -> objective.matchesTame(entityType), amount);
+        return applyIncrement(QuestObjectiveType.TAME_ENTITY, entityType, null, amount);
     }
 
     public boolean applyFish(Material caughtType, int amount) {
         if (amount <= 0) {
             return false;
         }
-        return applyIncrement(objective -> objective.matchesFish(caughtType), amount);
+        return applyIncrement(QuestObjectiveType.FISH, caughtType, null, amount);
     }
 
     public boolean applyConsume(Material material, int amount) {
         if (amount <= 0) {
             return false;
         }
-        return applyIncrement(objective -> objective.matchesConsume(material), amount);
+        return applyIncrement(QuestObjectiveType.CONSUME_ITEM, material, null, amount);
     }
 
     public boolean applyCustom(String eventType, double amount, Object payload) {
         if (amount <= 0) {
             return false;
         }
-        return applyIncrement(objective -> objective.matchesCustom(eventType, payload), amount);
+        return applyIncrement(QuestObjectiveType.CUSTOM, eventType, payload, amount);
     }
 
-    private boolean applyIncrement(Predicate<QuestObjective> predicate, double amount) {
+    /**
+     * Advances every objective matching an event, described by plain arguments so that no matcher is allocated.
+     */
+    private boolean applyIncrement(QuestObjectiveType type, Object key, Object detail, double amount) {
+        List<QuestObjective> objectives = quest.getObjectives();
         boolean changed = false;
-        for (QuestObjective objective: quest.getObjectives()) {
-            if (!predicate.test(objective)) {
-                continue;
-            }
-            double current = progress.getOrDefault(objective.getId(), 0.0);
-            double target = objective.getTargetAmount();
-            if (current >= target) {
-                continue;
-            }
-            double updated = Math.min(target, current + amount);
-            if (updated != current) {
-                progress.put(objective.getId(), updated);
+        for (int i = 0; i < objectives.size(); i++) {
+            if (matches(objectives.get(i), type, key, detail) && increment(i, amount)) {
                 changed = true;
             }
         }
         return changed;
     }
+
+    /**
+     * Tests an objective against an event of {@code type}.
+     *
+     * @param key    material, entity type or custom event type of the event
+     * @param detail whether a kill was a player kill, or the payload of a custom event
+     */
+    static boolean matches(QuestObjective objective, QuestObjectiveType type, Object key, Object detail) {
+        return switch (type) {
+            case KILL_ENTITY -> objective.matchesKill((EntityType) key, (Boolean) detail);
+            case TRAVEL_DISTANCE -> objective.matchesTravel();
+            case CRAFT_ITEM -> objective.matchesCraft((Material) key);
+            case PLAY_TIME -> objective.matchesPlaytime();
+            case BREAK_BLOCK -> objective.matchesBlockBreak((Material) key);
+            case PLACE_BLOCK -> objective.matchesBlockPlace((Material) key);
+            case SMELT_ITEM -> objective.matchesSmelt((Material) key);
+            case BREED_ENTITY -> objective.matchesBreed((EntityType) key);
+            case TAME_ENTITY -> objective.matchesTame((EntityType) key);
+            case FISH -> objective.matchesFish((Material) key);
+            case CONSUME_ITEM -> objective.matchesConsume((Material) key);
+            case CUSTOM -> objective.matchesCustom((String) key, detail);
+        };
+    }
+
+    /**
+     * Advances the objective at {@code index}, capped at its target, and marks it changed.
+     *
+     * @return {@code true} if the stored value changed
+     */
+    synchronized boolean increment(int index, double amount) {
+        double current = values[index];
+        double target = quest.getTargetAmount(index);
+        if (current >= target) {
+            return false;
+        }
+        double updated = Math.min(target, current + amount);
+        if (updated == current) {
+            return false;
+        }
+        values[index] = updated;
+        changed[index >>> 6] |= 1L << index;
+        return true;
+    }
+
+    /**
+     * Returns the indexes of the objectives changed since the last call as a bitset and clears it.
+     */
+    synchronized long[] takeChanged() {
+        long[] taken = changed.clone();
+        Arrays.fill(changed, 0L);
+        return taken;
+    }
+
+    /**
+     * Marks objectives as changed again, e.g. after their write failed.
+     */
+    synchronized void restoreChanged(long[] bits) {
+        for (int i = 0; i < changed.length; i++) {
+            changed[i] |= bits[i];
+        }
+    }
 }
@@ -0,0 +1,108 @@
+package io.github.chi2l3s.nextlib.api.quests;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.logging.Level;
+
+/**
+ * Ties the quest state held by a {@link QuestManager} to player sessions.
+ * <p>
+ * A joining player is restored with {@link QuestManager#restorePlayer(java.util.UUID)}, which is a memory lookup
+ * when a {@link QuestPrefetcher} ran at login. A quitting player is unloaded with
+ * {@link QuestManager#unloadPlayer(java.util.UUID)} once their progress is flushed. Every minute an asynchronous
+ * task unloads offline players that were only resident because of cross-server events, see
+ * {@link QuestManager#evictIdlePlayers()}.
+ * </p>
+ *
+ * <p><strong>Example usage:</strong></p>
+ * <pre>{@code
+ * QuestSessionListener sessions = QuestSessionListener.builder(this, quests)
+ *     .idleTimeout(Duration.ofMinutes(5))
+ *     .build();
+ *
+ * // onDisable
+ * sessions.close();
+ * }</pre>
+ *
+ * @since 1.0.8
+ */
+public final class QuestSessionListener implements Listener, AutoCloseable {
+    private static final long EVICTION_PERIOD_TICKS = 20L * 60L;
+
+    private final JavaPlugin plugin;
+    private final QuestManager manager;
+    private final BukkitTask evictionTask;
+
+    private QuestSessionListener(Builder builder) {
+        this.plugin = builder.plugin;
+        this.manager = builder.manager;
+        manager.setIdleTimeout(builder.idleTimeout);
+        Bukkit.getPluginManager().registerEvents(this, plugin);
+        this.evictionTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, manager::evictIdlePlayers,
+                EVICTION_PERIOD_TICKS, EVICTION_PERIOD_TICKS);
+    }
+
+    public static Builder builder(JavaPlugin plugin, QuestManager manager) {
+        return new Builder(plugin, manager);
+    }
+
+    /**
+     * Unregisters the listeners and stops the eviction task.
+     */
+    @Override
+    public void close() {
+        HandlerList.unregisterAll(this);
+        evictionTask.cancel();
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(PlayerJoinEvent event) {
+        manager.restorePlayer(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        manager.unloadPlayer(event.getPlayer().getUniqueId()).exceptionally(failure -> {
+            plugin.getLogger().log(Level.SEVERE, "Failed to flush quest progress of "
+                    + event.getPlayer().getUniqueId() + " on quit", failure);
+            return null;
+        });
+    }
+
+    public static final class Builder {
+        private final JavaPlugin plugin;
+        private final QuestManager manager;
+        private Duration idleTimeout = Duration.ofMinutes(10);
+
+        private Builder(JavaPlugin plugin, QuestManager manager) {
+            this.plugin = Objects.requireNonNull(plugin, "plugin");
+            this.manager = Objects.requireNonNull(manager, "manager");
+        }
+
+        /**
+         * Sets how long an offline player's progress stays in memory after it was last touched. Defaults to 10
+         * minutes.
+         */
+        public Builder idleTimeout(Duration idleTimeout) {
+            this.idleTimeout = Objects.requireNonNull(idleTimeout, "idleTimeout");
+            return this;
+        }
+
+        /**
+         * Creates the listener, registers it and starts the eviction task.
+         */
+        public QuestSessionListener build() {
+            return new QuestSessionListener(this);
+        }
+    }
+}
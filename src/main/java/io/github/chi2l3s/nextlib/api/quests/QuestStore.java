@@ -1,8 +1,12 @@
 package io.github.chi2l3s.nextlib.api.quests;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 /**
@@ -11,7 +15,46 @@ import java.util.function.Function;
 public interface QuestStore {
     void saveProgress(QuestProgress progress);
 
+    /**
+     * Saves several progress entries at once. Stores backed by a database should write them in one transaction.
+     *
+     * @param progress entries to save
+     * @since 1.0.8
+     */
+    default void saveAll(Collection<QuestProgress> progress) {
+        progress.forEach(this::saveProgress);
+    }
+
     Optional<QuestProgress> loadProgress(UUID playerId, Quest quest);
 
     List<QuestProgress> loadAll(UUID playerId, Function<String, Optional<Quest>> questResolver);
+
+    /**
+     * Loads the progress of several players at once. Stores backed by a database should read them with a few bulk
+     * queries instead of one query per player.
+     *
+     * @param playerIds     players to load
+     * @param questResolver resolves stored quest ids, progress of unknown quests is skipped
+     * @return progress per requested player, with an empty list for players without stored progress
+     * @since 1.0.8
+     */
+    default Map<UUID, List<QuestProgress>> loadAll(Collection<UUID> playerIds,
+                                                   Function<String, Optional<Quest>> questResolver) {
+        Map<UUID, List<QuestProgress>> progress = new HashMap<>();
+        for (UUID playerId : playerIds) {
+            progress.put(playerId, loadAll(playerId, questResolver));
+        }
+        return progress;
+    }
+
+    /**
+     * Writes any progress of the player that is still buffered. Stores that save synchronously have nothing to do.
+     *
+     * @param playerId player UUID
+     * @return future completed once the player's progress is stored
+     * @since 1.0.8
+     */
+    default CompletableFuture<Void> flush(UUID playerId) {
+        return CompletableFuture.completedFuture(null);
+    }
 }
@@ -0,0 +1,322 @@
+package io.github.chi2l3s.nextlib.api.quests;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Feeds {@link QuestManager#recordTravel(UUID, double)} from player movement in batches.
+ * <p>
+ * Every {@link PlayerMoveEvent} only compares the new position with the player's last counted position, the
+ * anchor, in a table keyed by entity id. A move counts once it is at least {@link Builder#minStep(double)} blocks
+ * away from the anchor, so standing still or jittering inside a block adds nothing. Teleports, world changes and
+ * jumps longer than {@link Builder#maxStep(double)} only move the anchor, as do moves inside a vehicle unless
+ * {@link Builder#countVehicles(boolean)} is set. Every {@link Builder#flushInterval(Duration)} a main thread task
+ * credits each player's accumulated distance with one {@code recordTravel} call.
+ * </p>
+ *
+ * <p><strong>Example usage:</strong></p>
+ * <pre>{@code
+ * TravelTracker travel = TravelTracker.builder(this, quests)
+ *     .minStep(1.0)
+ *     .flushInterval(Duration.ofSeconds(2))
+ *     .build();
+ *
+ * // onDisable
+ * travel.close();
+ * }</pre>
+ *
+ * @since 1.0.8
+ */
+public final class TravelTracker implements Listener, AutoCloseable {
+    private final QuestManager manager;
+    private final double minStepSquared;
+    private final double maxStepSquared;
+    private final boolean countVehicles;
+    private final PlayerTable players = new PlayerTable();
+    private final BukkitTask flushTask;
+
+    private TravelTracker(Builder builder) {
+        this.manager = builder.manager;
+        this.minStepSquared = builder.minStep * builder.minStep;
+        this.maxStepSquared = builder.maxStep * builder.maxStep;
+        this.countVehicles = builder.countVehicles;
+        Bukkit.getPluginManager().registerEvents(this, builder.plugin);
+        long ticks = Math.max(1L, builder.flushInterval.toMillis() / 50L);
+        this.flushTask = Bukkit.getScheduler().runTaskTimer(builder.plugin, this::flush, ticks, ticks);
+    }
+
+    public static Builder builder(JavaPlugin plugin, QuestManager manager) {
+        return new Builder(plugin, manager);
+    }
+
+    /**
+     * Credits all accumulated distance. Runs automatically every flush interval; call it on the main thread.
+     */
+    public void flush() {
+        PlayerTable table = players;
+        for (int slot = 0; slot < table.playerIds.length; slot++) {
+            double meters = table.pending[slot];
+            if (table.playerIds[slot] != null && meters > 0) {
+                table.pending[slot] = 0;
+                manager.recordTravel(table.playerIds[slot], meters);
+            }
+        }
+    }
+
+    /**
+     * Credits the accumulated distance, unregisters the listeners and stops the flush task. Call it on the main
+     * thread from {@code onDisable}, before the quest store is closed.
+     */
+    @Override
+    public void close() {
+        HandlerList.unregisterAll(this);
+        flushTask.cancel();
+        flush();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMove(PlayerMoveEvent event) {
+        Location to = event.getTo();
+        if (to == null) {
+            return;
+        }
+        Player player = event.getPlayer();
+        PlayerTable table = players;
+        int slot = table.slotOf(player);
+        World world = to.getWorld();
+        double x = to.getX();
+        double y = to.getY();
+        double z = to.getZ();
+        if (table.worlds[slot] != world || (!countVehicles && player.isInsideVehicle())) {
+            table.anchor(slot, world, x, y, z);
+            return;
+        }
+        double dx = x - table.x[slot];
+        double dy = y - table.y[slot];
+        double dz = z - table.z[slot];
+        double squared = dx * dx + dy * dy + dz * dz;
+        if (squared < minStepSquared) {
+            return;
+        }
+        if (squared <= maxStepSquared) {
+            table.pending[slot] += Math.sqrt(squared);
+        }
+        table.anchor(slot, world, x, y, z);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTeleport(PlayerTeleportEvent event) {
+        Location to = event.getTo();
+        if (to != null) {
+            int slot = players.slotOf(event.getPlayer());
+            players.anchor(slot, to.getWorld(), to.getX(), to.getY(), to.getZ());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOW)
+    public void onQuit(PlayerQuitEvent event) {
+        Player player = event.getPlayer();
+        double meters = players.remove(player.getEntityId());
+        if (meters > 0) {
+            manager.recordTravel(player.getUniqueId(), meters);
+        }
+    }
+
+    /**
+     * Open-addressing table from entity id to the player's anchor and pending distance, stored in parallel
+     * primitive arrays. Only touched on the main thread. Package-private for tests.
+     */
+    static final class PlayerTable {
+        int[] entityIds = new int[64];
+        UUID[] playerIds = new UUID[64];
+        World[] worlds = new World[64];
+        double[] x = new double[64];
+        double[] y = new double[64];
+        double[] z = new double[64];
+        double[] pending = new double[64];
+        int size;
+
+        int slotOf(Player player) {
+            int entityId = player.getEntityId();
+            int mask = entityIds.length - 1;
+            int slot = mix(entityId) & mask;
+            while (playerIds[slot] != null) {
+                if (entityIds[slot] == entityId) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if ((size + 1) * 2 > entityIds.length) {
+                grow();
+                return slotOf(player);
+            }
+            entityIds[slot] = entityId;
+            playerIds[slot] = player.getUniqueId();
+            size++;
+            return slot;
+        }
+
+        void anchor(int slot, World world, double anchorX, double anchorY, double anchorZ) {
+            worlds[slot] = world;
+            x[slot] = anchorX;
+            y[slot] = anchorY;
+            z[slot] = anchorZ;
+        }
+
+        /**
+         * Removes a player and returns their pending distance.
+         */
+        double remove(int entityId) {
+            int mask = entityIds.length - 1;
+            int slot = mix(entityId) & mask;
+            while (playerIds[slot] != null && entityIds[slot] != entityId) {
+                slot = (slot + 1) & mask;
+            }
+            if (playerIds[slot] == null) {
+                return 0;
+            }
+            double meters = pending[slot];
+            clear(slot);
+            size--;
+            // Shift later entries of the probe run back so lookups never stop at the freed slot
+            for (int next = (slot + 1) & mask; playerIds[next] != null; next = (next + 1) & mask) {
+                int home = mix(entityIds[next]) & mask;
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    move(next, slot);
+                    slot = next;
+                }
+            }
+            return meters;
+        }
+
+        void grow() {
+            PlayerTable grown = new PlayerTable();
+            int capacity = entityIds.length * 2;
+            grown.entityIds = new int[capacity];
+            grown.playerIds = new UUID[capacity];
+            grown.worlds = new World[capacity];
+            grown.x = new double[capacity];
+            grown.y = new double[capacity];
+            grown.z = new double[capacity];
+            grown.pending = new double[capacity];
+            for (int slot = 0; slot < entityIds.length; slot++) {
+                if (playerIds[slot] != null) {
+                    int target = mix(entityIds[slot]) & (capacity - 1);
+                    while (grown.playerIds[target] != null) {
+                        target = (target + 1) & (capacity - 1);
+                    }
+                    grown.entityIds[target] = entityIds[slot];
+                    grown.playerIds[target] = playerIds[slot];
+                    grown.anchor(target, worlds[slot], x[slot], y[slot], z[slot]);
+                    grown.pending[target] = pending[slot];
+                }
+            }
+            entityIds = grown.entityIds;
+            playerIds = grown.playerIds;
+            worlds = grown.worlds;
+            x = grown.x;
+            y = grown.y;
+            z = grown.z;
+            pending = grown.pending;
+        }
+
+        void move(int from, int to) {
+            entityIds[to] = entityIds[from];
+            playerIds[to] = playerIds[from];
+            anchor(to, worlds[from], x[from], y[from], z[from]);
+            pending[to] = pending[from];
+            clear(from);
+        }
+
+        void clear(int slot) {
+            playerIds[slot] = null;
+            worlds[slot] = null;
+            pending[slot] = 0;
+        }
+
+        static int mix(int entityId) {
+            int hash = entityId * 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    public static final class Builder {
+        private final JavaPlugin plugin;
+        private final QuestManager manager;
+        private double minStep = 1.0;
+        private double maxStep = 10.0;
+        private boolean countVehicles;
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        private Builder(JavaPlugin plugin, QuestManager manager) {
+            this.plugin = Objects.requireNonNull(plugin, "plugin");
+            this.manager = Objects.requireNonNull(manager, "manager");
+        }
+
+        /**
+         * Sets how far, in blocks, a player has to move from the last counted position before the move counts.
+         * Defaults to 1 block.
+         */
+        public Builder minStep(double minStep) {
+            if (minStep < 0) {
+                throw new IllegalArgumentException("minStep must not be negative");
+            }
+            this.minStep = minStep;
+            return this;
+        }
+
+        /**
+         * Sets the longest single move, in blocks, that still counts; longer ones are treated as teleports.
+         * Defaults to 10 blocks.
+         */
+        public Builder maxStep(double maxStep) {
+            if (maxStep <= 0) {
+                throw new IllegalArgumentException("maxStep must be positive");
+            }
+            this.maxStep = maxStep;
+            return this;
+        }
+
+        /**
+         * Sets whether moves while riding a vehicle or mount count. Defaults to {@code false}.
+         */
+        public Builder countVehicles(boolean countVehicles) {
+            this.countVehicles = countVehicles;
+            return this;
+        }
+
+        /**
+         * Sets how often accumulated distance is credited to quests. Defaults to 1 second.
+         */
+        public Builder flushInterval(Duration flushInterval) {
+            Objects.requireNonNull(flushInterval, "flushInterval");
+            if (flushInterval.isNegative() || flushInterval.isZero()) {
+                throw new IllegalArgumentException("flushInterval must be positive");
+            }
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
+        /**
+         * Creates the tracker, registers its listeners and starts the flush task.
+         */
+        public TravelTracker build() {
+            return new TravelTracker(this);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package io.github.chi2l3s.nextlib.api.quests;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decorates a {@link QuestStore} so progress changes are written in the background instead of on the caller's
+ * thread.
+ * <p>
+ * {@link #saveProgress(QuestProgress)} only marks the progress dirty and queues it once; further changes before
+ * the next flush are coalesced into the same write. Queued entries are written periodically through
+ * {@link QuestStore#saveAll(Collection)} in batches of {@link Builder#batchSize(int)}, on {@link #flush(UUID)}
+ * (which {@link QuestManager#unloadPlayer(UUID)} calls when a {@link QuestSessionListener} sees the player quit)
+ * and on {@link #close()}. All writes run on one background thread in submission order. An entry changed while it
+ * is being written stays queued, and a failed batch is retried by the next flush.
+ * </p>
+ * <p>
+ * Loads return queued entries in place of the stored rows, so a quest reactivated before its flush keeps the
+ * unsaved progress.
+ * </p>
+ *
+ * <p><strong>Example usage:</strong></p>
+ * <pre>{@code
+ * WriteBehindQuestStore store = WriteBehindQuestStore.builder(new DatabaseQuestStore(client))
+ *     .flushInterval(Duration.ofSeconds(10))
+ *     .logger(getLogger())
+ *     .build();
+ * QuestManager quests = new QuestManager(store);
+ *
+ * // onDisable
+ * store.close();
+ * }</pre>
+ *
+ * @since 1.0.8
+ */
+public final class WriteBehindQuestStore implements QuestStore, AutoCloseable {
+    private final Logger logger;
+    private final QuestStore delegate;
+    private final int batchSize;
+    private final Set<QuestProgress> pending = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService writer;
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong writtenEntries = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+    private volatile boolean closed;
+
+    private WriteBehindQuestStore(Builder builder) {
+        this.logger = builder.logger;
+        this.delegate = builder.delegate;
+        this.batchSize = builder.batchSize;
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nextlib-quest-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = builder.flushInterval.toMillis();
+        writer.scheduleWithFixedDelay(() -> write(new ArrayList<>(pending)), interval, interval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder(QuestStore delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public void saveProgress(QuestProgress progress) {
+        Objects.requireNonNull(progress, "progress");
+        if (closed) {
+            delegate.saveProgress(progress);
+            return;
+        }
+        if (progress.markDirty()) {
+            pending.add(progress);
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<QuestProgress> progress) {
+        progress.forEach(this::saveProgress);
+    }
+
+    @Override
+    public Optional<QuestProgress> loadProgress(UUID playerId, Quest quest) {
+        for (QuestProgress queued : pending) {
+            if (queued.getPlayerId().equals(playerId) && queued.getQuest().getId().equals(quest.getId())) {
+                return Optional.of(queued);
+            }
+        }
+        return delegate.loadProgress(playerId, quest);
+    }
+
+    @Override
+    public List<QuestProgress> loadAll(UUID playerId, Function<String, Optional<Quest>> questResolver) {
+        return withPending(playerId, delegate.loadAll(playerId, questResolver));
+    }
+
+    @Override
+    public Map<UUID, List<QuestProgress>> loadAll(Collection<UUID> playerIds,
+                                                  Function<String, Optional<Quest>> questResolver) {
+        Map<UUID, List<QuestProgress>> loaded = new HashMap<>(delegate.loadAll(playerIds, questResolver));
+        Map<UUID, List<QuestProgress>> queuedByPlayer = new HashMap<>();
+        for (QuestProgress queued : pending) {
+            if (loaded.containsKey(queued.getPlayerId())) {
+                queuedByPlayer.computeIfAbsent(queued.getPlayerId(), ignored -> new ArrayList<>()).add(queued);
+            }
+        }
+        queuedByPlayer.forEach((playerId, queued) -> loaded.put(playerId, merge(loaded.get(playerId), queued)));
+        return loaded;
+    }
+
+    /**
+     * Queues a write of all pending entries.
+     *
+     * @return future completed after the write
+     */
+    public CompletableFuture<Void> flush() {
+        if (closed) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> write(new ArrayList<>(pending)), writer);
+    }
+
+    /**
+     * Queues a write of the pending entries of one player.
+     *
+     * @param playerId player UUID
+     * @return future completed after the write
+     */
+    @Override
+    public CompletableFuture<Void> flush(UUID playerId) {
+        Objects.requireNonNull(playerId, "playerId");
+        if (closed) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+            List<QuestProgress> batch = new ArrayList<>();
+            for (QuestProgress queued : pending) {
+                if (queued.getPlayerId().equals(playerId)) {
+                    batch.add(queued);
+                }
+            }
+            write(batch);
+        }, writer);
+    }
+
+    /**
+     * Returns the number of progress entries waiting for a write.
+     *
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        return pending.size();
+    }
+
+    /**
+     * Returns the number of completed flushes that wrote at least one entry.
+     *
+     * @return flush count
+     */
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    /**
+     * Returns the number of batches that failed and were kept for the next flush.
+     *
+     * @return failed batch count
+     */
+    public long getFailedFlushCount() {
+        return failedFlushes.get();
+    }
+
+    /**
+     * Returns the number of progress entries written so far.
+     *
+     * @return written entry count
+     */
+    public long getWrittenCount() {
+        return writtenEntries.get();
+    }
+
+    /**
+     * Returns the duration of the last flush in milliseconds.
+     *
+     * @return last flush latency, or {@code 0} before the first flush
+     */
+    public double getLastFlushMillis() {
+        return lastFlushNanos / 1_000_000.0;
+    }
+
+    /**
+     * Returns the average duration of a flush in milliseconds.
+     *
+     * @return average flush latency, or {@code 0} before the first flush
+     */
+    public double getAverageFlushMillis() {
+        long count = flushes.get();
+        return count == 0 ? 0.0 : totalFlushNanos.get() / (double) count / 1_000_000.0;
+    }
+
+    /**
+     * Stops the periodic flush and writes all pending entries. Blocks until the final write finished or 30 seconds
+     * passed; call it from {@code onDisable}. Later saves are written through synchronously.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            CompletableFuture.runAsync(() -> write(new ArrayList<>(pending)), writer).get(30, TimeUnit.SECONDS);
+        } catch (Exception exception) {
+            logger.log(Level.SEVERE, "Failed to save quest progress on shutdown", exception);
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    private List<QuestProgress> withPending(UUID playerId, List<QuestProgress> stored) {
+        List<QuestProgress> queued = new ArrayList<>();
+        for (QuestProgress progress : pending) {
+            if (progress.getPlayerId().equals(playerId)) {
+                queued.add(progress);
+            }
+        }
+        return queued.isEmpty() ? stored : merge(stored, queued);
+    }
+
+    private static List<QuestProgress> merge(List<QuestProgress> stored, List<QuestProgress> queued) {
+        Map<String, QuestProgress> merged = new LinkedHashMap<>();
+        for (QuestProgress progress : stored) {
+            merged.put(progress.getQuest().getId(), progress);
+        }
+        for (QuestProgress progress : queued) {
+            merged.put(progress.getQuest().getId(), progress);
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    private void write(List<QuestProgress> candidates) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        for (int from = 0; from < candidates.size(); from += batchSize) {
+            List<QuestProgress> batch = candidates.subList(from, Math.min(from + batchSize, candidates.size()));
+            // Cleared before the write, so a change racing with it marks the entry again and keeps it queued
+            batch.forEach(QuestProgress::clearDirty);
+            try {
+                delegate.saveAll(batch);
+            } catch (RuntimeException exception) {
+                batch.forEach(QuestProgress::markDirty);
+                failedFlushes.incrementAndGet();
+                logger.log(Level.SEVERE, "Failed to save " + batch.size()
+                        + " quest progress entries", exception);
+                continue;
+            }
+            for (QuestProgress progress : batch) {
+                pending.remove(progress);
+                if (progress.isDirty()) {
+                    pending.add(progress);
+                }
+            }
+            writtenEntries.addAndGet(batch.size());
+        }
+        long elapsed = System.nanoTime() - start;
+        lastFlushNanos = elapsed;
+        totalFlushNanos.addAndGet(elapsed);
+        flushes.incrementAndGet();
+    }
+
+    public static final class Builder {
+        private final QuestStore delegate;
+        private Duration flushInterval = Duration.ofSeconds(30);
+        private int batchSize = 500;
+        private Logger logger = Logger.getLogger(WriteBehindQuestStore.class.getName());
+
+        private Builder(QuestStore delegate) {
+            this.delegate = Objects.requireNonNull(delegate, "delegate");
+        }
+
+        /**
+         * Sets the logger for failed writes, usually {@code plugin.getLogger()}. Defaults to this class's logger.
+         */
+        public Builder logger(Logger logger) {
+            this.logger = Objects.requireNonNull(logger, "logger");
+            return this;
+        }
+
+        /**
+         * Sets how often pending entries are written. Defaults to 30 seconds.
+         */
+        public Builder flushInterval(Duration flushInterval) {
+            Objects.requireNonNull(flushInterval, "flushInterval");
+            if (flushInterval.isNegative() || flushInterval.isZero()) {
+                throw new IllegalArgumentException("flushInterval must be positive");
+            }
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
+        /**
+         * Sets how many progress entries are written per transaction. Defaults to 500.
+         */
+        public Builder batchSize(int batchSize) {
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("batchSize must be positive");
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public WriteBehindQuestStore build() {
+            return new WriteBehindQuestStore(this);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import io.github.chi2l3s.nextlib.api.quests.QuestObjectiveType;
 import lombok.Getter;
 import org.bukkit.Material;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -52,4 +54,9 @@ public final class BlockBreakObjective implements QuestObjective {
     public boolean matchesBlockBreak(Material blockType) {
         return this.blockType == null || this.blockType == blockType;
     }
+
+    @Override
+    public Collection<?> getDispatchKeys() {
+        return blockType == null ? List.of() : List.of(blockType);
+    }
 }
@@ -5,6 +5,8 @@ import io.github.chi2l3s.nextlib.api.quests.QuestObjectiveType;
 import lombok.Getter;
 import org.bukkit.Material;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -53,4 +55,9 @@ public final class BlockPlaceObjective implements QuestObjective {
         return this.blockType == null || this.blockType == blockType;
     }
 
+    @Override
+    public Collection<?> getDispatchKeys() {
+        return blockType == null ? List.of() : List.of(blockType);
+    }
+
 }
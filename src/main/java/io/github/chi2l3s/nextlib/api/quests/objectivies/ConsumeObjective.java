@@ -5,6 +5,8 @@ import io.github.chi2l3s.nextlib.api.quests.QuestObjectiveType;
 import lombok.Getter;
 import org.bukkit.Material;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -49,4 +51,9 @@ public final class ConsumeObjective implements QuestObjective {
     public boolean matchesConsume(Material material) {
         return this.material == material;
     }
+
+    @Override
+    public Collection<?> getDispatchKeys() {
+        return material == null ? List.of() : List.of(material);
+    }
 }
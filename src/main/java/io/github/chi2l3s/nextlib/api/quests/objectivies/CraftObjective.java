@@ -5,6 +5,8 @@ import io.github.chi2l3s.nextlib.api.quests.QuestObjectiveType;
 import lombok.Getter;
 import org.bukkit.Material;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 public final class CraftObjective implements QuestObjective {
@@ -46,4 +48,9 @@ public final class CraftObjective implements QuestObjective {
     public boolean matchesCraft(Material material) {
         return this.material == material;
     }
+
+    @Override
+    public Collection<?> getDispatchKeys() {
+        return material == null ? List.of() : List.of(material);
+    }
 }
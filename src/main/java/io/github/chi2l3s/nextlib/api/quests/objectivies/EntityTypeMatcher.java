@@ -0,0 +1,132 @@
+package io.github.chi2l3s.nextlib.api.quests.objectivies;
+
+import org.bukkit.Tag;
+import org.bukkit.entity.EntityType;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Immutable set of entity types an objective counts.
+ * <p>
+ * Like {@link MaterialMatcher}, the types are held in an {@link EnumSet}, so {@link #test(EntityType)} is a single
+ * bit test that never allocates, and tags and predicates are resolved once when the matcher is created.
+ * </p>
+ *
+ * <p><strong>Example usage:</strong></p>
+ * <pre>{@code
+ * EntityTypeMatcher undead = EntityTypeMatcher.of(EntityType.ZOMBIE, EntityType.SKELETON, EntityType.HUSK);
+ * }</pre>
+ *
+ * @since 1.0.8
+ */
+public final class EntityTypeMatcher implements Predicate<EntityType> {
+    private static final EntityTypeMatcher ANY = new EntityTypeMatcher(EnumSet.noneOf(EntityType.class), true);
+
+    private final Set<EntityType> entityTypes;
+    private final boolean any;
+
+    private EntityTypeMatcher(EnumSet<EntityType> entityTypes, boolean any) {
+        this.entityTypes = entityTypes;
+        this.any = any;
+    }
+
+    /**
+     * Returns a matcher accepting every entity type.
+     */
+    public static EntityTypeMatcher any() {
+        return ANY;
+    }
+
+    public static EntityTypeMatcher of(EntityType first, EntityType... rest) {
+        EnumSet<EntityType> entityTypes = EnumSet.of(Objects.requireNonNull(first, "first"), rest);
+        return new EntityTypeMatcher(entityTypes, false);
+    }
+
+    public static EntityTypeMatcher of(Collection<EntityType> entityTypes) {
+        Objects.requireNonNull(entityTypes, "entityTypes");
+        EnumSet<EntityType> copy = EnumSet.noneOf(EntityType.class);
+        for (EntityType entityType : entityTypes) {
+            copy.add(Objects.requireNonNull(entityType, "entityType"));
+        }
+        return new EntityTypeMatcher(nonEmpty(copy, "entityTypes must not be empty"), false);
+    }
+
+    /**
+     * Returns a matcher accepting the entity types of a tag as they are when it is called.
+     * Throws {@link IllegalArgumentException} if the tag is empty.
+     */
+    public static EntityTypeMatcher tagged(Tag<EntityType> tag) {
+        Objects.requireNonNull(tag, "tag");
+        EnumSet<EntityType> entityTypes = EnumSet.noneOf(EntityType.class);
+        entityTypes.addAll(tag.getValues());
+        return new EntityTypeMatcher(nonEmpty(entityTypes, "Tag " + tag.getKey() + " has no entity types"), false);
+    }
+
+    /**
+     * Returns a matcher accepting the entity types the predicate accepts. The predicate is evaluated for every
+     * entity type right away; throws {@link IllegalArgumentException} if it accepts none.
+     */
+    public static EntityTypeMatcher matching(Predicate<? super EntityType> predicate) {
+        Objects.requireNonNull(predicate, "predicate");
+        EnumSet<EntityType> entityTypes = EnumSet.noneOf(EntityType.class);
+        for (EntityType entityType : EntityType.values()) {
+            if (predicate.test(entityType)) {
+                entityTypes.add(entityType);
+            }
+        }
+        return new EntityTypeMatcher(nonEmpty(entityTypes, "Predicate matches no entity type"), false);
+    }
+
+    /**
+     * Returns a matcher accepting the entity types of this matcher and of {@code other}.
+     */
+    public EntityTypeMatcher or(EntityTypeMatcher other) {
+        Objects.requireNonNull(other, "other");
+        if (any || other.any) {
+            return ANY;
+        }
+        EnumSet<EntityType> union = EnumSet.noneOf(EntityType.class);
+        union.addAll(entityTypes);
+        union.addAll(other.entityTypes);
+        return new EntityTypeMatcher(union, false);
+    }
+
+    @Override
+    public boolean test(EntityType entityType) {
+        return entityType != null && (any || entityTypes.contains(entityType));
+    }
+
+    /**
+     * Returns whether the matcher accepts every entity type.
+     */
+    public boolean isAny() {
+        return any;
+    }
+
+    /**
+     * Returns the accepted entity types, or an empty set for {@link #any()}.
+     */
+    public Set<EntityType> getEntityTypes() {
+        return Collections.unmodifiableSet(entityTypes);
+    }
+
+    /**
+     * Rejects empty sets, which would silently make an objective impossible to complete.
+     */
+    private static EnumSet<EntityType> nonEmpty(EnumSet<EntityType> entityTypes, String message) {
+        if (entityTypes.isEmpty()) {
+            throw new IllegalArgumentException(message);
+        }
+        return entityTypes;
+    }
+
+    @Override
+    public String toString() {
+        return any ? "EntityTypeMatcher[any]" : "EntityTypeMatcher" + entityTypes;
+    }
+}
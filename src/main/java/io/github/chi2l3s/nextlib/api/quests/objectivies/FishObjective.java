@@ -5,6 +5,8 @@ import io.github.chi2l3s.nextlib.api.quests.QuestObjectiveType;
 import lombok.Getter;
 import org.bukkit.Material;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -52,4 +54,9 @@ public final class FishObjective implements QuestObjective {
     public boolean matchesFish(Material caughtType) {
         return this.caughtType == null || this.caughtType == caughtType;
     }
+
+    @Override
+    public Collection<?> getDispatchKeys() {
+        return caughtType == null ? List.of() : List.of(caughtType);
+    }
 }
\ No newline at end of file
@@ -5,6 +5,8 @@ import io.github.chi2l3s.nextlib.api.quests.QuestObjectiveType;
 import lombok.Getter;
 import org.bukkit.entity.EntityType;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 public final class KillObjective implements QuestObjective {
@@ -60,6 +62,11 @@ public final class KillObjective implements QuestObjective {
         return targetType == null || targetType == entityType;
     }
 
+    @Override
+    public Collection<?> getDispatchKeys() {
+        return targetType == null ? List.of() : List.of(targetType);
+    }
+
     public boolean shouldCountPlayers() {
         return countPlayers;
     }
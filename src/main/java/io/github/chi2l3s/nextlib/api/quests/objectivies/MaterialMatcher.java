@@ -0,0 +1,134 @@
+package io.github.chi2l3s.nextlib.api.quests.objectivies;
+
+import org.bukkit.Material;
+import org.bukkit.Tag;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Immutable set of materials an objective counts.
+ * <p>
+ * The materials are held in an {@link EnumSet}, so {@link #test(Material)} is a single bit test regardless of how
+ * many materials match and never allocates. Tags and predicates are resolved against every material once, when the
+ * matcher is created, and never per event.
+ * </p>
+ *
+ * <p><strong>Example usage:</strong></p>
+ * <pre>{@code
+ * MaterialMatcher ores = MaterialMatcher.matching(material -> material.name().endsWith("_ORE"))
+ *     .or(MaterialMatcher.of(Material.ANCIENT_DEBRIS));
+ * }</pre>
+ *
+ * @since 1.0.8
+ */
+public final class MaterialMatcher implements Predicate<Material> {
+    private static final MaterialMatcher ANY = new MaterialMatcher(EnumSet.noneOf(Material.class), true);
+
+    private final Set<Material> materials;
+    private final boolean any;
+
+    private MaterialMatcher(EnumSet<Material> materials, boolean any) {
+        this.materials = materials;
+        this.any = any;
+    }
+
+    /**
+     * Returns a matcher accepting every material.
+     */
+    public static MaterialMatcher any() {
+        return ANY;
+    }
+
+    public static MaterialMatcher of(Material first, Material... rest) {
+        EnumSet<Material> materials = EnumSet.of(Objects.requireNonNull(first, "first"), rest);
+        return new MaterialMatcher(materials, false);
+    }
+
+    public static MaterialMatcher of(Collection<Material> materials) {
+        Objects.requireNonNull(materials, "materials");
+        EnumSet<Material> copy = EnumSet.noneOf(Material.class);
+        for (Material material : materials) {
+            copy.add(Objects.requireNonNull(material, "material"));
+        }
+        return new MaterialMatcher(nonEmpty(copy, "materials must not be empty"), false);
+    }
+
+    /**
+     * Returns a matcher accepting the materials of a tag, e.g. {@code Tag.LOGS}, as they are when it is called.
+     * Throws {@link IllegalArgumentException} if the tag is empty.
+     */
+    public static MaterialMatcher tagged(Tag<Material> tag) {
+        Objects.requireNonNull(tag, "tag");
+        EnumSet<Material> materials = EnumSet.noneOf(Material.class);
+        materials.addAll(tag.getValues());
+        return new MaterialMatcher(nonEmpty(materials, "Tag " + tag.getKey() + " has no materials"), false);
+    }
+
+    /**
+     * Returns a matcher accepting the non-legacy materials the predicate accepts. The predicate is evaluated for
+     * every material right away; throws {@link IllegalArgumentException} if it accepts none.
+     */
+    public static MaterialMatcher matching(Predicate<? super Material> predicate) {
+        Objects.requireNonNull(predicate, "predicate");
+        EnumSet<Material> materials = EnumSet.noneOf(Material.class);
+        for (Material material : Material.values()) {
+            if (!material.isLegacy() && predicate.test(material)) {
+                materials.add(material);
+            }
+        }
+        return new MaterialMatcher(nonEmpty(materials, "Predicate matches no material"), false);
+    }
+
+    /**
+     * Returns a matcher accepting the materials of this matcher and of {@code other}.
+     */
+    public MaterialMatcher or(MaterialMatcher other) {
+        Objects.requireNonNull(other, "other");
+        if (any || other.any) {
+            return ANY;
+        }
+        EnumSet<Material> union = EnumSet.noneOf(Material.class);
+        union.addAll(materials);
+        union.addAll(other.materials);
+        return new MaterialMatcher(union, false);
+    }
+
+    @Override
+    public boolean test(Material material) {
+        return material != null && (any || materials.contains(material));
+    }
+
+    /**
+     * Returns whether the matcher accepts every material.
+     */
+    public boolean isAny() {
+        return any;
+    }
+
+    /**
+     * Returns the accepted materials, or an empty set for {@link #any()}.
+     */
+    public Set<Material> getMaterials() {
+        return Collections.unmodifiableSet(materials);
+    }
+
+    /**
+     * Rejects empty sets, which would silently make an objective impossible to complete.
+     */
+    private static EnumSet<Material> nonEmpty(EnumSet<Material> materials, String message) {
+        if (materials.isEmpty()) {
+            throw new IllegalArgumentException(message);
+        }
+        return materials;
+    }
+
+    @Override
+    public String toString() {
+        return any ? "MaterialMatcher[any]" : "MaterialMatcher" + materials;
+    }
+}
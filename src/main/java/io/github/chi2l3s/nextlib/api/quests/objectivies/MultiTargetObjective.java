@@ -0,0 +1,290 @@
+package io.github.chi2l3s.nextlib.api.quests.objectivies;
+
+import io.github.chi2l3s.nextlib.api.quests.QuestObjective;
+import io.github.chi2l3s.nextlib.api.quests.QuestObjectiveType;
+import lombok.Getter;
+import org.bukkit.Material;
+import org.bukkit.Tag;
+import org.bukkit.entity.EntityType;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Objective of any counted type that accepts a whole set of materials or entity types.
+ * <p>
+ * One objective replaces a list of single-target objectives, e.g. "mine any ore" is one objective instead of one per
+ * ore. Matching is a bit test in a {@link MaterialMatcher} or {@link EntityTypeMatcher} and does not allocate. Up to
+ * {@value #MAX_DISPATCH_KEYS} targets are reported as dispatch keys; larger sets and predicates that accept nearly
+ * everything are dispatched for every event of the type and filtered by the matcher alone, which keeps the per-player
+ * index small.
+ * </p>
+ *
+ * <p><strong>Example usage:</strong></p>
+ * <pre>{@code
+ * QuestObjective ores = MultiTargetObjective.builder("ores", QuestObjectiveType.BREAK_BLOCK)
+ *     .description("Mine 64 ores")
+ *     .materials(material -> material.name().endsWith("_ORE"))
+ *     .amount(64)
+ *     .build();
+ *
+ * QuestObjective undead = MultiTargetObjective.builder("undead", QuestObjectiveType.KILL_ENTITY)
+ *     .entityTypes(EntityType.ZOMBIE, EntityType.SKELETON)
+ *     .countPlayers(false)
+ *     .amount(20)
+ *     .build();
+ * }</pre>
+ *
+ * @since 1.0.8
+ */
+public final class MultiTargetObjective implements QuestObjective {
+    /**
+     * Largest target set reported by {@link #getDispatchKeys()}.
+     */
+    public static final int MAX_DISPATCH_KEYS = 64;
+
+    private static final Set<QuestObjectiveType> MATERIAL_TYPES = EnumSet.of(QuestObjectiveType.BREAK_BLOCK,
+            QuestObjectiveType.PLACE_BLOCK, QuestObjectiveType.CRAFT_ITEM, QuestObjectiveType.SMELT_ITEM,
+            QuestObjectiveType.FISH, QuestObjectiveType.CONSUME_ITEM);
+    private static final Set<QuestObjectiveType> ENTITY_TYPES = EnumSet.of(QuestObjectiveType.KILL_ENTITY,
+            QuestObjectiveType.BREED_ENTITY, QuestObjectiveType.TAME_ENTITY);
+
+    private final String id;
+    private final String description;
+    private final QuestObjectiveType type;
+    @Getter
+    private final MaterialMatcher materials;
+    @Getter
+    private final EntityTypeMatcher entityTypes;
+    @Getter
+    private final int amount;
+    private final boolean countPlayers;
+    private final boolean countNonPlayers;
+    private final Collection<?> dispatchKeys;
+
+    private MultiTargetObjective(Builder builder) {
+        this.id = builder.id;
+        this.description = builder.description;
+        this.type = builder.type;
+        this.materials = builder.materials;
+        this.entityTypes = builder.entityTypes;
+        this.amount = builder.amount;
+        this.countPlayers = builder.countPlayers;
+        this.countNonPlayers = builder.countNonPlayers;
+        Set<?> targets = MATERIAL_TYPES.contains(type) ? materials.getMaterials() : entityTypes.getEntityTypes();
+        this.dispatchKeys = targets.size() <= MAX_DISPATCH_KEYS ? List.copyOf(targets) : List.of();
+    }
+
+    public static Builder builder(String id, QuestObjectiveType type) {
+        return new Builder(id, type);
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public QuestObjectiveType getType() {
+        return type;
+    }
+
+    @Override
+    public double getTargetAmount() {
+        return amount;
+    }
+
+    @Override
+    public Collection<?> getDispatchKeys() {
+        return dispatchKeys;
+    }
+
+    @Override
+    public boolean matchesKill(EntityType entityType, boolean playerKill) {
+        if (type != QuestObjectiveType.KILL_ENTITY || (playerKill ? !countPlayers : !countNonPlayers)) {
+            return false;
+        }
+        return entityTypes.test(entityType);
+    }
+
+    @Override
+    public boolean matchesCraft(Material material) {
+        return type == QuestObjectiveType.CRAFT_ITEM && materials.test(material);
+    }
+
+    @Override
+    public boolean matchesBlockBreak(Material blockType) {
+        return type == QuestObjectiveType.BREAK_BLOCK && materials.test(blockType);
+    }
+
+    @Override
+    public boolean matchesBlockPlace(Material blockType) {
+        return type == QuestObjectiveType.PLACE_BLOCK && materials.test(blockType);
+    }
+
+    @Override
+    public boolean matchesSmelt(Material resultType) {
+        return type == QuestObjectiveType.SMELT_ITEM && materials.test(resultType);
+    }
+
+    @Override
+    public boolean matchesBreed(EntityType entityType) {
+        return type == QuestObjectiveType.BREED_ENTITY && entityTypes.test(entityType);
+    }
+
+    @Override
+    public boolean matchesTame(EntityType entityType) {
+        return type == QuestObjectiveType.TAME_ENTITY && entityTypes.test(entityType);
+    }
+
+    @Override
+    public boolean matchesFish(Material caughtType) {
+        // A null catch only counts for objectives accepting any catch, as in FishObjective
+        return type == QuestObjectiveType.FISH && (materials.isAny() || materials.test(caughtType));
+    }
+
+    @Override
+    public boolean matchesConsume(Material material) {
+        return type == QuestObjectiveType.CONSUME_ITEM && materials.test(material);
+    }
+
+    public boolean shouldCountPlayers() {
+        return countPlayers;
+    }
+
+    public boolean shouldCountNonPlayers() {
+        return countNonPlayers;
+    }
+
+    public static final class Builder {
+        private final String id;
+        private final QuestObjectiveType type;
+        private String description = "";
+        private MaterialMatcher materials;
+        private EntityTypeMatcher entityTypes;
+        private int amount = 1;
+        private boolean countPlayers = true;
+        private boolean countNonPlayers = true;
+
+        private Builder(String id, QuestObjectiveType type) {
+            this.id = Objects.requireNonNull(id, "id");
+            this.type = Objects.requireNonNull(type, "type");
+            if (!MATERIAL_TYPES.contains(type) && !ENTITY_TYPES.contains(type)) {
+                throw new IllegalArgumentException("Objective type " + type + " has no material or entity target");
+            }
+        }
+
+        /**
+         * Sets the description shown to players. Defaults to an empty string.
+         */
+        public Builder description(String description) {
+            this.description = Objects.requireNonNull(description, "description");
+            return this;
+        }
+
+        /**
+         * Sets how many matching events complete the objective. Defaults to 1.
+         */
+        public Builder amount(int amount) {
+            if (amount <= 0) {
+                throw new IllegalArgumentException("amount must be positive");
+            }
+            this.amount = amount;
+            return this;
+        }
+
+        /**
+         * Adds materials to the accepted set. Calls are cumulative; without any, every material counts.
+         */
+        public Builder materials(MaterialMatcher matcher) {
+            Objects.requireNonNull(matcher, "matcher");
+            if (!MATERIAL_TYPES.contains(type)) {
+                throw new IllegalStateException("Objective type " + type + " does not target materials");
+            }
+            this.materials = materials == null ? matcher : materials.or(matcher);
+            return this;
+        }
+
+        public Builder materials(Material first, Material... rest) {
+            return materials(MaterialMatcher.of(first, rest));
+        }
+
+        public Builder materials(Collection<Material> materials) {
+            return materials(MaterialMatcher.of(materials));
+        }
+
+        public Builder materials(Tag<Material> tag) {
+            return materials(MaterialMatcher.tagged(tag));
+        }
+
+        public Builder materials(Predicate<? super Material> predicate) {
+            return materials(MaterialMatcher.matching(predicate));
+        }
+
+        /**
+         * Adds entity types to the accepted set. Calls are cumulative; without any, every entity type counts.
+         */
+        public Builder entityTypes(EntityTypeMatcher matcher) {
+            Objects.requireNonNull(matcher, "matcher");
+            if (!ENTITY_TYPES.contains(type)) {
+                throw new IllegalStateException("Objective type " + type + " does not target entity types");
+            }
+            this.entityTypes = entityTypes == null ? matcher : entityTypes.or(matcher);
+            return this;
+        }
+
+        public Builder entityTypes(EntityType first, EntityType... rest) {
+            return entityTypes(EntityTypeMatcher.of(first, rest));
+        }
+
+        public Builder entityTypes(Collection<EntityType> entityTypes) {
+            return entityTypes(EntityTypeMatcher.of(entityTypes));
+        }
+
+        public Builder entityTypes(Tag<EntityType> tag) {
+            return entityTypes(EntityTypeMatcher.tagged(tag));
+        }
+
+        public Builder entityTypes(Predicate<? super EntityType> predicate) {
+            return entityTypes(EntityTypeMatcher.matching(predicate));
+        }
+
+        /**
+         * Sets whether killing players counts. Only used by kill objectives; defaults to {@code true}.
+         */
+        public Builder countPlayers(boolean countPlayers) {
+            this.countPlayers = countPlayers;
+            return this;
+        }
+
+        /**
+         * Sets whether killing non-player entities counts. Only used by kill objectives; defaults to {@code true}.
+         */
+        public Builder countNonPlayers(boolean countNonPlayers) {
+            this.countNonPlayers = countNonPlayers;
+            return this;
+        }
+
+        /**
+         * Creates the objective.
+         */
+        public MultiTargetObjective build() {
+            if (materials == null) {
+                materials = MaterialMatcher.any();
+            }
+            if (entityTypes == null) {
+                entityTypes = EntityTypeMatcher.any();
+            }
+            return new MultiTargetObjective(this);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import io.github.chi2l3s.nextlib.api.quests.QuestObjectiveType;
 import lombok.Getter;
 import org.bukkit.Material;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -52,4 +54,9 @@ public final class SmeltObjective implements QuestObjective {
     public boolean matchesSmelt(Material resultType) {
         return this.resultType == null || this.resultType == resultType;
     }
+
+    @Override
+    public Collection<?> getDispatchKeys() {
+        return resultType == null ? List.of() : List.of(resultType);
+    }
 }
@@ -5,6 +5,8 @@ import io.github.chi2l3s.nextlib.api.quests.QuestObjectiveType;
 import lombok.Getter;
 import org.bukkit.entity.EntityType;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -52,4 +54,9 @@ public final class TameObjective implements QuestObjective {
     public boolean matchesTame(EntityType entityType) {
         return this.entityType == null || this.entityType == entityType;
     }
+
+    @Override
+    public Collection<?> getDispatchKeys() {
+        return entityType == null ? List.of() : List.of(entityType);
+    }
 }
\ No newline at end of file
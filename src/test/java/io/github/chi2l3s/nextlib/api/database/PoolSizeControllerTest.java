@@ -0,0 +1,119 @@
+package io.github.chi2l3s.nextlib.api.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("PoolSizeController Tests")
+class PoolSizeControllerTest {
+
+    private static final long SAMPLE = TimeUnit.SECONDS.toNanos(5);
+
+    private PoolSizeController controller;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        controller = new PoolSizeController("test", null, null, 2, 10);
+        now = System.nanoTime();
+    }
+
+    @AfterEach
+    void tearDown() {
+        controller.close();
+    }
+
+    @Test
+    @DisplayName("Should grow only after consecutive pressure samples")
+    void shouldGrowAfterConsecutivePressure() {
+        // When
+        int first = pressure(4);
+        int interrupted = sample(4, 2, 0, true);
+        int again = pressure(4);
+        int grown = pressure(4);
+
+        // Then
+        assertThat(first).isEqualTo(4);
+        assertThat(interrupted).isEqualTo(4);
+        assertThat(again).isEqualTo(4);
+        assertThat(grown).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should grow by the number of waiting threads up to the upper bound")
+    void shouldGrowByWaitersWithinBounds() {
+        // When
+        sample(8, 8, 6, true);
+        int grown = sample(8, 8, 6, true);
+
+        // Then
+        assertThat(grown).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should hold the size during the cooldown after a resize")
+    void shouldHoldSizeDuringCooldown() {
+        // Given
+        pressure(4);
+        int grown = pressure(4);
+
+        // When
+        int duringCooldown = 0;
+        for (int i = 0; i < 5; i++) {
+            duringCooldown = pressure(grown);
+        }
+        int afterCooldown = pressure(grown);
+
+        // Then
+        assertThat(grown).isEqualTo(5);
+        assertThat(duringCooldown).isEqualTo(5);
+        assertThat(afterCooldown).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Should shrink by one after a minute of idle samples but not below the lower bound")
+    void shouldShrinkAfterIdleSamples() {
+        // When
+        int beforeMinute = 0;
+        for (int i = 0; i < 11; i++) {
+            beforeMinute = sample(3, 0, 0, true);
+        }
+        int shrunk = sample(3, 0, 0, true);
+        for (int i = 0; i < 12; i++) {
+            sample(2, 0, 0, true);
+        }
+        int atLowerBound = sample(2, 0, 0, true);
+
+        // Then
+        assertThat(beforeMinute).isEqualTo(3);
+        assertThat(shrunk).isEqualTo(2);
+        assertThat(atLowerBound).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should never shrink pools that cannot retire idle connections")
+    void shouldNotShrinkWithoutIdleTimeout() {
+        // When
+        int size = 0;
+        for (int i = 0; i < 20; i++) {
+            size = sample(6, 0, 0, false);
+        }
+
+        // Then
+        assertThat(size).isEqualTo(6);
+    }
+
+    private int pressure(int current) {
+        return sample(current, current, 0, true);
+    }
+
+    private int sample(int current, int active, int waiting, boolean canShrink) {
+        now += SAMPLE;
+        return controller.decide(current, active, waiting, 0.0, canShrink, now);
+    }
+}
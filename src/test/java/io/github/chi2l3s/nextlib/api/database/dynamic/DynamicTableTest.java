@@ -2,18 +2,35 @@ package io.github.chi2l3s.nextlib.api.database.dynamic;
 
 import io.github.chi2l3s.nextlib.api.database.DatabaseClient;
 import io.github.chi2l3s.nextlib.api.database.DatabaseConfig;
+import io.github.chi2l3s.nextlib.api.database.DatabaseException;
 import io.github.chi2l3s.nextlib.api.database.DatabaseManager;
 import io.github.chi2l3s.nextlib.api.database.DatabaseType;
+import io.github.chi2l3s.nextlib.api.database.SqlConsumer;
+import io.github.chi2l3s.nextlib.api.database.VersionConflictException;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
-
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -33,6 +50,74 @@ class DynamicTableTest {
         private final Integer age;
     }
 
+    enum Rank {
+        MEMBER,
+        OFFICER,
+        LEADER
+    }
+
+    @AllArgsConstructor
+    @Getter
+    static class CodecEntity {
+        @PrimaryKey
+        private final UUID id;
+        private final Rank rank;
+        private final BigDecimal balance;
+        private final LocalDate joined;
+        private final Instant lastSeen;
+        private final byte[] payload;
+        private final List<Integer> slots;
+        private final long[] history;
+    }
+
+    @AllArgsConstructor
+    @Getter
+    static class BankEntity {
+        @PrimaryKey
+        private final UUID clanId;
+        private final long balance;
+        @Version
+        private final long version;
+    }
+
+    @AllArgsConstructor
+    @Getter
+    static class LedgerEntity {
+        @PrimaryKey
+        private final UUID id;
+        private final long balance;
+        @Version
+        private final Long version;
+    }
+
+    @AllArgsConstructor
+    @Getter
+    static class ClanEntity {
+        @PrimaryKey
+        private final UUID clanId;
+        private final String name;
+        @OneToMany(mappedBy = "clanId")
+        private List<MemberEntity> members;
+    }
+
+    @AllArgsConstructor
+    @Getter
+    static class MemberEntity {
+        @PrimaryKey
+        private final UUID playerId;
+        private final UUID clanId;
+        private final String name;
+        @ManyToOne(joinField = "clanId")
+        private ClanEntity clan;
+    }
+
+    @AllArgsConstructor
+    static class UnsupportedEntity {
+        @PrimaryKey
+        private final UUID id;
+        private final Object value;
+    }
+
     @BeforeEach
     void setUp() {
         manager = new DatabaseManager();
@@ -199,4 +284,720 @@ class DynamicTableTest {
         assertThat(result).isPresent();
         assertThat(result.get().getName()).isEqualTo("John");
     }
+
+    @Test
+    @DisplayName("Should round-trip values through built-in and registered codecs")
+    void shouldRoundTripCodecValues() {
+        // Given
+        database.getCodecs().registerEnumByOrdinal(Rank.class);
+        database.registerCodec(Instant.class, FieldCodecs.INSTANT_EPOCH_MILLIS);
+        DynamicTable<CodecEntity> table = database.register(CodecEntity.class);
+        UUID id = UUID.randomUUID();
+        Instant lastSeen = Instant.ofEpochMilli(1_700_000_000_123L);
+        table.create(new CodecEntity(id, Rank.OFFICER, new BigDecimal("1234.5678"), LocalDate.of(2024, 2, 29),
+                lastSeen, new byte[]{1, 2, 3}, List.of(4, 5, 6), new long[]{Long.MAX_VALUE, -1L}));
+
+        // When
+        Optional<CodecEntity> result = table.findFirst()
+                .where("rank", Rank.OFFICER)
+                .execute();
+
+        // Then
+        assertThat(result).isPresent();
+        CodecEntity entity = result.get();
+        assertThat(entity.getId()).isEqualTo(id);
+        assertThat(entity.getBalance()).isEqualByComparingTo("1234.5678");
+        assertThat(entity.getJoined()).isEqualTo(LocalDate.of(2024, 2, 29));
+        assertThat(entity.getLastSeen()).isEqualTo(lastSeen);
+        assertThat(entity.getPayload()).containsExactly(1, 2, 3);
+        assertThat(entity.getSlots()).containsExactly(4, 5, 6).isInstanceOf(ArrayList.class);
+        assertThat(entity.getHistory()).containsExactly(Long.MAX_VALUE, -1L);
+    }
+
+    @Test
+    @DisplayName("Should name the column of an unknown enum ordinal")
+    void shouldRejectUnknownOrdinal() {
+        // Given
+        database.getCodecs().registerEnumByOrdinal(Rank.class);
+        DynamicTable<CodecEntity> table = database.register(CodecEntity.class);
+        UUID id = UUID.randomUUID();
+        table.create(new CodecEntity(id, Rank.LEADER, BigDecimal.ONE, LocalDate.of(2024, 2, 29),
+                Instant.EPOCH, new byte[0], List.of(), new long[0]));
+        client.execute("UPDATE " + table.getTableName() + " SET rank = 7", null);
+
+        // When & Then
+        assertThatThrownBy(() -> table.findFirst().where("id", id).execute())
+                .isInstanceOf(DatabaseException.class)
+                .hasMessageContaining("Invalid ordinal 7")
+                .hasMessageContaining("'rank'");
+    }
+
+    @Test
+    @DisplayName("Should name the column of a collection with a null element")
+    void shouldRejectNullCollectionElements() {
+        // Given
+        DynamicTable<CodecEntity> table = database.register(CodecEntity.class);
+        CodecEntity entity = new CodecEntity(UUID.randomUUID(), Rank.MEMBER, BigDecimal.ONE, LocalDate.of(2024, 2, 29),
+                Instant.EPOCH, new byte[0], Arrays.asList(1, null, 3), new long[0]);
+
+        // When & Then
+        assertThatThrownBy(() -> table.create(entity))
+                .isInstanceOf(DatabaseException.class)
+                .hasMessageContaining("'slots'")
+                .hasMessageContaining("Element 1");
+        assertThat(table.findMany().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should bind non-string criteria of string fields by their text")
+    void shouldBindStringFieldsByText() {
+        // Given
+        DynamicTable<TestEntity> table = database.register(TestEntity.class);
+        table.create(new TestEntity(UUID.randomUUID(), "42", 25));
+
+        // When
+        Optional<TestEntity> result = table.findFirst().where("name", 42).execute();
+
+        // Then
+        assertThat(result).map(TestEntity::getName).contains("42");
+    }
+
+    @Test
+    @DisplayName("Should reject fields without a codec")
+    void shouldRejectUnsupportedFieldType() {
+        // When & Then
+        assertThatThrownBy(() -> database.register(UnsupportedEntity.class))
+                .isInstanceOf(DatabaseException.class)
+                .hasMessageContaining("Unsupported field type");
+    }
+
+    @Test
+    @DisplayName("Should bump version on save and reject stale writes")
+    void shouldRejectStaleVersionedSave() {
+        // Given
+        DynamicTable<BankEntity> table = database.register(BankEntity.class);
+        UUID clanId = UUID.randomUUID();
+        table.create(new BankEntity(clanId, 100, 0));
+        BankEntity first = table.findFirst().where("clanId", clanId).execute().orElseThrow();
+        BankEntity second = table.findFirst().where("clanId", clanId).execute().orElseThrow();
+
+        // When
+        table.save(new BankEntity(clanId, first.getBalance() + 50, first.getVersion()));
+
+        // Then
+        assertThatThrownBy(() -> table.save(new BankEntity(clanId, second.getBalance() - 30, second.getVersion())))
+                .isInstanceOf(VersionConflictException.class);
+        BankEntity stored = table.findFirst().where("clanId", clanId).execute().orElseThrow();
+        assertThat(stored.getBalance()).isEqualTo(150);
+        assertThat(stored.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reject saving an entity without a version")
+    void shouldRejectNullVersionOnSave() {
+        // Given
+        DynamicTable<LedgerEntity> table = database.register(LedgerEntity.class);
+        UUID id = UUID.randomUUID();
+
+        // When & Then
+        assertThatThrownBy(() -> table.save(new LedgerEntity(id, 100, null)))
+                .isInstanceOf(DatabaseException.class)
+                .isNotInstanceOf(VersionConflictException.class)
+                .hasMessageContaining("'version'");
+    }
+
+    @Test
+    @DisplayName("Should retry read-modify-write after a version conflict")
+    void shouldRetryOnConflict() {
+        // Given
+        DynamicTable<BankEntity> table = database.register(BankEntity.class);
+        UUID clanId = UUID.randomUUID();
+        table.create(new BankEntity(clanId, 100, 0));
+        int[] attempts = {0};
+
+        // When
+        table.retryOnConflict(3, () -> {
+            BankEntity bank = table.findFirst().where("clanId", clanId).execute().orElseThrow();
+            if (attempts[0]++ == 0) {
+                table.update().set("balance", 200L).where("clanId", clanId).execute();
+            }
+            return table.save(new BankEntity(clanId, bank.getBalance() + 10, bank.getVersion()));
+        });
+
+        // Then
+        assertThat(attempts[0]).isEqualTo(2);
+        BankEntity stored = table.findFirst().where("clanId", clanId).execute().orElseThrow();
+        assertThat(stored.getBalance()).isEqualTo(210);
+        assertThat(stored.getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should report full scans once per query shape")
+    void shouldReportFullScansPerShape() {
+        // Given
+        DynamicTable<TestEntity> table = database.register(TestEntity.class);
+        table.create(new TestEntity(UUID.randomUUID(), "John", 25));
+        client.execute("ANALYZE", null);
+        database.getDiagnostics().enable();
+
+        // When
+        table.findFirst().where("id", UUID.randomUUID()).execute();
+        table.findMany().where("name", "John").execute();
+        table.findMany().where("name", "Jane").execute();
+        table.findMany().whereIn("name", "A", "B").execute();
+        table.findMany().whereIn("name", "A", "B", "C").execute();
+
+        // Then
+        assertThat(database.getDiagnostics().getReports()).hasSize(3);
+        assertThat(database.getDiagnostics().getFullScans())
+                .extracting(QueryPlanReport::getShape)
+                .containsExactlyInAnyOrder(
+                        "SELECT id, name, age FROM test_entitys WHERE name = ?",
+                        "SELECT id, name, age FROM test_entitys WHERE name IN (?, ...)");
+        assertThat(database.getDiagnostics().getFullScans())
+                .allSatisfy(report -> assertThat(report.getEstimatedRows()).isEqualTo(1));
+    }
+
+    @Test
+    @DisplayName("Should skip queries without criteria and collapse LIMIT values into one shape")
+    void shouldSkipUnfilteredQueriesAndCollapseLimits() {
+        // Given
+        DynamicTable<TestEntity> table = database.register(TestEntity.class);
+        table.create(new TestEntity(UUID.randomUUID(), "John", 25));
+        database.getDiagnostics().enable();
+
+        // When
+        table.findMany().execute();
+        table.findMany().limit(5).execute();
+        table.findMany().where("name", "John").limit(5).execute();
+        table.findMany().where("name", "John").limit(10).execute();
+
+        // Then
+        assertThat(database.getDiagnostics().getReports())
+                .extracting(QueryPlanReport::getShape)
+                .containsExactly("SELECT id, name, age FROM test_entitys WHERE name = ? LIMIT ?");
+        assertThat(database.getDiagnostics().getFullScans())
+                .allSatisfy(report -> assertThat(report.getEstimatedRows()).isEqualTo(-1));
+    }
+
+    @Test
+    @DisplayName("Should overwrite existing fingerprint rows when a schema changed")
+    void shouldOverwriteExistingFingerprints() {
+        // Given
+        database.registerAll(TestEntity.class);
+        client.execute("UPDATE " + SchemaBootstrap.METADATA_TABLE + " SET fingerprint = 'stale'", null);
+        List<DynamicTable<?>> tables = List.of(database.get("test_entitys", TestEntity.class));
+
+        // When
+        int first = SchemaBootstrap.run(client, tables);
+        int second = SchemaBootstrap.run(client, tables);
+
+        // Then
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isZero();
+        assertThat(client.query("SELECT fingerprint FROM " + SchemaBootstrap.METADATA_TABLE, null,
+                resultSet -> resultSet.getString(1))).singleElement().isNotEqualTo("stale");
+    }
+
+    @Test
+    @DisplayName("Should stream entities and deliver them in batches")
+    void shouldStreamAndBatchEntities() {
+        // Given
+        DynamicTable<TestEntity> table = database.register(TestEntity.class);
+        for (int i = 0; i < 25; i++) {
+            table.create(new TestEntity(UUID.randomUUID(), "Player" + i, i));
+        }
+        List<Integer> batchSizes = new ArrayList<>();
+
+        // When
+        long adults;
+        try (Stream<TestEntity> stream = table.findMany().fetchSize(4).stream()) {
+            adults = stream.filter(entity -> entity.getAge() >= 18).count();
+        }
+        table.findMany().forEachBatch(10, batch -> batchSizes.add(batch.size()));
+
+        // Then
+        assertThat(adults).isEqualTo(7);
+        assertThat(batchSizes).containsExactly(10, 10, 5);
+    }
+
+    @Test
+    @DisplayName("Should bootstrap tables in bulk and skip unchanged schemas")
+    void shouldBootstrapTablesInBulk() {
+        // Given
+        database.registerAll(TestEntity.class, BankEntity.class);
+        DynamicDatabase restarted = new DynamicDatabase(client);
+
+        // When
+        Map<String, DynamicTable<?>> tables = restarted.registerAll(TestEntity.class, BankEntity.class);
+
+        // Then
+        assertThat(tables).containsOnlyKeys("test_entitys", "bank_entitys");
+        assertThat(SchemaBootstrap.run(client, List.copyOf(tables.values()))).isZero();
+        UUID id = UUID.randomUUID();
+        restarted.get("test_entitys", TestEntity.class).create(new TestEntity(id, "John", 25));
+        assertThat(restarted.get("test_entitys", TestEntity.class).findFirst().where("id", id).execute())
+                .isPresent();
+    }
+
+    @Test
+    @DisplayName("Should route by key, scatter queries and rebalance after adding a shard")
+    void shouldShardAndRebalance(@TempDir Path directory) {
+        // Given
+        for (String shard : List.of("shard-a", "shard-b", "shard-c")) {
+            manager.register(shard, DatabaseConfig.builder(DatabaseType.SQLITE)
+                    .file(directory.resolve(shard + ".db").toString())
+                    .build());
+        }
+        List<UUID> ids = new ArrayList<>();
+        try (ShardedTable<TestEntity> twoShards = ShardedTable.builder(manager, TestEntity.class)
+                .shards("shard-a", "shard-b")
+                .build()) {
+            for (int i = 0; i < 40; i++) {
+                UUID id = UUID.randomUUID();
+                ids.add(id);
+                twoShards.create(new TestEntity(id, "Player" + i, i));
+            }
+            twoShards.upsert(new TestEntity(ids.get(0), "Renamed", 0));
+            assertThat(twoShards.find(ids.get(0))).get().extracting(TestEntity::getName).isEqualTo("Renamed");
+            assertThat(twoShards.findMany().where("age", QueryOperator.LESS_THAN, 10).count()).isEqualTo(10);
+        }
+
+        // When
+        try (ShardedTable<TestEntity> threeShards = ShardedTable.builder(manager, TestEntity.class)
+                .shards("shard-a", "shard-b", "shard-c")
+                .build()) {
+            long moved = threeShards.rebalance(7).completion().join();
+
+            // Then
+            assertThat(moved).isPositive();
+            assertThat(threeShards.findMany().execute()).hasSize(40);
+            for (UUID id : ids) {
+                DynamicTable<TestEntity> owner = threeShards.shardFor(id);
+                assertThat(owner.findFirst().where("id", id).execute()).isPresent();
+            }
+            assertThat(threeShards.rebalance(7).completion().join()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Should merge ordered and aggregated scatter queries across shards")
+    void shouldMergeScatterQueries(@TempDir Path directory) {
+        // Given
+        for (String shard : List.of("shard-a", "shard-b")) {
+            manager.register(shard, DatabaseConfig.builder(DatabaseType.SQLITE)
+                    .file(directory.resolve(shard + ".db").toString())
+                    .build());
+        }
+        try (ShardedTable<TestEntity> players = ShardedTable.builder(manager, TestEntity.class)
+                .shards("shard-a", "shard-b")
+                .build();
+             ShardedTable<CodecEntity> codecs = ShardedTable.builder(manager, CodecEntity.class)
+                     .shards("shard-a", "shard-b")
+                     .build()) {
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                UUID id = UUID.randomUUID();
+                ids.add(id.toString());
+                players.create(new TestEntity(id, "Player" + i, i));
+            }
+            players.create(new TestEntity(UUID.randomUUID(), "Newbie", null));
+            ids.sort(null);
+
+            // When & Then
+            assertThat(players.findMany().orderBy("age", SortOrder.DESCENDING).limit(3).execute())
+                    .extracting(TestEntity::getAge).containsExactly(39, 38, 37);
+            assertThat(players.findMany().orderBy("age", SortOrder.ASCENDING).limit(3).execute())
+                    .extracting(TestEntity::getAge).containsExactly(null, 0, 1);
+            assertThat(players.findMany().whereIsNotNull("age").orderBy("id", SortOrder.ASCENDING).limit(5).execute())
+                    .extracting(entity -> entity.getId().toString()).containsExactlyElementsOf(ids.subList(0, 5));
+            assertThat(players.findMany().sum("age")).isEqualTo(780);
+            assertThat(players.findMany().where("age", QueryOperator.LESS_THAN, 10).sum("age")).isEqualTo(45);
+            assertThat(players.findMany().min("age")).hasValue(0);
+            assertThat(players.findMany().max("age")).hasValue(39);
+            assertThat(players.findMany().where("name", "Nobody").max("age")).isEmpty();
+            assertThatThrownBy(() -> players.findMany().sum("name")).isInstanceOf(DatabaseException.class);
+            assertThatThrownBy(() -> codecs.findMany().orderBy("joined", SortOrder.ASCENDING))
+                    .isInstanceOf(DatabaseException.class)
+                    .hasMessageContaining("joined");
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep updates and deletes made while a rebalance runs")
+    void shouldKeepWritesDuringRebalance(@TempDir Path directory) {
+        // Given
+        for (String shard : List.of("shard-a", "shard-b", "shard-c")) {
+            manager.register(shard, DatabaseConfig.builder(DatabaseType.SQLITE)
+                    .file(directory.resolve(shard + ".db").toString())
+                    .build());
+        }
+        List<UUID> ids = new ArrayList<>();
+        try (ShardedTable<TestEntity> twoShards = ShardedTable.builder(manager, TestEntity.class)
+                .shards("shard-a", "shard-b")
+                .build()) {
+            for (int i = 0; i < 200; i++) {
+                UUID id = UUID.randomUUID();
+                ids.add(id);
+                twoShards.create(new TestEntity(id, "Player" + i, i));
+            }
+        }
+
+        try (ShardedTable<TestEntity> threeShards = ShardedTable.builder(manager, TestEntity.class)
+                .shards("shard-a", "shard-b", "shard-c")
+                .build()) {
+            // When
+            ShardRebalancer<TestEntity> rebalancer = threeShards.rebalance(5);
+            for (int i = 0; i < ids.size(); i += 2) {
+                threeShards.update(ids.get(i)).set("name", "Updated").execute();
+                threeShards.delete(ids.get(i + 1));
+            }
+            rebalancer.completion().join();
+
+            // Then
+            assertThat(threeShards.findMany().count()).isEqualTo(100);
+            for (int i = 0; i < ids.size(); i += 2) {
+                DynamicTable<TestEntity> owner = threeShards.shardFor(ids.get(i));
+                assertThat(owner.findFirst().where("id", ids.get(i)).execute())
+                        .get().extracting(TestEntity::getName).isEqualTo("Updated");
+                assertThat(threeShards.find(ids.get(i + 1))).isEmpty();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the leaderboard in sync with writes")
+    void shouldMaintainLeaderboard() throws InterruptedException {
+        // Given
+        DynamicTable<TestEntity> table = database.register(TestEntity.class);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            table.create(new TestEntity(id, "Player" + i, i));
+        }
+
+        try (Leaderboard<TestEntity> leaderboard = Leaderboard.builder(table, "age").size(5).buffer(5).build()) {
+            // When
+            UUID newcomer = UUID.randomUUID();
+            table.create(new TestEntity(newcomer, "Newcomer", 100));
+            table.delete().where("id", ids.get(29)).execute();
+            table.update().set("age", 50).where("id", ids.get(0)).execute();
+            for (int i = 0; i < 200 && leaderboard.getEntry(ids.get(0)).isEmpty(); i++) {
+                Thread.sleep(10);
+            }
+
+            // Then
+            assertThat(leaderboard.getTop()).extracting(entry -> entry.getEntity().getName())
+                    .containsExactly("Newcomer", "Player0", "Player28", "Player27", "Player26");
+            assertThat(leaderboard.getRank(newcomer)).hasValue(1);
+            assertThat(leaderboard.getRank(ids.get(29))).isEmpty();
+            assertThat(table.findMany().orderBy("age", SortOrder.DESCENDING).limit(2).execute())
+                    .extracting(TestEntity::getAge).containsExactly(100, 50);
+        }
+    }
+
+    @Test
+    @DisplayName("Should count the rank of rows below the leaderboard window in the database")
+    void shouldCountRankBelowLeaderboardWindow() {
+        // Given
+        DynamicTable<TestEntity> table = database.register(TestEntity.class);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            table.create(new TestEntity(id, "Player" + i, i));
+        }
+
+        try (Leaderboard<TestEntity> leaderboard = Leaderboard.builder(table, "age").size(5).buffer(5).build()) {
+            // When
+            UUID tied = UUID.randomUUID();
+            table.create(new TestEntity(tied, "Tied", 3));
+
+            // Then
+            assertThat(leaderboard.getRank(ids.get(29))).hasValue(1);
+            assertThat(leaderboard.getRank(ids.get(22))).hasValue(8);
+            assertThat(leaderboard.getEntry(ids.get(22))).isEmpty();
+            assertThat(leaderboard.getRank(ids.get(3))).hasValue(27);
+            assertThat(leaderboard.getRank(tied)).hasValue(27);
+            assertThat(leaderboard.getRank(UUID.randomUUID())).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("Should load relations with batched queries")
+    void shouldIncludeRelations() {
+        // Given
+        DynamicTable<ClanEntity> clans = database.register(ClanEntity.class);
+        DynamicTable<MemberEntity> members = database.register(MemberEntity.class);
+        UUID red = UUID.randomUUID();
+        UUID blue = UUID.randomUUID();
+        UUID empty = UUID.randomUUID();
+        clans.create(new ClanEntity(red, "Red", null));
+        clans.create(new ClanEntity(blue, "Blue", null));
+        clans.create(new ClanEntity(empty, "Empty", null));
+        members.create(new MemberEntity(UUID.randomUUID(), red, "Alice", null));
+        members.create(new MemberEntity(UUID.randomUUID(), red, "Bob", null));
+        members.create(new MemberEntity(UUID.randomUUID(), blue, "Carol", null));
+
+        // When
+        List<ClanEntity> loaded = clans.findMany()
+                .orderBy("name", SortOrder.ASCENDING)
+                .include("members", "members.clan")
+                .execute();
+        List<MemberEntity> lazy = members.findMany().execute();
+
+        // Then
+        assertThat(loaded).extracting(ClanEntity::getName).containsExactly("Blue", "Empty", "Red");
+        assertThat(loaded.get(0).getMembers()).extracting(MemberEntity::getName).containsExactly("Carol");
+        assertThat(loaded.get(1).getMembers()).isEmpty();
+        assertThat(loaded.get(2).getMembers()).extracting(MemberEntity::getName)
+                .containsExactlyInAnyOrder("Alice", "Bob");
+        assertThat(loaded.get(2).getMembers().get(0).getClan().getName()).isEqualTo("Red");
+        assertThat(lazy).allSatisfy(member -> assertThat(member.getClan()).isNull());
+    }
+
+    @Test
+    @DisplayName("Should export, import and copy tables in bulk")
+    void shouldTransferTablesInBulk(@TempDir Path directory) {
+        // Given
+        DynamicTable<TestEntity> source = new DynamicDatabase(manager.register("bulk-source",
+                DatabaseConfig.builder(DatabaseType.SQLITE).file(directory.resolve("source.db").toString()).build()))
+                .register(TestEntity.class);
+        DynamicTable<TestEntity> imported = new DynamicDatabase(manager.register("bulk-import",
+                DatabaseConfig.builder(DatabaseType.SQLITE).file(directory.resolve("import.db").toString()).build()))
+                .register(TestEntity.class);
+        DynamicTable<TestEntity> copied = new DynamicDatabase(manager.register("bulk-copy",
+                DatabaseConfig.builder(DatabaseType.SQLITE).file(directory.resolve("copy.db").toString()).build()))
+                .register(TestEntity.class);
+        List<TestEntity> rows = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            rows.add(new TestEntity(UUID.randomUUID(), "Player\t\"" + i, i % 7 == 0 ? null : i));
+        }
+        source.upsertAll(rows);
+        List<Long> progress = new CopyOnWriteArrayList<>();
+
+        // When
+        ByteArrayOutputStream export = new ByteArrayOutputStream();
+        long exportedRows = source.exportTo(export, null);
+        long importedRows = imported.importFrom(new ByteArrayInputStream(export.toByteArray()), null);
+        long copiedRows = source.copyTo(copied, progress::add);
+        byte[] truncated = Arrays.copyOf(export.toByteArray(), export.size() / 2);
+
+        // Then
+        assertThat(exportedRows).isEqualTo(2500);
+        assertThat(importedRows).isEqualTo(2500);
+        assertThat(copiedRows).isEqualTo(2500);
+        assertThat(progress).last().isEqualTo(2500L);
+        assertThat(copied.findMany().count()).isEqualTo(2500);
+        TestEntity first = rows.get(0);
+        assertThat(imported.findFirst().where("id", first.getId()).execute()).get()
+                .satisfies(entity -> {
+                    assertThat(entity.getName()).isEqualTo(first.getName());
+                    assertThat(entity.getAge()).isNull();
+                });
+        assertThatThrownBy(() -> copied.importFrom(new ByteArrayInputStream(truncated), null))
+                .isInstanceOf(DatabaseException.class);
+        assertThat(copied.findMany().count()).isEqualTo(2500);
+    }
+
+    @Test
+    @DisplayName("Should keep in-memory tables across restarts through snapshots")
+    void shouldRestoreInMemorySnapshot(@TempDir Path directory) {
+        // Given
+        DatabaseConfig config = DatabaseConfig.builder(DatabaseType.H2_MEMORY)
+                .database("arena")
+                .snapshot(directory.resolve("arena.snapshot").toString(), Duration.ofMinutes(1))
+                .build();
+        UUID id = UUID.randomUUID();
+        try (DatabaseManager memory = new DatabaseManager()) {
+            DynamicTable<TestEntity> table = new DynamicDatabase(memory.register("arena", config))
+                    .register(TestEntity.class);
+            table.create(new TestEntity(id, "John", 25));
+            table.upsert(new TestEntity(id, "Jane", 30));
+        }
+
+        // When
+        Optional<TestEntity> restored;
+        try (DatabaseManager memory = new DatabaseManager()) {
+            restored = new DynamicDatabase(memory.register("arena", config))
+                    .register(TestEntity.class)
+                    .findFirst()
+                    .where("id", id)
+                    .execute();
+        }
+
+        // Then
+        assertThat(restored).get().extracting(TestEntity::getName).isEqualTo("Jane");
+    }
+
+    @Test
+    @DisplayName("Should start pools in the background and await them on first use")
+    void shouldStartPoolsInBackground(@TempDir Path directory) {
+        // Given
+        DatabaseConfig config = DatabaseConfig.builder(DatabaseType.SQLITE)
+                .file(directory.resolve("background.db").toString())
+                .warmupStatement("SELECT 1")
+                .build();
+        DatabaseConfig broken = DatabaseConfig.builder(DatabaseType.SQLITE)
+                .file(directory.resolve("missing").resolve("broken.db").toString())
+                .startupTimeout(Duration.ofSeconds(5))
+                .build();
+
+        // When
+        DatabaseClient background = manager.registerInBackground("background", config);
+        DatabaseClient failing = manager.registerInBackground("broken", broken);
+        DynamicTable<TestEntity> table = new DynamicDatabase(background).register(TestEntity.class);
+        table.create(new TestEntity(UUID.randomUUID(), "John", 25));
+
+        // Then
+        assertThat(background.whenReady()).succeedsWithin(Duration.ofSeconds(5));
+        assertThat(table.findMany().count()).isEqualTo(1);
+        assertThat(failing.whenReady()).failsWithin(Duration.ofSeconds(5));
+        assertThatThrownBy(() -> failing.execute("SELECT 1", null)).isInstanceOf(DatabaseException.class);
+    }
+
+    @Test
+    @DisplayName("Should serve cached queries until the table is written")
+    void shouldCacheQueriesUntilWrite() {
+        // Given
+        DynamicTable<TestEntity> table = database.register(TestEntity.class);
+        table.create(new TestEntity(UUID.randomUUID(), "John", 25));
+        table.create(new TestEntity(UUID.randomUUID(), "Jane", 30));
+
+        // When
+        List<TestEntity> first = table.findMany().where("age", 25).cached(Duration.ofMinutes(1)).execute();
+        List<TestEntity> second = table.findMany().where("age", 25).cached(Duration.ofMinutes(1)).execute();
+        table.create(new TestEntity(UUID.randomUUID(), "Bob", 25));
+        List<TestEntity> afterWrite = table.findMany().where("age", 25).cached(Duration.ofMinutes(1)).execute();
+        List<TestEntity> otherValue = table.findMany().where("age", 30).cached(Duration.ofMinutes(1)).execute();
+
+        // Then
+        assertThat(second).isNotSameAs(first).extracting(TestEntity::getName).containsExactly("John");
+        assertThat(second.get(0)).isNotSameAs(first.get(0));
+        assertThat(afterWrite).hasSize(2);
+        assertThat(otherValue).hasSize(1);
+        assertThat(table.getCacheStats()).singleElement().satisfies(stats -> {
+            assertThat(stats.getHits()).isEqualTo(1);
+            assertThat(stats.getMisses()).isEqualTo(3);
+        });
+    }
+
+    @Test
+    @DisplayName("Should return copies of cached entities")
+    void shouldCopyCachedEntities() {
+        // Given
+        DynamicTable<CodecEntity> table = database.register(CodecEntity.class);
+        UUID id = UUID.randomUUID();
+        table.create(new CodecEntity(id, Rank.OFFICER, BigDecimal.ONE, LocalDate.of(2024, 2, 29),
+                Instant.EPOCH, new byte[]{1, 2, 3}, List.of(4, 5, 6), new long[]{7L}));
+
+        // When
+        CodecEntity first = table.findFirst().where("id", id).cached(Duration.ofMinutes(1)).execute().orElseThrow();
+        first.getPayload()[0] = 9;
+        first.getHistory()[0] = 9L;
+        CodecEntity second = table.findFirst().where("id", id).cached(Duration.ofMinutes(1)).execute().orElseThrow();
+
+        // Then
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getPayload()).containsExactly(1, 2, 3);
+        assertThat(second.getHistory()).containsExactly(7L);
+        assertThat(second.getSlots()).containsExactly(4, 5, 6).isNotSameAs(first.getSlots());
+        assertThat(table.getCacheStats()).singleElement().satisfies(stats -> assertThat(stats.getHits()).isEqualTo(1));
+    }
+
+    @Test
+    @DisplayName("Should not cache queries that include relations")
+    void shouldNotCacheIncludes() {
+        // Given
+        DynamicTable<ClanEntity> clans = database.register(ClanEntity.class);
+        DynamicTable<MemberEntity> members = database.register(MemberEntity.class);
+        UUID red = UUID.randomUUID();
+        clans.create(new ClanEntity(red, "Red", null));
+        members.create(new MemberEntity(UUID.randomUUID(), red, "Alice", null));
+
+        // When
+        clans.findMany().include("members").cached(Duration.ofMinutes(1)).execute();
+        members.create(new MemberEntity(UUID.randomUUID(), red, "Bob", null));
+        List<ClanEntity> loaded = clans.findMany().include("members").cached(Duration.ofMinutes(1)).execute();
+
+        // Then
+        assertThat(loaded.get(0).getMembers()).extracting(MemberEntity::getName)
+                .containsExactlyInAnyOrder("Alice", "Bob");
+        assertThat(clans.getCacheStats()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should deliver invalidations of other servers through the changelog")
+    void shouldDeliverRemoteInvalidations(@TempDir Path directory) throws InterruptedException {
+        // Given
+        DatabaseConfig shared = DatabaseConfig.builder(DatabaseType.SQLITE)
+                .file(directory.resolve("shared.db").toString())
+                .build();
+        DatabaseClient serverA = manager.register("server-a", shared);
+        DatabaseClient serverB = manager.register("server-b", shared);
+        List<TableChange<TestEntity>> received = new CopyOnWriteArrayList<>();
+        try (DatabaseInvalidationBus busA = DatabaseInvalidationBus.builder(serverA)
+                .pollInterval(Duration.ofMillis(50)).build();
+             DatabaseInvalidationBus busB = DatabaseInvalidationBus.builder(serverB)
+                     .pollInterval(Duration.ofMillis(50)).build()) {
+            DynamicTable<TestEntity> tableA = new DynamicDatabase(serverA).useInvalidationBus(busA)
+                    .register(TestEntity.class);
+            DynamicTable<TestEntity> tableB = new DynamicDatabase(serverB).useInvalidationBus(busB)
+                    .register(TestEntity.class);
+            tableA.addListener(received::add);
+            tableB.addListener(received::add);
+            UUID id = UUID.randomUUID();
+
+            // When
+            tableA.create(new TestEntity(id, "John", 25));
+            for (int i = 0; i < 300 && received.stream().noneMatch(TableChange::isRemote); i++) {
+                Thread.sleep(10);
+            }
+
+            // Then
+            assertThat(received).filteredOn(TableChange::isRemote)
+                    .singleElement()
+                    .satisfies(change -> {
+                        assertThat(change.getKey()).isEqualTo(id);
+                        assertThat(change.getEntity()).isEmpty();
+                    });
+            assertThat(received).filteredOn(change -> !change.isRemote())
+                    .extracting(TableChange::getType).containsExactly(TableChange.Type.INSERT);
+        }
+    }
+
+    @Test
+    @DisplayName("Should deliver rows after permanent sequence gaps without waiting for them")
+    void shouldDeliverPastSequenceGaps() throws InterruptedException {
+        // Given
+        List<String> received = new CopyOnWriteArrayList<>();
+        try (DatabaseInvalidationBus bus = DatabaseInvalidationBus.builder(client)
+                .pollInterval(Duration.ofMillis(50)).build()) {
+            bus.subscribe((tableName, key) -> received.add(key));
+            List<SqlConsumer<PreparedStatement>> rows = new ArrayList<>();
+            for (int i = 1; i <= 1_500; i++) {
+                long seq = i * 2L;
+                rows.add(statement -> {
+                    statement.setLong(1, seq);
+                    statement.setString(2, "key-" + seq);
+                });
+            }
+
+            // When
+            client.executeBatch("INSERT INTO " + DatabaseInvalidationBus.DEFAULT_TABLE
+                    + " (seq, table_name, row_key, node_id) VALUES (?, 'players', ?, 'other')", rows);
+            for (int i = 0; i < 200 && received.size() < 1_500; i++) {
+                Thread.sleep(10);
+            }
+            client.execute("INSERT INTO " + DatabaseInvalidationBus.DEFAULT_TABLE
+                    + " (seq, table_name, row_key, node_id) VALUES (1, 'players', 'late', 'other')", null);
+            for (int i = 0; i < 200 && !received.contains("late"); i++) {
+                Thread.sleep(10);
+            }
+        }
+
+        // Then
+        assertThat(received).hasSize(1_501).doesNotHaveDuplicates().contains("key-2", "key-3000", "late");
+    }
 }
@@ -0,0 +1,175 @@
+package io.github.chi2l3s.nextlib.api.database.player;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import io.github.chi2l3s.nextlib.api.database.DatabaseClient;
+import io.github.chi2l3s.nextlib.api.database.DatabaseConfig;
+import io.github.chi2l3s.nextlib.api.database.DatabaseException;
+import io.github.chi2l3s.nextlib.api.database.DatabaseManager;
+import io.github.chi2l3s.nextlib.api.database.DatabaseType;
+import io.github.chi2l3s.nextlib.api.database.dynamic.DynamicDatabase;
+import io.github.chi2l3s.nextlib.api.database.dynamic.DynamicTable;
+import io.github.chi2l3s.nextlib.api.database.dynamic.PrimaryKey;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("PlayerDataRepository Tests")
+class PlayerDataRepositoryTest {
+
+    private ServerMock server;
+    private DatabaseManager manager;
+    private DatabaseClient client;
+    private DynamicTable<PlayerEntity> table;
+    private PlayerDataRepository<PlayerEntity> repository;
+
+    @AllArgsConstructor
+    @Getter
+    static class PlayerEntity {
+        @PrimaryKey
+        private final UUID id;
+        private final int coins;
+
+        PlayerEntity withCoins(int coins) {
+            return new PlayerEntity(id, coins);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        JavaPlugin plugin = MockBukkit.createMockPlugin();
+        manager = new DatabaseManager();
+        client = manager.register("test", DatabaseConfig.builder(DatabaseType.SQLITE)
+                .file(":memory:")
+                .build());
+        table = new DynamicDatabase(client).register("players", PlayerEntity.class);
+        repository = PlayerDataRepository.builder(plugin, table, id -> new PlayerEntity(id, 0)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+        manager.close();
+        MockBukkit.unmock();
+    }
+
+    @Test
+    @DisplayName("Should load a new player on join and save changes on flush")
+    void shouldSaveChangesOnFlush() {
+        // Given
+        PlayerMock player = join();
+
+        // When
+        boolean updated = repository.update(player.getUniqueId(), data -> data.withCoins(data.getCoins() + 10));
+        repository.flush().join();
+
+        // Then
+        assertThat(updated).isTrue();
+        assertThat(stored(player)).map(PlayerEntity::getCoins).contains(10);
+        assertThat(repository.get(player.getUniqueId())).map(PlayerEntity::getCoins).contains(10);
+        assertThat(repository.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should load the stored row on join")
+    void shouldLoadStoredRowOnJoin() {
+        // Given
+        UUID id = UUID.randomUUID();
+        PlayerMock player = new PlayerMock(server, "Stored", id);
+        table.create(new PlayerEntity(id, 42));
+
+        // When
+        server.addPlayer(player);
+        server.getPluginManager().callEvent(new PlayerJoinEvent(player, "joined"));
+        server.getScheduler().waitAsyncTasksFinished();
+
+        // Then
+        assertThat(repository.get(id)).map(PlayerEntity::getCoins).contains(42);
+    }
+
+    @Test
+    @DisplayName("Should save and drop the player on quit")
+    void shouldSaveAndDropOnQuit() {
+        // Given
+        PlayerMock player = join();
+        repository.update(player.getUniqueId(), data -> data.withCoins(5));
+
+        // When
+        quit(player);
+
+        // Then
+        assertThat(repository.size()).isZero();
+        assertThat(repository.get(player.getUniqueId())).isEmpty();
+        assertThat(stored(player)).map(PlayerEntity::getCoins).contains(5);
+    }
+
+    @Test
+    @DisplayName("Should keep unsaved data when the quit save fails and retry it on the next flush")
+    void shouldRetryFailedQuitSave() {
+        // Given
+        PlayerMock player = join();
+        repository.update(player.getUniqueId(), data -> data.withCoins(7));
+        client.execute("ALTER TABLE players RENAME TO players_moved", statement -> { });
+
+        // When
+        quit(player);
+
+        // Then
+        assertThat(repository.size()).isEqualTo(1);
+        assertThat(repository.get(player.getUniqueId())).map(PlayerEntity::getCoins).contains(7);
+
+        // When
+        client.execute("ALTER TABLE players_moved RENAME TO players", statement -> { });
+        repository.flush().join();
+
+        // Then
+        assertThat(repository.size()).isZero();
+        assertThat(stored(player)).map(PlayerEntity::getCoins).contains(7);
+    }
+
+    @Test
+    @DisplayName("Should ignore quits and fail flushes after close")
+    void shouldIgnoreQuitAfterClose() {
+        // Given
+        PlayerMock player = join();
+        repository.update(player.getUniqueId(), data -> data.withCoins(3));
+        repository.close();
+
+        // When / Then
+        assertThatCode(() -> server.getPluginManager().callEvent(new PlayerQuitEvent(player, "bye")))
+                .doesNotThrowAnyException();
+        assertThat(repository.flush()).isCompletedExceptionally();
+        assertThatThrownBy(() -> repository.flush().join()).hasCauseInstanceOf(DatabaseException.class);
+        assertThat(stored(player)).map(PlayerEntity::getCoins).contains(3);
+    }
+
+    private PlayerMock join() {
+        PlayerMock player = server.addPlayer();
+        server.getPluginManager().callEvent(new PlayerJoinEvent(player, "joined"));
+        server.getScheduler().waitAsyncTasksFinished();
+        assertThat(repository.get(player.getUniqueId())).isPresent();
+        return player;
+    }
+
+    private void quit(PlayerMock player) {
+        server.getPluginManager().callEvent(new PlayerQuitEvent(player, "bye"));
+        repository.flush().join();
+    }
+
+    private Optional<PlayerEntity> stored(PlayerMock player) {
+        return table.findFirst().where("id", player.getUniqueId()).execute();
+    }
+}
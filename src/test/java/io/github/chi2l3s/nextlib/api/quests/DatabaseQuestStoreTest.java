@@ -0,0 +1,209 @@
+package io.github.chi2l3s.nextlib.api.quests;
+
+import io.github.chi2l3s.nextlib.api.database.DatabaseClient;
+import io.github.chi2l3s.nextlib.api.database.DatabaseConfig;
+import io.github.chi2l3s.nextlib.api.database.DatabaseException;
+import io.github.chi2l3s.nextlib.api.database.DatabaseManager;
+import io.github.chi2l3s.nextlib.api.database.DatabaseType;
+import io.github.chi2l3s.nextlib.api.quests.objectivies.BlockBreakObjective;
+import io.github.chi2l3s.nextlib.api.quests.objectivies.CraftObjective;
+import org.bukkit.Material;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("DatabaseQuestStore Tests")
+class DatabaseQuestStoreTest {
+
+    private DatabaseManager manager;
+    private DatabaseClient client;
+    private DatabaseQuestStore store;
+    private Quest quest;
+
+    @BeforeEach
+    void setUp() {
+        manager = new DatabaseManager();
+        client = manager.register("test", DatabaseConfig.builder(DatabaseType.SQLITE)
+                .file(":memory:")
+                .build());
+        store = new DatabaseQuestStore(client);
+        quest = new Quest("miner", "Miner", "Mine and craft", List.of(
+                new BlockBreakObjective("stone", "Mine stone", Material.STONE, 10),
+                new BlockBreakObjective("dirt", "Dig dirt", Material.DIRT, 10),
+                new CraftObjective("bread", "Bake bread", Material.BREAD, 3)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (manager != null) {
+            manager.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should write every objective on the first save of new progress")
+    void shouldWriteAllObjectivesOnFirstSave() {
+        // Given
+        UUID playerId = UUID.randomUUID();
+        QuestProgress progress = new QuestProgress(quest, playerId);
+
+        // When
+        store.saveProgress(progress);
+
+        // Then
+        assertThat(storedRows(playerId)).containsOnlyKeys("stone", "dirt", "bread");
+    }
+
+    @Test
+    @DisplayName("Should upsert only the objectives changed since the last save")
+    void shouldUpsertOnlyChangedObjectives() {
+        // Given
+        UUID playerId = UUID.randomUUID();
+        QuestProgress progress = new QuestProgress(quest, playerId);
+        progress.increment(0, 4);
+        store.saveProgress(progress);
+        // A row changed behind the store's back is only overwritten if its objective changes again
+        client.execute("UPDATE nextlib_quest_progress SET progress = 9 WHERE objective_id = 'dirt'", null);
+
+        // When
+        progress.increment(0, 2);
+        store.saveProgress(progress);
+
+        // Then
+        assertThat(storedRows(playerId))
+                .containsEntry("stone", 6.0)
+                .containsEntry("dirt", 9.0)
+                .containsEntry("bread", 0.0);
+    }
+
+    @Test
+    @DisplayName("Should not write unchanged progress")
+    void shouldSkipUnchangedProgress() {
+        // Given
+        UUID playerId = UUID.randomUUID();
+        QuestProgress progress = new QuestProgress(quest, playerId);
+        store.saveProgress(progress);
+        client.execute("DELETE FROM nextlib_quest_progress", null);
+
+        // When
+        store.saveAll(List.of(progress));
+
+        // Then
+        assertThat(storedRows(playerId)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should write changed objectives again after a failed save")
+    void shouldRetryChangesAfterFailedSave() {
+        // Given
+        UUID playerId = UUID.randomUUID();
+        QuestProgress progress = new QuestProgress(quest, playerId);
+        store.saveProgress(progress);
+        progress.increment(2, 1);
+        client.execute("ALTER TABLE nextlib_quest_progress RENAME TO quest_progress_moved", null);
+
+        // When
+        assertThatThrownBy(() -> store.saveProgress(progress)).isInstanceOf(DatabaseException.class);
+        client.execute("ALTER TABLE quest_progress_moved RENAME TO nextlib_quest_progress", null);
+        store.saveProgress(progress);
+
+        // Then
+        assertThat(storedRows(playerId)).containsEntry("bread", 1.0);
+    }
+
+    @Test
+    @DisplayName("Should load stored progress and skip quests that are no longer registered")
+    void shouldLoadStoredProgress() {
+        // Given
+        UUID playerId = UUID.randomUUID();
+        QuestProgress progress = new QuestProgress(quest, playerId);
+        progress.increment(1, 5);
+        Quest removed = new Quest("removed", "Removed", "Gone",
+                List.of(new BlockBreakObjective("stone", "Mine stone", Material.STONE, 1)));
+        store.saveAll(List.of(progress, new QuestProgress(removed, playerId)));
+
+        // When
+        List<QuestProgress> loaded = store.loadAll(playerId,
+                id -> id.equals(quest.getId()) ? Optional.of(quest) : Optional.empty());
+
+        // Then
+        assertThat(loaded).hasSize(1);
+        assertThat(loaded.get(0).getProgress("dirt")).isEqualTo(5.0);
+        assertThat(store.loadProgress(playerId, quest)).map(loadedProgress -> loadedProgress.getProgress("dirt"))
+                .contains(5.0);
+        assertThat(store.loadProgress(UUID.randomUUID(), quest)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should load more players than fit in one IN query")
+    void shouldLoadPlayersInChunks() {
+        // Given
+        List<UUID> playerIds = new ArrayList<>();
+        List<QuestProgress> progress = new ArrayList<>();
+        for (int i = 0; i < 1_200; i++) {
+            UUID playerId = UUID.randomUUID();
+            QuestProgress entry = new QuestProgress(quest, playerId);
+            entry.increment(0, i % 10);
+            playerIds.add(playerId);
+            progress.add(entry);
+        }
+        store.saveAll(progress);
+        UUID unknown = UUID.randomUUID();
+        playerIds.add(unknown);
+
+        // When
+        Map<UUID, List<QuestProgress>> loaded = store.loadAll(playerIds, id -> Optional.of(quest));
+
+        // Then
+        assertThat(loaded).hasSize(1_201);
+        assertThat(loaded.get(unknown)).isEmpty();
+        for (int i = 0; i < 1_200; i++) {
+            assertThat(loaded.get(playerIds.get(i))).singleElement()
+                    .extracting(entry -> entry.getProgress("stone"))
+                    .isEqualTo((double) (i % 10));
+        }
+    }
+
+    @Test
+    @DisplayName("Should upsert and load progress on H2")
+    void shouldUpsertOnH2() {
+        // Given
+        DatabaseClient h2 = manager.register("h2", DatabaseConfig.builder(DatabaseType.H2_MEMORY)
+                .database("quests")
+                .build());
+        DatabaseQuestStore h2Store = new DatabaseQuestStore(h2);
+        UUID playerId = UUID.randomUUID();
+        QuestProgress progress = new QuestProgress(quest, playerId);
+        progress.increment(0, 3);
+        h2Store.saveProgress(progress);
+
+        // When
+        progress.increment(0, 3);
+        h2Store.saveProgress(progress);
+        Map<UUID, List<QuestProgress>> loaded = h2Store.loadAll(List.of(playerId), id -> Optional.of(quest));
+
+        // Then
+        assertThat(loaded.get(playerId)).singleElement()
+                .satisfies(stored -> assertThat(stored.getAllProgress())
+                        .containsExactly(entry("stone", 6.0), entry("dirt", 0.0), entry("bread", 0.0)));
+    }
+
+    private Map<String, Double> storedRows(UUID playerId) {
+        Map<String, Double> rows = new HashMap<>();
+        client.query("SELECT objective_id, progress FROM nextlib_quest_progress WHERE player_uuid = ?",
+                        statement -> statement.setString(1, playerId.toString()),
+                        resultSet -> Map.entry(resultSet.getString(1), resultSet.getDouble(2)))
+                .forEach(row -> rows.put(row.getKey(), row.getValue()));
+        return rows;
+    }
+}
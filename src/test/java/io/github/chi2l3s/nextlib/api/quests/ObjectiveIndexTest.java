@@ -0,0 +1,85 @@
+package io.github.chi2l3s.nextlib.api.quests;
+
+import io.github.chi2l3s.nextlib.api.quests.objectivies.BlockBreakObjective;
+import io.github.chi2l3s.nextlib.api.quests.objectivies.KillObjective;
+import io.github.chi2l3s.nextlib.api.quests.objectivies.TravelObjective;
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("ObjectiveIndex Tests")
+class ObjectiveIndexTest {
+
+    private final QuestObjective stone = new BlockBreakObjective("stone", "Mine stone", Material.STONE, 10);
+    private final QuestObjective anyBlock = new BlockBreakObjective("any", "Mine anything", null, 10);
+    private final QuestObjective dirt = new BlockBreakObjective("dirt", "Dig dirt", Material.DIRT, 10);
+    private final QuestObjective zombies = new KillObjective("zombies", "Kill zombies", EntityType.ZOMBIE, 5);
+    private final Quest quest = new Quest("mixed", "Mixed", "Everything", List.of(stone, anyBlock, dirt, zombies));
+
+    @Test
+    @DisplayName("Should return keyed objectives together with wildcard objectives in quest order")
+    void shouldDispatchKeyedAndWildcardObjectives() {
+        // Given
+        ObjectiveIndex<QuestObjective> index = ObjectiveIndex.of(quest);
+
+        // When / Then
+        assertThat(index.candidates(QuestObjectiveType.BREAK_BLOCK, Material.STONE)).containsExactly(stone, anyBlock);
+        assertThat(index.candidates(QuestObjectiveType.BREAK_BLOCK, Material.DIRT)).containsExactly(anyBlock, dirt);
+        assertThat(index.candidates(QuestObjectiveType.BREAK_BLOCK, Material.OAK_LOG)).containsExactly(anyBlock);
+        assertThat(index.candidates(QuestObjectiveType.KILL_ENTITY, EntityType.ZOMBIE)).containsExactly(zombies);
+        assertThat(index.candidates(QuestObjectiveType.KILL_ENTITY, EntityType.COW)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should return every objective of a type for a null key")
+    void shouldReturnAllObjectivesForNullKey() {
+        // Given
+        ObjectiveIndex<QuestObjective> index = ObjectiveIndex.of(quest);
+
+        // When / Then
+        assertThat(index.candidates(QuestObjectiveType.BREAK_BLOCK, null)).containsExactly(stone, anyBlock, dirt);
+        assertThat(index.candidates(QuestObjectiveType.TRAVEL_DISTANCE, null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should report only the objective types it holds")
+    void shouldReportContainedTypes() {
+        // Given
+        ObjectiveIndex<QuestObjective> index = ObjectiveIndex.of(quest);
+
+        // When / Then
+        assertThat(index.contains(QuestObjectiveType.BREAK_BLOCK)).isTrue();
+        assertThat(index.contains(QuestObjectiveType.KILL_ENTITY)).isTrue();
+        assertThat(index.contains(QuestObjectiveType.FISH)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should bind the objectives of several quests to their progress")
+    void shouldBuildPlayerIndexFromProgress() {
+        // Given
+        UUID playerId = UUID.randomUUID();
+        Quest travel = new Quest("travel", "Travel", "Walk", List.of(
+                new TravelObjective("walk", "Walk 100 m", 100),
+                new BlockBreakObjective("stone", "Mine stone", Material.STONE, 1)));
+        QuestProgress mixedProgress = new QuestProgress(quest, playerId);
+        QuestProgress travelProgress = new QuestProgress(travel, playerId);
+
+        // When
+        ObjectiveIndex<ObjectiveIndex.Target> index = ObjectiveIndex.of(List.of(mixedProgress, travelProgress),
+                ObjectiveIndex::of);
+        List<ObjectiveIndex.Target> targets = index.candidates(QuestObjectiveType.BREAK_BLOCK, Material.STONE);
+
+        // Then
+        assertThat(targets).extracting(target -> target.progress)
+                .containsExactly(mixedProgress, mixedProgress, travelProgress);
+        assertThat(targets).extracting(target -> target.index).containsExactly(0, 1, 1);
+        assertThat(index.candidates(QuestObjectiveType.TRAVEL_DISTANCE, null)).singleElement()
+                .satisfies(target -> assertThat(target.progress).isSameAs(travelProgress));
+    }
+}
@@ -0,0 +1,215 @@
+package io.github.chi2l3s.nextlib.api.quests;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("PlaytimeTicker Tests")
+class PlaytimeTickerTest {
+
+    private RecordingManager manager;
+    private FakeTime time;
+    private PlaytimeTicker ticker;
+
+    static class RecordingManager extends QuestManager {
+        private final Set<UUID> playing = new LinkedHashSet<>();
+        private final Map<UUID, Double> minutes = new HashMap<>();
+
+        RecordingManager() {
+            super(new QuestManagerTest.InMemoryStore());
+        }
+
+        @Override
+        public Set<UUID> getPlayersWithObjective(QuestObjectiveType type) {
+            return type == QuestObjectiveType.PLAY_TIME ? Set.copyOf(playing) : Set.of();
+        }
+
+        @Override
+        public boolean hasActiveObjective(UUID playerId, QuestObjectiveType type) {
+            return type == QuestObjectiveType.PLAY_TIME && playing.contains(playerId);
+        }
+
+        @Override
+        public void recordPlaytime(UUID playerId, double minutes) {
+            this.minutes.merge(playerId, minutes, Double::sum);
+        }
+    }
+
+    /**
+     * Time source moved by hand; with a step set, every read also advances it, so each read uses up budget.
+     */
+    static class FakeTime {
+        private long now = 1_000;
+        private long step;
+
+        long read() {
+            now += step;
+            return now;
+        }
+
+        void advance(Duration duration) {
+            now += duration.toNanos();
+        }
+    }
+
+    private static Player player(UUID playerId) {
+        return (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[]{Player.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getUniqueId" -> playerId;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    @BeforeEach
+    void setUp() {
+        MockBukkit.mock();
+        manager = new RecordingManager();
+        time = new FakeTime();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (ticker != null) {
+            ticker.close();
+        }
+        MockBukkit.unmock();
+    }
+
+    private PlaytimeTicker.Builder builder() {
+        return PlaytimeTicker.builder(MockBukkit.createMockPlugin(), manager).nanoTime(time::read);
+    }
+
+    private UUID join() {
+        UUID playerId = UUID.randomUUID();
+        manager.playing.add(playerId);
+        ticker.onJoin(new PlayerJoinEvent(player(playerId), ""));
+        return playerId;
+    }
+
+    @Test
+    @DisplayName("Should spread a pass over several ticks when the tick budget runs out")
+    void shouldSplitPassByBudget() {
+        // Given
+        ticker = builder()
+                .interval(Duration.ofMinutes(1))
+                .tickBudget(Duration.ofNanos(1))
+                .build();
+        List<UUID> players = List.of(join(), join(), join());
+        time.advance(Duration.ofMinutes(1));
+        time.step = 1;
+
+        // When & Then
+        ticker.tick();
+        assertThat(manager.minutes).hasSize(1);
+        ticker.tick();
+        assertThat(manager.minutes).hasSize(2);
+        ticker.tick();
+        assertThat(manager.minutes).containsOnlyKeys(players);
+        manager.minutes.values().forEach(minutes -> assertThat(minutes).isCloseTo(1.0, within(0.001)));
+    }
+
+    @Test
+    @DisplayName("Should not start a new pass before the interval has passed")
+    void shouldWaitForInterval() {
+        // Given
+        ticker = builder().interval(Duration.ofMinutes(1)).build();
+        join();
+        time.advance(Duration.ofSeconds(59));
+
+        // When
+        ticker.tick();
+
+        // Then
+        assertThat(manager.minutes).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should stop crediting at the last activity plus the AFK timeout")
+    void shouldStopAtAfkTimeout() {
+        // Given
+        ticker = builder()
+                .interval(Duration.ofMinutes(10))
+                .afkTimeout(Duration.ofMinutes(3))
+                .build();
+        UUID idle = join();
+        UUID active = join();
+        time.advance(Duration.ofMinutes(4));
+        ticker.markActive(active);
+        time.advance(Duration.ofMinutes(6));
+
+        // When
+        ticker.tick();
+
+        // Then
+        assertThat(ticker.isAfk(idle)).isTrue();
+        assertThat(ticker.isAfk(active)).isTrue();
+        assertThat(manager.minutes.get(idle)).isEqualTo(3.0);
+        assertThat(manager.minutes.get(active)).isEqualTo(7.0);
+    }
+
+    @Test
+    @DisplayName("Should credit at most two intervals at once")
+    void shouldCapAtTwoIntervals() {
+        // Given
+        ticker = builder().interval(Duration.ofMinutes(1)).build();
+        UUID playerId = join();
+        time.advance(Duration.ofMinutes(5));
+
+        // When
+        ticker.tick();
+
+        // Then
+        assertThat(manager.minutes.get(playerId)).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Should credit the time since the last pass on quit")
+    void shouldCreditOnQuit() {
+        // Given
+        ticker = builder().build();
+        UUID playerId = join();
+        time.advance(Duration.ofSeconds(30));
+
+        // When
+        ticker.onQuit(new PlayerQuitEvent(player(playerId), ""));
+        time.advance(Duration.ofMinutes(1));
+        ticker.tick();
+
+        // Then
+        assertThat(manager.minutes).containsOnlyKeys(playerId);
+        assertThat(manager.minutes.get(playerId)).isEqualTo(0.5);
+    }
+
+    @Test
+    @DisplayName("Should credit the time since the last pass on close")
+    void shouldCreditOnClose() {
+        // Given
+        ticker = builder().build();
+        UUID playerId = join();
+        time.advance(Duration.ofSeconds(45));
+
+        // When
+        ticker.close();
+
+        // Then
+        assertThat(manager.minutes.get(playerId)).isEqualTo(0.75);
+    }
+}
@@ -0,0 +1,217 @@
+package io.github.chi2l3s.nextlib.api.quests;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import io.github.chi2l3s.nextlib.api.quests.objectivies.BlockBreakObjective;
+import io.github.chi2l3s.nextlib.api.quests.objectivies.KillObjective;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("QuestEventBridge Tests")
+class QuestEventBridgeTest {
+
+    private JavaPlugin plugin;
+    private RecordingManager manager;
+    private QuestEventBridge bridge;
+
+    static class RecordingManager extends QuestManager {
+        private final List<String> records = new ArrayList<>();
+
+        RecordingManager() {
+            super(new QuestManagerTest.InMemoryStore());
+        }
+
+        @Override
+        public boolean hasActiveObjective(UUID playerId, QuestObjectiveType type) {
+            return true;
+        }
+
+        @Override
+        public void recordBlockBreak(UUID playerId, Material blockType, int amount) {
+            records.add("break " + playerId + " " + blockType + " " + amount);
+        }
+
+        @Override
+        public void recordKill(UUID playerId, EntityType entityType, boolean playerKill) {
+            records.add("kill " + playerId + " " + entityType);
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, Function<String, Object> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> answers.apply(method.getName());
+                }));
+    }
+
+    private static Player player(UUID playerId) {
+        return proxy(Player.class, name -> name.equals("getUniqueId") ? playerId : null);
+    }
+
+    private static void breakBlock(UUID playerId, Material material) {
+        Block block = proxy(Block.class, name -> name.equals("getType") ? material : null);
+        Bukkit.getPluginManager().callEvent(new BlockBreakEvent(block, player(playerId)));
+    }
+
+    private static void kill(UUID killerId, EntityType type) {
+        Player killer = player(killerId);
+        LivingEntity entity = proxy(LivingEntity.class, name -> switch (name) {
+            case "getKiller" -> killer;
+            case "getType" -> type;
+            default -> null;
+        });
+        Bukkit.getPluginManager().callEvent(new EntityDeathEvent(entity, new ArrayList<>()));
+    }
+
+    private static Quest miner() {
+        return new Quest("miner", "Miner", "Mine stone",
+                List.of(new BlockBreakObjective("stone", "Mine stone", Material.STONE, 100)));
+    }
+
+    private static Quest hunter() {
+        return new Quest("hunter", "Hunter", "Kill zombies",
+                List.of(new KillObjective("zombies", "Kill zombies", EntityType.ZOMBIE, 10)));
+    }
+
+    @BeforeEach
+    void setUp() {
+        MockBukkit.mock();
+        plugin = MockBukkit.createMockPlugin();
+        manager = new RecordingManager();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (bridge != null) {
+            bridge.close();
+        }
+        MockBukkit.unmock();
+    }
+
+    @Test
+    @DisplayName("Should only listen for the objective types of registered quests")
+    void shouldListenForRegisteredTypes() {
+        // Given
+        manager.registerQuest(miner());
+        bridge = QuestEventBridge.builder(plugin, manager).build();
+        UUID playerId = UUID.randomUUID();
+
+        // When
+        breakBlock(playerId, Material.STONE);
+        kill(playerId, EntityType.ZOMBIE);
+
+        // Then
+        assertThat(bridge.getListenedTypes()).containsExactly(QuestObjectiveType.BREAK_BLOCK);
+        assertThat(manager.records).containsExactly("break " + playerId + " STONE 1");
+    }
+
+    @Test
+    @DisplayName("Should register new types on refresh without registering known ones again")
+    void shouldRegisterNewTypesOnRefresh() {
+        // Given
+        manager.registerQuest(miner());
+        bridge = QuestEventBridge.builder(plugin, manager).build();
+        UUID playerId = UUID.randomUUID();
+
+        // When
+        manager.registerQuest(hunter());
+        bridge.refresh();
+        bridge.refresh();
+        breakBlock(playerId, Material.STONE);
+        kill(playerId, EntityType.ZOMBIE);
+
+        // Then
+        assertThat(bridge.getListenedTypes())
+                .containsExactlyInAnyOrder(QuestObjectiveType.BREAK_BLOCK, QuestObjectiveType.KILL_ENTITY);
+        assertThat(manager.records).containsExactly("break " + playerId + " STONE 1", "kill " + playerId + " ZOMBIE");
+    }
+
+    @Test
+    @DisplayName("Should sum batched events per player, type and key until flushed")
+    void shouldSumBatchedEvents() {
+        // Given
+        manager.registerQuest(miner());
+        bridge = QuestEventBridge.builder(plugin, manager).batchInterval(Duration.ofSeconds(1)).build();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            breakBlock(first, Material.STONE);
+        }
+        breakBlock(first, Material.DIRT);
+        breakBlock(second, Material.STONE);
+        breakBlock(second, Material.STONE);
+        List<String> beforeFlush = List.copyOf(manager.records);
+        bridge.flush();
+
+        // Then
+        assertThat(beforeFlush).isEmpty();
+        assertThat(manager.records).containsExactlyInAnyOrder(
+                "break " + first + " STONE 3",
+                "break " + first + " DIRT 1",
+                "break " + second + " STONE 2");
+    }
+
+    @Test
+    @DisplayName("Should dispatch a quitting player's batched events before the session is unloaded")
+    void shouldFlushOnQuit() throws NoSuchMethodException {
+        // Given
+        manager.registerQuest(miner());
+        bridge = QuestEventBridge.builder(plugin, manager).batchInterval(Duration.ofSeconds(1)).build();
+        UUID quitting = UUID.randomUUID();
+        UUID staying = UUID.randomUUID();
+        breakBlock(quitting, Material.STONE);
+        breakBlock(quitting, Material.STONE);
+        breakBlock(staying, Material.STONE);
+
+        // When
+        bridge.onQuit(new PlayerQuitEvent(player(quitting), ""));
+
+        // Then
+        assertThat(manager.records).containsExactly("break " + quitting + " STONE 2");
+        EventHandler bridgeQuit = QuestEventBridge.class.getMethod("onQuit", PlayerQuitEvent.class)
+                .getAnnotation(EventHandler.class);
+        EventHandler sessionQuit = QuestSessionListener.class.getMethod("onQuit", PlayerQuitEvent.class)
+                .getAnnotation(EventHandler.class);
+        assertThat(bridgeQuit.priority().ordinal()).isLessThan(sessionQuit.priority().ordinal());
+    }
+
+    @Test
+    @DisplayName("Should dispatch kills immediately while batching")
+    void shouldNotBatchKills() {
+        // Given
+        manager.registerQuest(hunter());
+        bridge = QuestEventBridge.builder(plugin, manager).batchInterval(Duration.ofSeconds(1)).build();
+        UUID playerId = UUID.randomUUID();
+
+        // When
+        kill(playerId, EntityType.ZOMBIE);
+
+        // Then
+        assertThat(manager.records).containsExactly("kill " + playerId + " ZOMBIE");
+    }
+}
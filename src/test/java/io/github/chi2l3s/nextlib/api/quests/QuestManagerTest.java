@@ -0,0 +1,166 @@
+package io.github.chi2l3s.nextlib.api.quests;
+
+import io.github.chi2l3s.nextlib.api.quests.objectivies.BlockBreakObjective;
+import io.github.chi2l3s.nextlib.api.quests.objectivies.KillObjective;
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("QuestManager Tests")
+class QuestManagerTest {
+
+    private InMemoryStore store;
+    private QuestManager manager;
+
+    static class InMemoryStore implements QuestStore {
+        private final Map<UUID, Map<String, QuestProgress>> saved = new ConcurrentHashMap<>();
+        private CompletableFuture<Void> flushResult = CompletableFuture.completedFuture(null);
+        private int saves;
+
+        @Override
+        public void saveProgress(QuestProgress progress) {
+            saves++;
+            saved.computeIfAbsent(progress.getPlayerId(), ignored -> new ConcurrentHashMap<>())
+                    .put(progress.getQuest().getId(), progress);
+        }
+
+        @Override
+        public Optional<QuestProgress> loadProgress(UUID playerId, Quest quest) {
+            return Optional.ofNullable(saved.getOrDefault(playerId, Map.of()).get(quest.getId()));
+        }
+
+        @Override
+        public List<QuestProgress> loadAll(UUID playerId, Function<String, Optional<Quest>> questResolver) {
+            return new ArrayList<>(saved.getOrDefault(playerId, Map.of()).values());
+        }
+
+        @Override
+        public CompletableFuture<Void> flush(UUID playerId) {
+            return flushResult;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryStore();
+        manager = new QuestManager(store);
+        manager.registerQuest(new Quest("miner", "Miner", "Mine stone", List.of(
+                new BlockBreakObjective("stone", "Mine stone", Material.STONE, 10),
+                new KillObjective("zombies", "Kill zombies", EntityType.ZOMBIE, 5))));
+    }
+
+    @Test
+    @DisplayName("Should advance only matching objectives and save the changed progress")
+    void shouldRecordMatchingEvents() {
+        // Given
+        UUID playerId = UUID.randomUUID();
+        manager.activateQuest(playerId, "miner");
+        int savesBefore = store.saves;
+
+        // When
+        manager.recordBlockBreak(playerId, Material.STONE, 3);
+        manager.recordBlockBreak(playerId, Material.DIRT, 3);
+        manager.recordKill(playerId, EntityType.ZOMBIE, false);
+
+        // Then
+        QuestProgress progress = manager.getActiveProgress(playerId, "miner").orElseThrow();
+        assertThat(progress.getProgress("stone")).isEqualTo(3.0);
+        assertThat(progress.getProgress("zombies")).isEqualTo(1.0);
+        assertThat(store.saves - savesBefore).isEqualTo(2);
+        assertThat(manager.hasActiveObjective(playerId, QuestObjectiveType.BREAK_BLOCK)).isTrue();
+        assertThat(manager.getPlayersWithObjective(QuestObjectiveType.KILL_ENTITY)).containsExactly(playerId);
+    }
+
+    @Test
+    @DisplayName("Should drop a player's state from memory after unload")
+    void shouldUnloadPlayer() {
+        // Given
+        UUID playerId = UUID.randomUUID();
+        manager.activateQuest(playerId, "miner");
+        manager.restorePlayer(playerId);
+
+        // When
+        manager.unloadPlayer(playerId).join();
+
+        // Then
+        assertThat(manager.getResidentPlayerCount()).isZero();
+        assertThat(manager.getResidentProgressCount()).isZero();
+        assertThat(manager.hasActiveObjective(playerId, QuestObjectiveType.BREAK_BLOCK)).isFalse();
+        assertThat(manager.getPlayersWithObjective(QuestObjectiveType.BREAK_BLOCK)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should keep a player who rejoined while the unload flush was running")
+    void shouldKeepPlayerWhoRejoined() {
+        // Given
+        UUID playerId = UUID.randomUUID();
+        manager.activateQuest(playerId, "miner");
+        manager.restorePlayer(playerId);
+        store.flushResult = new CompletableFuture<>();
+        CompletableFuture<Void> unload = manager.unloadPlayer(playerId);
+
+        // When
+        manager.restorePlayer(playerId);
+        store.flushResult.complete(null);
+        unload.join();
+
+        // Then
+        assertThat(manager.getResidentPlayerCount()).isEqualTo(1);
+        assertThat(manager.getResidentProgressCount()).isEqualTo(1);
+        assertThat(manager.hasActiveObjective(playerId, QuestObjectiveType.BREAK_BLOCK)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should evict only offline players idle for longer than the timeout")
+    void shouldEvictIdleOfflinePlayers() throws InterruptedException {
+        // Given
+        UUID offline = UUID.randomUUID();
+        UUID online = UUID.randomUUID();
+        manager.activateQuest(offline, "miner");
+        manager.activateQuest(online, "miner");
+        manager.restorePlayer(online);
+        manager.setIdleTimeout(Duration.ZERO);
+        Thread.sleep(5);
+
+        // When
+        int evicted = manager.evictIdlePlayers();
+
+        // Then
+        assertThat(evicted).isEqualTo(1);
+        assertThat(manager.getResidentPlayerCount()).isEqualTo(1);
+        assertThat(manager.getActiveProgress(offline, "miner")).isEmpty();
+        assertThat(manager.getActiveProgress(online, "miner")).isPresent();
+    }
+
+    @Test
+    @DisplayName("Should restore resident progress instead of the stored copy after a quick rejoin")
+    void shouldPreferResidentProgressOnRestore() {
+        // Given
+        UUID playerId = UUID.randomUUID();
+        manager.activateQuest(playerId, "miner");
+        manager.restorePlayer(playerId);
+        manager.recordBlockBreak(playerId, Material.STONE, 4);
+        store.saved.clear();
+
+        // When
+        manager.restorePlayer(playerId);
+
+        // Then
+        assertThat(manager.getActiveProgress(playerId, "miner")).map(progress -> progress.getProgress("stone"))
+                .contains(4.0);
+    }
+}
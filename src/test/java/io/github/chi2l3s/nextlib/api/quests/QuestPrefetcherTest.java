@@ -0,0 +1,214 @@
+package io.github.chi2l3s.nextlib.api.quests;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("QuestPrefetcher Tests")
+class QuestPrefetcherTest {
+
+    private JavaPlugin plugin;
+    private BulkStore store;
+    private QuestManager manager;
+    private QuestPrefetcher prefetcher;
+
+    static class BulkStore implements QuestStore {
+        private final List<List<UUID>> batches = new CopyOnWriteArrayList<>();
+        private final AtomicInteger singleLoads = new AtomicInteger();
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean blocking;
+
+        @Override
+        public void saveProgress(QuestProgress progress) {
+        }
+
+        @Override
+        public Optional<QuestProgress> loadProgress(UUID playerId, Quest quest) {
+            return Optional.empty();
+        }
+
+        @Override
+        public List<QuestProgress> loadAll(UUID playerId, Function<String, Optional<Quest>> questResolver) {
+            singleLoads.incrementAndGet();
+            return List.of();
+        }
+
+        @Override
+        public Map<UUID, List<QuestProgress>> loadAll(Collection<UUID> playerIds,
+                                                      Function<String, Optional<Quest>> questResolver) {
+            batches.add(new ArrayList<>(playerIds));
+            if (blocking) {
+                try {
+                    release.await();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted", exception);
+                }
+            }
+            Map<UUID, List<QuestProgress>> progress = new HashMap<>();
+            playerIds.forEach(playerId -> progress.put(playerId, List.of()));
+            return progress;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        MockBukkit.mock();
+        plugin = MockBukkit.createMockPlugin();
+        store = new BulkStore();
+        manager = new QuestManager(store);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.release.countDown();
+        if (prefetcher != null) {
+            prefetcher.close();
+        }
+        MockBukkit.unmock();
+    }
+
+    private static AsyncPlayerPreLoginEvent preLogin(UUID playerId) {
+        return new AsyncPlayerPreLoginEvent("player", InetAddress.getLoopbackAddress(), playerId);
+    }
+
+    private Thread login(UUID playerId) {
+        Thread thread = new Thread(() -> prefetcher.onPreLogin(preLogin(playerId)));
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    @DisplayName("Should load logins arriving within the batch window with one bulk read")
+    void shouldBatchLoginsWithinWindow() throws InterruptedException {
+        // Given
+        prefetcher = QuestPrefetcher.builder(plugin, manager)
+                .batchWindow(Duration.ofMillis(500))
+                .build();
+        List<UUID> players = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        // When
+        List<Thread> logins = new ArrayList<>();
+        players.forEach(playerId -> logins.add(login(playerId)));
+        for (Thread thread : logins) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        players.forEach(manager::restorePlayer);
+
+        // Then
+        assertThat(logins).noneMatch(Thread::isAlive);
+        assertThat(store.batches).hasSize(1);
+        assertThat(store.batches.get(0)).containsExactlyInAnyOrderElementsOf(players);
+        assertThat(store.singleLoads).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("Should split a burst of logins by batch size")
+    void shouldSplitByBatchSize() throws InterruptedException {
+        // Given
+        prefetcher = QuestPrefetcher.builder(plugin, manager)
+                .batchWindow(Duration.ofSeconds(30))
+                .batchSize(2)
+                .build();
+
+        // When
+        Thread first = login(UUID.randomUUID());
+        Thread second = login(UUID.randomUUID());
+        first.join(TimeUnit.SECONDS.toMillis(5));
+        second.join(TimeUnit.SECONDS.toMillis(5));
+
+        // Then
+        assertThat(first.isAlive()).isFalse();
+        assertThat(second.isAlive()).isFalse();
+        assertThat(store.batches).hasSize(1);
+        assertThat(store.batches.get(0)).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should let the login continue after the timeout and load on join instead")
+    void shouldFallBackAfterTimeout() {
+        // Given
+        store.blocking = true;
+        prefetcher = QuestPrefetcher.builder(plugin, manager)
+                .batchWindow(Duration.ZERO)
+                .timeout(Duration.ofMillis(100))
+                .build();
+        UUID playerId = UUID.randomUUID();
+
+        // When
+        long start = System.nanoTime();
+        prefetcher.onPreLogin(preLogin(playerId));
+        long elapsed = System.nanoTime() - start;
+        manager.restorePlayer(playerId);
+
+        // Then
+        assertThat(elapsed).isBetween(TimeUnit.MILLISECONDS.toNanos(100), TimeUnit.SECONDS.toNanos(5));
+        assertThat(store.singleLoads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should release waiting logins on close")
+    void shouldReleaseWaitingLoginsOnClose() throws InterruptedException {
+        // Given
+        store.blocking = true;
+        prefetcher = QuestPrefetcher.builder(plugin, manager)
+                .batchWindow(Duration.ZERO)
+                .timeout(Duration.ofMinutes(1))
+                .build();
+        Thread loading = login(UUID.randomUUID());
+        while (store.batches.isEmpty()) {
+            Thread.sleep(5);
+        }
+        Thread queued = login(UUID.randomUUID());
+        Thread.sleep(50);
+
+        // When
+        prefetcher.close();
+        loading.join(TimeUnit.SECONDS.toMillis(5));
+        queued.join(TimeUnit.SECONDS.toMillis(5));
+
+        // Then
+        assertThat(loading.isAlive()).isFalse();
+        assertThat(queued.isAlive()).isFalse();
+        assertThat(store.batches).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should not wait for logins arriving after close")
+    void shouldIgnoreLoginsAfterClose() {
+        // Given
+        prefetcher = QuestPrefetcher.builder(plugin, manager)
+                .timeout(Duration.ofMinutes(1))
+                .build();
+        prefetcher.close();
+
+        // When
+        long start = System.nanoTime();
+        prefetcher.onPreLogin(preLogin(UUID.randomUUID()));
+
+        // Then
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+        assertThat(store.batches).isEmpty();
+    }
+}
@@ -0,0 +1,163 @@
+package io.github.chi2l3s.nextlib.api.quests;
+
+import io.github.chi2l3s.nextlib.api.quests.objectivies.BlockBreakObjective;
+import io.github.chi2l3s.nextlib.api.quests.objectivies.KillObjective;
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("QuestProgress Tests")
+class QuestProgressTest {
+
+    private static final int OBJECTIVES = 130;
+
+    private final Quest quest = largeQuest();
+    private final UUID playerId = UUID.randomUUID();
+
+    @Test
+    @DisplayName("Should track changes of more than 64 objectives in separate bitset words")
+    void shouldTrackChangesBeyondOneWord() {
+        // Given
+        QuestProgress progress = new QuestProgress(quest, playerId, storedZeros());
+
+        // When
+        progress.increment(0, 1);
+        progress.increment(64, 2);
+        progress.increment(129, 3);
+        long[] changed = progress.takeChanged();
+
+        // Then
+        assertThat(changed).containsExactly(1L, 1L, 1L << 1);
+        assertThat(progress.getProgress(64)).isEqualTo(2.0);
+        assertThat(progress.getProgress("objective-129")).isEqualTo(3.0);
+        assertThat(progress.takeChanged()).containsOnly(0L);
+    }
+
+    @Test
+    @DisplayName("Should mark every objective changed when nothing was stored")
+    void shouldMarkNewProgressChanged() {
+        // Given
+        QuestProgress progress = new QuestProgress(quest, playerId);
+
+        // When
+        long[] changed = progress.takeChanged();
+
+        // Then
+        assertThat(changed).containsExactly(-1L, -1L, (1L << 2) - 1);
+    }
+
+    @Test
+    @DisplayName("Should mark only objectives missing from the stored rows changed")
+    void shouldMarkMissingObjectivesChanged() {
+        // Given
+        Map<String, Double> stored = storedZeros();
+        stored.remove("objective-70");
+
+        // When
+        QuestProgress progress = new QuestProgress(quest, playerId, stored);
+
+        // Then
+        assertThat(progress.takeChanged()).containsExactly(0L, 1L << 6, 0L);
+    }
+
+    @Test
+    @DisplayName("Should cap progress at the target and report no change once complete")
+    void shouldCapAtTarget() {
+        // Given
+        QuestProgress progress = new QuestProgress(quest, playerId, storedZeros());
+
+        // When
+        boolean first = progress.increment(100, 50);
+        progress.takeChanged();
+        boolean second = progress.increment(100, 1);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(progress.getProgress(100)).isEqualTo(10.0);
+        assertThat(progress.takeChanged()).containsOnly(0L);
+    }
+
+    @Test
+    @DisplayName("Should restore taken changes after a failed write")
+    void shouldRestoreChanges() {
+        // Given
+        QuestProgress progress = new QuestProgress(quest, playerId, storedZeros());
+        progress.increment(65, 1);
+        long[] taken = progress.takeChanged();
+
+        // When
+        progress.increment(1, 1);
+        progress.restoreChanged(taken);
+
+        // Then
+        assertThat(progress.takeChanged()).containsExactly(1L << 1, 1L << 1, 0L);
+    }
+
+    @Test
+    @DisplayName("Should snapshot progress in objective order")
+    void shouldSnapshotInObjectiveOrder() {
+        // Given
+        QuestProgress progress = new QuestProgress(quest, playerId, Map.of("objective-3", 4.0));
+
+        // When
+        Map<String, Double> snapshot = progress.getAllProgress();
+
+        // Then
+        assertThat(snapshot).hasSize(OBJECTIVES);
+        assertThat(snapshot.keySet()).first().isEqualTo("objective-0");
+        assertThat(snapshot).containsEntry("objective-3", 4.0);
+        assertThatThrownBy(() -> snapshot.put("objective-0", 1.0)).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    @DisplayName("Should apply events only to objectives of the matching type and target")
+    void shouldApplyMatchingEvents() {
+        // Given
+        Quest mixed = new Quest("mixed", "Mixed", "Mine and fight", List.of(
+                new BlockBreakObjective("stone", "Mine stone", Material.STONE, 10),
+                new KillObjective("zombies", "Kill zombies", EntityType.ZOMBIE, 5)));
+        QuestProgress progress = new QuestProgress(mixed, playerId);
+
+        // When
+        boolean stone = progress.applyBlockBreak(Material.STONE, 2);
+        boolean dirt = progress.applyBlockBreak(Material.DIRT, 2);
+        boolean placed = progress.applyBlockPlace(Material.STONE, 2);
+        boolean zombie = progress.applyKill(EntityType.ZOMBIE, false);
+        boolean cow = progress.applyKill(EntityType.COW, false);
+
+        // Then
+        assertThat(stone).isTrue();
+        assertThat(dirt).isFalse();
+        assertThat(placed).isFalse();
+        assertThat(zombie).isTrue();
+        assertThat(cow).isFalse();
+        assertThat(progress.getProgress("stone")).isEqualTo(2.0);
+        assertThat(progress.getProgress("zombies")).isEqualTo(1.0);
+    }
+
+    private static Quest largeQuest() {
+        List<QuestObjective> objectives = new ArrayList<>();
+        for (int i = 0; i < OBJECTIVES; i++) {
+            objectives.add(new BlockBreakObjective("objective-" + i, "Objective " + i, Material.STONE, 10));
+        }
+        return new Quest("large", "Large", "Many objectives", objectives);
+    }
+
+    private Map<String, Double> storedZeros() {
+        Map<String, Double> stored = new HashMap<>();
+        for (QuestObjective objective : quest.getObjectives()) {
+            stored.put(objective.getId(), 0.0);
+        }
+        return stored;
+    }
+}
@@ -0,0 +1,300 @@
+package io.github.chi2l3s.nextlib.api.quests;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("TravelTracker Tests")
+class TravelTrackerTest {
+
+    private RecordingManager manager;
+    private TravelTracker tracker;
+    private World overworld;
+    private World nether;
+
+    static class RecordingManager extends QuestManager {
+        private final Map<UUID, Double> travelled = new HashMap<>();
+        private int calls;
+
+        RecordingManager() {
+            super(new QuestManagerTest.InMemoryStore());
+        }
+
+        @Override
+        public void recordTravel(UUID playerId, double meters) {
+            calls++;
+            travelled.merge(playerId, meters, Double::sum);
+        }
+    }
+
+    static class TestPlayer {
+        private final int entityId;
+        private final UUID playerId = UUID.randomUUID();
+        private boolean riding;
+        private final Player player;
+
+        TestPlayer(int entityId) {
+            this.entityId = entityId;
+            this.player = (Player) Proxy.newProxyInstance(Player.class.getClassLoader(), new Class<?>[]{Player.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "getEntityId" -> this.entityId;
+                        case "getUniqueId" -> playerId;
+                        case "isInsideVehicle" -> riding;
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        default -> null;
+                    });
+        }
+    }
+
+    private static World world(String name) {
+        return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[]{World.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getName" -> name;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    /**
+     * Finds entity ids whose home slot in a table of the given capacity is {@code home}.
+     */
+    private static List<Integer> idsWithHome(int home, int capacity, int count, int from) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = from; ids.size() < count; id++) {
+            if ((TravelTracker.PlayerTable.mix(id) & (capacity - 1)) == home) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    @BeforeEach
+    void setUp() {
+        MockBukkit.mock();
+        manager = new RecordingManager();
+        overworld = world("world");
+        nether = world("world_nether");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (tracker != null) {
+            tracker.close();
+        }
+        MockBukkit.unmock();
+    }
+
+    private void build(TravelTracker.Builder builder) {
+        tracker = builder.build();
+    }
+
+    private TravelTracker.Builder builder() {
+        return TravelTracker.builder(MockBukkit.createMockPlugin(), manager);
+    }
+
+    private void move(TestPlayer player, World world, double x) {
+        Location to = new Location(world, x, 64, 0);
+        tracker.onMove(new PlayerMoveEvent(player.player, to, to));
+    }
+
+    @Test
+    @DisplayName("Should find and remove players whose probe run wraps around the table end")
+    void shouldProbeAcrossWrapAround() {
+        // Given
+        TravelTracker.PlayerTable table = new TravelTracker.PlayerTable();
+        List<TestPlayer> players = new ArrayList<>();
+        idsWithHome(63, 64, 3, 1).forEach(id -> players.add(new TestPlayer(id)));
+        List<Integer> slots = new ArrayList<>();
+        for (int i = 0; i < players.size(); i++) {
+            int slot = table.slotOf(players.get(i).player);
+            table.pending[slot] = i + 1;
+            slots.add(slot);
+        }
+
+        // When
+        double removed = table.remove(players.get(0).entityId);
+
+        // Then
+        assertThat(slots).containsExactly(63, 0, 1);
+        assertThat(removed).isEqualTo(1);
+        assertThat(table.pending[table.slotOf(players.get(1).player)]).isEqualTo(2);
+        assertThat(table.pending[table.slotOf(players.get(2).player)]).isEqualTo(3);
+        assertThat(table.size).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should shift later entries back when a player in the middle of a probe run is removed")
+    void shouldShiftProbeRunOnRemove() {
+        // Given
+        TravelTracker.PlayerTable table = new TravelTracker.PlayerTable();
+        List<Integer> sameHome = idsWithHome(10, 64, 2, 1);
+        TestPlayer first = new TestPlayer(sameHome.get(0));
+        TestPlayer second = new TestPlayer(sameHome.get(1));
+        TestPlayer neighbour = new TestPlayer(idsWithHome(11, 64, 1, 1).get(0));
+        table.pending[table.slotOf(first.player)] = 1;
+        table.pending[table.slotOf(second.player)] = 2;
+        table.pending[table.slotOf(neighbour.player)] = 3;
+
+        // When
+        double removed = table.remove(second.entityId);
+
+        // Then
+        assertThat(removed).isEqualTo(2);
+        assertThat(table.slotOf(first.player)).isEqualTo(10);
+        assertThat(table.slotOf(neighbour.player)).isEqualTo(11);
+        assertThat(table.pending[11]).isEqualTo(3);
+        assertThat(table.remove(second.entityId)).isZero();
+        assertThat(table.size).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should keep pending distance when the table grows")
+    void shouldKeepPendingWhenGrowing() {
+        // Given
+        TravelTracker.PlayerTable table = new TravelTracker.PlayerTable();
+        List<TestPlayer> players = new ArrayList<>();
+        for (int id = 1; id <= 100; id++) {
+            TestPlayer player = new TestPlayer(id);
+            players.add(player);
+            int slot = table.slotOf(player.player);
+            table.pending[slot] = id;
+        }
+
+        // When & Then
+        assertThat(table.entityIds.length).isGreaterThan(64);
+        assertThat(table.size).isEqualTo(100);
+        for (TestPlayer player : players) {
+            assertThat(table.remove(player.entityId)).isEqualTo(player.entityId);
+        }
+        assertThat(table.size).isZero();
+    }
+
+    @Test
+    @DisplayName("Should count a move only once it reaches the minimum step from the anchor")
+    void shouldCountMovesFromMinStep() {
+        // Given
+        build(builder().minStep(1.0));
+        TestPlayer player = new TestPlayer(1);
+        move(player, overworld, 0);
+
+        // When
+        move(player, overworld, 0.5);
+        move(player, overworld, 0.9);
+        tracker.flush();
+        int callsBeforeStep = manager.calls;
+        move(player, overworld, 1.5);
+        tracker.flush();
+
+        // Then
+        assertThat(callsBeforeStep).isZero();
+        assertThat(manager.travelled.get(player.playerId)).isEqualTo(1.5);
+    }
+
+    @Test
+    @DisplayName("Should treat moves longer than the maximum step as teleports")
+    void shouldSkipMovesOverMaxStep() {
+        // Given
+        build(builder().maxStep(10.0));
+        TestPlayer player = new TestPlayer(1);
+        move(player, overworld, 0);
+
+        // When
+        move(player, overworld, 50);
+        move(player, overworld, 53);
+        tracker.flush();
+
+        // Then
+        assertThat(manager.travelled.get(player.playerId)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should only move the anchor when the player changes world")
+    void shouldReanchorOnWorldChange() {
+        // Given
+        build(builder());
+        TestPlayer player = new TestPlayer(1);
+        move(player, overworld, 0);
+
+        // When
+        move(player, nether, 2);
+        move(player, nether, 4);
+        tracker.flush();
+
+        // Then
+        assertThat(manager.travelled.get(player.playerId)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should ignore moves inside a vehicle unless vehicles are counted")
+    void shouldHandleVehicles() {
+        // Given
+        build(builder());
+        TestPlayer walker = new TestPlayer(1);
+        TestPlayer rider = new TestPlayer(2);
+        rider.riding = true;
+        move(walker, overworld, 0);
+        move(rider, overworld, 0);
+
+        // When
+        move(walker, overworld, 5);
+        move(rider, overworld, 5);
+        tracker.flush();
+
+        // Then
+        assertThat(manager.travelled).containsOnlyKeys(walker.playerId);
+        assertThat(manager.travelled.get(walker.playerId)).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should count moves inside a vehicle when enabled")
+    void shouldCountVehiclesWhenEnabled() {
+        // Given
+        build(builder().countVehicles(true));
+        TestPlayer rider = new TestPlayer(1);
+        rider.riding = true;
+        move(rider, overworld, 0);
+
+        // When
+        move(rider, overworld, 5);
+        tracker.flush();
+
+        // Then
+        assertThat(manager.travelled.get(rider.playerId)).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should credit pending distance on quit")
+    void shouldCreditOnQuit() {
+        // Given
+        build(builder());
+        TestPlayer player = new TestPlayer(1);
+        move(player, overworld, 0);
+        move(player, overworld, 4);
+
+        // When
+        tracker.onQuit(new PlayerQuitEvent(player.player, ""));
+        tracker.flush();
+
+        // Then
+        assertThat(manager.travelled.get(player.playerId)).isEqualTo(4);
+        assertThat(manager.calls).isEqualTo(1);
+    }
+}
@@ -0,0 +1,168 @@
+package io.github.chi2l3s.nextlib.api.quests;
+
+import io.github.chi2l3s.nextlib.api.database.DatabaseException;
+import io.github.chi2l3s.nextlib.api.quests.objectivies.BlockBreakObjective;
+import org.bukkit.Material;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("WriteBehindQuestStore Tests")
+class WriteBehindQuestStoreTest {
+
+    private RecordingStore delegate;
+    private WriteBehindQuestStore store;
+    private Quest quest;
+
+    static class RecordingStore implements QuestStore {
+        private final List<List<QuestProgress>> batches = new CopyOnWriteArrayList<>();
+        private volatile boolean failing;
+
+        @Override
+        public void saveProgress(QuestProgress progress) {
+            saveAll(List.of(progress));
+        }
+
+        @Override
+        public void saveAll(Collection<QuestProgress> progress) {
+            if (failing) {
+                throw new DatabaseException("Database is down");
+            }
+            batches.add(new ArrayList<>(progress));
+        }
+
+        @Override
+        public Optional<QuestProgress> loadProgress(UUID playerId, Quest quest) {
+            return Optional.empty();
+        }
+
+        @Override
+        public List<QuestProgress> loadAll(UUID playerId, Function<String, Optional<Quest>> questResolver) {
+            return List.of();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        delegate = new RecordingStore();
+        store = WriteBehindQuestStore.builder(delegate)
+                .flushInterval(Duration.ofHours(1))
+                .build();
+        quest = new Quest("miner", "Miner", "Mine stone",
+                List.of(new BlockBreakObjective("stone", "Mine stone", Material.STONE, 100)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Should coalesce repeated saves of one progress into a single write")
+    void shouldCoalesceSaves() {
+        // Given
+        QuestProgress progress = new QuestProgress(quest, UUID.randomUUID());
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            progress.increment(0, 1);
+            store.saveProgress(progress);
+        }
+        int queuedBeforeFlush = store.getQueueDepth();
+        store.flush().join();
+
+        // Then
+        assertThat(queuedBeforeFlush).isEqualTo(1);
+        assertThat(delegate.batches).singleElement().satisfies(batch -> assertThat(batch).containsExactly(progress));
+        assertThat(store.getQueueDepth()).isZero();
+        assertThat(store.getWrittenCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep a failed batch queued and write it on the next flush")
+    void shouldRetryFailedBatch() {
+        // Given
+        QuestProgress progress = new QuestProgress(quest, UUID.randomUUID());
+        progress.increment(0, 5);
+        store.saveProgress(progress);
+        delegate.failing = true;
+
+        // When
+        store.flush().join();
+
+        // Then
+        assertThat(store.getFailedFlushCount()).isEqualTo(1);
+        assertThat(store.getQueueDepth()).isEqualTo(1);
+        assertThat(delegate.batches).isEmpty();
+
+        // When
+        delegate.failing = false;
+        store.flush().join();
+
+        // Then
+        assertThat(delegate.batches).singleElement().satisfies(batch -> assertThat(batch).containsExactly(progress));
+        assertThat(store.getQueueDepth()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should flush only the pending entries of one player")
+    void shouldFlushOnePlayer() {
+        // Given
+        QuestProgress first = new QuestProgress(quest, UUID.randomUUID());
+        QuestProgress second = new QuestProgress(quest, UUID.randomUUID());
+        store.saveProgress(first);
+        store.saveProgress(second);
+
+        // When
+        store.flush(first.getPlayerId()).join();
+
+        // Then
+        assertThat(delegate.batches).singleElement().satisfies(batch -> assertThat(batch).containsExactly(first));
+        assertThat(store.getQueueDepth()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should return queued progress instead of the stored copy")
+    void shouldLoadQueuedProgress() {
+        // Given
+        QuestProgress progress = new QuestProgress(quest, UUID.randomUUID());
+        progress.increment(0, 7);
+        store.saveProgress(progress);
+
+        // When
+        Optional<QuestProgress> loaded = store.loadProgress(progress.getPlayerId(), quest);
+        List<QuestProgress> all = store.loadAll(progress.getPlayerId(), id -> Optional.of(quest));
+
+        // Then
+        assertThat(loaded).containsSame(progress);
+        assertThat(all).containsExactly(progress);
+    }
+
+    @Test
+    @DisplayName("Should write pending entries on close and write through afterwards")
+    void shouldWritePendingOnClose() {
+        // Given
+        QuestProgress progress = new QuestProgress(quest, UUID.randomUUID());
+        store.saveProgress(progress);
+
+        // When
+        store.close();
+        store.saveProgress(progress);
+
+        // Then
+        assertThat(delegate.batches).hasSize(2);
+        assertThat(store.getQueueDepth()).isZero();
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.chi2l3s.nextlib.api.quests.objectivies;
+
+import io.github.chi2l3s.nextlib.api.quests.QuestObjectiveType;
+import org.bukkit.Material;
+import org.bukkit.Tag;
+import org.bukkit.entity.EntityType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("MultiTargetObjective Tests")
+class MultiTargetObjectiveTest {
+
+    @Test
+    @DisplayName("Should match every material of the set and report it as dispatch keys")
+    void shouldMatchMaterialSet() {
+        // Given
+        MultiTargetObjective ores = MultiTargetObjective.builder("ores", QuestObjectiveType.BREAK_BLOCK)
+                .materials(material -> material.name().endsWith("_ORE"))
+                .amount(64)
+                .build();
+
+        // When / Then
+        assertThat(ores.matchesBlockBreak(Material.DIAMOND_ORE)).isTrue();
+        assertThat(ores.matchesBlockBreak(Material.IRON_ORE)).isTrue();
+        assertThat(ores.matchesBlockBreak(Material.STONE)).isFalse();
+        assertThat(ores.matchesBlockBreak(null)).isFalse();
+        assertThat(ores.matchesBlockPlace(Material.DIAMOND_ORE)).isFalse();
+        assertThat(List.<Object>copyOf(ores.getDispatchKeys()))
+                .contains(Material.DIAMOND_ORE, Material.IRON_ORE, Material.COAL_ORE)
+                .doesNotContain(Material.STONE);
+        assertThat(ores.getTargetAmount()).isEqualTo(64.0);
+    }
+
+    @Test
+    @DisplayName("Should combine cumulative target calls")
+    void shouldCombineTargets() {
+        // Given
+        MultiTargetObjective blocks = MultiTargetObjective.builder("blocks", QuestObjectiveType.PLACE_BLOCK)
+                .materials(Material.STONE)
+                .materials(List.of(Material.DIRT, Material.OAK_LOG))
+                .build();
+
+        // When / Then
+        assertThat(blocks.matchesBlockPlace(Material.STONE)).isTrue();
+        assertThat(blocks.matchesBlockPlace(Material.OAK_LOG)).isTrue();
+        assertThat(blocks.matchesBlockPlace(Material.DIAMOND_ORE)).isFalse();
+        assertThat(blocks.getMaterials().getMaterials())
+                .containsExactlyInAnyOrder(Material.STONE, Material.DIRT, Material.OAK_LOG);
+    }
+
+    @Test
+    @DisplayName("Should count kills by entity type and killer kind")
+    void shouldMatchKills() {
+        // Given
+        MultiTargetObjective undead = MultiTargetObjective.builder("undead", QuestObjectiveType.KILL_ENTITY)
+                .entityTypes(EntityType.ZOMBIE, EntityType.SKELETON)
+                .countPlayers(false)
+                .build();
+
+        // When / Then
+        assertThat(undead.matchesKill(EntityType.ZOMBIE, false)).isTrue();
+        assertThat(undead.matchesKill(EntityType.SKELETON, false)).isTrue();
+        assertThat(undead.matchesKill(EntityType.COW, false)).isFalse();
+        assertThat(undead.matchesKill(EntityType.ZOMBIE, true)).isFalse();
+        assertThat(undead.matchesBreed(EntityType.ZOMBIE)).isFalse();
+        assertThat(List.<Object>copyOf(undead.getDispatchKeys()))
+                .containsExactlyInAnyOrder(EntityType.ZOMBIE, EntityType.SKELETON);
+    }
+
+    @Test
+    @DisplayName("Should accept any target and dispatch as a wildcard without targets")
+    void shouldAcceptAnyTargetByDefault() {
+        // Given
+        MultiTargetObjective fish = MultiTargetObjective.builder("fish", QuestObjectiveType.FISH).build();
+
+        // When / Then
+        assertThat(fish.getMaterials().isAny()).isTrue();
+        assertThat(fish.matchesFish(Material.COD)).isTrue();
+        assertThat(fish.matchesFish(null)).isTrue();
+        assertThat(fish.getDispatchKeys()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should count an empty catch only for objectives accepting any catch")
+    void shouldIgnoreEmptyCatchForSpecificFish() {
+        // Given
+        MultiTargetObjective cod = MultiTargetObjective.builder("cod", QuestObjectiveType.FISH)
+                .materials(Material.COD)
+                .build();
+
+        // When / Then
+        assertThat(cod.matchesFish(Material.COD)).isTrue();
+        assertThat(cod.matchesFish(null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should dispatch target sets above the key limit as wildcards")
+    void shouldDispatchLargeSetsAsWildcard() {
+        // Given
+        EnumSet<Material> all = EnumSet.allOf(Material.class);
+        MultiTargetObjective objective = MultiTargetObjective.builder("all", QuestObjectiveType.CRAFT_ITEM)
+                .materials(all)
+                .build();
+
+        // When / Then
+        assertThat(objective.matchesCraft(Material.BREAD)).isTrue();
+        assertThat(all).hasSizeGreaterThan(MultiTargetObjective.MAX_DISPATCH_KEYS);
+        assertThat(objective.getDispatchKeys()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject targets that do not fit the objective type")
+    void shouldRejectMismatchedTargets() {
+        // When / Then
+        assertThatThrownBy(() -> MultiTargetObjective.builder("play", QuestObjectiveType.PLAY_TIME))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MultiTargetObjective.builder("kill", QuestObjectiveType.KILL_ENTITY)
+                .materials(Material.STONE))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> MultiTargetObjective.builder("mine", QuestObjectiveType.BREAK_BLOCK).amount(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should reject targets that match nothing")
+    @SuppressWarnings("unchecked")
+    void shouldRejectEmptyTargets() {
+        // Given
+        Tag<Material> emptyTag = (Tag<Material>) Proxy.newProxyInstance(Tag.class.getClassLoader(),
+                new Class<?>[]{Tag.class},
+                (proxy, method, args) -> method.getName().equals("getValues") ? Set.of() : null);
+        MultiTargetObjective.Builder blocks = MultiTargetObjective.builder("blocks", QuestObjectiveType.BREAK_BLOCK);
+        MultiTargetObjective.Builder kills = MultiTargetObjective.builder("kills", QuestObjectiveType.KILL_ENTITY);
+
+        // When & Then
+        assertThatThrownBy(() -> blocks.materials(List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> blocks.materials(emptyTag))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("has no materials");
+        assertThatThrownBy(() -> blocks.materials(material -> false))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> kills.entityTypes(List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> kills.entityTypes(entityType -> false))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(blocks.build().getMaterials().isAny()).isTrue();
+    }
+}